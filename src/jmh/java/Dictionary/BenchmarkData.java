@@ -0,0 +1,63 @@
+package Dictionary;
+
+/**
+ * Синтетические данные для бенчмарков: словарь из {@code wordCount} слов, равномерно
+ * распределённых по {@code langCount} языкам, в котором каждое слово переведено
+ * следующим за ним словом (на следующем языке).
+ * @author yaros
+ */
+final class BenchmarkData {
+    
+    /** Размер пакета при загрузке переводов. */
+    private static final int BATCH_SIZE = 4096;
+    
+    /** Языки словаря. */
+    final Lang[] langs;
+    
+    /** Словарь. */
+    final Dictionary dictionary;
+    
+    /**
+     * Строит словарь.
+     * @param wordCount количество слов.
+     * @param langCount количество языков.
+     * @param store хранилище слов: {@code "hash"} или {@code "compact"}.
+     */
+    BenchmarkData(int wordCount, int langCount, String store) {
+        langs = new Lang[langCount];
+        for (int i = 0; i < langCount; i++) {
+            langs[i] = new Lang("l" + i, "Lang " + i).intern();
+        }
+        
+        dictionary = "compact".equals(store) ? Dictionary.compact(langs[0]) : new Dictionary(langs[0]);
+        for (Lang lang : langs) {
+            dictionary.addLang(lang);
+        }
+        
+        Word[] words = new Word[BATCH_SIZE];
+        Word[] translations = new Word[BATCH_SIZE];
+        boolean[] results = new boolean[BATCH_SIZE];
+        int count = 0;
+        for (int i = 0; i + 1 < wordCount; i += 2) {
+            words[count] = word(i);
+            translations[count] = word(i + 1);
+            if (++count == BATCH_SIZE) {
+                dictionary.importTranslations(words, translations, count, results);
+                count = 0;
+            }
+        }
+        dictionary.importTranslations(words, translations, count, results);
+        if (wordCount % 2 == 1)
+            dictionary.addWord(word(wordCount - 1));
+    }
+    
+    /**
+     * Возвращает слово с номером {@code i}: текст {@code "w" + i} на языке {@code i % langCount}.
+     * @param i номер слова.
+     * @return слово.
+     */
+    Word word(int i) {
+        return new Word("w" + i, langs[i % langs.length]);
+    }
+
+}
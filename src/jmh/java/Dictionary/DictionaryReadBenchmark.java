@@ -0,0 +1,81 @@
+package Dictionary;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Бенчмарки чтения словаря: построение таблиц и списков слов, поиск языка по коду
+ * и перебор таблицы словаря.
+ * @author yaros
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class DictionaryReadBenchmark {
+    
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int wordCount;
+    
+    @Param({"2", "16", "128"})
+    int langCount;
+    
+    @Param({"hash", "compact"})
+    String store;
+    
+    /** Данные бенчмарка. */
+    private BenchmarkData data;
+    
+    /** Список языков словаря. */
+    private LangSet langSet;
+    
+    /** Таблица словаря первых двух языков для бенчмарка перебора. */
+    private DictionaryTable table;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchmarkData(wordCount, langCount, store);
+        langSet = data.dictionary.getLangs();
+        table = data.dictionary.buildDictionary(data.langs[0], data.langs[1 % langCount]);
+    }
+    
+    @Benchmark
+    public DictionaryTable buildDictionary() {
+        return data.dictionary.buildDictionary(data.langs[0], data.langs[1 % langCount]);
+    }
+    
+    @Benchmark
+    public Object biuldWordsSetByLang() {
+        return data.dictionary.biuldWordsSetByLang(data.langs[0]);
+    }
+    
+    @Benchmark
+    public Lang getLangByCode() {
+        return langSet.getLangByCode("l" + ThreadLocalRandom.current().nextInt(langCount));
+    }
+    
+    @Benchmark
+    public void tableIteration(Blackhole bh) {
+        table.forEach((w, translations) -> {
+            for (Word tr : translations) {
+                bh.consume(tr);
+            }
+        });
+    }
+
+}
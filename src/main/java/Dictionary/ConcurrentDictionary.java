@@ -0,0 +1,362 @@
+package Dictionary;
+
+import java.util.BitSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Потокобезопасный словарь. Хранит слова в {@link HashWordStore#concurrent}, поэтому чтение
+ * ({@link Dictionary#buildDictionary}, {@link Dictionary#biuldWordsSetByLang}) выполняется
+ * без блокировок.<p>
+ * Изменения слов защищены полосатыми блокировками: слово соответствует одной из блокировок
+ * {@link ConcurrentDictionary#stripes} по своему хэш-коду. {@link ConcurrentDictionary#addTranslation}
+ * захватывает блокировки обоих слов, {@link ConcurrentDictionary#removeWord} - блокировки слова
+ * и всех его переводов, поэтому каждый перевод всегда хранится в обе стороны. Блокировки
+ * захватываются в порядке возрастания номеров, что исключает взаимную блокировку.
+ * {@link ConcurrentDictionary#removeLang} и применение пакета изменений ({@link DictionaryBatch})
+ * выполняются монопольно, поэтому пакет не перемежается с другими изменениями; чтение без
+ * блокировок при этом может видеть часть изменений пакета, пока он применяется.<p>
+ * {@link ConcurrentDictionary#removeLangLazily} удаляет язык монопольно только из списка языков,
+ * а слова языка удаляет в фоновом потоке по одному под блокировками слова и его переводов,
+ * не останавливая другие изменения.<p>
+ * {@link ConcurrentDictionary#exclusive} останавливает изменения на время действия, например
+ * записи словаря в файл ({@link Dictionary#save}, {@link DictionaryJournal#compact}).
+ * @author yaros
+ */
+public class ConcurrentDictionary extends Dictionary {
+    
+    /** Полосатые блокировки слов. Количество блокировок - степень двойки. */
+    private final ReentrantLock[] stripes;
+    
+    /**
+     * Блокировка списка языков: изменения слов захватывают её на чтение,
+     * удаление языка - на запись.
+     */
+    private final ReentrantReadWriteLock langsLock = new ReentrantReadWriteLock();
+    
+    /** Фоновые удаления слов языков, удалённых {@link ConcurrentDictionary#removeLangLazily}. */
+    private final ConcurrentHashMap<Lang, CompletableFuture<Void>> purges = new ConcurrentHashMap<>();
+    
+    /**
+     * Конструктор словаря, устанавливающий канонический экземпляр ({@link Lang#intern}) языка {@code lang}
+     * в качестве первого языка словаря.
+     * Количество блокировок выбирается по количеству доступных процессоров.
+     * @param lang язык.
+     */
+    ConcurrentDictionary(Lang lang) {
+        this(lang, 16 * Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Конструктор словаря, создающий новый язык с кодом {@code langCode} и названием {@code langTitle}
+     * и устанавливающий его в качестве первого языка словаря.
+     * @param langCode код языка.
+     * @param langTitle название языка.
+     */
+    ConcurrentDictionary(String langCode, String langTitle) {
+        this(new Lang(langCode, langTitle));
+    }
+    
+    /**
+     * Конструктор словаря, устанавливающий канонический экземпляр ({@link Lang#intern}) языка {@code lang}
+     * в качестве первого языка словаря и использующий не менее {@code concurrencyLevel} блокировок слов.
+     * @param lang язык.
+     * @param concurrencyLevel желаемое количество блокировок слов.
+     */
+    ConcurrentDictionary(Lang lang, int concurrencyLevel) {
+        super(lang, HashWordStore.concurrent());
+        
+        int size = 1;
+        while (size < concurrencyLevel && size < (1 << 16))
+            size <<= 1;
+        
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+    
+    /**
+     * Возвращает номер блокировки слова {@code word}.
+     * @param word слово.
+     * @return номер блокировки в {@link ConcurrentDictionary#stripes}.
+     */
+    private int stripeOf(Word word) {
+        int h = word.hashCode();
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+    
+    /**
+     * Захватывает блокировки с номерами из {@code indexes} в порядке возрастания.
+     * @param indexes номера блокировок.
+     */
+    private void lockAll(BitSet indexes) {
+        for (int i = indexes.nextSetBit(0); i >= 0; i = indexes.nextSetBit(i + 1)) {
+            stripes[i].lock();
+        }
+    }
+    
+    /**
+     * Освобождает блокировки с номерами из {@code indexes}.
+     * @param indexes номера блокировок.
+     */
+    private void unlockAll(BitSet indexes) {
+        for (int i = indexes.nextSetBit(0); i >= 0; i = indexes.nextSetBit(i + 1)) {
+            stripes[i].unlock();
+        }
+    }
+    
+    /**
+     * Захватывает блокировку слова {@code word} и блокировки всех его переводов.
+     * Пока блокировки удерживаются, список переводов слова не может измениться.
+     * @param word слово.
+     * @return номера захваченных блокировок;<br>
+     * {@code null}, если слова {@code word} нет в словаре (блокировки не захватываются).
+     */
+    private BitSet lockWithTranslations(Word word) {
+        return lockWithTranslations(word, false);
+    }
+    
+    /**
+     * Захватывает блокировку слова {@code word} и блокировки всех его переводов.
+     * @param word слово.
+     * @param stored {@code true} - учитывать и переводы на языки, удалённые {@link ConcurrentDictionary#removeLangLazily}.
+     * @return номера захваченных блокировок;<br>
+     * {@code null}, если слова {@code word} нет в словаре (блокировки не захватываются).
+     */
+    private BitSet lockWithTranslations(Word word, boolean stored) {
+        while (true) {
+            BitSet indexes = new BitSet(stripes.length);
+            indexes.set(stripeOf(word));
+            
+            Set<Word> translations = stored ? getStoredTranslations(word) : getTranslations(word);
+            if (translations == null)
+                return null;
+            for (Word w : translations) {
+                indexes.set(stripeOf(w));
+            }
+            
+            lockAll(indexes);
+            
+            translations = stored ? getStoredTranslations(word) : getTranslations(word);
+            if (translations == null) {
+                unlockAll(indexes);
+                return null;
+            }
+            
+            boolean covered = true;
+            for (Word w : translations) {
+                if (!indexes.get(stripeOf(w))) {
+                    covered = false;
+                    break;
+                }
+            }
+            if (covered)
+                return indexes;
+            
+            unlockAll(indexes);
+        }
+    }
+    
+    @Override
+    public boolean addWord(Word word) {
+        if (word == null)
+            return false;
+        
+        langsLock.readLock().lock();
+        ReentrantLock lock = stripes[stripeOf(word)];
+        lock.lock();
+        try {
+            return super.addWord(word);
+        } finally {
+            lock.unlock();
+            langsLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public boolean removeWord(Word word) {
+        if (word == null)
+            return false;
+        
+        langsLock.readLock().lock();
+        try {
+            BitSet indexes = lockWithTranslations(word);
+            if (indexes == null)
+                return false;
+            
+            try {
+                return super.removeWord(word);
+            } finally {
+                unlockAll(indexes);
+            }
+        } finally {
+            langsLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public boolean addTranslation(Word word, Word translationWord) {
+        if (word == null || translationWord == null)
+            return false;
+        
+        BitSet indexes = new BitSet(stripes.length);
+        indexes.set(stripeOf(word));
+        indexes.set(stripeOf(translationWord));
+        
+        langsLock.readLock().lock();
+        lockAll(indexes);
+        try {
+            return super.addTranslation(word, translationWord);
+        } finally {
+            unlockAll(indexes);
+            langsLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    boolean importTranslation(Word word, Word translationWord) {
+        BitSet indexes = new BitSet(stripes.length);
+        indexes.set(stripeOf(word));
+        indexes.set(stripeOf(translationWord));
+        
+        langsLock.readLock().lock();
+        lockAll(indexes);
+        try {
+            return super.importTranslation(word, translationWord);
+        } finally {
+            unlockAll(indexes);
+            langsLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    void importTranslations(Word[] words, Word[] translations, int count, boolean[] results) {
+        langsLock.readLock().lock();
+        try {
+            super.importTranslations(words, translations, count, results);
+        } finally {
+            langsLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}<br>
+     * Пакет проверяется и применяется монопольно, как {@link ConcurrentDictionary#removeLang}.
+     */
+    @Override
+    boolean applyBatch(DictionaryBatch batch) {
+        langsLock.writeLock().lock();
+        try {
+            return super.applyBatch(batch);
+        } finally {
+            langsLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}<br>
+     * Если слова языка ещё удаляются в фоновом потоке, дожидается окончания удаления.
+     * Язык добавляется монопольно, как {@link ConcurrentDictionary#removeLang}.
+     */
+    @Override
+    public boolean addLang(Lang lang) {
+        if (lang != null) {
+            CompletableFuture<Void> purge = purges.remove(lang.intern());
+            if (purge != null)
+                purge.join();
+        }
+        
+        langsLock.writeLock().lock();
+        try {
+            return super.addLang(lang);
+        } finally {
+            langsLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}<br>
+     * Действие выполняется монопольно, как {@link ConcurrentDictionary#removeLang}: изменения
+     * других потоков дожидаются его окончания. Не должно вызываться из {@link DictionaryListener}.
+     */
+    @Override
+    public void exclusive(Runnable action) {
+        langsLock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            langsLock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public boolean removeLang(Lang lang) {
+        langsLock.writeLock().lock();
+        try {
+            return super.removeLang(lang);
+        } finally {
+            langsLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}<br>
+     * Язык удаляется из списка языков монопольно, а его слова удаляются в фоновом потоке
+     * общего пула {@link java.util.concurrent.ForkJoinPool#commonPool}.
+     */
+    @Override
+    public boolean removeLangLazily(Lang lang) {
+        langsLock.writeLock().lock();
+        try {
+            if (!super.removeLangLazily(lang))
+                return false;
+            
+            Lang removed = lang.intern();
+            purges.put(removed, CompletableFuture.runAsync(() -> purgeRemovedLang(removed)));
+            return true;
+        } finally {
+            langsLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}<br>
+     * Слова удаляются по одному под блокировками слова и его переводов, поэтому другие
+     * изменения словаря выполняются одновременно с удалением. Перед удалением каждого слова
+     * проверяется, что язык всё ещё удалён: если язык снова добавлен, удаление прекращается.
+     */
+    @Override
+    void purgeRemovedLang(Lang lang) {
+        for (Word w : getStoredWords(lang)) {
+            langsLock.readLock().lock();
+            try {
+                if (!isRemovedLang(lang))
+                    return;
+                
+                BitSet indexes = lockWithTranslations(w, true);
+                if (indexes == null)
+                    continue;
+                
+                try {
+                    purgeWord(w);
+                } finally {
+                    unlockAll(indexes);
+                }
+            } finally {
+                langsLock.readLock().unlock();
+            }
+        }
+        
+        langsLock.readLock().lock();
+        try {
+            super.purgeRemovedLang(lang);
+        } finally {
+            langsLock.readLock().unlock();
+        }
+    }
+
+}
@@ -1,31 +1,61 @@
 package Dictionary;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Класс словаря, хранящего все добавленные слова на любых добавленных языках и
  * их переводы. Для составления таблиц словарей (переводов с одного языка на
  * другой) используется представление в виде объекта {@link DictionaryTable}.
+ * Словарь может быть частью словаря, распределённого по языкам ({@link ShardedDictionary}).
  * @author yaros
  */
-public class Dictionary {
+public class Dictionary implements DictionaryShard {
     
     /** Список языков словаря. */
     private final LangSet langSet;
     
-    /** Словарь, содержащий список ключей-слов {@code Word} и значений-списков ссылок на переводы {@code HashSet}. */
-    private final HashMap<Word, HashSet<Word>> words = new HashMap<>();
+    /** Хранилище слов словаря и переводов между ними. */
+    private final WordStore store;
+    
+    /** Получатели уведомлений об изменениях словаря. */
+    private final CopyOnWriteArrayList<DictionaryListener> listeners = new CopyOnWriteArrayList<>();
+    
+    /** Получатель измерений операций словаря; {@code null} - измерения отключены. */
+    private volatile MetricsSink metrics;
+    
+    /**
+     * Канонические экземпляры языков, удалённых из {@link Dictionary#langSet}, слова которых
+     * ещё остаются в хранилище ({@link Dictionary#removeLangLazily}). Такие слова исключаются
+     * из списков переводов при чтении. Неизменяемый список, заменяемый при изменении.
+     */
+    private volatile Set<Lang> removedLangs = Collections.emptySet();
     
     /**
      * Конструктор словаря, устанавливающий копию {@lang} в качестве первого языка словаря.
      * @param lang язык.
      */
     Dictionary(Lang lang) {
-        if (lang == null)
-            langSet = new LangSet(new Lang(null, null));
-        else
-            langSet = new LangSet(lang);
+        this(lang, new HashWordStore());
     }
     
     /**
@@ -35,7 +65,32 @@ public class Dictionary {
      * @param langTitle название языка.
      */
     Dictionary(String langCode, String langTitle) {
-        langSet = new LangSet(new Lang(langCode, langTitle));
+        this(new Lang(langCode, langTitle));
+    }
+    
+    /**
+     * Конструктор словаря, устанавливающий канонический экземпляр ({@link Lang#intern}) языка
+     * {@code lang} в качестве первого языка словаря и хранящий слова в {@code store}.
+     * @param lang язык.
+     * @param store пустое хранилище слов.
+     */
+    Dictionary(Lang lang, WordStore store) {
+        if (lang == null)
+            langSet = new LangSet(new Lang(null, null));
+        else
+            langSet = new LangSet(lang);
+        this.store = store;
+    }
+    
+    /**
+     * Создаёт словарь, хранящий слова и переводы в компактном виде ({@link CompactWordStore}):
+     * слова нумеруются, а переводы хранятся как массивы номеров. Публичные методы словаря
+     * работают так же, как у словаря по умолчанию.
+     * @param lang первый язык словаря.
+     * @return новый словарь.
+     */
+    public static Dictionary compact(Lang lang) {
+        return new Dictionary(lang, new CompactWordStore());
     }
     
     /**
@@ -46,7 +101,7 @@ public class Dictionary {
      * @return 
      */
     public boolean addLang(String langCode, String langTitle) {
-        return langSet.addLang(new Lang(langCode, langTitle));
+        return addLang(new Lang(langCode, langTitle));
     }
     
     /**
@@ -55,7 +110,31 @@ public class Dictionary {
      * @return 
      */
     public boolean addLang(Lang lang) {
-        return langSet.addLang(lang);
+        MetricsSink sink = metrics;
+        if (sink == null)
+            return doAddLang(lang);
+        
+        long start = System.nanoTime();
+        boolean result = doAddLang(lang);
+        sink.record(DictionaryOperation.ADD_LANG, System.nanoTime() - start, result);
+        return result;
+    }
+    
+    /**
+     * Выполняет {@link Dictionary#addLang(Lang)} без измерения.
+     */
+    private boolean doAddLang(Lang lang) {
+        if (lang != null && removedLangs.contains(lang.intern()))
+            purgeRemovedLang(lang.intern());
+        
+        if (!langSet.addLang(lang))
+            return false;
+        
+        if (!listeners.isEmpty()) {
+            Lang added = langSet.getLangByCode(lang.getCode());
+            fire(l -> l.langAdded(added));
+        }
+        return true;
     }
     
     /**
@@ -74,19 +153,37 @@ public class Dictionary {
     }
     
     /**
-     * Добавляет копию слова {@code word} в словарь.
+     * Добавляет канонический экземпляр слова {@code word} ({@link Word#intern}) в словарь.
      * @param word добавляемое слово.
      * @return {@code true}, если новое слово успешно добавлено;<br>
      * {@code false} в ином случае.
      */
     public boolean addWord(Word word) {
+        MetricsSink sink = metrics;
+        if (sink == null)
+            return doAddWord(word);
+        
+        long start = System.nanoTime();
+        boolean result = doAddWord(word);
+        sink.record(DictionaryOperation.ADD_WORD, System.nanoTime() - start, result);
+        return result;
+    }
+    
+    /**
+     * Выполняет {@link Dictionary#addWord(Word)} без измерения.
+     */
+    private boolean doAddWord(Word word) {
         if (word == null || !langSet.contains(word.getLang()))
             return false;
         
-        words.put(word.clone(), new HashSet<>());
-        return (words.get(word) != null);
+        if (!store.add(word))
+            return false;
+        
+        if (!listeners.isEmpty())
+            fire(l -> l.wordAdded(word));
+        return true;
     }
-
+    
     /**
      * Удаляет слово {@code word} из словаря. Также удаляет список {@code HashSet} ссылок
      * на переводы слова {@code word} и удаляет ссылки на него из списков переводов других слов.
@@ -95,16 +192,28 @@ public class Dictionary {
      * {@code false}, если {@code word} равно {@code null} или не содержится в словаре.
      */
     public boolean removeWord(Word word) {
-        if (word == null || !words.containsKey(word))
-            return false;
+        MetricsSink sink = metrics;
+        if (sink == null)
+            return doRemoveWord(word);
         
-        HashSet<Word> wordTranslations = words.get(word);
-        for (Word w : wordTranslations) {
-            words.get(w).remove(word);
-        }
+        long start = System.nanoTime();
+        boolean result = doRemoveWord(word);
+        sink.record(DictionaryOperation.REMOVE_WORD, System.nanoTime() - start, result);
+        return result;
+    }
+    
+    /**
+     * Выполняет {@link Dictionary#removeWord(Word)} без измерения.
+     */
+    private boolean doRemoveWord(Word word) {
+        if (word == null || !langSet.contains(word.getLang()))
+            return false;
         
-        words.remove(word);
+        if (!store.remove(word))
+            return false;
         
+        if (!listeners.isEmpty())
+            fire(l -> l.wordRemoved(word));
         return true;
     }
     
@@ -126,7 +235,8 @@ public class Dictionary {
     }
     
     /**
-     * Добавляет {@code translationWord} к списку переводов слова {@code word}.<br>
+     * Добавляет {@code translationWord} к списку переводов слова {@code word} и {@code word}
+     * к списку переводов слова {@code translationWord}.<br>
      * Добавляет слово {@code translationWord} в словарь, если оно в словаре отсутствует.
      * @param word переводимое слово.
      * @param translationWord перевод.
@@ -134,26 +244,37 @@ public class Dictionary {
      * {@code false} в ином случае.
      */
     public boolean addTranslation(Word word, Word translationWord) {
+        MetricsSink sink = metrics;
+        if (sink == null)
+            return doAddTranslation(word, translationWord);
+        
+        long start = System.nanoTime();
+        boolean result = doAddTranslation(word, translationWord);
+        sink.record(DictionaryOperation.ADD_TRANSLATION, System.nanoTime() - start, result);
+        return result;
+    }
+    
+    /**
+     * Выполняет {@link Dictionary#addTranslation(Word, Word)} без измерения.
+     */
+    private boolean doAddTranslation(Word word, Word translationWord) {
         if ((word == null || !langSet.contains(word.getLang())) ||
                 translationWord == null || !langSet.contains(translationWord.getLang()))
             return false;
         
-        HashSet<Word> wordTranslations = words.get(word);
-        if (wordTranslations.add(translationWord)) {
+        if (!store.contains(word))
+            return false;
         
-            boolean translationWordAdded = false;
-            if (!words.containsKey(translationWord))
-                translationWordAdded = addWord(translationWord);
-            
-            if (translationWordAdded && words.get(translationWord).add(word))
-                return true;
-            
-            if (translationWordAdded)
-                removeWord(translationWord);
-            wordTranslations.remove(translationWord);
-            
+        boolean translationWordAdded = store.add(translationWord);
+        if (store.link(word, translationWord)) {
+            if (!listeners.isEmpty())
+                fireTranslationAdded(word, false, translationWord, translationWordAdded);
+            return true;
         }
         
+        if (translationWordAdded)
+            store.remove(translationWord);
+        
         return false;
     }
     
@@ -175,6 +296,221 @@ public class Dictionary {
         return addTranslation(word, new Word(translationWord, translationLang));
     }
     
+    /**
+     * Добавляет перевод между словами {@code word} и {@code translationWord} в обе стороны,
+     * добавляя в словарь отсутствующие слова (в том числе {@code word}). Используется при
+     * массовой загрузке ({@link DictionaryImporter}).
+     * @param word переводимое слово.
+     * @param translationWord перевод.
+     * @return {@code true}, если перевод добавлен;<br>
+     * {@code false}, если язык одного из слов не содержится в словаре, слова совпадают или перевод уже существует.
+     */
+    boolean importTranslation(Word word, Word translationWord) {
+        MetricsSink sink = metrics;
+        if (sink == null)
+            return doImportTranslation(word, translationWord);
+        
+        long start = System.nanoTime();
+        boolean result = doImportTranslation(word, translationWord);
+        sink.record(DictionaryOperation.IMPORT_TRANSLATION, System.nanoTime() - start, result);
+        return result;
+    }
+    
+    /**
+     * Выполняет {@link Dictionary#importTranslation} без измерения.
+     * @param word переводимое слово.
+     * @param translationWord перевод.
+     * @return {@code true}, если перевод добавлен;<br>
+     * {@code false} в ином случае.
+     */
+    private boolean doImportTranslation(Word word, Word translationWord) {
+        if (!langSet.contains(word.getLang()) || !langSet.contains(translationWord.getLang()))
+            return false;
+        
+        boolean wordAdded = store.add(word);
+        boolean translationWordAdded = store.add(translationWord);
+        if (store.link(word, translationWord)) {
+            if (!listeners.isEmpty())
+                fireTranslationAdded(word, wordAdded, translationWord, translationWordAdded);
+            return true;
+        }
+        
+        if (translationWordAdded)
+            store.remove(translationWord);
+        if (wordAdded)
+            store.remove(word);
+        
+        return false;
+    }
+    
+    /**
+     * Добавляет пакет переводов методом {@link Dictionary#importTranslation}: перевод
+     * {@code translations[i]} к слову {@code words[i]} для {@code i} от {@code 0} до {@code count}.
+     * @param words переводимые слова.
+     * @param translations переводы.
+     * @param count количество переводов в пакете.
+     * @param results массив, в который записываются результаты {@link Dictionary#importTranslation}.
+     */
+    void importTranslations(Word[] words, Word[] translations, int count, boolean[] results) {
+        for (int i = 0; i < count; i++) {
+            results[i] = importTranslation(words[i], translations[i]);
+        }
+    }
+    
+    /**
+     * Создаёт пустой пакет изменений словаря ({@link DictionaryBatch}), применяемый целиком
+     * или не применяемый вовсе.
+     * @return новый пакет изменений.
+     */
+    public DictionaryBatch batch() {
+        return new DictionaryBatch(this);
+    }
+    
+    /**
+     * Применяет пакет изменений {@code batch}, см. {@link DictionaryBatch#apply}. Подклассы
+     * переопределяют метод, чтобы применять пакет под своими блокировками.
+     * @param batch пакет изменений.
+     * @return {@code true}, если все изменения пакета выполнены;<br>
+     * {@code false}, если пакет не применён.
+     */
+    boolean applyBatch(DictionaryBatch batch) {
+        MetricsSink sink = metrics;
+        if (sink == null)
+            return doApplyBatch(batch.edits());
+        
+        long start = System.nanoTime();
+        boolean result = doApplyBatch(batch.edits());
+        sink.record(DictionaryOperation.APPLY_BATCH, System.nanoTime() - start, result);
+        return result;
+    }
+    
+    /**
+     * Выполняет {@link Dictionary#applyBatch} без измерения. Сначала проверяет все изменения
+     * по состоянию словаря с учётом предыдущих изменений пакета, не изменяя хранилище, затем
+     * применяет их к хранилищу и уведомляет получателей.
+     * @param edits изменения пакета.
+     * @return {@code true}, если все изменения выполнены;<br>
+     * {@code false}, если одно из изменений невыполнимо или хранилище доступно только для чтения.
+     */
+    private boolean doApplyBatch(List<DictionaryBatch.Edit> edits) {
+        if (store.isReadOnly())
+            return false;
+        
+        HashMap<Word, Boolean> present = new HashMap<>();
+        HashSet<Word> cleared = new HashSet<>();
+        HashMap<Word, HashSet<Word>> linked = new HashMap<>();
+        ArrayList<Consumer<DictionaryListener>> events = listeners.isEmpty() ? null : new ArrayList<>(edits.size());
+        
+        for (DictionaryBatch.Edit edit : edits) {
+            Word word = edit.word;
+            if (word == null)
+                return false;
+            
+            switch (edit.kind) {
+                case ADD_WORD:
+                    if (!isLiveLang(word.getLang()) || exists(word, present))
+                        return false;
+                    
+                    present.put(word, true);
+                    if (events != null)
+                        events.add(l -> l.wordAdded(word));
+                    break;
+                
+                case REMOVE_WORD:
+                    if (!isLiveLang(word.getLang()) || !exists(word, present))
+                        return false;
+                    
+                    present.put(word, false);
+                    cleared.add(word);
+                    HashSet<Word> wordLinks = linked.remove(word);
+                    if (wordLinks != null) {
+                        for (Word w : wordLinks) {
+                            linked.get(w).remove(word);
+                        }
+                    }
+                    if (events != null)
+                        events.add(l -> l.wordRemoved(word));
+                    break;
+                
+                case ADD_TRANSLATION:
+                    Word translationWord = edit.translationWord;
+                    if (!isLiveLang(word.getLang()) || !isLiveLang(translationWord.getLang()) ||
+                            !exists(word, present) || word.equals(translationWord))
+                        return false;
+                    
+                    boolean translationWordAdded = !exists(translationWord, present);
+                    if (!translationWordAdded) {
+                        HashSet<Word> links = linked.get(word);
+                        if (links != null && links.contains(translationWord))
+                            return false;
+                        Set<Word> stored = store.translations(word);
+                        if (stored != null && !cleared.contains(word) && !cleared.contains(translationWord) &&
+                                stored.contains(translationWord))
+                            return false;
+                    }
+                    
+                    present.put(translationWord, true);
+                    linked.computeIfAbsent(word, w -> new HashSet<>()).add(translationWord);
+                    linked.computeIfAbsent(translationWord, w -> new HashSet<>()).add(word);
+                    if (events != null) {
+                        if (translationWordAdded)
+                            events.add(l -> l.wordAdded(translationWord));
+                        events.add(l -> l.translationAdded(word, translationWord));
+                    }
+                    break;
+            }
+        }
+        
+        for (DictionaryBatch.Edit edit : edits) {
+            switch (edit.kind) {
+                case ADD_WORD:
+                    store.add(edit.word);
+                    break;
+                case REMOVE_WORD:
+                    store.remove(edit.word);
+                    break;
+                case ADD_TRANSLATION:
+                    store.add(edit.translationWord);
+                    store.link(edit.word, edit.translationWord);
+                    break;
+            }
+        }
+        
+        if (events != null) {
+            for (DictionaryListener listener : listeners) {
+                listener.batchStarted();
+                for (Consumer<DictionaryListener> event : events) {
+                    event.accept(listener);
+                }
+                listener.batchFinished();
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Показывает, содержится ли слово {@code word} в словаре после уже проверенных изменений пакета.
+     * @param word слово.
+     * @param present слова, добавленные ({@code true}) или удалённые ({@code false}) проверенными изменениями.
+     * @return {@code true}, если слово содержится в словаре;<br>
+     * {@code false} в ином случае.
+     */
+    private boolean exists(Word word, HashMap<Word, Boolean> present) {
+        Boolean result = present.get(word);
+        return (result != null) ? result : store.contains(word) && !removedLangs.contains(word.getLang());
+    }
+    
+    /**
+     * Показывает, содержится ли язык {@code lang} в словаре и не удалён ли он методом
+     * {@link Dictionary#removeLangLazily}, чьи слова ещё остаются в хранилище.
+     * @param lang язык.
+     * @return {@code true}, если слова на языке {@code lang} можно изменять;<br>
+     * {@code false} в ином случае.
+     */
+    private boolean isLiveLang(Lang lang) {
+        return lang != null && langSet.contains(lang) && !removedLangs.contains(lang.intern());
+    }
+    
     /**
      * Удаляет язык {@code lang} из списка языков словаря и удаляет из словаря все слова на этом языке.
      * @param lang удаляемый язык.
@@ -182,39 +518,420 @@ public class Dictionary {
      * {@code false} в ином случае.
      */
     public boolean removeLang(Lang lang) {
+        MetricsSink sink = metrics;
+        if (sink == null)
+            return doRemoveLang(lang);
+        
+        long start = System.nanoTime();
+        boolean result = doRemoveLang(lang);
+        sink.record(DictionaryOperation.REMOVE_LANG, System.nanoTime() - start, result);
+        return result;
+    }
+    
+    /**
+     * Выполняет {@link Dictionary#removeLang} без измерения.
+     */
+    private boolean doRemoveLang(Lang lang) {
+        if (lang == null || !langSet.contains(lang))
+            return false;
+        
+        store.removeLang(lang);
+        langSet.removeLang(lang);
+        if (store.isReadOnly())
+            markRemoved(lang.intern());
+        
+        if (!listeners.isEmpty())
+            fire(l -> l.langRemoved(lang));
+        return true;
+    }
+    
+    /**
+     * Удаляет язык {@code lang} из списка языков словаря, не удаляя слова на этом языке из хранилища.
+     * Время выполнения не зависит от количества слов и переводов языка. Слова языка сразу
+     * перестают быть доступны: их нельзя изменить, они не входят в списки слов, таблицы и потоки
+     * словаря и исключаются из списков переводов других слов при чтении.<p>
+     * Слова удаляются из хранилища методом {@link Dictionary#purgeRemovedLangs} или перед повторным
+     * добавлением языка; {@link ConcurrentDictionary} удаляет их в фоновом потоке. Пока слова
+     * не удалены, чтение переводов слов, связанных с ними, медленнее.
+     * @param lang удаляемый язык.
+     * @return {@code true}, если язык удалён из списка языков словаря;<br>
+     * {@code false} в ином случае.
+     */
+    public boolean removeLangLazily(Lang lang) {
+        MetricsSink sink = metrics;
+        if (sink == null)
+            return doRemoveLangLazily(lang);
+        
+        long start = System.nanoTime();
+        boolean result = doRemoveLangLazily(lang);
+        sink.record(DictionaryOperation.REMOVE_LANG, System.nanoTime() - start, result);
+        return result;
+    }
+    
+    /**
+     * Выполняет {@link Dictionary#removeLangLazily} без измерения.
+     */
+    private boolean doRemoveLangLazily(Lang lang) {
         if (lang == null || !langSet.contains(lang))
             return false;
-
-        for (Word w : new HashSet<Word>(words.keySet())) {
-            if (w.getLang().equals(lang)) {
-                removeWord(w);
-            }
-        }
         
+        markRemoved(lang.intern());
         langSet.removeLang(lang);
         
+        if (!listeners.isEmpty())
+            fire(l -> l.langRemoved(lang));
         return true;
     }
     
     /**
-     * Возвращает список слов на языке {@code lang}.
+     * Удаляет из хранилища слова всех языков, удалённых методом {@link Dictionary#removeLangLazily}.
+     * Время выполнения пропорционально количеству этих слов и их переводов.
+     */
+    public void purgeRemovedLangs() {
+        for (Lang lang : removedLangs) {
+            purgeRemovedLang(lang);
+        }
+    }
+    
+    /**
+     * Удаляет из хранилища слова языка {@code lang}, удалённого методом {@link Dictionary#removeLangLazily}.
+     * Слова файла, открытого только для чтения, не удаляются и продолжают исключаться при чтении.
+     * @param lang канонический экземпляр удалённого языка.
+     */
+    void purgeRemovedLang(Lang lang) {
+        if (!removedLangs.contains(lang))
+            return;
+        
+        store.removeLang(lang);
+        if (!store.isReadOnly())
+            unmarkRemoved(lang);
+    }
+    
+    /**
+     * Показывает, удалён ли язык {@code lang} методом {@link Dictionary#removeLangLazily}
+     * и остаются ли его слова в хранилище.
+     * @param lang канонический экземпляр языка.
+     * @return {@code true}, если слова языка ещё не удалены из хранилища;<br>
+     * {@code false} в ином случае.
+     */
+    boolean isRemovedLang(Lang lang) {
+        return removedLangs.contains(lang);
+    }
+    
+    /**
+     * Возвращает список слов на языке {@code lang} из хранилища, в том числе для языка,
+     * удалённого методом {@link Dictionary#removeLangLazily}. Список не копируется и не должен изменяться.
      * @param lang язык.
-     * @return {@code HashSet} список слов.
+     * @return {@code Set} список слов.
      */
-    private HashSet<Word> getWordsByLang(Lang lang) {
+    Set<Word> getStoredWords(Lang lang) {
+        return store.words(lang);
+    }
+    
+    /**
+     * Возвращает список переводов слова {@code word} из хранилища без исключения слов удалённых языков.
+     * @param word слово.
+     * @return {@code Set} список переводов;<br>
+     * {@code null}, если слова {@code word} нет в хранилище.
+     */
+    Set<Word> getStoredTranslations(Word word) {
+        return store.translations(word);
+    }
+    
+    /**
+     * Удаляет из хранилища слово {@code word} языка, удалённого методом {@link Dictionary#removeLangLazily},
+     * вместе с его переводами. Получатели уведомлений не уведомляются.
+     * @param word слово.
+     * @return {@code true}, если слово удалено;<br>
+     * {@code false} в ином случае.
+     */
+    boolean purgeWord(Word word) {
+        return store.remove(word);
+    }
+    
+    /**
+     * Добавляет язык {@code lang} в {@link Dictionary#removedLangs}.
+     * @param lang канонический экземпляр языка.
+     */
+    private synchronized void markRemoved(Lang lang) {
+        HashSet<Lang> result = new HashSet<>(removedLangs);
+        result.add(lang);
+        removedLangs = Collections.unmodifiableSet(result);
+    }
+    
+    /**
+     * Удаляет язык {@code lang} из {@link Dictionary#removedLangs}.
+     * @param lang канонический экземпляр языка.
+     */
+    private synchronized void unmarkRemoved(Lang lang) {
+        HashSet<Lang> result = new HashSet<>(removedLangs);
+        result.remove(lang);
+        removedLangs = result.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(result);
+    }
+    
+    /**
+     * Добавляет получателя уведомлений об изменениях словаря.
+     * @param listener получатель уведомлений.
+     * @return {@code true}, если получатель добавлен;<br>
+     * {@code false}, если {@code listener} равен {@code null} или уже добавлен.
+     */
+    public boolean addListener(DictionaryListener listener) {
+        if (listener == null)
+            return false;
+        
+        return listeners.addIfAbsent(listener);
+    }
+    
+    /**
+     * Удаляет получателя уведомлений об изменениях словаря.
+     * @param listener получатель уведомлений.
+     * @return {@code true}, если получатель удалён;<br>
+     * {@code false}, если он не был добавлен.
+     */
+    public boolean removeListener(DictionaryListener listener) {
+        return listeners.remove(listener);
+    }
+    
+    /**
+     * Устанавливает получателя измерений операций словаря. Операции
+     * {@link DictionaryOperation} измеряются, только пока получатель установлен;
+     * время ожидания блокировок и публикации снимков подклассов в измерение не входит.
+     * @param sink получатель измерений; {@code null} отключает измерения.
+     */
+    public void setMetricsSink(MetricsSink sink) {
+        metrics = sink;
+    }
+    
+    /**
+     * Возвращает получателя измерений операций словаря.
+     * @return {@code MetricsSink} получатель измерений;<br>
+     * {@code null}, если измерения отключены.
+     */
+    public MetricsSink getMetricsSink() {
+        return metrics;
+    }
+    
+    /**
+     * Выполняет действие {@code action}, в течение которого словарь не изменяется другими потоками.
+     * Словарь без синхронизации изменяется только вызывающим потоком, поэтому действие
+     * просто выполняется; потокобезопасные подклассы на время действия останавливают изменения.
+     * Действие может читать словарь, но не должно изменять его.
+     * @param action действие.
+     */
+    public void exclusive(Runnable action) {
+        action.run();
+    }
+    
+    /**
+     * Действие с результатом, которое может выбросить {@link IOException}.
+     */
+    interface IOAction<T> {
+        
+        T run() throws IOException;
+    
+    }
+    
+    /**
+     * Выполняет действие {@code action} внутри {@link Dictionary#exclusive}, передавая
+     * вызывающему его результат и {@link IOException}.
+     * @param action действие.
+     * @return результат действия.
+     * @throws IOException если её выбросило действие.
+     */
+    <T> T exclusiveIO(IOAction<T> action) throws IOException {
+        AtomicReference<T> result = new AtomicReference<>();
+        try {
+            exclusive(() -> {
+                try {
+                    result.set(action.run());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return result.get();
+    }
+    
+    /**
+     * Передаёт уведомление {@code event} всем получателям.
+     * @param event уведомление.
+     */
+    private void fire(Consumer<DictionaryListener> event) {
+        for (DictionaryListener listener : listeners) {
+            event.accept(listener);
+        }
+    }
+    
+    /**
+     * Уведомляет получателей о добавлении перевода и о неявно добавленных при этом словах.
+     * @param word переводимое слово.
+     * @param wordAdded {@code true}, если слово {@code word} добавлено вместе с переводом.
+     * @param translationWord перевод.
+     * @param translationWordAdded {@code true}, если слово {@code translationWord} добавлено вместе с переводом.
+     */
+    private void fireTranslationAdded(Word word, boolean wordAdded, Word translationWord, boolean translationWordAdded) {
+        for (DictionaryListener listener : listeners) {
+            if (wordAdded)
+                listener.wordAdded(word);
+            if (translationWordAdded)
+                listener.wordAdded(translationWord);
+            listener.translationAdded(word, translationWord);
+        }
+    }
+    
+    /**
+     * Возвращает список слов на языке {@code lang} из хранилища {@link Dictionary#store}.
+     * Возвращаемый список не копируется и не должен изменяться.
+     * @param lang язык.
+     * @return {@code Set} список слов;<br>
+     * {@code null}, если {@code lang} равен {@code null} или не содержится в словаре.
+     */
+    Set<Word> getWordsByLang(Lang lang) {
         if (lang == null || !langSet.contains(lang))
             return null;
         
-        HashSet<Word> result = new HashSet<>();
-        for (Word w : words.keySet()) {
-            if (w.getLang().equals(lang)) {
-                result.add(w);
+        return store.words(lang);
+    }
+    
+    /**
+     * Возвращает список переводов слова {@code word} из хранилища {@link Dictionary#store} без копирования.
+     * Возвращаемый список не должен изменяться. Если в хранилище остались слова языков,
+     * удалённых {@link Dictionary#removeLangLazily}, список исключает их при чтении.
+     * @param word слово.
+     * @return {@code Set} список переводов;<br>
+     * {@code null}, если слова {@code word} нет в словаре.
+     */
+    Set<Word> getTranslations(Word word) {
+        Set<Lang> removed = removedLangs;
+        Set<Word> result = store.translations(word);
+        if (removed.isEmpty() || result == null)
+            return result;
+        
+        if (removed.contains(word.getLang()))
+            return null;
+        
+        return new LiveTranslations(result, removed);
+    }
+    
+    /**
+     * Представление списка переводов без слов удалённых языков. Ничего не копирует;
+     * {@link LiveTranslations#size} перебирает список.
+     */
+    private static final class LiveTranslations extends AbstractSet<Word> {
+        
+        /** Список переводов из хранилища. */
+        private final Set<Word> translations;
+        
+        /** Канонические экземпляры удалённых языков. */
+        private final Set<Lang> removed;
+        
+        LiveTranslations(Set<Word> translations, Set<Lang> removed) {
+            this.translations = translations;
+            this.removed = removed;
+        }
+        
+        @Override
+        public boolean contains(Object o) {
+            return translations.contains(o) && !removed.contains(((Word)o).getLang());
+        }
+        
+        @Override
+        public int size() {
+            int result = 0;
+            for (Word w : translations) {
+                if (!removed.contains(w.getLang()))
+                    result++;
             }
+            
+            return result;
         }
         
-        return result;
+        @Override
+        public Iterator<Word> iterator() {
+            Iterator<Word> it = translations.iterator();
+            return new Iterator<Word>() {
+                
+                private Word next = advance();
+                
+                private Word advance() {
+                    while (it.hasNext()) {
+                        Word w = it.next();
+                        if (!removed.contains(w.getLang()))
+                            return w;
+                    }
+                    return null;
+                }
+                
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+                
+                @Override
+                public Word next() {
+                    if (next == null)
+                        throw new NoSuchElementException();
+                    
+                    Word result = next;
+                    next = advance();
+                    return result;
+                }
+            
+            };
+        }
+    
     }
     
+    /**
+     * Возвращает поток слов на языке {@code lang}, читающий хранилище словаря без копирования.
+     * Поток имеет характеристики {@link Spliterator#SIZED} и {@link Spliterator#DISTINCT}
+     * и делится для параллельной обработки ({@link Stream#parallel}). Словарь не должен
+     * изменяться во время обработки потока (кроме {@link ConcurrentDictionary}, поток
+     * которого слабо согласован с одновременными изменениями).
+     * @param lang язык.
+     * @return {@code Stream} поток канонических экземпляров слов;<br>
+     * пустой поток, если {@code lang} равен {@code null} или не содержится в словаре.
+     */
+    public Stream<Word> words(Lang lang) {
+        Set<Word> langWords = getWordsByLang(lang);
+        if (langWords == null)
+            return Stream.empty();
+        
+        return StreamSupport.stream(langWords.spliterator(), false);
+    }
+    
+    /**
+     * Возвращает поток переводов словаря: пар из слова и одного из его переводов ({@link EdgeSpliterator}).
+     * Каждый перевод встречается дважды, по разу в каждую сторону, поэтому количество пар
+     * со словом {@code w} равно количеству его переводов. Поток читает хранилище без копирования,
+     * имеет характеристику {@link Spliterator#DISTINCT} и делится по языкам и словам для
+     * параллельной обработки. Точное количество переводов ({@link Spliterator#SIZED})
+     * вычисляется при первом запросе размера потока; для {@link ConcurrentDictionary} оно
+     * не сообщается, а поток слабо согласован с одновременными изменениями.
+     * @return {@code Stream} поток пар из слова и его перевода.
+     */
+    public Stream<Map.Entry<Word, Word>> edges() {
+        Set<Lang> langs = langSet.getSortedLangs();
+        ArrayList<Spliterator<Word>> sources = new ArrayList<>(langs.size());
+        int concurrent = 0;
+        for (Lang lang : langs) {
+            Spliterator<Word> langWords = store.words(lang).spliterator();
+            concurrent |= langWords.characteristics() & Spliterator.CONCURRENT;
+            sources.add(langWords);
+        }
+        
+        boolean sized = concurrent == 0 && removedLangs.isEmpty();
+        EdgeSpliterator edges = new EdgeSpliterator(sources, this::getTranslations, !sized ? null : () -> {
+            long result = 0;
+            for (Lang lang : langs) {
+                result += store.translationCount(lang);
+            }
+            return result;
+        }, concurrent);
+        return StreamSupport.stream(edges, false);
+    }
     
     /**
      * Создаёт и возвращает список копий слов на языке {@code lang}.
@@ -222,52 +939,204 @@ public class Dictionary {
      * @return {@code HashSet} список копий слов.
      */
     public HashSet<Word> biuldWordsSetByLang(Lang lang) {
+        MetricsSink sink = metrics;
+        if (sink == null)
+            return doBiuldWordsSetByLang(lang);
+        
+        long start = System.nanoTime();
+        HashSet<Word> result = doBiuldWordsSetByLang(lang);
+        sink.record(DictionaryOperation.BUILD_WORDS_SET, System.nanoTime() - start, result != null);
+        return result;
+    }
+    
+    /**
+     * Выполняет {@link Dictionary#biuldWordsSetByLang} без измерения.
+     */
+    private HashSet<Word> doBiuldWordsSetByLang(Lang lang) {
         if (lang == null || !langSet.contains(lang))
             return null;
         
         HashSet<Word> result = new HashSet<>();
-        for (Word w : words.keySet()) {
-            if (w.getLang().equals(lang)) {
-                result.add(w.clone());
-            }
+        for (Word w : getWordsByLang(lang)) {
+            result.add(w.clone());
         }
         
         return result;        
     }
     
     /**
-     * Строит {@link DictionaryTable} таблицу словаря с копиями слов на языке
-     * {@code langFirst} (исходном языке) и списками копий их переводов на 
-     * язык {@code langSec} (язык перевода).
+     * Создаёт и возвращает список копий переводов слова {@code word}.
+     * @param word слово.
+     * @return {@code HashSet} список копий переводов;<br>
+     * {@code null}, если слова {@code word} нет в словаре.
+     */
+    public HashSet<Word> buildTranslationsSet(Word word) {
+        if (word == null || !langSet.contains(word.getLang()))
+            return null;
+        
+        Set<Word> translations = getTranslations(word);
+        if (translations == null)
+            return null;
+        
+        HashSet<Word> result = new HashSet<>();
+        for (Word w : translations) {
+            result.add(w.clone());
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Строит {@link DictionaryTable} таблицу словаря со словами на языке
+     * {@code langFirst} (исходном языке) и списками их переводов на 
+     * язык {@code langSec} (язык перевода). Слова таблицы являются каноническими
+     * (неизменяемыми) экземплярами {@link Word} и не копируются.
      * @param langFirst исходный язык.
      * @param langSec язык перевода.
      * @return {@code DictionaryTable} таблицу словаря переводов.
      */
     public DictionaryTable buildDictionary(Lang langFirst, Lang langSec) {
+        MetricsSink sink = metrics;
+        if (sink == null)
+            return doBuildDictionary(langFirst, langSec);
+        
+        long start = System.nanoTime();
+        DictionaryTable result = doBuildDictionary(langFirst, langSec);
+        sink.record(DictionaryOperation.BUILD_DICTIONARY, System.nanoTime() - start, result != null);
+        return result;
+    }
+    
+    /**
+     * Выполняет {@link Dictionary#buildDictionary} без измерения.
+     */
+    private DictionaryTable doBuildDictionary(Lang langFirst, Lang langSec) {
         if (langFirst == null || langSec == null ||
                 !langSet.contains(langFirst) || !langSet.contains(langSec))
             return null;
         
-        HashMap<Word, HashSet<Word>> result = new HashMap<>();
+        Set<Word> wordsFirstLang = getWordsByLang(langFirst);
+        if (wordsFirstLang == null)
+            return null;
         
-        HashSet<Word> wordsFirstLang = getWordsByLang(langFirst);
+        return DictionaryTable.build(wordsFirstLang, this::getTranslations, langSec);
+    }
+    
+    /**
+     * Строит {@link DictionaryTable} таблицы словаря для всех упорядоченных пар языков словаря
+     * за один параллельный проход по словам, см. {@link Dictionary#buildTables}.
+     * @return {@code HashMap} таблицы по исходному языку и языку перевода.
+     */
+    public HashMap<Lang, HashMap<Lang, DictionaryTable>> buildAllTables() {
+        return buildTables(langSet.getLangSet());
+    }
+    
+    /**
+     * Строит {@link DictionaryTable} таблицы словаря для всех упорядоченных пар языков
+     * из {@code langs} (включая пары из одного языка). Слова всех языков просматриваются
+     * один раз в одном параллельном проходе, а переводы слова одновременно распределяются
+     * по таблицам всех языков перевода. Результат совпадает с вызовами {@link Dictionary#buildDictionary}
+     * для каждой пары. Словарь не должен изменяться во время построения.
+     * @param langs языки; языки, которых нет в словаре, пропускаются.
+     * @return {@code HashMap} таблицы по исходному языку и языку перевода;<br>
+     * {@code null}, если {@code langs} равен {@code null}.
+     */
+    public HashMap<Lang, HashMap<Lang, DictionaryTable>> buildTables(Collection<Lang> langs) {
+        if (langs == null)
+            return null;
+        
+        return DictionaryTable.buildAll(langs, this::getWordsByLang, this::getTranslations);
+    }
+    
+    /**
+     * Строит {@link DictionaryTable} таблицу словаря со словами на языке {@code langFirst}
+     * и переводами на язык {@code langSec}, найденными в том числе через другие языки
+     * ({@link PivotSearch}): например, ru→de через ru→en и en→de. Списки переводов
+     * упорядочены: сначала прямые переводы, затем по длине пути и количеству путей.
+     * @param langFirst исходный язык.
+     * @param langSec язык перевода.
+     * @param maxDepth наибольшее количество переводов в цепочке; {@code 1} - только прямые переводы.
+     * @return {@code DictionaryTable} таблицу словаря переводов;<br>
+     * {@code null}, если языка нет в словаре или {@code maxDepth} меньше 1.
+     */
+    public DictionaryTable buildPivotDictionary(Lang langFirst, Lang langSec, int maxDepth) {
+        return buildPivotDictionary(langFirst, langSec, null, maxDepth);
+    }
+    
+    /**
+     * Строит {@link DictionaryTable} таблицу словаря со словами на языке {@code langFirst}
+     * и переводами на язык {@code langSec}, найденными через языки-посредники из {@code pivots},
+     * см. {@link Dictionary#buildPivotDictionary(Lang, Lang, int)}.
+     * @param langFirst исходный язык.
+     * @param langSec язык перевода.
+     * @param pivots языки-посредники; {@code null} - любые языки словаря.
+     * @param maxDepth наибольшее количество переводов в цепочке; {@code 1} - только прямые переводы.
+     * @return {@code DictionaryTable} таблицу словаря переводов;<br>
+     * {@code null}, если языка нет в словаре или {@code maxDepth} меньше 1.
+     */
+    public DictionaryTable buildPivotDictionary(Lang langFirst, Lang langSec, Collection<Lang> pivots, int maxDepth) {
+        if (langSec == null || !langSet.contains(langSec) || maxDepth < 1)
+            return null;
+        
+        Set<Word> wordsFirstLang = getWordsByLang(langFirst);
         if (wordsFirstLang == null)
             return null;
         
-        for (Word w : wordsFirstLang) {
-            HashSet<Word> wTranslations = new HashSet<>();
-            for (Word tr : words.get(w)) {
-                if (tr.getLang().equals(langSec)) {
-                    wTranslations.add(tr.clone());
-                }
-            }
-            
-            if (!wTranslations.isEmpty()) {
-                result.put(w.clone(), wTranslations);
-            }
-        }
+        return new PivotSearch(this::getTranslations, langSec, pivots, maxDepth).build(wordsFirstLang);
+    }
+    
+    /**
+     * Находит переводы слова {@code word} на язык {@code langSec}, в том числе через другие
+     * языки словаря, см. {@link Dictionary#buildPivotDictionary(Lang, Lang, int)}.
+     * @param word слово.
+     * @param langSec язык перевода.
+     * @param maxDepth наибольшее количество переводов в цепочке; {@code 1} - только прямые переводы.
+     * @return {@code LinkedHashSet} упорядоченный список переводов;<br>
+     * {@code null}, если слова или языка нет в словаре или {@code maxDepth} меньше 1.
+     */
+    public LinkedHashSet<Word> translate(Word word, Lang langSec, int maxDepth) {
+        if (word == null || langSec == null || !langSet.contains(langSec) || maxDepth < 1 || !store.contains(word) ||
+                !langSet.contains(word.getLang()))
+            return null;
         
-        return new DictionaryTable(result);
+        return new PivotSearch(this::getTranslations, langSec, null, maxDepth).search(word);
+    }
+    
+    /**
+     * Записывает словарь в двоичный файл {@code path} (формат {@link DictionaryFile}).
+     * Запись выполняется внутри {@link Dictionary#exclusive}, поэтому изменения потокобезопасных
+     * словарей дожидаются её окончания.
+     * @param path путь к файлу.
+     * @throws IOException при ошибке записи.
+     */
+    public void save(Path path) throws IOException {
+        exclusiveIO(() -> {
+            DictionaryFile.write(this, path);
+            return null;
+        });
+    }
+    
+    /**
+     * Открывает двоичный файл словаря {@code path} через отображение в память. Данные
+     * файла не читаются при открытии, а подгружаются по мере обращения к ним, поэтому
+     * словарь любого размера открывается почти мгновенно.<br>
+     * Открытый словарь доступен только для чтения: методы добавления и удаления слов
+     * и переводов возвращают {@code false}. Для изменения словаря используется {@link Dictionary#load}.
+     * @param path путь к файлу.
+     * @return словарь, читающий данные из файла.
+     * @throws IOException если файл не удалось прочитать или он не является файлом словаря.
+     */
+    public static Dictionary open(Path path) throws IOException {
+        return DictionaryFile.open(path);
+    }
+    
+    /**
+     * Читает двоичный файл словаря {@code path} целиком в новый изменяемый словарь.
+     * @param path путь к файлу.
+     * @return словарь с языками, словами и переводами из файла.
+     * @throws IOException если файл не удалось прочитать или он не является файлом словаря.
+     */
+    public static Dictionary load(Path path) throws IOException {
+        return DictionaryFile.load(path);
     }
     
     /**
@@ -0,0 +1,167 @@
+package Dictionary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Пакет изменений словаря, применяемый целиком или не применяемый вовсе. Пакет создаётся
+ * методом {@link Dictionary#batch}, накапливает добавления и удаления слов и добавления
+ * переводов и применяется методом {@link DictionaryBatch#apply}.<p>
+ * Изменения пакета выполняются по порядку добавления в пакет и дают тот же результат, что
+ * и последовательные вызовы соответствующих методов словаря. Если хотя бы один из этих
+ * вызовов вернул бы {@code false} (например, слово уже есть в словаре или язык не содержится
+ * в словаре), пакет не применяется и словарь не изменяется.<p>
+ * Пакет проверяется целиком до первого изменения, а затем применяется к хранилищу словаря
+ * за один проход. Получатели уведомлений ({@link DictionaryListener}) уведомляются после
+ * применения всего пакета, между {@link DictionaryListener#batchStarted} и
+ * {@link DictionaryListener#batchFinished}.
+ * @author yaros
+ */
+public class DictionaryBatch {
+    
+    /**
+     * Вид изменения пакета.
+     */
+    enum Kind { ADD_WORD, REMOVE_WORD, ADD_TRANSLATION }
+    
+    /**
+     * Изменение пакета.
+     */
+    static final class Edit {
+        
+        /** Вид изменения. */
+        final Kind kind;
+        
+        /** Добавляемое, удаляемое или переводимое слово; {@code null} - заведомо невыполнимое изменение. */
+        final Word word;
+        
+        /** Перевод для {@link Kind#ADD_TRANSLATION}; {@code null} для других видов. */
+        final Word translationWord;
+        
+        Edit(Kind kind, Word word, Word translationWord) {
+            this.kind = kind;
+            this.word = word;
+            this.translationWord = translationWord;
+        }
+    
+    }
+    
+    /** Словарь, к которому применяется пакет. */
+    private final Dictionary dictionary;
+    
+    /** Изменения в порядке добавления. */
+    private final ArrayList<Edit> edits = new ArrayList<>();
+    
+    /**
+     * Конструктор пустого пакета. Используется {@link Dictionary#batch}.
+     * @param dictionary словарь.
+     */
+    DictionaryBatch(Dictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+    
+    /**
+     * Добавляет в пакет добавление слова {@code word}, см. {@link Dictionary#addWord(Word)}.
+     * @param word добавляемое слово.
+     * @return этот пакет.
+     */
+    public DictionaryBatch addWord(Word word) {
+        edits.add(new Edit(Kind.ADD_WORD, word, null));
+        return this;
+    }
+    
+    /**
+     * Добавляет в пакет добавление слова с текстом {@code word} на языке {@code lang},
+     * см. {@link Dictionary#addWord(String, Lang)}.
+     * @param word текст добавляемого слова.
+     * @param lang язык добавляемого слова.
+     * @return этот пакет.
+     */
+    public DictionaryBatch addWord(String word, Lang lang) {
+        if (word == null || word.equals("") || lang == null)
+            return addWord(null);
+        
+        return addWord(new Word(word, lang));
+    }
+    
+    /**
+     * Добавляет в пакет удаление слова {@code word}, см. {@link Dictionary#removeWord(Word)}.
+     * @param word удаляемое слово.
+     * @return этот пакет.
+     */
+    public DictionaryBatch removeWord(Word word) {
+        edits.add(new Edit(Kind.REMOVE_WORD, word, null));
+        return this;
+    }
+    
+    /**
+     * Добавляет в пакет удаление слова с текстом {@code word} на языке {@code lang},
+     * см. {@link Dictionary#removeWord(String, Lang)}.
+     * @param word текст удаляемого слова.
+     * @param lang язык удаляемого слова.
+     * @return этот пакет.
+     */
+    public DictionaryBatch removeWord(String word, Lang lang) {
+        if (word == null || lang == null)
+            return removeWord(null);
+        
+        return removeWord(new Word(word, lang));
+    }
+    
+    /**
+     * Добавляет в пакет добавление перевода {@code translationWord} к слову {@code word},
+     * см. {@link Dictionary#addTranslation(Word, Word)}.
+     * @param word переводимое слово.
+     * @param translationWord перевод.
+     * @return этот пакет.
+     */
+    public DictionaryBatch addTranslation(Word word, Word translationWord) {
+        if (translationWord == null)
+            word = null;
+        
+        edits.add(new Edit(Kind.ADD_TRANSLATION, word, translationWord));
+        return this;
+    }
+    
+    /**
+     * Добавляет в пакет добавление перевода с текстом {@code translationWord} на языке
+     * {@code translationLang} к слову {@code word}, см. {@link Dictionary#addTranslation(Word, String, Lang)}.
+     * @param word переводимое слово.
+     * @param translationWord текст перевода.
+     * @param translationLang язык перевода.
+     * @return этот пакет.
+     */
+    public DictionaryBatch addTranslation(Word word, String translationWord, Lang translationLang) {
+        if (translationWord == null || translationLang == null)
+            return addTranslation(word, null);
+        
+        return addTranslation(word, new Word(translationWord, translationLang));
+    }
+    
+    /**
+     * Возвращает количество изменений в пакете.
+     * @return количество изменений.
+     */
+    public int size() {
+        return edits.size();
+    }
+    
+    /**
+     * Применяет пакет к словарю. Пакет не очищается и может быть применён повторно.
+     * @return {@code true}, если все изменения пакета выполнены;<br>
+     * {@code false}, если хотя бы одно изменение невыполнимо - тогда словарь не изменяется.
+     */
+    public boolean apply() {
+        return dictionary.applyBatch(this);
+    }
+    
+    /**
+     * Возвращает неизменяемый список изменений пакета.
+     * @return {@code List} изменения в порядке добавления.
+     */
+    List<Edit> edits() {
+        return Collections.unmodifiableList(edits);
+    }
+
+}
@@ -0,0 +1,239 @@
+package Dictionary;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.TreeSet;
+
+/**
+ * Двоичный формат файла словаря. Файл состоит из заголовка и разделов:
+ * <ul>
+ * <li>заголовок ({@link DictionaryFile#HEADER_SIZE} байт): сигнатура, версия формата,
+ * количество языков и слов и смещения разделов;</li>
+ * <li>таблица языков: записи по {@link DictionaryFile#LANG_RECORD_SIZE} байт со ссылками
+ * на код и название языка в таблице строк и диапазоном номеров слов языка;</li>
+ * <li>таблица слов: записи по {@link DictionaryFile#WORD_RECORD_SIZE} байт со ссылкой на текст
+ * слова, номером языка, диапазоном переводов и хэш-кодом {@link Word#hashCode}. Слова одного
+ * языка имеют последовательные номера;</li>
+ * <li>хэш-таблица: ячейки {@code int} (номер слова плюс один) с открытой адресацией для поиска слова;</li>
+ * <li>переводы: номера слов-переводов {@code int}, по непрерывному диапазону на слово;</li>
+ * <li>таблица строк: тексты в кодировке UTF-8.</li>
+ * </ul>
+ * Все числа записываются в порядке байтов big-endian. Файл открывается через {@link FileChannel#map}
+ * ({@link MappedWordStore}) и читается по мере обращения к данным.
+ * @author yaros
+ */
+final class DictionaryFile {
+    
+    /** Сигнатура файла словаря ({@code "SDIC"}). */
+    static final int MAGIC = 0x53444943;
+    
+    /** Версия формата. */
+    static final int VERSION = 1;
+    
+    /** Размер заголовка в байтах. */
+    static final int HEADER_SIZE = 72;
+    
+    /** Размер записи таблицы языков в байтах. */
+    static final int LANG_RECORD_SIZE = 32;
+    
+    /** Размер записи таблицы слов в байтах. */
+    static final int WORD_RECORD_SIZE = 32;
+    
+    private DictionaryFile() {
+    }
+    
+    /**
+     * Записывает словарь {@code dictionary} в файл {@code path}. Файл сначала записывается
+     * во временный файл рядом с {@code path}, а затем заменяет {@code path}, поэтому при сбое
+     * записи прежний файл не повреждается. Данные файла сбрасываются на диск до замены.
+     * Словарь не должен изменяться во время записи, поэтому метод вызывается внутри
+     * {@link Dictionary#exclusive}.
+     * @param dictionary словарь.
+     * @param path путь к файлу.
+     * @throws IOException при ошибке записи.
+     */
+    static void write(Dictionary dictionary, Path path) throws IOException {
+        ArrayList<Lang> langs = new ArrayList<>(dictionary.getLangs().getLangSet());
+        ArrayList<Word> words = new ArrayList<>();
+        HashMap<Word, Integer> ids = new HashMap<>();
+        int[] firstWordIds = new int[langs.size()];
+        int[] langWordCounts = new int[langs.size()];
+        
+        for (int i = 0; i < langs.size(); i++) {
+            firstWordIds[i] = words.size();
+            for (Word w : dictionary.getWordsByLang(langs.get(i))) {
+                ids.put(w, words.size());
+                words.add(w);
+            }
+            langWordCounts[i] = words.size() - firstWordIds[i];
+        }
+        
+        int slotCount = 2;
+        while (slotCount < words.size() * 2)
+            slotCount <<= 1;
+        
+        long langTable = HEADER_SIZE;
+        long wordTable = langTable + (long)LANG_RECORD_SIZE * langs.size();
+        long hashTable = wordTable + (long)WORD_RECORD_SIZE * words.size();
+        long adjacency = hashTable + 4L * slotCount;
+        
+        long edgeEntries = 0;
+        for (Word w : words) {
+            edgeEntries += dictionary.getTranslations(w).size();
+        }
+        long strings = adjacency + 4L * edgeEntries;
+        
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(langs.size());
+            out.writeInt(words.size());
+            out.writeLong(langTable);
+            out.writeLong(wordTable);
+            out.writeLong(hashTable);
+            out.writeLong(slotCount);
+            out.writeLong(adjacency);
+            out.writeLong(strings);
+            out.writeLong(edgeEntries);
+            
+            long stringPos = strings;
+            for (int i = 0; i < langs.size(); i++) {
+                int codeLength = utf8(langs.get(i).getCode()).length;
+                int titleLength = utf8(langs.get(i).getTitle()).length;
+                out.writeLong(stringPos);
+                out.writeInt(codeLength);
+                out.writeInt(firstWordIds[i]);
+                out.writeLong(stringPos + codeLength);
+                out.writeInt(titleLength);
+                out.writeInt(langWordCounts[i]);
+                stringPos += codeLength + titleLength;
+            }
+            
+            int langId = 0;
+            long adjacencyPos = adjacency;
+            int[] slots = new int[slotCount];
+            for (int id = 0; id < words.size(); id++) {
+                while (langId + 1 < langs.size() && id >= firstWordIds[langId + 1])
+                    langId++;
+                
+                Word w = words.get(id);
+                int textLength = utf8(w.getWord()).length;
+                int translationCount = dictionary.getTranslations(w).size();
+                out.writeLong(stringPos);
+                out.writeInt(textLength);
+                out.writeInt(langId);
+                out.writeLong(adjacencyPos);
+                out.writeInt(translationCount);
+                out.writeInt(w.hashCode());
+                stringPos += textLength;
+                adjacencyPos += 4L * translationCount;
+                
+                int slot = MappedWordStore.slotIndex(w.hashCode(), slotCount - 1);
+                while (slots[slot] != 0)
+                    slot = (slot + 1) & (slotCount - 1);
+                slots[slot] = id + 1;
+            }
+            
+            for (int slot : slots) {
+                out.writeInt(slot);
+            }
+            
+            for (Word w : words) {
+                for (Word tr : dictionary.getTranslations(w)) {
+                    out.writeInt(ids.get(tr));
+                }
+            }
+            
+            for (Lang lang : langs) {
+                out.write(utf8(lang.getCode()));
+                out.write(utf8(lang.getTitle()));
+            }
+            for (Word w : words) {
+                out.write(utf8(w.getWord()));
+            }
+            
+            out.flush();
+            channel.force(true);
+        }
+        
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Возвращает строку {@code s} в кодировке UTF-8.
+     * @param s строка.
+     * @return массив байтов.
+     */
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Открывает файл словаря {@code path} через {@link FileChannel#map} без чтения данных в память.
+     * Открытый словарь доступен только для чтения: добавление и удаление слов и переводов
+     * возвращают {@code false}.
+     * @param path путь к файлу.
+     * @return словарь, читающий данные из файла.
+     * @throws IOException если файл не удалось прочитать или он не является файлом словаря.
+     */
+    static Dictionary open(Path path) throws IOException {
+        MappedWordStore store;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            store = new MappedWordStore(channel);
+        }
+        
+        Lang[] langs = store.langs();
+        if (langs.length == 0)
+            throw new IOException("Dictionary file has no languages: " + path);
+        
+        Dictionary result = new Dictionary(langs[0], store);
+        for (Lang lang : langs) {
+            result.addLang(lang);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Читает файл словаря {@code path} целиком в новый изменяемый словарь.
+     * @param path путь к файлу.
+     * @return словарь с языками, словами и переводами из файла.
+     * @throws IOException если файл не удалось прочитать или он не является файлом словаря.
+     */
+    static Dictionary load(Path path) throws IOException {
+        Dictionary mapped = open(path);
+        TreeSet<Lang> langs = mapped.getLangs().getLangSet();
+        
+        Dictionary result = new Dictionary(langs.first());
+        for (Lang lang : langs) {
+            result.addLang(lang);
+        }
+        for (Lang lang : langs) {
+            for (Word w : mapped.getWordsByLang(lang)) {
+                result.addWord(w);
+            }
+        }
+        for (Lang lang : langs) {
+            for (Word w : mapped.getWordsByLang(lang)) {
+                for (Word tr : mapped.getTranslations(w)) {
+                    result.addTranslation(w, tr);
+                }
+            }
+        }
+        
+        return result;
+    }
+
+}
@@ -0,0 +1,349 @@
+package Dictionary;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+/**
+ * Потоковый загрузчик переводов в {@link Dictionary} из текстового файла (TSV или CSV).<p>
+ * Каждая строка файла описывает один перевод четырьмя полями, разделёнными
+ * {@link DictionaryImporter#delimiter}: код языка слова, слово, код языка перевода, перевод.
+ * Поле может быть заключено в двойные кавычки (кавычка внутри такого поля удваивается).
+ * Пустые строки и строки, начинающиеся с {@code #}, пропускаются.<p>
+ * Файл читается построчно, поэтому затраты памяти не зависят от его размера. Коды языков
+ * разрешаются один раз за загрузку, переводы добавляются пакетами по
+ * {@link DictionaryImporter#batchSize}. Отсутствующие в словаре слова добавляются.
+ * Ошибочные строки не прерывают загрузку, а передаются {@link DictionaryImporter#errorHandler}.
+ * @author yaros
+ */
+public class DictionaryImporter {
+    
+    /** Размер пакета по умолчанию. */
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+    
+    /** Словарь, в который загружаются переводы. */
+    private final Dictionary dictionary;
+    
+    /** Разделитель полей. */
+    private char delimiter = '\t';
+    
+    /** Количество переводов в пакете. */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    
+    /** Обработчик ошибочных строк. */
+    private Consumer<? super LineError> errorHandler = e -> { };
+    
+    /**
+     * Ошибка разбора или добавления одной строки файла.
+     */
+    public static class LineError {
+        
+        /** Номер строки, начиная с 1. */
+        private final long lineNumber;
+        
+        /** Текст строки. */
+        private final String line;
+        
+        /** Описание ошибки. */
+        private final String message;
+        
+        LineError(long lineNumber, String line, String message) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.message = message;
+        }
+        
+        public long getLineNumber() {
+            return lineNumber;
+        }
+        
+        public String getLine() {
+            return line;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+        
+        @Override
+        public String toString() {
+            return lineNumber + ": " + message;
+        }
+    
+    }
+    
+    /**
+     * Итоги загрузки.
+     */
+    public static class Result {
+        
+        /** Количество прочитанных строк. */
+        private final long lines;
+        
+        /** Количество добавленных переводов. */
+        private final long added;
+        
+        /** Количество переводов, уже содержавшихся в словаре. */
+        private final long skipped;
+        
+        /** Количество ошибочных строк. */
+        private final long errors;
+        
+        Result(long lines, long added, long skipped, long errors) {
+            this.lines = lines;
+            this.added = added;
+            this.skipped = skipped;
+            this.errors = errors;
+        }
+        
+        public long getLines() {
+            return lines;
+        }
+        
+        public long getAdded() {
+            return added;
+        }
+        
+        public long getSkipped() {
+            return skipped;
+        }
+        
+        public long getErrors() {
+            return errors;
+        }
+        
+        @Override
+        public String toString() {
+            return "lines=" + lines + ", added=" + added + ", skipped=" + skipped + ", errors=" + errors;
+        }
+    
+    }
+    
+    /**
+     * Конструктор загрузчика переводов в словарь {@code dictionary}.
+     * @param dictionary словарь.
+     */
+    public DictionaryImporter(Dictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+    
+    /**
+     * Изменяет разделитель полей ({@code '\t'} для TSV, {@code ','} для CSV).
+     * @param delimiter разделитель.
+     * @return {@code true}, если разделитель изменён;<br>
+     * {@code false}, если {@code delimiter} - кавычка или перевод строки.
+     */
+    public boolean setDelimiter(char delimiter) {
+        if (delimiter == '"' || delimiter == '\n' || delimiter == '\r')
+            return false;
+        
+        this.delimiter = delimiter;
+        return true;
+    }
+    
+    /**
+     * Изменяет количество переводов в пакете.
+     * @param batchSize количество переводов в пакете.
+     * @return {@code true}, если размер пакета изменён;<br>
+     * {@code false}, если {@code batchSize} меньше 1.
+     */
+    public boolean setBatchSize(int batchSize) {
+        if (batchSize < 1)
+            return false;
+        
+        this.batchSize = batchSize;
+        return true;
+    }
+    
+    /**
+     * Устанавливает обработчик ошибочных строк.
+     * @param errorHandler обработчик.
+     * @return {@code true}, если обработчик установлен;<br>
+     * {@code false}, если {@code errorHandler} равен {@code null}.
+     */
+    public boolean setErrorHandler(Consumer<? super LineError> errorHandler) {
+        if (errorHandler == null)
+            return false;
+        
+        this.errorHandler = errorHandler;
+        return true;
+    }
+    
+    /**
+     * Загружает переводы из файла {@code path} в кодировке UTF-8.
+     * @param path путь к файлу.
+     * @return итоги загрузки.
+     * @throws IOException при ошибке чтения файла.
+     */
+    public Result importFrom(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return importFrom(reader);
+        }
+    }
+    
+    /**
+     * Загружает переводы из {@code reader}. Поток не закрывается.
+     * @param reader источник строк.
+     * @return итоги загрузки.
+     * @throws IOException при ошибке чтения.
+     */
+    public Result importFrom(Reader reader) throws IOException {
+        BufferedReader in = (reader instanceof BufferedReader) ? (BufferedReader)reader : new BufferedReader(reader, 1 << 16);
+        
+        HashMap<String, Lang> langs = new HashMap<>();
+        for (Lang lang : dictionary.getLangs().getLangSet()) {
+            langs.put(lang.getCode(), lang);
+        }
+        
+        Word[] words = new Word[batchSize];
+        Word[] translations = new Word[batchSize];
+        boolean[] results = new boolean[batchSize];
+        int count = 0;
+        
+        long lineNumber = 0;
+        long added = 0;
+        long errors = 0;
+        long processed = 0;
+        String[] fields = new String[4];
+        
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty() || line.charAt(0) == '#')
+                continue;
+            
+            String error = split(line, fields);
+            if (error == null) {
+                Lang lang = langs.get(fields[0]);
+                Lang translationLang = langs.get(fields[2]);
+                if (lang == null)
+                    error = "Unknown language code: " + fields[0];
+                else if (translationLang == null)
+                    error = "Unknown language code: " + fields[2];
+                else if (fields[1].isEmpty() || fields[3].isEmpty())
+                    error = "Empty word";
+                else {
+                    words[count] = new Word(fields[1], lang);
+                    translations[count] = new Word(fields[3], translationLang);
+                    count++;
+                }
+            }
+            
+            if (error != null) {
+                errors++;
+                errorHandler.accept(new LineError(lineNumber, line, error));
+            }
+            
+            if (count == batchSize) {
+                added += flush(words, translations, count, results);
+                processed += count;
+                count = 0;
+            }
+        }
+        
+        added += flush(words, translations, count, results);
+        processed += count;
+        
+        return new Result(lineNumber, added, processed - added, errors);
+    }
+    
+    /**
+     * Добавляет пакет переводов в словарь и очищает его.
+     * @param words переводимые слова.
+     * @param translations переводы.
+     * @param count количество переводов в пакете.
+     * @param results массив для результатов.
+     * @return количество добавленных переводов.
+     */
+    private int flush(Word[] words, Word[] translations, int count, boolean[] results) {
+        if (count == 0)
+            return 0;
+        
+        dictionary.importTranslations(words, translations, count, results);
+        
+        int added = 0;
+        for (int i = 0; i < count; i++) {
+            if (results[i])
+                added++;
+            words[i] = null;
+            translations[i] = null;
+        }
+        
+        return added;
+    }
+    
+    /**
+     * Разбивает строку {@code line} на четыре поля.
+     * @param line строка.
+     * @param fields массив для полей.
+     * @return {@code null}, если строка разобрана;<br>
+     * описание ошибки в ином случае.
+     */
+    private String split(String line, String[] fields) {
+        if (line.indexOf('"') < 0) {
+            int start = 0;
+            for (int i = 0; i < 3; i++) {
+                int end = line.indexOf(delimiter, start);
+                if (end < 0)
+                    return "Expected 4 fields";
+                fields[i] = line.substring(start, end);
+                start = end + 1;
+            }
+            if (line.indexOf(delimiter, start) >= 0)
+                return "Expected 4 fields";
+            fields[3] = line.substring(start);
+            return null;
+        }
+        
+        ArrayList<String> parsed = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        while (true) {
+            field.setLength(0);
+            if (i < line.length() && line.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= line.length())
+                        return "Unterminated quoted field";
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < line.length() && line.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                }
+                if (i < line.length() && line.charAt(i) != delimiter)
+                    return "Unexpected character after quoted field";
+            } else {
+                int end = line.indexOf(delimiter, i);
+                if (end < 0)
+                    end = line.length();
+                field.append(line, i, end);
+                i = end;
+            }
+            
+            parsed.add(field.toString());
+            if (i >= line.length())
+                break;
+            i++;
+        }
+        
+        if (parsed.size() != 4)
+            return "Expected 4 fields";
+        
+        parsed.toArray(fields);
+        return null;
+    }
+
+}
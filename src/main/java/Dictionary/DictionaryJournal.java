@@ -0,0 +1,736 @@
+package Dictionary;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал изменений словаря с дозаписью. Журнал подключается к словарю как
+ * {@link DictionaryListener} и записывает каждое изменение ({@link Dictionary#addLang},
+ * {@link Dictionary#addWord}, {@link Dictionary#removeWord}, {@link Dictionary#addTranslation},
+ * {@link Dictionary#removeLang}) в конец файла, не перезаписывая словарь целиком.<p>
+ * Каталог журнала содержит снимок словаря {@code snapshot-N.sdic} (формат {@link DictionaryFile})
+ * и файл {@code journal-N.log} с изменениями, выполненными после записи снимка. Сжатие
+ * ({@link DictionaryJournal#compact}) записывает новый снимок следующего поколения {@code N}
+ * и начинает новый пустой файл журнала, поэтому время восстановления
+ * ({@link DictionaryJournal#recover}) ограничено длиной журнала после последнего сжатия.<p>
+ * Каждая запись журнала содержит длину, контрольную сумму CRC32 и данные: байт типа и строковые
+ * поля, записанные длиной и байтами UTF-8, поэтому длина слова ограничена только
+ * {@link DictionaryJournal#MAX_RECORD_SIZE}. Восстановление останавливается на первой неполной
+ * или повреждённой записи (например, недописанной при сбое).<p>
+ * Записи накапливаются в памяти и записываются в файл по правилу {@link FsyncPolicy}.
+ * Несколько потоков, одновременно ожидающих сброса на диск, обслуживаются одним вызовом
+ * {@link FileChannel#force} (групповая фиксация).<p>
+ * Ошибка записи в файл не прерывает изменение словаря: она сохраняется, журнал перестаёт
+ * записывать изменения, а {@link DictionaryJournal#sync}, {@link DictionaryJournal#compact}
+ * и {@link DictionaryJournal#close} выбрасывают её.
+ * @author yaros
+ */
+public class DictionaryJournal implements DictionaryListener, Closeable {
+    
+    /**
+     * Правило сброса журнала на диск.
+     */
+    public enum FsyncPolicy {
+        
+        /** Изменение словаря завершается только после сброса его записи на диск. */
+        ALWAYS,
+        
+        /** Журнал сбрасывается на диск фоновым потоком через заданный интервал. */
+        INTERVAL,
+        
+        /**
+         * Журнал записывается в файл при накоплении {@link DictionaryJournal#FLUSH_SIZE} байт
+         * и сбрасывается на диск только {@link DictionaryJournal#sync} и {@link DictionaryJournal#close}.
+         */
+        NEVER
+    
+    }
+    
+    /** Интервал сброса на диск по умолчанию для {@link FsyncPolicy#INTERVAL}, в миллисекундах. */
+    public static final long DEFAULT_SYNC_INTERVAL = 1000;
+    
+    /** Объём накопленных записей, при котором они записываются в файл, в байтах. */
+    static final int FLUSH_SIZE = 1 << 16;
+    
+    /**
+     * Наибольший допустимый размер записи журнала, в байтах. Изменение с более длинной записью
+     * не записывается и прекращает запись журнала, как ошибка записи в файл.
+     */
+    static final int MAX_RECORD_SIZE = 1 << 26;
+    
+    /**
+     * Признак типа записи, строковые поля которой записаны длиной и байтами UTF-8
+     * ({@link DictionaryJournal#writeString}). Записи без признака содержат поля, записанные
+     * {@link DataOutputStream#writeUTF} прежней версией журнала, и также воспроизводятся.
+     */
+    static final byte UTF8_FIELDS = 0x40;
+    
+    /** Тип записи: добавление языка (код, название). */
+    static final byte ADD_LANG = 1;
+    
+    /** Тип записи: удаление языка (код). */
+    static final byte REMOVE_LANG = 2;
+    
+    /** Тип записи: добавление слова (текст, код языка). */
+    static final byte ADD_WORD = 3;
+    
+    /** Тип записи: удаление слова (текст, код языка). */
+    static final byte REMOVE_WORD = 4;
+    
+    /** Тип записи: добавление перевода (текст и код языка слова, текст и код языка перевода). */
+    static final byte ADD_TRANSLATION = 5;
+    
+    /** Каталог журнала. */
+    private final Path dir;
+    
+    /** Словарь, изменения которого записываются. */
+    private final Dictionary dictionary;
+    
+    /** Правило сброса журнала на диск. */
+    private final FsyncPolicy policy;
+    
+    /** Поток периодического сброса на диск для {@link FsyncPolicy#INTERVAL}; {@code null} для других правил. */
+    private final ScheduledExecutorService syncTimer;
+    
+    /** Блокировка накопления записей: {@link DictionaryJournal#pending}, {@link DictionaryJournal#appendedSeq}. */
+    private final Object appendLock = new Object();
+    
+    /** Записи, ещё не записанные в файл. */
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(FLUSH_SIZE);
+    
+    /** Поток записи в {@link DictionaryJournal#pending}. */
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+    
+    /** Буфер данных одной записи. */
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    
+    /** Поток записи в {@link DictionaryJournal#record}. */
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    
+    /** Контрольная сумма записи. */
+    private final CRC32 crc = new CRC32();
+    
+    /** Порядковый номер последней накопленной записи. */
+    private long appendedSeq = 0;
+    
+    /** Количество записей в текущем файле журнала. */
+    private long length = 0;
+    
+    /** Показывает, закрыт ли журнал. */
+    private boolean closed = false;
+    
+    /** Блокировка файла журнала: {@link DictionaryJournal#channel} и номера записанных записей. */
+    private final Object syncLock = new Object();
+    
+    /** Текущий файл журнала. */
+    private FileChannel channel;
+    
+    /** Поколение текущих снимка и файла журнала. */
+    private long generation;
+    
+    /** Порядковый номер последней записи, записанной в файл. */
+    private long writtenSeq = 0;
+    
+    /** Порядковый номер последней записи, сброшенной на диск. */
+    private long syncedSeq = 0;
+    
+    /** Ошибка записи в файл; {@code null}, если ошибок не было. */
+    private volatile IOException failure;
+    
+    /**
+     * Показывает, передаёт ли текущий поток уведомления пакета изменений ({@link DictionaryBatch}).
+     * Записи пакета сбрасываются на диск один раз в {@link DictionaryJournal#batchFinished}.
+     */
+    private final ThreadLocal<Boolean> inBatch = ThreadLocal.withInitial(() -> false);
+    
+    /**
+     * Конструктор журнала. Используется {@link DictionaryJournal#open}.
+     * @param dir каталог журнала.
+     * @param dictionary словарь.
+     * @param policy правило сброса на диск.
+     * @param syncInterval интервал сброса на диск для {@link FsyncPolicy#INTERVAL}, в миллисекундах.
+     */
+    private DictionaryJournal(Path dir, Dictionary dictionary, FsyncPolicy policy, long syncInterval) {
+        this.dir = dir;
+        this.dictionary = dictionary;
+        this.policy = policy;
+        
+        if (policy == FsyncPolicy.INTERVAL) {
+            syncTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "dictionary-journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncTimer.scheduleWithFixedDelay(this::syncQuietly, syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+        } else {
+            syncTimer = null;
+        }
+    }
+    
+    /**
+     * Начинает журнал словаря {@code dictionary} в каталоге {@code dir}: записывает текущее
+     * состояние словаря как снимок нового поколения, удаляет прежние снимки и журналы каталога
+     * и подключает журнал к словарю. Для продолжения журнала после перезапуска словарь
+     * сначала восстанавливается методом {@link DictionaryJournal#recover}.<br>
+     * Снимок записывается и журнал подключается внутри {@link Dictionary#exclusive}, поэтому
+     * изменения потокобезопасных словарей не теряются между ними.
+     * @param dir каталог журнала; создаётся, если отсутствует.
+     * @param dictionary словарь.
+     * @param policy правило сброса на диск.
+     * @return подключённый к словарю журнал.
+     * @throws IOException при ошибке записи снимка или создания файла журнала.
+     */
+    public static DictionaryJournal open(Path dir, Dictionary dictionary, FsyncPolicy policy) throws IOException {
+        return open(dir, dictionary, policy, DEFAULT_SYNC_INTERVAL);
+    }
+    
+    /**
+     * Начинает журнал словаря {@code dictionary} в каталоге {@code dir}, см. {@link DictionaryJournal#open(Path, Dictionary, FsyncPolicy)}.
+     * @param dir каталог журнала; создаётся, если отсутствует.
+     * @param dictionary словарь.
+     * @param policy правило сброса на диск.
+     * @param syncInterval интервал сброса на диск для {@link FsyncPolicy#INTERVAL}, в миллисекундах.
+     * @return подключённый к словарю журнал.
+     * @throws IOException при ошибке записи снимка или создания файла журнала.
+     */
+    public static DictionaryJournal open(Path dir, Dictionary dictionary, FsyncPolicy policy, long syncInterval) throws IOException {
+        if (dictionary == null || policy == null || syncInterval <= 0)
+            throw new IllegalArgumentException("Invalid journal parameters");
+        
+        Files.createDirectories(dir);
+        long next = latestGeneration(dir) + 1;
+        DictionaryJournal journal = dictionary.exclusiveIO(() -> {
+            DictionaryFile.write(dictionary, snapshotPath(dir, next));
+            FileChannel channel = createJournal(dir, next);
+            
+            DictionaryJournal result = new DictionaryJournal(dir, dictionary, policy, syncInterval);
+            result.channel = channel;
+            result.generation = next;
+            dictionary.addListener(result);
+            return result;
+        });
+        deleteBefore(dir, next);
+        return journal;
+    }
+    
+    /**
+     * Восстанавливает словарь из каталога журнала {@code dir}: читает последний снимок
+     * и повторяет записанные после него изменения.
+     * @param dir каталог журнала.
+     * @return восстановленный изменяемый словарь.
+     * @throws IOException если в каталоге нет снимка или его не удалось прочитать.
+     */
+    public static Dictionary recover(Path dir) throws IOException {
+        long gen = latestGeneration(dir);
+        if (gen == 0)
+            throw new NoSuchFileException(dir.toString(), null, "No dictionary snapshot");
+        
+        Dictionary result = DictionaryFile.load(snapshotPath(dir, gen));
+        Path journal = journalPath(dir, gen);
+        if (Files.exists(journal))
+            replay(journal, result);
+        
+        return result;
+    }
+    
+    /**
+     * Сжимает журнал: записывает текущее состояние словаря как снимок следующего поколения,
+     * начинает новый пустой файл журнала и удаляет прежние снимок и журнал. Вызывается
+     * периодически, например когда {@link DictionaryJournal#getLength} превышает заданный порог.<br>
+     * Сжатие выполняется внутри {@link Dictionary#exclusive}, поэтому изменения потокобезопасных
+     * словарей дожидаются его окончания и не попадают в удаляемый журнал после записи снимка.
+     * Монопольный раздел захватывается до {@link DictionaryJournal#syncLock}, как и при изменении словаря.
+     * @throws IOException при ошибке записи; в этом случае продолжает использоваться прежний файл журнала.
+     */
+    public void compact() throws IOException {
+        dictionary.exclusiveIO(() -> {
+            compactExclusive();
+            return null;
+        });
+    }
+    
+    /**
+     * Сжимает журнал, см. {@link DictionaryJournal#compact}. Вызывается внутри {@link Dictionary#exclusive}.
+     * @throws IOException при ошибке записи.
+     */
+    private void compactExclusive() throws IOException {
+        synchronized (syncLock) {
+            sync();
+            
+            long next = generation + 1;
+            DictionaryFile.write(dictionary, snapshotPath(dir, next));
+            FileChannel newChannel;
+            try {
+                newChannel = createJournal(dir, next);
+            } catch (IOException e) {
+                Files.deleteIfExists(snapshotPath(dir, next));
+                throw e;
+            }
+            
+            channel.close();
+            channel = newChannel;
+            generation = next;
+            synchronized (appendLock) {
+                length = 0;
+            }
+            deleteBefore(dir, next);
+        }
+    }
+    
+    /**
+     * Записывает в файл и сбрасывает на диск все накопленные записи.
+     * @throws IOException при ошибке записи, в том числе произошедшей ранее.
+     */
+    public void sync() throws IOException {
+        long seq;
+        synchronized (appendLock) {
+            seq = appendedSeq;
+        }
+        flush(seq, true);
+    }
+    
+    /**
+     * Возвращает количество записей в журнале после последнего сжатия.
+     * @return количество записей.
+     */
+    public long getLength() {
+        synchronized (appendLock) {
+            return length;
+        }
+    }
+    
+    /**
+     * Отключает журнал от словаря, сбрасывает накопленные записи на диск и закрывает файл журнала.
+     * @throws IOException при ошибке записи, в том числе произошедшей ранее.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            if (closed)
+                return;
+            closed = true;
+        }
+        
+        dictionary.removeListener(this);
+        if (syncTimer != null)
+            syncTimer.shutdown();
+        
+        synchronized (syncLock) {
+            try {
+                sync();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+    
+    @Override
+    public void langAdded(Lang lang) {
+        append(ADD_LANG, lang.getCode(), lang.getTitle());
+    }
+    
+    @Override
+    public void langRemoved(Lang lang) {
+        append(REMOVE_LANG, lang.getCode());
+    }
+    
+    @Override
+    public void wordAdded(Word word) {
+        append(ADD_WORD, word.getWord(), word.getLang().getCode());
+    }
+    
+    @Override
+    public void wordRemoved(Word word) {
+        append(REMOVE_WORD, word.getWord(), word.getLang().getCode());
+    }
+    
+    @Override
+    public void translationAdded(Word word, Word translationWord) {
+        append(ADD_TRANSLATION, word.getWord(), word.getLang().getCode(),
+                translationWord.getWord(), translationWord.getLang().getCode());
+    }
+    
+    @Override
+    public void batchStarted() {
+        inBatch.set(true);
+    }
+    
+    /**
+     * {@inheritDoc}<br>
+     * Для {@link FsyncPolicy#ALWAYS} сбрасывает записи пакета на диск одним вызовом {@link FileChannel#force}.
+     */
+    @Override
+    public void batchFinished() {
+        inBatch.set(false);
+        if (policy != FsyncPolicy.ALWAYS || failure != null)
+            return;
+        
+        long seq;
+        synchronized (appendLock) {
+            seq = appendedSeq;
+        }
+        try {
+            flush(seq, true);
+        } catch (IOException e) {
+            // Ошибка сохранена в failure.
+        }
+    }
+    
+    /**
+     * Добавляет запись типа {@code type} с полями {@code fields} к накопленным записям
+     * и записывает их в файл по правилу {@link DictionaryJournal#policy}.
+     * @param type тип записи.
+     * @param fields поля записи.
+     */
+    private void append(byte type, String... fields) {
+        if (failure != null)
+            return;
+        
+        long seq;
+        boolean full;
+        synchronized (appendLock) {
+            if (closed)
+                return;
+            
+            try {
+                record.reset();
+                recordOut.writeByte(type | UTF8_FIELDS);
+                for (String field : fields) {
+                    writeString(recordOut, field);
+                }
+                if (record.size() > MAX_RECORD_SIZE)
+                    throw new IOException("Journal record of " + record.size() + " bytes exceeds " + MAX_RECORD_SIZE);
+                
+                byte[] data = record.toByteArray();
+                crc.reset();
+                crc.update(data);
+                
+                pendingOut.writeInt(data.length);
+                pendingOut.writeInt((int)crc.getValue());
+                pendingOut.write(data);
+            } catch (IOException e) {
+                failure = e;
+                return;
+            }
+            
+            seq = ++appendedSeq;
+            length++;
+            full = pending.size() >= FLUSH_SIZE;
+        }
+        
+        boolean always = policy == FsyncPolicy.ALWAYS && !inBatch.get();
+        if (always || full) {
+            try {
+                flush(seq, always);
+            } catch (IOException e) {
+                // Ошибка сохранена в failure.
+            }
+        }
+    }
+    
+    /**
+     * Записывает в файл все накопленные записи, если запись с номером {@code seq} ещё не записана.
+     * Поток, ожидающий {@link DictionaryJournal#syncLock}, находит свою запись уже записанной
+     * вызовом другого потока и возвращается без обращения к файлу.
+     * @param seq номер записи.
+     * @param force {@code true}, если записи нужно также сбросить на диск.
+     * @throws IOException при ошибке записи, в том числе произошедшей ранее.
+     */
+    private void flush(long seq, boolean force) throws IOException {
+        synchronized (syncLock) {
+            if (failure != null)
+                throw failure;
+            if (seq <= (force ? syncedSeq : writtenSeq))
+                return;
+            
+            byte[] data;
+            long upTo;
+            synchronized (appendLock) {
+                data = pending.toByteArray();
+                pending.reset();
+                upTo = appendedSeq;
+            }
+            
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+                writtenSeq = upTo;
+                
+                if (force) {
+                    channel.force(false);
+                    syncedSeq = upTo;
+                }
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * Выполняет {@link DictionaryJournal#sync} для {@link FsyncPolicy#INTERVAL}. Ошибка сохраняется в {@link DictionaryJournal#failure}.
+     */
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            // Ошибка сохранена в failure.
+        }
+    }
+    
+    /**
+     * Повторяет изменения из файла журнала {@code journal} в словаре {@code dictionary}
+     * до конца файла или до первой неполной или повреждённой записи.
+     * @param journal файл журнала.
+     * @param dictionary словарь.
+     * @throws IOException при ошибке чтения файла.
+     */
+    private static void replay(Path journal, Dictionary dictionary) throws IOException {
+        HashMap<String, Lang> langs = new HashMap<>();
+        for (Lang lang : dictionary.getLangs().getLangSet()) {
+            langs.put(lang.getCode(), lang);
+        }
+        
+        CRC32 checksum = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal), 1 << 16))) {
+            while (true) {
+                byte[] data;
+                int expected;
+                try {
+                    int size = in.readInt();
+                    expected = in.readInt();
+                    if (size <= 0 || size > MAX_RECORD_SIZE)
+                        return;
+                    data = new byte[size];
+                    in.readFully(data);
+                } catch (EOFException e) {
+                    return;
+                }
+                
+                checksum.reset();
+                checksum.update(data);
+                if ((int)checksum.getValue() != expected)
+                    return;
+                
+                apply(new DataInputStream(new ByteArrayInputStream(data)), dictionary, langs);
+            }
+        }
+    }
+    
+    /**
+     * Повторяет в словаре {@code dictionary} изменение из записи журнала.
+     * @param in данные записи.
+     * @param dictionary словарь.
+     * @param langs языки словаря по кодам; обновляется при добавлении и удалении языков.
+     * @throws IOException если запись имеет неизвестный тип.
+     */
+    private static void apply(DataInputStream in, Dictionary dictionary, HashMap<String, Lang> langs) throws IOException {
+        byte header = in.readByte();
+        boolean utf8 = (header & UTF8_FIELDS) != 0;
+        byte type = (byte)(header & ~UTF8_FIELDS);
+        switch (type) {
+            case ADD_LANG: {
+                String code = readString(in, utf8);
+                if (dictionary.addLang(code, readString(in, utf8)))
+                    langs.put(code, dictionary.getLangs().getLangByCode(code));
+                break;
+            }
+            case REMOVE_LANG: {
+                Lang lang = langs.remove(readString(in, utf8));
+                if (lang != null)
+                    dictionary.removeLang(lang);
+                break;
+            }
+            case ADD_WORD: {
+                Word word = readWord(in, utf8, langs);
+                if (word != null)
+                    dictionary.addWord(word);
+                break;
+            }
+            case REMOVE_WORD: {
+                Word word = readWord(in, utf8, langs);
+                if (word != null)
+                    dictionary.removeWord(word);
+                break;
+            }
+            case ADD_TRANSLATION: {
+                Word word = readWord(in, utf8, langs);
+                Word translationWord = readWord(in, utf8, langs);
+                if (word != null && translationWord != null)
+                    dictionary.importTranslation(word, translationWord);
+                break;
+            }
+            default:
+                throw new IOException("Unknown journal record type: " + type);
+        }
+    }
+    
+    /**
+     * Записывает строку {@code s} длиной в байтах и байтами UTF-8.
+     * @param out данные записи.
+     * @param s строка.
+     * @throws IOException при ошибке записи.
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    /**
+     * Читает строковое поле записи журнала.
+     * @param in данные записи.
+     * @param utf8 {@code true}, если поле записано {@link DictionaryJournal#writeString};
+     * {@code false}, если {@link DataOutputStream#writeUTF}.
+     * @return строка.
+     * @throws IOException при ошибке чтения записи.
+     */
+    private static String readString(DataInputStream in, boolean utf8) throws IOException {
+        if (!utf8)
+            return in.readUTF();
+        
+        int size = in.readInt();
+        if (size < 0 || size > in.available())
+            throw new IOException("Invalid journal string length: " + size);
+        
+        byte[] bytes = new byte[size];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Читает текст и код языка слова из записи журнала.
+     * @param in данные записи.
+     * @param utf8 формат строковых полей, см. {@link DictionaryJournal#readString}.
+     * @param langs языки словаря по кодам.
+     * @return слово;<br>
+     * {@code null}, если языка с прочитанным кодом нет в словаре.
+     * @throws IOException при ошибке чтения записи.
+     */
+    private static Word readWord(DataInputStream in, boolean utf8, HashMap<String, Lang> langs) throws IOException {
+        String text = readString(in, utf8);
+        Lang lang = langs.get(readString(in, utf8));
+        if (lang == null)
+            return null;
+        
+        return new Word(text, lang);
+    }
+    
+    /**
+     * Создаёт пустой файл журнала поколения {@code gen} и сбрасывает каталог на диск.
+     * @param dir каталог журнала.
+     * @param gen поколение.
+     * @return файл журнала, открытый для записи.
+     * @throws IOException при ошибке создания файла.
+     */
+    private static FileChannel createJournal(Path dir, long gen) throws IOException {
+        FileChannel result = FileChannel.open(journalPath(dir, gen),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        forceDirectory(dir);
+        return result;
+    }
+    
+    /**
+     * Сбрасывает на диск содержимое каталога {@code dir}, чтобы созданные и переименованные
+     * файлы сохранились при сбое. Ничего не делает, если система этого не поддерживает.
+     * @param dir каталог.
+     */
+    private static void forceDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Сброс каталога поддерживается не всеми системами.
+        }
+    }
+    
+    /**
+     * Возвращает наибольшее поколение снимка в каталоге {@code dir}.
+     * @param dir каталог журнала.
+     * @return поколение;<br>
+     * {@code 0}, если снимков нет.
+     * @throws IOException при ошибке чтения каталога.
+     */
+    private static long latestGeneration(Path dir) throws IOException {
+        long result = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "snapshot-*.sdic")) {
+            for (Path file : files) {
+                result = Math.max(result, generationOf(file));
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Удаляет из каталога {@code dir} снимки и файлы журнала поколений меньше {@code gen}.
+     * @param dir каталог журнала.
+     * @param gen поколение.
+     * @throws IOException при ошибке удаления.
+     */
+    private static void deleteBefore(Path dir, long gen) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "{snapshot-*.sdic,journal-*.log}")) {
+            for (Path file : files) {
+                long fileGen = generationOf(file);
+                if (fileGen > 0 && fileGen < gen)
+                    Files.deleteIfExists(file);
+            }
+        }
+    }
+    
+    /**
+     * Возвращает поколение снимка или файла журнала по имени файла.
+     * @param file файл.
+     * @return поколение;<br>
+     * {@code 0}, если имя файла не содержит поколения.
+     */
+    private static long generationOf(Path file) {
+        String name = file.getFileName().toString();
+        int start = name.indexOf('-') + 1;
+        int end = name.lastIndexOf('.');
+        try {
+            return Long.parseLong(name.substring(start, end));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return 0;
+        }
+    }
+    
+    /**
+     * Возвращает путь к снимку поколения {@code gen}.
+     * @param dir каталог журнала.
+     * @param gen поколение.
+     * @return путь к снимку.
+     */
+    private static Path snapshotPath(Path dir, long gen) {
+        return dir.resolve("snapshot-" + gen + ".sdic");
+    }
+    
+    /**
+     * Возвращает путь к файлу журнала поколения {@code gen}.
+     * @param dir каталог журнала.
+     * @param gen поколение.
+     * @return путь к файлу журнала.
+     */
+    private static Path journalPath(Path dir, long gen) {
+        return dir.resolve("journal-" + gen + ".log");
+    }
+
+}
@@ -0,0 +1,68 @@
+package Dictionary;
+
+/**
+ * Получатель уведомлений об изменениях {@link Dictionary}. Уведомление вызывается после
+ * успешного изменения в потоке, выполнившем изменение, и до возврата из метода словаря;
+ * неудачные изменения (возвращающие {@code false}) не уведомляются.<p>
+ * Слово, неявно добавленное вместе с переводом ({@link Dictionary#addTranslation}),
+ * уведомляется отдельно методом {@link DictionaryListener#wordAdded} до уведомления о переводе.
+ * Удаление слова неявно удаляет все его переводы, удаление языка - все слова на этом языке;
+ * об этом отдельно не уведомляется.<p>
+ * Изменения пакета ({@link DictionaryBatch}) уведомляются после применения всего пакета
+ * между вызовами {@link DictionaryListener#batchStarted} и {@link DictionaryListener#batchFinished},
+ * поэтому получатель может отложить свою обработку до конца пакета.<p>
+ * Получатели потокобезопасных словарей ({@link ConcurrentDictionary}) могут вызываться
+ * одновременно из нескольких потоков.
+ * @author yaros
+ */
+public interface DictionaryListener {
+    
+    /**
+     * Вызывается после добавления языка {@code lang} в словарь.
+     * @param lang канонический экземпляр добавленного языка.
+     */
+    default void langAdded(Lang lang) {
+    }
+    
+    /**
+     * Вызывается после удаления языка {@code lang} и всех слов на нём из словаря.
+     * @param lang удалённый язык.
+     */
+    default void langRemoved(Lang lang) {
+    }
+    
+    /**
+     * Вызывается после добавления слова {@code word} в словарь.
+     * @param word добавленное слово.
+     */
+    default void wordAdded(Word word) {
+    }
+    
+    /**
+     * Вызывается после удаления слова {@code word} и всех его переводов из словаря.
+     * @param word удалённое слово.
+     */
+    default void wordRemoved(Word word) {
+    }
+    
+    /**
+     * Вызывается после добавления перевода между словами {@code word} и {@code translationWord}.
+     * @param word переводимое слово.
+     * @param translationWord перевод.
+     */
+    default void translationAdded(Word word, Word translationWord) {
+    }
+    
+    /**
+     * Вызывается перед уведомлениями об изменениях пакета {@link DictionaryBatch}.
+     */
+    default void batchStarted() {
+    }
+    
+    /**
+     * Вызывается после уведомлений об изменениях пакета {@link DictionaryBatch}.
+     */
+    default void batchFinished() {
+    }
+
+}
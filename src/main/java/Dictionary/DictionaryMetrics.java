@@ -0,0 +1,371 @@
+package Dictionary;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Измерения операций словаря: количество выполнений и невыполненных операций и
+ * гистограммы времени выполнения по каждой {@link DictionaryOperation}, а также
+ * показатели словаря - количество слов и переводов слов по языкам.<p>
+ * Измерения накапливаются в {@link LongAdder} счётчиках, поэтому запись измерения
+ * не захватывает блокировок и подходит для потокобезопасных словарей. Гистограмма
+ * времени хранит количество операций по интервалам {@code [2^(i-1), 2^i)} наносекунд,
+ * поэтому процентили приближённые: возвращается верхняя граница интервала (не более
+ * наибольшего времени), то есть погрешность - не более чем в два раза.<p>
+ * Показатели словаря вычисляются при каждом запросе просмотром всех слов словаря.
+ * Словарь при этом не блокируется, поэтому для словаря {@link Dictionary} без
+ * синхронизации их следует запрашивать в потоке, изменяющем словарь.<p>
+ * Измерения доступны через JMX после {@link DictionaryMetrics#registerMBean}.
+ * @author yaros
+ */
+public class DictionaryMetrics implements MetricsSink, DictionaryMetricsMXBean {
+    
+    /** Количество интервалов гистограммы времени. */
+    private static final int BUCKETS = 64;
+    
+    /** Словарь, операции которого измеряются. */
+    private final Dictionary dictionary;
+    
+    /** Измерения по операциям. */
+    private final EnumMap<DictionaryOperation, OperationMetrics> operations = new EnumMap<>(DictionaryOperation.class);
+    
+    /** Имя, под которым измерения зарегистрированы в JMX; {@code null}, если не зарегистрированы. */
+    private ObjectName objectName;
+    
+    /**
+     * Измерения одной операции.
+     */
+    private static final class OperationMetrics {
+        
+        /** Количество выполнений. */
+        final LongAdder count = new LongAdder();
+        
+        /** Количество невыполненных операций. */
+        final LongAdder failures = new LongAdder();
+        
+        /** Суммарное время в наносекундах. */
+        final LongAdder totalNanos = new LongAdder();
+        
+        /** Наибольшее время в наносекундах. */
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        
+        /** Гистограмма: количество операций со временем из интервала {@code [2^(i-1), 2^i)}. */
+        final LongAdder[] buckets = new LongAdder[BUCKETS];
+        
+        OperationMetrics() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+        
+        void record(long nanos, boolean success) {
+            if (nanos < 0)
+                nanos = 0;
+            
+            count.increment();
+            if (!success)
+                failures.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos))].increment();
+        }
+        
+        double mean() {
+            long n = count.sum();
+            return (n == 0) ? 0 : (double)totalNanos.sum() / n;
+        }
+        
+        long percentile(double quantile) {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            if (total == 0)
+                return 0;
+            
+            long rank = Math.max(1, (long)Math.ceil(quantile * total));
+            long seen = 0;
+            int i = 0;
+            for (; i < BUCKETS - 1; i++) {
+                seen += counts[i];
+                if (seen >= rank)
+                    break;
+            }
+            long upper = (i == 0) ? 0 : (i >= 63) ? Long.MAX_VALUE : (1L << i) - 1;
+            return Math.min(upper, maxNanos.get());
+        }
+        
+        void reset() {
+            count.reset();
+            failures.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+            for (LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+        }
+    
+    }
+    
+    /**
+     * Конструктор измерений операций словаря {@code dictionary}.
+     * @param dictionary словарь.
+     */
+    DictionaryMetrics(Dictionary dictionary) {
+        this.dictionary = dictionary;
+        for (DictionaryOperation op : DictionaryOperation.values()) {
+            operations.put(op, new OperationMetrics());
+        }
+    }
+    
+    /**
+     * Создаёт измерения операций словаря {@code dictionary} и устанавливает их
+     * получателем измерений словаря вместо прежнего.
+     * @param dictionary словарь.
+     * @return {@code DictionaryMetrics} измерения;<br>
+     * {@code null}, если {@code dictionary} равен {@code null}.
+     */
+    public static DictionaryMetrics attach(Dictionary dictionary) {
+        if (dictionary == null)
+            return null;
+        
+        DictionaryMetrics metrics = new DictionaryMetrics(dictionary);
+        dictionary.setMetricsSink(metrics);
+        return metrics;
+    }
+    
+    /**
+     * Отключает измерения операций словаря, если они всё ещё передаются этому объекту.
+     * Накопленные измерения сохраняются.
+     * @return {@code true}, если измерения отключены;<br>
+     * {@code false}, если у словаря установлен другой получатель измерений.
+     */
+    public boolean detach() {
+        if (dictionary.getMetricsSink() != this)
+            return false;
+        
+        dictionary.setMetricsSink(null);
+        return true;
+    }
+    
+    @Override
+    public void record(DictionaryOperation operation, long nanos, boolean success) {
+        operations.get(operation).record(nanos, success);
+    }
+    
+    /**
+     * Возвращает количество выполнений операции {@code operation}.
+     * @param operation операция.
+     * @return количество выполнений.
+     */
+    public long getCount(DictionaryOperation operation) {
+        return operations.get(operation).count.sum();
+    }
+    
+    /**
+     * Возвращает количество невыполненных операций {@code operation}.
+     * @param operation операция.
+     * @return количество невыполненных операций.
+     */
+    public long getFailures(DictionaryOperation operation) {
+        return operations.get(operation).failures.sum();
+    }
+    
+    /**
+     * Возвращает среднее время выполнения операции {@code operation}.
+     * @param operation операция.
+     * @return время в наносекундах; {@code 0}, если операция не выполнялась.
+     */
+    public double getMeanNanos(DictionaryOperation operation) {
+        return operations.get(operation).mean();
+    }
+    
+    /**
+     * Возвращает приближённый процентиль времени выполнения операции {@code operation}.
+     * @param operation операция.
+     * @param quantile доля от {@code 0} до {@code 1}, например {@code 0.99}.
+     * @return время в наносекундах, не меньшее точного процентиля и меньшее его удвоенного
+     * значения; {@code 0}, если операция не выполнялась.
+     */
+    public long getPercentileNanos(DictionaryOperation operation, double quantile) {
+        return operations.get(operation).percentile(quantile);
+    }
+    
+    /**
+     * Возвращает наибольшее время выполнения операции {@code operation}.
+     * @param operation операция.
+     * @return время в наносекундах.
+     */
+    public long getMaxNanos(DictionaryOperation operation) {
+        return operations.get(operation).maxNanos.get();
+    }
+    
+    /**
+     * Собирает значения {@code value} по именам всех операций.
+     * @param value значение измерений операции.
+     * @return {@code TreeMap} значения по именам операций.
+     */
+    private <T> Map<String, T> byOperation(Function<OperationMetrics, T> value) {
+        TreeMap<String, T> result = new TreeMap<>();
+        for (Map.Entry<DictionaryOperation, OperationMetrics> e : operations.entrySet()) {
+            result.put(e.getKey().name(), value.apply(e.getValue()));
+        }
+        return result;
+    }
+    
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        return byOperation(m -> m.count.sum());
+    }
+    
+    @Override
+    public Map<String, Long> getFailureCounts() {
+        return byOperation(m -> m.failures.sum());
+    }
+    
+    @Override
+    public Map<String, Double> getMeanLatencyNanos() {
+        return byOperation(OperationMetrics::mean);
+    }
+    
+    @Override
+    public Map<String, Long> getP50LatencyNanos() {
+        return byOperation(m -> m.percentile(0.5));
+    }
+    
+    @Override
+    public Map<String, Long> getP99LatencyNanos() {
+        return byOperation(m -> m.percentile(0.99));
+    }
+    
+    @Override
+    public Map<String, Long> getMaxLatencyNanos() {
+        return byOperation(m -> m.maxNanos.get());
+    }
+    
+    /**
+     * Собирает значения {@code value} по кодам всех языков словаря.
+     * @param value значение для списка слов языка.
+     * @return {@code TreeMap} значения по кодам языков.
+     */
+    private <T> Map<String, T> byLang(Function<Set<Word>, T> value) {
+        TreeMap<String, T> result = new TreeMap<>();
+        for (Lang lang : dictionary.getLangs().getLangSet()) {
+            Set<Word> langWords = dictionary.getWordsByLang(lang);
+            if (langWords != null)
+                result.put(String.valueOf(lang.getCode()), value.apply(langWords));
+        }
+        return result;
+    }
+    
+    /**
+     * Возвращает количество слов на каждом языке словаря.
+     * @return количество слов по кодам языков.
+     */
+    @Override
+    public Map<String, Integer> getWordCounts() {
+        return byLang(Set::size);
+    }
+    
+    /**
+     * Возвращает среднее количество переводов слова на каждом языке словаря.
+     * Просматривает все слова словаря.
+     * @return среднее количество переводов по кодам языков.
+     */
+    @Override
+    public Map<String, Double> getMeanFanOut() {
+        return byLang(langWords -> {
+            long total = 0;
+            for (Word w : langWords) {
+                total += fanOut(w);
+            }
+            return langWords.isEmpty() ? 0 : (double)total / langWords.size();
+        });
+    }
+    
+    /**
+     * Возвращает наибольшее количество переводов слова на каждом языке словаря.
+     * Просматривает все слова словаря.
+     * @return наибольшее количество переводов по кодам языков.
+     */
+    @Override
+    public Map<String, Integer> getMaxFanOut() {
+        return byLang(langWords -> {
+            int max = 0;
+            for (Word w : langWords) {
+                max = Math.max(max, fanOut(w));
+            }
+            return max;
+        });
+    }
+    
+    /**
+     * Возвращает количество переводов слова {@code word}.
+     * @param word слово.
+     * @return количество переводов; {@code 0}, если слова нет в словаре.
+     */
+    private int fanOut(Word word) {
+        Set<Word> translations = dictionary.getTranslations(word);
+        return (translations == null) ? 0 : translations.size();
+    }
+    
+    @Override
+    public void reset() {
+        for (OperationMetrics m : operations.values()) {
+            m.reset();
+        }
+    }
+    
+    /**
+     * Регистрирует измерения в платформенном сервере JMX под именем
+     * {@code Dictionary:type=DictionaryMetrics,name=<name>}.
+     * @param name имя словаря.
+     * @return {@code true}, если измерения зарегистрированы;<br>
+     * {@code false}, если они уже зарегистрированы, имя недопустимо или занято.
+     */
+    public synchronized boolean registerMBean(String name) {
+        if (objectName != null || name == null)
+            return false;
+        
+        try {
+            ObjectName on = new ObjectName("Dictionary:type=DictionaryMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+            objectName = on;
+            return true;
+        } catch (JMException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Удаляет регистрацию измерений из платформенного сервера JMX.
+     * @return {@code true}, если регистрация удалена;<br>
+     * {@code false}, если измерения не были зарегистрированы.
+     */
+    public synchronized boolean unregisterMBean() {
+        if (objectName == null)
+            return false;
+        
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(objectName);
+        } catch (JMException e) {
+            return false;
+        } finally {
+            objectName = null;
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,44 @@
+package Dictionary;
+
+import java.util.Map;
+
+/**
+ * Интерфейс управления {@link DictionaryMetrics} для JMX. Значения по операциям
+ * возвращаются по именам {@link DictionaryOperation}, значения по языкам - по кодам языков.
+ * @author yaros
+ */
+public interface DictionaryMetricsMXBean {
+    
+    /** @return количество выполнений каждой операции. */
+    Map<String, Long> getOperationCounts();
+    
+    /** @return количество невыполненных операций (вернувших {@code false} или {@code null}). */
+    Map<String, Long> getFailureCounts();
+    
+    /** @return среднее время операций в наносекундах. */
+    Map<String, Double> getMeanLatencyNanos();
+    
+    /** @return приближённая медиана времени операций в наносекундах. */
+    Map<String, Long> getP50LatencyNanos();
+    
+    /** @return приближённый 99-й процентиль времени операций в наносекундах. */
+    Map<String, Long> getP99LatencyNanos();
+    
+    /** @return наибольшее время операций в наносекундах. */
+    Map<String, Long> getMaxLatencyNanos();
+    
+    /** @return количество слов на каждом языке словаря. */
+    Map<String, Integer> getWordCounts();
+    
+    /** @return среднее количество переводов слова на каждом языке словаря. */
+    Map<String, Double> getMeanFanOut();
+    
+    /** @return наибольшее количество переводов слова на каждом языке словаря. */
+    Map<String, Integer> getMaxFanOut();
+    
+    /**
+     * Обнуляет измерения операций.
+     */
+    void reset();
+
+}
@@ -0,0 +1,36 @@
+package Dictionary;
+
+/**
+ * Операции словаря, измеряемые {@link MetricsSink}.
+ * @author yaros
+ */
+public enum DictionaryOperation {
+    
+    /** {@link Dictionary#addLang(Lang)}. */
+    ADD_LANG,
+    
+    /** {@link Dictionary#removeLang}. */
+    REMOVE_LANG,
+    
+    /** {@link Dictionary#addWord(Word)}. */
+    ADD_WORD,
+    
+    /** {@link Dictionary#removeWord(Word)}. */
+    REMOVE_WORD,
+    
+    /** {@link Dictionary#addTranslation(Word, Word)}. */
+    ADD_TRANSLATION,
+    
+    /** Добавление перевода при загрузке ({@link DictionaryImporter}) и воспроизведении журнала ({@link DictionaryJournal}). */
+    IMPORT_TRANSLATION,
+    
+    /** {@link DictionaryBatch#apply}. */
+    APPLY_BATCH,
+    
+    /** {@link Dictionary#buildDictionary}. */
+    BUILD_DICTIONARY,
+    
+    /** {@link Dictionary#biuldWordsSetByLang}. */
+    BUILD_WORDS_SET
+
+}
@@ -0,0 +1,367 @@
+package Dictionary;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP-сервер поиска по словарю на основе {@link HttpServer} из JDK. Каждый запрос выполняется
+ * в отдельном виртуальном потоке, поэтому одновременно обслуживаются десятки тысяч соединений
+ * без настройки пула потоков. Класс, как и весь проект, собирается на JDK 8: на JDK 8-20, где
+ * виртуальных потоков нет, запросы выполняются в пуле из {@link DictionaryServer#FALLBACK_THREADS}
+ * обычных потоков, а остальные ждут в очереди.<p>
+ * Ответы - текст UTF-8, по строке на слово, поля разделены табуляцией. Тело ответа
+ * передаётся частями по мере построения и не собирается в памяти целиком:
+ * <ul>
+ * <li>{@code GET /lookup?word=<текст>&lang=<код>} - переводы слова: строки {@code текст<TAB>код языка};</li>
+ * <li>{@code GET /dictionary?from=<код>&to=<код>} - таблица словаря ({@link Dictionary#buildDictionary}):
+ * строки {@code слово<TAB>перевод<TAB>...};</li>
+ * <li>{@code POST /translate?from=<код>&to=<код>[&depth=<n>]} - перевод слов языка {@code from}
+ * из тела запроса, по слову на строку ({@link Dictionary#translate}): на каждую строку запроса
+ * строка {@code слово<TAB>перевод<TAB>...}.</li>
+ * </ul>
+ * Неизвестный язык, отсутствующий параметр или ошибка кодировки URL в параметрах - ответ 400, неизвестное слово в {@code /lookup} - 404.
+ * Словарь читается одновременно из нескольких потоков, поэтому изменяемый словарь должен быть
+ * потокобезопасным ({@link ConcurrentDictionary}, {@link SnapshotDictionary}).
+ * @author yaros
+ */
+public class DictionaryServer implements Closeable {
+    
+    /** Длина очереди входящих соединений. */
+    static final int BACKLOG = 4096;
+    
+    /**
+     * Количество потоков пула на JDK без виртуальных потоков. Пул ограничен, чтобы наплыв
+     * соединений не создавал поток на каждое из них; запросы сверх этого числа ждут в очереди.
+     */
+    static final int FALLBACK_THREADS = 256;
+    
+    /** Обслуживаемый словарь. */
+    private final Dictionary dictionary;
+    
+    /** HTTP-сервер. */
+    private final HttpServer server;
+    
+    /** Исполнитель запросов. */
+    private final ExecutorService executor;
+    
+    /**
+     * Конструктор сервера словаря {@code dictionary} на порту {@code port} всех адресов.
+     * Сервер начинает принимать запросы сразу.
+     * @param dictionary словарь.
+     * @param port номер порта; {@code 0} - любой свободный порт.
+     * @throws IOException если порт не удалось открыть.
+     */
+    public DictionaryServer(Dictionary dictionary, int port) throws IOException {
+        this(dictionary, new InetSocketAddress(port));
+    }
+    
+    /**
+     * Конструктор сервера словаря {@code dictionary} на адресе {@code address}.
+     * Сервер начинает принимать запросы сразу.
+     * @param dictionary словарь.
+     * @param address адрес и порт.
+     * @throws IOException если адрес не удалось открыть.
+     */
+    public DictionaryServer(Dictionary dictionary, InetSocketAddress address) throws IOException {
+        this.dictionary = dictionary;
+        executor = newExecutor();
+        server = HttpServer.create(address, BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/lookup", exchange -> handle(exchange, "GET", this::lookup));
+        server.createContext("/dictionary", exchange -> handle(exchange, "GET", this::table));
+        server.createContext("/translate", exchange -> handle(exchange, "POST", this::translate));
+        server.start();
+    }
+    
+    /**
+     * Создаёт исполнитель, выполняющий каждую задачу в новом виртуальном потоке.
+     * {@code Executors.newVirtualThreadPerTaskExecutor} (JDK 21) вызывается через отражение, чтобы
+     * класс собирался и работал на JDK 8-20: там используется пул из
+     * {@link DictionaryServer#FALLBACK_THREADS} потоков с неограниченной очередью запросов.
+     * @return исполнитель запросов.
+     */
+    static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(FALLBACK_THREADS, r -> {
+                Thread thread = new Thread(r, "dictionary-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+    
+    /**
+     * Возвращает номер порта сервера.
+     * @return номер порта.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    /**
+     * Обработчик запроса, записывающий тело ответа.
+     */
+    @FunctionalInterface
+    private interface Handler {
+        
+        /**
+         * Обрабатывает запрос.
+         * @param exchange запрос и ответ.
+         * @param query параметры запроса.
+         * @throws IOException при ошибке чтения запроса или записи ответа.
+         */
+        void handle(HttpExchange exchange, HashMap<String, String> query) throws IOException;
+    
+    }
+    
+    /**
+     * Проверяет метод запроса, разбирает параметры и выполняет обработчик {@code handler}.
+     * Параметры с ошибкой кодировки URL (например, {@code %zz}) - ответ 400.
+     * @param exchange запрос и ответ.
+     * @param method допустимый метод запроса.
+     * @param handler обработчик.
+     * @throws IOException при ошибке записи ответа.
+     */
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try {
+            if (!method.equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", method);
+                sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+            
+            HashMap<String, String> query;
+            try {
+                query = parseQuery(exchange.getRequestURI().getRawQuery());
+            } catch (IllegalArgumentException badEscape) {
+                sendError(exchange, 400, "Malformed query string");
+                return;
+            }
+            
+            handler.handle(exchange, query);
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    /**
+     * Разбирает строку параметров запроса.
+     * @param rawQuery строка параметров в кодировке URL; может быть {@code null}.
+     * @return {@code HashMap} значения параметров по имени.
+     * @throws IllegalArgumentException если строка содержит неверную последовательность {@code %}.
+     */
+    static HashMap<String, String> parseQuery(String rawQuery) {
+        HashMap<String, String> result = new HashMap<>();
+        if (rawQuery == null)
+            return result;
+        
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = (eq < 0) ? pair : pair.substring(0, eq);
+            String value = (eq < 0) ? "" : pair.substring(eq + 1);
+            result.putIfAbsent(decode(name), decode(value));
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Декодирует строку в кодировке URL с символами UTF-8.
+     * @param s строка в кодировке URL.
+     * @return декодированная строка.
+     * @throws IllegalArgumentException если строка содержит неверную последовательность {@code %}.
+     */
+    private static String decode(String s) {
+        try {
+            return URLDecoder.decode(s, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * Возвращает язык словаря с кодом из параметра {@code name}.
+     * @param query параметры запроса.
+     * @param name имя параметра.
+     * @return {@code Lang} язык;<br>
+     * {@code null}, если параметра нет или языка с таким кодом нет в словаре.
+     */
+    private Lang langParam(HashMap<String, String> query, String name) {
+        String code = query.get(name);
+        if (code == null)
+            return null;
+        
+        return dictionary.getLangs().getLangByCode(code);
+    }
+    
+    /**
+     * Обрабатывает {@code GET /lookup}.
+     */
+    private void lookup(HttpExchange exchange, HashMap<String, String> query) throws IOException {
+        Lang lang = langParam(query, "lang");
+        String text = query.get("word");
+        if (lang == null || text == null || text.isEmpty()) {
+            sendError(exchange, 400, "Parameters word and lang (known language code) are required");
+            return;
+        }
+        
+        Set<Word> translations = dictionary.buildTranslationsSet(new Word(text, lang));
+        if (translations == null) {
+            sendError(exchange, 404, "No such word");
+            return;
+        }
+        
+        try (Writer out = startResponse(exchange)) {
+            for (Word w : translations) {
+                out.write(w.getWord());
+                out.write('\t');
+                out.write(w.getLang().getCode());
+                out.write('\n');
+            }
+        }
+    }
+    
+    /**
+     * Обрабатывает {@code GET /dictionary}.
+     */
+    private void table(HttpExchange exchange, HashMap<String, String> query) throws IOException {
+        Lang langFirst = langParam(query, "from");
+        Lang langSec = langParam(query, "to");
+        DictionaryTable table = (langFirst == null || langSec == null) ? null : dictionary.buildDictionary(langFirst, langSec);
+        if (table == null) {
+            sendError(exchange, 400, "Parameters from and to (known language codes) are required");
+            return;
+        }
+        
+        try (Writer out = startResponse(exchange)) {
+            for (Word w : table.words()) {
+                writeRow(out, w, table.translations(w));
+            }
+        }
+    }
+    
+    /**
+     * Обрабатывает {@code POST /translate}. Строки тела запроса читаются и переводятся по одной,
+     * поэтому ответ начинает передаваться до окончания чтения запроса.
+     */
+    private void translate(HttpExchange exchange, HashMap<String, String> query) throws IOException {
+        Lang langFirst = langParam(query, "from");
+        Lang langSec = langParam(query, "to");
+        int maxDepth;
+        try {
+            maxDepth = Integer.parseInt(query.getOrDefault("depth", "1"));
+        } catch (NumberFormatException e) {
+            maxDepth = 0;
+        }
+        if (langFirst == null || langSec == null || maxDepth < 1) {
+            sendError(exchange, 400, "Parameters from and to (known language codes) are required, depth must be positive");
+            return;
+        }
+        
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+                Writer out = startResponse(exchange)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty())
+                    continue;
+                
+                Word word = new Word(line, langFirst);
+                Set<Word> translations = dictionary.translate(word, langSec, maxDepth);
+                writeRow(out, word, translations);
+            }
+        }
+    }
+    
+    /**
+     * Записывает строку ответа из слова {@code word} и его переводов.
+     * @param out тело ответа.
+     * @param word слово.
+     * @param translations переводы; {@code null} - переводов нет.
+     * @throws IOException при ошибке записи.
+     */
+    private static void writeRow(Writer out, Word word, Set<Word> translations) throws IOException {
+        out.write(word.getWord());
+        if (translations != null) {
+            for (Word tr : translations) {
+                out.write('\t');
+                out.write(tr.getWord());
+            }
+        }
+        out.write('\n');
+    }
+    
+    /**
+     * Отправляет заголовки успешного ответа с телом неизвестной длины.
+     * @param exchange запрос и ответ.
+     * @return {@code Writer} тело ответа; закрытие завершает ответ.
+     * @throws IOException при ошибке записи.
+     */
+    private static Writer startResponse(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Отправляет ответ с кодом ошибки {@code status} и сообщением {@code message}.
+     * @param exchange запрос и ответ.
+     * @param status код ответа.
+     * @param message текст ответа.
+     * @throws IOException при ошибке записи.
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+    
+    /**
+     * Останавливает сервер, дожидаясь завершения выполняемых запросов не дольше секунды.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Открывает двоичный файл словаря ({@link Dictionary#open}) и обслуживает его до завершения процесса.
+     * @param args номер порта и путь к файлу словаря.
+     * @throws IOException если файл не удалось открыть или порт не удалось открыть.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java Dictionary.DictionaryServer <port> <dictionary.sdic>");
+            return;
+        }
+        
+        DictionaryServer server = new DictionaryServer(Dictionary.open(Paths.get(args[1])), Integer.parseInt(args[0]));
+        System.out.println("Dictionary server listening on " + server.getPort());
+    }
+
+}
@@ -0,0 +1,80 @@
+package Dictionary;
+
+import java.util.Set;
+
+/**
+ * Часть словаря, распределённого по языкам ({@link ShardedDictionary}). Часть хранит слова
+ * закреплённых за ней языков вместе со всеми их переводами; переводы на языки других частей
+ * хранятся в обеих частях.<p>
+ * Любой {@link Dictionary} является частью в том же процессе; {@link RemoteShard} - часть
+ * в другом процессе, обслуживаемая {@link ShardServer}.
+ * @author yaros
+ */
+public interface DictionaryShard {
+    
+    /**
+     * Добавляет язык {@code lang} в список языков части, см. {@link Dictionary#addLang(Lang)}.
+     * @param lang язык.
+     * @return {@code true}, если язык добавлен;<br>
+     * {@code false} в ином случае.
+     */
+    boolean addLang(Lang lang);
+    
+    /**
+     * Удаляет язык {@code lang} и все слова на этом языке, см. {@link Dictionary#removeLang}.
+     * @param lang язык.
+     * @return {@code true}, если язык удалён;<br>
+     * {@code false} в ином случае.
+     */
+    boolean removeLang(Lang lang);
+    
+    /**
+     * Добавляет слово {@code word}, см. {@link Dictionary#addWord(Word)}.
+     * @param word слово.
+     * @return {@code true}, если слово добавлено;<br>
+     * {@code false} в ином случае.
+     */
+    boolean addWord(Word word);
+    
+    /**
+     * Удаляет слово {@code word} вместе с его переводами, см. {@link Dictionary#removeWord(Word)}.
+     * @param word слово.
+     * @return {@code true}, если слово удалено;<br>
+     * {@code false} в ином случае.
+     */
+    boolean removeWord(Word word);
+    
+    /**
+     * Добавляет перевод {@code translationWord} к слову {@code word}, см. {@link Dictionary#addTranslation(Word, Word)}.
+     * @param word переводимое слово.
+     * @param translationWord перевод.
+     * @return {@code true}, если перевод добавлен;<br>
+     * {@code false} в ином случае.
+     */
+    boolean addTranslation(Word word, Word translationWord);
+    
+    /**
+     * Создаёт и возвращает список переводов слова {@code word}, см. {@link Dictionary#buildTranslationsSet}.
+     * @param word слово.
+     * @return {@code Set} список переводов;<br>
+     * {@code null}, если слова {@code word} нет.
+     */
+    Set<Word> buildTranslationsSet(Word word);
+    
+    /**
+     * Строит таблицу словаря, см. {@link Dictionary#buildDictionary}.
+     * @param langFirst исходный язык.
+     * @param langSec язык перевода.
+     * @return {@code DictionaryTable} таблицу словаря переводов;<br>
+     * {@code null}, если языка нет.
+     */
+    DictionaryTable buildDictionary(Lang langFirst, Lang langSec);
+    
+    /**
+     * Возвращает копию списка языков части.
+     * @return {@code LangSet} список языков;<br>
+     * {@code null} или пустой список, если в части нет языков.
+     */
+    LangSet getLangs();
+
+}
@@ -0,0 +1,226 @@
+package Dictionary;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Неизменяемая версия словаря, опубликованная {@link SnapshotDictionary}. Все методы
+ * снимка читают одну и ту же согласованную версию данных и не захватывают блокировок,
+ * поэтому изменения, выполняемые в словаре одновременно с чтением, снимку не видны.
+ * @author yaros
+ */
+public class DictionarySnapshot {
+    
+    /** Номер версии словаря. Увеличивается при каждой публикации. */
+    private final long version;
+    
+    /** Список языков версии. */
+    private final LangSet langSet;
+    
+    /**
+     * Словарь ключей-слов и неизменяемых списков их переводов. Неизменяем; следующая версия
+     * разделяет с ним все узлы, кроме узлов изменённых слов.
+     */
+    final PersistentHashMap<Word, Set<Word>> words;
+    
+    /** Индекс слов по языкам: слова языка как ключи и значения. Неизменяем, как и {@link DictionarySnapshot#words}. */
+    final PersistentHashMap<Lang, PersistentHashMap<Word, Word>> wordsByLang;
+    
+    /**
+     * Конструктор снимка словаря.
+     * @param version номер версии.
+     * @param langSet список языков.
+     * @param words словарь ключей-слов и неизменяемых списков их переводов.
+     * @param wordsByLang индекс слов по языкам.
+     */
+    DictionarySnapshot(long version, LangSet langSet, PersistentHashMap<Word, Set<Word>> words,
+            PersistentHashMap<Lang, PersistentHashMap<Word, Word>> wordsByLang) {
+        this.version = version;
+        this.langSet = langSet;
+        this.words = words;
+        this.wordsByLang = wordsByLang;
+    }
+    
+    /**
+     * Возвращает номер версии словаря, которой соответствует снимок.
+     * @return номер версии.
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Возвращает копию списка языков снимка.
+     * @return {@code LangSet} список языков.
+     */
+    public LangSet getLangs() {
+        return langSet.clone();
+    }
+    
+    /**
+     * Показывает, содержится ли слово {@code word} в снимке.
+     * @param word слово.
+     * @return {@code true}, если слово содержится в снимке;<br>
+     * {@code false} в ином случае.
+     */
+    public boolean containsWord(Word word) {
+        return word != null && words.containsKey(word);
+    }
+    
+    /**
+     * Возвращает неизменяемый список переводов слова {@code word} без копирования.
+     * @param word слово.
+     * @return {@code Set} список переводов;<br>
+     * пустой список, если слова {@code word} нет в снимке.
+     */
+    public Set<Word> translations(Word word) {
+        Set<Word> result = (word == null) ? null : words.get(word);
+        if (result == null)
+            return Collections.emptySet();
+        
+        return result;
+    }
+    
+    /**
+     * Возвращает неизменяемый список слов на языке {@code lang} без копирования.
+     * @param lang язык.
+     * @return {@code Set} список слов;<br>
+     * {@code null}, если {@code lang} равен {@code null} или не содержится в снимке.
+     */
+    public Set<Word> wordsByLang(Lang lang) {
+        if (lang == null || !langSet.contains(lang))
+            return null;
+        
+        PersistentHashMap<Word, Word> result = wordsByLang.get(lang);
+        if (result == null)
+            return Collections.emptySet();
+        
+        return result.keySet();
+    }
+    
+    /**
+     * Возвращает поток слов на языке {@code lang} по данным снимка, см. {@link Dictionary#words}.
+     * @param lang язык.
+     * @return {@code Stream} поток слов;<br>
+     * пустой поток, если {@code lang} равен {@code null} или не содержится в снимке.
+     */
+    public Stream<Word> words(Lang lang) {
+        Set<Word> langWords = wordsByLang(lang);
+        if (langWords == null)
+            return Stream.empty();
+        
+        return StreamSupport.stream(langWords.spliterator(), false);
+    }
+    
+    /**
+     * Возвращает поток переводов по данным снимка, см. {@link Dictionary#edges}.
+     * @return {@code Stream} поток пар из слова и его перевода.
+     */
+    public Stream<Map.Entry<Word, Word>> edges() {
+        Set<Lang> langs = langSet.getSortedLangs();
+        ArrayList<Spliterator<Word>> sources = new ArrayList<>(langs.size());
+        for (Lang lang : langs) {
+            sources.add(wordsByLang(lang).spliterator());
+        }
+        
+        EdgeSpliterator edges = new EdgeSpliterator(sources, words::get, () -> {
+            long result = 0;
+            for (Lang lang : langs) {
+                for (Word w : wordsByLang(lang)) {
+                    result += words.get(w).size();
+                }
+            }
+            return result;
+        }, Spliterator.IMMUTABLE);
+        return StreamSupport.stream(edges, false);
+    }
+    
+    /**
+     * Создаёт и возвращает список слов на языке {@code lang}.
+     * @param lang язык.
+     * @return {@code HashSet} список слов.
+     */
+    public HashSet<Word> biuldWordsSetByLang(Lang lang) {
+        Set<Word> langWords = wordsByLang(lang);
+        if (langWords == null)
+            return null;
+        
+        return new HashSet<>(langWords);
+    }
+    
+    /**
+     * Строит {@link DictionaryTable} таблицу словаря со словами на языке {@code langFirst}
+     * и списками их переводов на язык {@code langSec} по данным снимка.
+     * @param langFirst исходный язык.
+     * @param langSec язык перевода.
+     * @return {@code DictionaryTable} таблицу словаря переводов.
+     */
+    public DictionaryTable buildDictionary(Lang langFirst, Lang langSec) {
+        if (langSec == null || !langSet.contains(langSec))
+            return null;
+        
+        Set<Word> wordsFirstLang = wordsByLang(langFirst);
+        if (wordsFirstLang == null)
+            return null;
+        
+        return DictionaryTable.build(wordsFirstLang, words::get, langSec);
+    }
+    
+    /**
+     * Строит {@link DictionaryTable} таблицы словаря для всех упорядоченных пар языков
+     * из {@code langs} по данным снимка, см. {@link Dictionary#buildTables}.
+     * @param langs языки.
+     * @return {@code HashMap} таблицы по исходному языку и языку перевода.
+     */
+    public HashMap<Lang, HashMap<Lang, DictionaryTable>> buildTables(Collection<Lang> langs) {
+        if (langs == null)
+            return null;
+        
+        return DictionaryTable.buildAll(langs, this::wordsByLang, words::get);
+    }
+    
+    /**
+     * Строит {@link DictionaryTable} таблицу словаря с переводами, найденными через
+     * языки-посредники, по данным снимка, см. {@link Dictionary#buildPivotDictionary(Lang, Lang, Collection, int)}.
+     * @param langFirst исходный язык.
+     * @param langSec язык перевода.
+     * @param pivots языки-посредники; {@code null} - любые языки.
+     * @param maxDepth наибольшее количество переводов в цепочке.
+     * @return {@code DictionaryTable} таблицу словаря переводов.
+     */
+    public DictionaryTable buildPivotDictionary(Lang langFirst, Lang langSec, Collection<Lang> pivots, int maxDepth) {
+        if (langSec == null || !langSet.contains(langSec) || maxDepth < 1)
+            return null;
+        
+        Set<Word> wordsFirstLang = wordsByLang(langFirst);
+        if (wordsFirstLang == null)
+            return null;
+        
+        return new PivotSearch(words::get, langSec, pivots, maxDepth).build(wordsFirstLang);
+    }
+    
+    /**
+     * Находит переводы слова {@code word} на язык {@code langSec} по данным снимка,
+     * см. {@link Dictionary#translate}.
+     * @param word слово.
+     * @param langSec язык перевода.
+     * @param maxDepth наибольшее количество переводов в цепочке.
+     * @return {@code LinkedHashSet} упорядоченный список переводов.
+     */
+    public LinkedHashSet<Word> translate(Word word, Lang langSec, int maxDepth) {
+        if (!containsWord(word) || langSec == null || !langSet.contains(langSec) || maxDepth < 1)
+            return null;
+        
+        return new PivotSearch(words::get, langSec, null, maxDepth).search(word);
+    }
+
+}
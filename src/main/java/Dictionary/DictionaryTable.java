@@ -1,9 +1,16 @@
 package Dictionary;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * Класс таблицы словаря переводов с одного языка на другой. Содержит поле {@link DictionaryTable#dictionary}.
@@ -11,15 +18,122 @@ import java.util.Set;
  */
 public class DictionaryTable {
     
-    /** {@link HashMap} словарь ключей-слов на исходном языке с {@code HashSet} списками переводов.  */
-    private final HashMap<Word, HashSet<Word>> dictionary;
+    /** {@link Map} словарь ключей-слов на исходном языке с неизменяемыми {@code Set} списками переводов.  */
+    private final Map<Word, Set<Word>> dictionary;
+    
+    /** Неизменяемое представление списка слов на исходном языке, см. {@link DictionaryTable#words}. */
+    private final Set<Word> wordsView;
 
     /**
      * Конструктор таблицы словаря, устанавливающий {@code final} поле {@link DictionaryTable#dictionary}.
+     * Списки переводов из {@code dictionary} используются без копирования через неизменяемые представления.
      * @param dictionary {@code HashMap} словарь ключей-слов на исходном языке с {@code HashSet} списками переводов.
      */
     public DictionaryTable(HashMap<Word, HashSet<Word>> dictionary) {
+        this.dictionary = new HashMap<>();
+        for (Map.Entry<Word, HashSet<Word>> entry : dictionary.entrySet()) {
+            this.dictionary.put(entry.getKey(), Collections.unmodifiableSet(entry.getValue()));
+        }
+        this.wordsView = Collections.unmodifiableSet(this.dictionary.keySet());
+    }
+    
+    /**
+     * Конструктор таблицы словаря, принимающий уже подготовленный словарь без копирования.
+     * Значения {@code dictionary} должны быть неизменяемыми списками переводов.
+     * @param dictionary {@code Map} словарь ключей-слов на исходном языке с неизменяемыми {@code Set} списками переводов.
+     */
+    DictionaryTable(Map<Word, Set<Word>> dictionary) {
         this.dictionary = dictionary;
+        this.wordsView = Collections.unmodifiableSet(dictionary.keySet());
+    }
+    
+    /**
+     * Строит таблицу словаря со словами из {@code sourceWords} и списками их переводов
+     * на язык {@code langSec}. Слова без переводов на {@code langSec} в таблицу не попадают.
+     * @param sourceWords слова на исходном языке.
+     * @param translations возвращает список переводов слова или {@code null}, если слова нет.
+     * @param langSec язык перевода.
+     * @return {@code DictionaryTable} таблицу словаря переводов.
+     */
+    static DictionaryTable build(Iterable<Word> sourceWords, Function<Word, Set<Word>> translations, Lang langSec) {
+        HashMap<Word, Set<Word>> result = new HashMap<>();
+        
+        for (Word w : sourceWords) {
+            Set<Word> wAllTranslations = translations.apply(w);
+            if (wAllTranslations == null)
+                continue;
+            
+            HashSet<Word> wTranslations = new HashSet<>();
+            for (Word tr : wAllTranslations) {
+                if (tr.getLang().equals(langSec)) {
+                    wTranslations.add(tr);
+                }
+            }
+            
+            if (!wTranslations.isEmpty()) {
+                result.put(w, Collections.unmodifiableSet(wTranslations));
+            }
+        }
+        
+        return new DictionaryTable(result);
+    }
+    
+    /**
+     * Строит таблицы словаря для всех упорядоченных пар языков из {@code langs} за один проход
+     * по словам. Строки всех таблиц создаются заранее, после чего исходные языки и их слова
+     * разбираются одним параллельным проходом в общем пуле {@link java.util.concurrent.ForkJoinPool}:
+     * каждый язык становится отдельной задачей, которая в свою очередь делится по словам, так что
+     * языки не ждут друг друга. Переводы слова распределяются по языкам и одновременно добавляются
+     * в таблицы всех пар с его исходным языком. Каждое слово записывается только в свои строки,
+     * поэтому потоки не блокируют друг друга.
+     * @param langs языки.
+     * @param wordsByLang возвращает список слов на языке или {@code null}, если языка нет.
+     * @param translations возвращает список переводов слова или {@code null}, если слова нет.
+     * @return {@code HashMap} таблицы по исходному языку и языку перевода; для языков
+     * из {@code langs}, которых нет в словаре, таблиц нет.
+     */
+    static HashMap<Lang, HashMap<Lang, DictionaryTable>> buildAll(Collection<Lang> langs,
+            Function<Lang, Set<Word>> wordsByLang, Function<Word, Set<Word>> translations) {
+        HashMap<Lang, Set<Word>> sourceWords = new HashMap<>();
+        for (Lang lang : langs) {
+            Set<Word> langWords = wordsByLang.apply(lang);
+            if (langWords != null)
+                sourceWords.put(lang.intern(), langWords);
+        }
+        
+        HashMap<Lang, HashMap<Lang, DictionaryTable>> result = new HashMap<>();
+        HashMap<Lang, HashMap<Lang, Map<Word, Set<Word>>>> rows = new HashMap<>();
+        for (Lang source : sourceWords.keySet()) {
+            HashMap<Lang, Map<Word, Set<Word>>> sourceRows = new HashMap<>();
+            HashMap<Lang, DictionaryTable> tables = new HashMap<>();
+            for (Lang target : sourceWords.keySet()) {
+                ConcurrentHashMap<Word, Set<Word>> targetRows = new ConcurrentHashMap<>();
+                sourceRows.put(target, targetRows);
+                tables.put(target, new DictionaryTable(targetRows));
+            }
+            rows.put(source, sourceRows);
+            result.put(source, tables);
+        }
+        
+        new ArrayList<>(sourceWords.entrySet()).parallelStream().forEach(source -> {
+            HashMap<Lang, Map<Word, Set<Word>>> sourceRows = rows.get(source.getKey());
+            source.getValue().parallelStream().forEach(w -> {
+                Set<Word> wAllTranslations = translations.apply(w);
+                if (wAllTranslations == null || wAllTranslations.isEmpty())
+                    return;
+                
+                HashMap<Lang, HashSet<Word>> wTranslations = new HashMap<>();
+                for (Word tr : wAllTranslations) {
+                    if (sourceRows.containsKey(tr.getLang()))
+                        wTranslations.computeIfAbsent(tr.getLang(), l -> new HashSet<>()).add(tr);
+                }
+                for (Map.Entry<Lang, HashSet<Word>> entry : wTranslations.entrySet()) {
+                    sourceRows.get(entry.getKey()).put(w, Collections.unmodifiableSet(entry.getValue()));
+                }
+            });
+        });
+        
+        return result;
     }
     
     /**
@@ -29,13 +143,13 @@ public class DictionaryTable {
     public HashMap<Word, HashSet<Word>> hashMap() {
         HashMap<Word, HashSet<Word>> result = new HashMap<>();
         
-        for (Word w : dictionary.keySet()) {
+        for (Map.Entry<Word, Set<Word>> entry : dictionary.entrySet()) {
             HashSet<Word> translations = new HashSet<>();
-            for (Word tr : dictionary.get(w)) {
+            for (Word tr : entry.getValue()) {
                 translations.add(tr.clone());
             }
             
-            result.put(w.clone(), translations);
+            result.put(entry.getKey().clone(), translations);
         }
         
         return result;
@@ -56,6 +170,20 @@ public class DictionaryTable {
         return dictionary.containsKey(word);
     }
     
+    /**
+     * Возвращает неизменяемое представление списка переводов слова {@code word} без копирования.
+     * @param word слово.
+     * @return {@code Set} список переводов;<br>
+     * пустой список, если слова {@code word} нет в таблице словаря.
+     */
+    public Set<Word> translations(Word word) {
+        Set<Word> result = dictionary.get(word);
+        if (result == null)
+            return Collections.emptySet();
+        
+        return result;
+    }
+    
     /**
      * Возвращает список копий переводов слова {@code word}.
      * @param word слово.
@@ -79,6 +207,24 @@ public class DictionaryTable {
         return dictionary.isEmpty();
     }
     
+    /**
+     * Возвращает неизменяемое представление списка слов {@code Word} на исходном языке
+     * таблицы словаря без копирования.
+     * @return {@code Set} список слов.
+     */
+    public Set<Word> words() {
+        return wordsView;
+    }
+    
+    /**
+     * Выполняет {@code action} для каждого слова на исходном языке таблицы словаря и
+     * неизменяемого представления списка его переводов. Ничего не копирует.
+     * @param action действие, принимающее слово и список его переводов.
+     */
+    public void forEach(BiConsumer<? super Word, ? super Set<Word>> action) {
+        dictionary.forEach(action);
+    }
+    
     /**
      * Возвращает список копий слов {@code Word} на исходном языке таблицы словаря.
      * @return {@code Set} список слов.
@@ -0,0 +1,315 @@
+package Dictionary;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Кэш таблиц словаря {@link Dictionary#buildDictionary} по парам языков с ограниченным
+ * количеством таблиц. При переполнении вытесняется таблица, к которой дольше всего не
+ * обращались (LRU). Таблицы {@link DictionaryTable} неизменяемы, поэтому одна таблица
+ * возвращается всем обратившимся к кэшу.<p>
+ * Кэш подключается к словарю как {@link DictionaryListener} и удаляет только таблицы,
+ * которые изменение словаря затрагивает: добавление перевода - таблицы пар языков обоих
+ * слов, удаление слова - таблицы, в которых язык слова исходный или язык перевода,
+ * удаление языка - все таблицы с этим языком. Добавление слова без переводов и добавление
+ * языка таблиц не изменяют.<p>
+ * Таблицы, затронутые пакетом изменений ({@link DictionaryBatch}), удаляются одним проходом по кэшу
+ * в конце пакета.<p>
+ * Кэш потокобезопасен. Таблица, при построении которой словарь изменился, в кэш не помещается.
+ * @author yaros
+ */
+public class DictionaryTableCache implements DictionaryListener {
+    
+    /** Словарь, таблицы которого кэшируются. */
+    private final Dictionary dictionary;
+    
+    /** Наибольшее количество таблиц в кэше. */
+    private final int maxEntries;
+    
+    /** Ключи-пары языков и таблицы в порядке обращения (первой - давно не использованная). */
+    private final LinkedHashMap<Key, DictionaryTable> tables;
+    
+    /** Количество удалений таблиц при изменениях словаря; используется для отказа от устаревших таблиц. */
+    private long invalidationCount = 0;
+    
+    /**
+     * Пары языков и языки, таблицы которых удаляются в конце пакета изменений, уведомления
+     * которого передаёт текущий поток; {@code null} вне пакета.
+     */
+    private final ThreadLocal<HashSet<Object>> batchInvalidations = new ThreadLocal<>();
+    
+    /** Количество обращений, найденных в кэше. */
+    private long hitCount = 0;
+    
+    /** Количество обращений, не найденных в кэше. */
+    private long missCount = 0;
+    
+    /** Количество таблиц, вытесненных при переполнении. */
+    private long evictionCount = 0;
+    
+    /**
+     * Пара языков - ключ кэша. Языки - канонические экземпляры, поэтому сравниваются по ссылкам.
+     */
+    private static final class Key {
+        
+        /** Исходный язык. */
+        final Lang first;
+        
+        /** Язык перевода. */
+        final Lang second;
+        
+        Key(Lang first, Lang second) {
+            this.first = first;
+            this.second = second;
+        }
+        
+        boolean contains(Lang lang) {
+            return first == lang || second == lang;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key))
+                return false;
+            
+            Key other = (Key)obj;
+            return first == other.first && second == other.second;
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * first.hashCode() + second.hashCode();
+        }
+    
+    }
+    
+    /**
+     * Статистика обращений к кэшу.
+     */
+    public static class Stats {
+        
+        /** Количество обращений, найденных в кэше. */
+        private final long hits;
+        
+        /** Количество обращений, не найденных в кэше. */
+        private final long misses;
+        
+        /** Количество таблиц, вытесненных при переполнении. */
+        private final long evictions;
+        
+        /** Количество таблиц в кэше. */
+        private final int size;
+        
+        Stats(long hits, long misses, long evictions, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+        }
+        
+        public long getHits() {
+            return hits;
+        }
+        
+        public long getMisses() {
+            return misses;
+        }
+        
+        public long getEvictions() {
+            return evictions;
+        }
+        
+        public int getSize() {
+            return size;
+        }
+        
+        /**
+         * Возвращает долю обращений, найденных в кэше.
+         * @return доля от {@code 0} до {@code 1};<br>
+         * {@code 0}, если обращений не было.
+         */
+        public double getHitRate() {
+            long total = hits + misses;
+            return (total == 0) ? 0 : (double)hits / total;
+        }
+        
+        @Override
+        public String toString() {
+            return "hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", size=" + size;
+        }
+    
+    }
+    
+    /**
+     * Конструктор кэша. Используется {@link DictionaryTableCache#attach}.
+     * @param dictionary словарь.
+     * @param maxEntries наибольшее количество таблиц.
+     */
+    private DictionaryTableCache(Dictionary dictionary, int maxEntries) {
+        this.dictionary = dictionary;
+        this.maxEntries = maxEntries;
+        this.tables = new LinkedHashMap<Key, DictionaryTable>(16, 0.75f, true) {
+            
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, DictionaryTable> eldest) {
+                if (size() <= DictionaryTableCache.this.maxEntries)
+                    return false;
+                
+                evictionCount++;
+                return true;
+            }
+        
+        };
+    }
+    
+    /**
+     * Создаёт кэш таблиц словаря {@code dictionary} и подключает его к словарю.
+     * @param dictionary словарь.
+     * @param maxEntries наибольшее количество таблиц в кэше.
+     * @return пустой кэш;<br>
+     * {@code null}, если {@code dictionary} равен {@code null} или {@code maxEntries} меньше 1.
+     */
+    public static DictionaryTableCache attach(Dictionary dictionary, int maxEntries) {
+        if (dictionary == null || maxEntries < 1)
+            return null;
+        
+        DictionaryTableCache result = new DictionaryTableCache(dictionary, maxEntries);
+        dictionary.addListener(result);
+        return result;
+    }
+    
+    /**
+     * Отключает кэш от словаря и очищает его.
+     */
+    public void detach() {
+        dictionary.removeListener(this);
+        clear();
+    }
+    
+    /**
+     * Возвращает таблицу словаря {@link Dictionary#buildDictionary} для пары языков
+     * {@code langFirst} и {@code langSec} из кэша или строит и кэширует её.
+     * @param langFirst исходный язык.
+     * @param langSec язык перевода.
+     * @return {@code DictionaryTable} таблицу словаря переводов;<br>
+     * {@code null}, если языка нет в словаре.
+     */
+    public DictionaryTable get(Lang langFirst, Lang langSec) {
+        if (langFirst == null || langSec == null)
+            return null;
+        
+        Key key = new Key(langFirst.intern(), langSec.intern());
+        long invalidations;
+        synchronized (this) {
+            DictionaryTable table = tables.get(key);
+            if (table != null) {
+                hitCount++;
+                return table;
+            }
+            missCount++;
+            invalidations = invalidationCount;
+        }
+        
+        DictionaryTable table = dictionary.buildDictionary(langFirst, langSec);
+        if (table == null)
+            return null;
+        
+        synchronized (this) {
+            if (invalidations == invalidationCount)
+                tables.put(key, table);
+        }
+        return table;
+    }
+    
+    /**
+     * Удаляет все таблицы из кэша. Статистика не сбрасывается.
+     */
+    public synchronized void clear() {
+        tables.clear();
+        invalidationCount++;
+    }
+    
+    /**
+     * Возвращает статистику обращений к кэшу.
+     * @return статистика.
+     */
+    public synchronized Stats getStats() {
+        return new Stats(hitCount, missCount, evictionCount, tables.size());
+    }
+    
+    /**
+     * Удаляет из кэша таблицы, в которых {@code lang} - исходный язык или язык перевода.
+     * @param lang язык.
+     */
+    private synchronized void invalidate(Lang lang) {
+        invalidationCount++;
+        Lang canonical = lang.intern();
+        for (Iterator<Key> it = tables.keySet().iterator(); it.hasNext(); ) {
+            if (it.next().contains(canonical))
+                it.remove();
+        }
+    }
+    
+    @Override
+    public void langRemoved(Lang lang) {
+        invalidate(lang);
+    }
+    
+    @Override
+    public void wordRemoved(Word word) {
+        HashSet<Object> pending = batchInvalidations.get();
+        if (pending != null)
+            pending.add(word.getLang());
+        else
+            invalidate(word.getLang());
+    }
+    
+    @Override
+    public void translationAdded(Word word, Word translationWord) {
+        HashSet<Object> pending = batchInvalidations.get();
+        if (pending != null) {
+            pending.add(new Key(word.getLang(), translationWord.getLang()));
+            pending.add(new Key(translationWord.getLang(), word.getLang()));
+        } else {
+            invalidate(word, translationWord);
+        }
+    }
+    
+    @Override
+    public void batchStarted() {
+        batchInvalidations.set(new HashSet<>());
+    }
+    
+    @Override
+    public void batchFinished() {
+        HashSet<Object> pending = batchInvalidations.get();
+        batchInvalidations.remove();
+        if (pending == null || pending.isEmpty())
+            return;
+        
+        synchronized (this) {
+            invalidationCount++;
+            for (Iterator<Key> it = tables.keySet().iterator(); it.hasNext(); ) {
+                Key key = it.next();
+                if (pending.contains(key) || pending.contains(key.first) || pending.contains(key.second))
+                    it.remove();
+            }
+        }
+    }
+    
+    /**
+     * Удаляет из кэша таблицы пар языков слов {@code word} и {@code translationWord}.
+     * @param word переводимое слово.
+     * @param translationWord перевод.
+     */
+    private synchronized void invalidate(Word word, Word translationWord) {
+        invalidationCount++;
+        Lang first = word.getLang();
+        Lang second = translationWord.getLang();
+        tables.remove(new Key(first, second));
+        tables.remove(new Key(second, first));
+    }
+
+}
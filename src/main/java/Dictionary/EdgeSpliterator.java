@@ -0,0 +1,182 @@
+package Dictionary;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Обходчик переводов словаря: пар из слова и одного из его переводов. Каждый перевод
+ * между двумя словами встречается дважды, по разу в каждую сторону. Слова берутся из
+ * обходчиков списков слов по языкам; при делении сначала делится набор языков, а затем
+ * обходчик слов единственного оставшегося языка, поэтому переводы обрабатываются
+ * параллельно и без копирования.
+ * @author yaros
+ */
+final class EdgeSpliterator implements Spliterator<Map.Entry<Word, Word>> {
+    
+    /** Обходчики слов по языкам. */
+    private final List<Spliterator<Word>> sources;
+    
+    /** Номер текущего обходчика в {@link EdgeSpliterator#sources}. */
+    private int from;
+    
+    /** Номер после последнего обходчика в {@link EdgeSpliterator#sources}. */
+    private final int to;
+    
+    /** Возвращает список переводов слова или {@code null}, если слова нет. */
+    private final Function<Word, Set<Word>> translations;
+    
+    /** Вычисляет точное количество переводов; {@code null}, если оно неизвестно. */
+    private LongSupplier exactSize;
+    
+    /** Количество или оценка количества переводов на момент вычисления; {@code -1} - ещё не вычислено. */
+    private long size = -1;
+    
+    /** Количество переводов, пройденных после вычисления {@link EdgeSpliterator#size}. */
+    private long consumed;
+    
+    /** Дополнительные характеристики обходчика, например {@link Spliterator#CONCURRENT}. */
+    private final int extraCharacteristics;
+    
+    /** Текущее слово. */
+    private Word word;
+    
+    /** Оставшиеся переводы текущего слова. */
+    private Iterator<Word> wordTranslations = Collections.emptyIterator();
+    
+    /**
+     * Конструктор обходчика всех переводов слов из {@code sources}.
+     * @param sources обходчики слов по языкам; не должны использоваться после передачи.
+     * @param translations возвращает список переводов слова или {@code null}, если слова нет.
+     * @param exactSize вычисляет точное количество переводов; {@code null}, если словарь
+     * может изменяться во время обхода и точное количество неизвестно.
+     * @param extraCharacteristics дополнительные характеристики обходчика.
+     */
+    EdgeSpliterator(List<Spliterator<Word>> sources, Function<Word, Set<Word>> translations,
+            LongSupplier exactSize, int extraCharacteristics) {
+        this(sources, 0, sources.size(), translations, extraCharacteristics);
+        this.exactSize = exactSize;
+    }
+    
+    /**
+     * Конструктор обходчика переводов слов из обходчиков {@code sources} с номерами от {@code from} до {@code to}.
+     * Количество переводов такого обходчика неизвестно.
+     */
+    private EdgeSpliterator(List<Spliterator<Word>> sources, int from, int to,
+            Function<Word, Set<Word>> translations, int extraCharacteristics) {
+        this.sources = sources;
+        this.from = from;
+        this.to = to;
+        this.translations = translations;
+        this.extraCharacteristics = extraCharacteristics;
+    }
+    
+    /**
+     * Делает {@code w} текущим словом.
+     * @param w слово.
+     */
+    private void setWord(Word w) {
+        Set<Word> wTranslations = translations.apply(w);
+        word = w;
+        wordTranslations = (wTranslations == null) ? Collections.emptyIterator() : wTranslations.iterator();
+    }
+    
+    @Override
+    public boolean tryAdvance(Consumer<? super Map.Entry<Word, Word>> action) {
+        while (true) {
+            if (wordTranslations.hasNext()) {
+                consumed++;
+                action.accept(new AbstractMap.SimpleImmutableEntry<>(word, wordTranslations.next()));
+                return true;
+            }
+            if (from >= to) {
+                size = 0;
+                consumed = 0;
+                return false;
+            }
+            if (!sources.get(from).tryAdvance(this::setWord))
+                from++;
+        }
+    }
+    
+    @Override
+    public void forEachRemaining(Consumer<? super Map.Entry<Word, Word>> action) {
+        while (wordTranslations.hasNext()) {
+            action.accept(new AbstractMap.SimpleImmutableEntry<>(word, wordTranslations.next()));
+        }
+        
+        for (; from < to; from++) {
+            sources.get(from).forEachRemaining(w -> {
+                Set<Word> wTranslations = translations.apply(w);
+                if (wTranslations == null)
+                    return;
+                
+                for (Word tr : wTranslations) {
+                    action.accept(new AbstractMap.SimpleImmutableEntry<>(w, tr));
+                }
+            });
+        }
+        size = 0;
+        consumed = 0;
+    }
+    
+    @Override
+    public Spliterator<Map.Entry<Word, Word>> trySplit() {
+        long estimate = estimateSize();
+        EdgeSpliterator prefix;
+        if (to - from > 1) {
+            int mid = (from + to) >>> 1;
+            prefix = new EdgeSpliterator(sources, from, mid, translations, extraCharacteristics);
+            from = mid;
+        } else if (to - from == 1) {
+            Spliterator<Word> wordsPrefix = sources.get(from).trySplit();
+            if (wordsPrefix == null)
+                return null;
+            
+            prefix = new EdgeSpliterator(Collections.singletonList(wordsPrefix), 0, 1, translations, extraCharacteristics);
+        } else {
+            return null;
+        }
+        
+        exactSize = null;
+        consumed = 0;
+        size = estimate - estimate / 2;
+        prefix.size = estimate / 2;
+        return prefix;
+    }
+    
+    /**
+     * {@inheritDoc}<br>
+     * До первого деления возвращает точное количество оставшихся переводов, если оно известно;
+     * иначе - оценку по количеству слов за вычетом пройденных переводов.
+     */
+    @Override
+    public long estimateSize() {
+        if (size < 0) {
+            if (exactSize != null) {
+                size = exactSize.getAsLong();
+            } else {
+                size = 0;
+                for (int i = from; i < to; i++) {
+                    size += sources.get(i).estimateSize();
+                }
+            }
+        }
+        
+        return Math.max(size - consumed, 0);
+    }
+    
+    @Override
+    public int characteristics() {
+        int sized = (exactSize != null) ? Spliterator.SIZED : 0;
+        return sized | Spliterator.DISTINCT | Spliterator.NONNULL | extraCharacteristics;
+    }
+
+}
@@ -0,0 +1,383 @@
+package Dictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индекс слов словаря для нечёткого поиска (с опечатками). Для каждого языка хранит
+ * инвертированный индекс триграмм: слово {@code w} разбивается на триграммы строки
+ * {@code "\0\0" + w + "\0\0"}, и для каждой триграммы хранится множество номеров слов.<p>
+ * Если расстояние Левенштейна между словами не больше {@code k}, то из триграмм запроса
+ * в слове отсутствует не более {@code 3k} (каждая правка затрагивает не более трёх триграмм).
+ * Поэтому {@link FuzzyIndex#similar} перебирает только слова из списков {@code 3k + 1}
+ * самых редких триграмм запроса и проверяет их ограниченным вычислением расстояния
+ * Левенштейна; до вычисления расстояния кандидаты отсеиваются по длине и по количеству общих
+ * триграмм. Для запросов короче {@code 3k - 1} символов это условие ничего не отсекает,
+ * и проверяются все слова языка; для коротких запросов с {@code k = 2} отсев слабый, поэтому
+ * для них обычно используется {@code k = 1}.<p>
+ * Индекс подключается к словарю как {@link DictionaryListener} и обновляется при его
+ * изменениях. Индекс потокобезопасен: изменения и поиск по одному языку выполняются по очереди.
+ * @author yaros
+ */
+public class FuzzyIndex implements DictionaryListener {
+    
+    /** Длина n-граммы. */
+    private static final int GRAM = 3;
+    
+    /** Символ дополнения слова по краям. */
+    private static final char PAD = '\0';
+    
+    /** Словарь, слова которого индексируются. */
+    private final Dictionary dictionary;
+    
+    /** Индексы языков. */
+    private final Map<Lang, LangIndex> index = new ConcurrentHashMap<>();
+    
+    /**
+     * Индекс триграмм слов одного языка.
+     */
+    private static final class LangIndex {
+        
+        /** Канонические экземпляры слов по номерам; {@code null} - свободный номер. */
+        private final ArrayList<Word> words = new ArrayList<>();
+        
+        /** Длины текстов слов по номерам, для отсева по длине без обращения к словам. */
+        private int[] lengths = new int[16];
+        
+        /** Номера слов. */
+        private final HashMap<Word, Integer> ids = new HashMap<>();
+        
+        /** Свободные номера слов. */
+        private int[] freeIds = new int[16];
+        
+        /** Количество свободных номеров. */
+        private int freeCount = 0;
+        
+        /** Ключи-триграммы ({@link FuzzyIndex#gram}) и множества номеров слов, содержащих их. */
+        private final HashMap<Long, IntHashSet> postings = new HashMap<>();
+        
+        synchronized void add(Word word) {
+            if (ids.containsKey(word))
+                return;
+            
+            int id;
+            if (freeCount > 0) {
+                id = freeIds[--freeCount];
+                words.set(id, word);
+            } else {
+                id = words.size();
+                words.add(word);
+                if (id == lengths.length)
+                    lengths = Arrays.copyOf(lengths, id * 2);
+            }
+            lengths[id] = word.getWord().length();
+            ids.put(word, id);
+            
+            for (long g : grams(word.getWord())) {
+                postings.computeIfAbsent(g, k -> new IntHashSet()).add(id);
+            }
+        }
+        
+        synchronized void remove(Word word) {
+            Integer id = ids.remove(word);
+            if (id == null)
+                return;
+            
+            for (long g : grams(word.getWord())) {
+                IntHashSet set = postings.get(g);
+                if (set != null && set.remove(id) && set.size() == 0)
+                    postings.remove(g);
+            }
+            
+            words.set(id, null);
+            if (freeCount == freeIds.length)
+                freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+            freeIds[freeCount++] = id;
+        }
+        
+        synchronized List<Match> search(String text, int maxDistance) {
+            long[] queryGrams = grams(text);
+            int needed = GRAM * maxDistance + 1;
+            ArrayList<Match> result = new ArrayList<>();
+            
+            if (queryGrams.length < needed) {
+                for (Word w : words) {
+                    if (w != null)
+                        check(w, text, maxDistance, result);
+                }
+                return result;
+            }
+            
+            IntHashSet[] lists = new IntHashSet[queryGrams.length];
+            int count = 0;
+            for (long g : queryGrams) {
+                IntHashSet set = postings.get(g);
+                if (set != null)
+                    lists[count++] = set;
+            }
+            // Отсутствующие в индексе триграммы запроса уже входят в число допустимых потерь;
+            // если их больше 3k, подходящих слов нет.
+            int missing = queryGrams.length - count;
+            if (missing >= needed)
+                return result;
+            
+            Arrays.sort(lists, 0, count, (a, b) -> Integer.compare(a.size(), b.size()));
+            IntHashSet seen = new IntHashSet();
+            int maxMissing = needed - 1;
+            for (int i = 0; i < needed - missing; i++) {
+                PrimitiveIterator.OfInt it = lists[i].iterator();
+                while (it.hasNext()) {
+                    int id = it.nextInt();
+                    if (!seen.add(id) || Math.abs(lengths[id] - text.length()) > maxDistance)
+                        continue;
+                    
+                    // Слово впервые встретилось в списке i, поэтому в списках 0..i-1 его нет.
+                    int wordMissing = missing + i;
+                    for (int j = i + 1; j < count && wordMissing <= maxMissing; j++) {
+                        if (!lists[j].contains(id))
+                            wordMissing++;
+                    }
+                    if (wordMissing <= maxMissing)
+                        check(words.get(id), text, maxDistance, result);
+                }
+            }
+            
+            return result;
+        }
+    
+    }
+    
+    /**
+     * Слово, найденное нечётким поиском, и его расстояние Левенштейна до запроса.
+     */
+    public static final class Match implements Comparable<Match> {
+        
+        /** Канонический экземпляр найденного слова. */
+        private final Word word;
+        
+        /** Расстояние Левенштейна до запроса. */
+        private final int distance;
+        
+        Match(Word word, int distance) {
+            this.word = word;
+            this.distance = distance;
+        }
+        
+        public Word getWord() {
+            return word;
+        }
+        
+        public int getDistance() {
+            return distance;
+        }
+        
+        /**
+         * Упорядочивает совпадения по возрастанию расстояния, затем по тексту слова.
+         */
+        @Override
+        public int compareTo(Match other) {
+            if (distance != other.distance)
+                return Integer.compare(distance, other.distance);
+            
+            return word.getWord().compareTo(other.word.getWord());
+        }
+    
+    }
+    
+    /**
+     * Конструктор индекса. Используется {@link FuzzyIndex#attach}.
+     * @param dictionary словарь.
+     */
+    private FuzzyIndex(Dictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+    
+    /**
+     * Строит индекс по словам словаря {@code dictionary} и подключает его к словарю.
+     * Словарь не должен изменяться во время построения индекса.
+     * @param dictionary словарь.
+     * @return индекс, обновляемый при изменениях словаря.
+     */
+    public static FuzzyIndex attach(Dictionary dictionary) {
+        FuzzyIndex result = new FuzzyIndex(dictionary);
+        for (Lang lang : dictionary.getLangs().getLangSet()) {
+            for (Word w : dictionary.getWordsByLang(lang)) {
+                result.wordAdded(w);
+            }
+        }
+        
+        dictionary.addListener(result);
+        return result;
+    }
+    
+    /**
+     * Отключает индекс от словаря. После отключения индекс больше не обновляется.
+     */
+    public void detach() {
+        dictionary.removeListener(this);
+    }
+    
+    /**
+     * Возвращает не более {@code limit} слов на языке {@code lang}, расстояние Левенштейна
+     * от которых до {@code text} не больше {@code maxDistance}, по возрастанию расстояния.
+     * Слова с одинаковым расстоянием упорядочены по тексту.
+     * @param lang язык.
+     * @param text искомый текст.
+     * @param maxDistance наибольшее расстояние Левенштейна.
+     * @param limit наибольшее количество слов.
+     * @return {@code List} упорядоченный список совпадений;<br>
+     * пустой список, если совпадений нет или параметры недопустимы.
+     */
+    public List<Match> similar(Lang lang, String text, int maxDistance, int limit) {
+        if (lang == null || text == null || maxDistance < 0 || limit < 1)
+            return Collections.emptyList();
+        
+        LangIndex langIndex = index.get(lang);
+        if (langIndex == null)
+            return Collections.emptyList();
+        
+        List<Match> result = langIndex.search(text, maxDistance);
+        Collections.sort(result);
+        if (result.size() > limit)
+            return new ArrayList<>(result.subList(0, limit));
+        
+        return result;
+    }
+    
+    @Override
+    public void langRemoved(Lang lang) {
+        index.remove(lang);
+    }
+    
+    @Override
+    public void wordAdded(Word word) {
+        Word canonical = word.intern();
+        index.computeIfAbsent(canonical.getLang(), l -> new LangIndex()).add(canonical);
+    }
+    
+    @Override
+    public void wordRemoved(Word word) {
+        LangIndex langIndex = index.get(word.getLang());
+        if (langIndex != null)
+            langIndex.remove(word);
+    }
+    
+    /**
+     * Возвращает различные триграммы строки {@code "\0\0" + text + "\0\0"}.
+     * @param text текст.
+     * @return триграммы ({@link FuzzyIndex#gram}).
+     */
+    private static long[] grams(String text) {
+        int count = text.length() + GRAM - 1;
+        long[] result = new long[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = gram(charAt(text, i - 2), charAt(text, i - 1), charAt(text, i));
+        }
+        
+        Arrays.sort(result);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || result[i] != result[i - 1])
+                result[distinct++] = result[i];
+        }
+        
+        return (distinct == count) ? result : Arrays.copyOf(result, distinct);
+    }
+    
+    /**
+     * Возвращает символ {@code text} с номером {@code i} или {@link FuzzyIndex#PAD} за пределами строки.
+     * @param text текст.
+     * @param i номер символа.
+     * @return символ.
+     */
+    private static char charAt(String text, int i) {
+        return (i < 0 || i >= text.length()) ? PAD : text.charAt(i);
+    }
+    
+    /**
+     * Упаковывает триграмму в число.
+     * @param a первый символ.
+     * @param b второй символ.
+     * @param c третий символ.
+     * @return триграмма.
+     */
+    private static long gram(char a, char b, char c) {
+        return ((long)a << 32) | ((long)b << 16) | c;
+    }
+    
+    /**
+     * Добавляет слово {@code word} к {@code result}, если расстояние Левенштейна от него до
+     * {@code text} не больше {@code maxDistance}.
+     * @param word слово.
+     * @param text искомый текст.
+     * @param maxDistance наибольшее расстояние.
+     * @param result список совпадений.
+     */
+    private static void check(Word word, String text, int maxDistance, List<Match> result) {
+        int distance = distance(word.getWord(), text, maxDistance);
+        if (distance <= maxDistance)
+            result.add(new Match(word, distance));
+    }
+    
+    /**
+     * Вычисляет расстояние Левенштейна между строками {@code a} и {@code b}, если оно
+     * не больше {@code max}. Вычисляются только ячейки полосы шириной {@code 2 * max + 1}
+     * вокруг диагонали, и вычисление прекращается, как только расстояние превысит {@code max}.
+     * @param a первая строка.
+     * @param b вторая строка.
+     * @param max наибольшее расстояние.
+     * @return расстояние;<br>
+     * {@code max + 1}, если расстояние больше {@code max}.
+     */
+    static int distance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max)
+            return max + 1;
+        
+        int over = max + 1;
+        int[] prev = new int[m + 1];
+        int[] cur = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = (j <= max) ? j : over;
+        }
+        
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(m, i + max);
+            cur[0] = (i <= max) ? i : over;
+            if (from > 1)
+                cur[from - 1] = over;
+            
+            int rowMin = cur[0];
+            char ca = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = (ca == b.charAt(j - 1)) ? 0 : 1;
+                int value = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (value > over)
+                    value = over;
+                cur[j] = value;
+                if (value < rowMin)
+                    rowMin = value;
+            }
+            if (to < m)
+                cur[to + 1] = over;
+            
+            if (rowMin > max)
+                return over;
+            
+            int[] tmp = prev;
+            prev = cur;
+            cur = tmp;
+        }
+        
+        return Math.min(prev[m], over);
+    }
+
+}
@@ -0,0 +1,163 @@
+package Dictionary;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Хранилище слов на основе {@link Map}: словарь ключей-слов со списками ссылок на переводы
+ * и индекс слов по языкам. Каждый перевод хранится дважды, в списках обоих слов.
+ * @author yaros
+ */
+final class HashWordStore implements WordStore {
+    
+    /** Словарь, содержащий список ключей-слов {@code Word} и значений-списков ссылок на переводы {@code Set}. */
+    private final Map<Word, Set<Word>> words;
+    
+    /**
+     * Индекс слов по языкам: ключи-языки {@code Lang} и значения-списки слов {@code Set}
+     * на этих языках. Содержит те же объекты {@code Word}, что и ключи {@link HashWordStore#words}.
+     */
+    private final Map<Lang, Set<Word>> wordsByLang;
+    
+    /** Создаёт пустые списки слов для {@link HashWordStore#words} и {@link HashWordStore#wordsByLang}. */
+    private final Supplier<Set<Word>> newWordSet;
+    
+    /**
+     * Конструктор хранилища на основе {@link HashMap} и {@link HashSet}.
+     */
+    HashWordStore() {
+        this(new HashMap<>(), new HashMap<>(), HashSet::new);
+    }
+    
+    /**
+     * Конструктор хранилища на основе переданных пустых словарей.
+     * @param words пустой словарь ключей-слов и списков их переводов.
+     * @param wordsByLang пустой индекс слов по языкам.
+     * @param newWordSet создаёт пустые списки слов.
+     */
+    private HashWordStore(Map<Word, Set<Word>> words, Map<Lang, Set<Word>> wordsByLang, Supplier<Set<Word>> newWordSet) {
+        this.words = words;
+        this.wordsByLang = wordsByLang;
+        this.newWordSet = newWordSet;
+    }
+    
+    /**
+     * Создаёт хранилище на основе {@link ConcurrentHashMap}, которое можно читать
+     * одновременно с изменениями.
+     * @return потокобезопасное для чтения хранилище.
+     */
+    static HashWordStore concurrent() {
+        return new HashWordStore(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), ConcurrentHashMap::newKeySet);
+    }
+    
+    @Override
+    public boolean isReadOnly() {
+        return false;
+    }
+    
+    @Override
+    public boolean contains(Word word) {
+        return words.containsKey(word);
+    }
+    
+    @Override
+    public boolean add(Word word) {
+        if (words.containsKey(word))
+            return false;
+        
+        Word newWord = word.intern();
+        words.put(newWord, newWordSet.get());
+        wordsByLang.computeIfAbsent(newWord.getLang(), l -> newWordSet.get()).add(newWord);
+        return true;
+    }
+    
+    /**
+     * {@inheritDoc}<br>
+     * Пустой список слов языка остаётся в индексе до удаления самого языка.
+     */
+    @Override
+    public boolean remove(Word word) {
+        Set<Word> wordTranslations = words.remove(word);
+        if (wordTranslations == null)
+            return false;
+        
+        for (Word w : wordTranslations) {
+            Set<Word> translations = words.get(w);
+            if (translations != null)
+                translations.remove(word);
+        }
+        
+        Set<Word> langWords = wordsByLang.get(word.getLang());
+        if (langWords != null)
+            langWords.remove(word);
+        
+        return true;
+    }
+    
+    @Override
+    public boolean link(Word word, Word translationWord) {
+        Set<Word> wordTranslations = words.get(word);
+        Set<Word> translationTranslations = words.get(translationWord);
+        if (wordTranslations == null || translationTranslations == null || word.equals(translationWord) ||
+                wordTranslations.contains(translationWord))
+            return false;
+        
+        wordTranslations.add(translationWord.intern());
+        translationTranslations.add(word.intern());
+        return true;
+    }
+    
+    @Override
+    public Set<Word> translations(Word word) {
+        return words.get(word);
+    }
+    
+    @Override
+    public Set<Word> words(Lang lang) {
+        Set<Word> result = wordsByLang.get(lang);
+        if (result == null)
+            return Collections.emptySet();
+        
+        return result;
+    }
+    
+    @Override
+    public long translationCount(Lang lang) {
+        long result = 0;
+        for (Word w : words(lang)) {
+            Set<Word> translations = words.get(w);
+            if (translations != null)
+                result += translations.size();
+        }
+        
+        return result;
+    }
+    
+    @Override
+    public void removeLang(Lang lang) {
+        Set<Word> langWords = wordsByLang.remove(lang);
+        if (langWords == null)
+            return;
+        
+        for (Word w : langWords) {
+            Set<Word> wordTranslations = words.remove(w);
+            if (wordTranslations == null)
+                continue;
+            
+            for (Word tr : wordTranslations) {
+                if (tr.getLang().equals(lang))
+                    continue;
+                
+                Set<Word> translations = words.get(tr);
+                if (translations != null)
+                    translations.remove(w);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,294 @@
+package Dictionary;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Множество неотрицательных чисел {@code int} с открытой адресацией и линейным пробированием.
+ * Числа хранятся в массиве без упаковки в {@link Integer}; удаление выполняется сдвигом
+ * следующих элементов, поэтому множество не накапливает удалённых ячеек.
+ * @author yaros
+ */
+final class IntHashSet {
+    
+    /** Ячейки множества: значение плюс один, {@code 0} - пустая ячейка. Длина - степень двойки. */
+    private int[] slots;
+    
+    /** Количество элементов множества. */
+    private int size;
+    
+    /**
+     * Конструктор пустого множества.
+     */
+    IntHashSet() {
+        slots = new int[8];
+    }
+    
+    /**
+     * Возвращает номер начальной ячейки для значения {@code value}.
+     * @param value значение.
+     * @param mask маска длины массива ячеек.
+     * @return номер ячейки.
+     */
+    private static int indexOf(int value, int mask) {
+        int h = value * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+    
+    /**
+     * Возвращает номер ячейки, содержащей {@code value}.
+     * @param value значение.
+     * @return номер ячейки;<br>
+     * {@code -1}, если значения нет в множестве.
+     */
+    private int find(int value) {
+        int mask = slots.length - 1;
+        int i = indexOf(value, mask);
+        int slot;
+        while ((slot = slots[i]) != 0) {
+            if (slot == value + 1)
+                return i;
+            i = (i + 1) & mask;
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Показывает, содержится ли {@code value} в множестве.
+     * @param value значение.
+     * @return {@code true}, если значение содержится в множестве;<br>
+     * {@code false} в ином случае.
+     */
+    boolean contains(int value) {
+        return find(value) >= 0;
+    }
+    
+    /**
+     * Добавляет {@code value} в множество.
+     * @param value неотрицательное значение.
+     * @return {@code true}, если значение добавлено;<br>
+     * {@code false}, если оно уже содержится в множестве.
+     */
+    boolean add(int value) {
+        if (find(value) >= 0)
+            return false;
+        
+        if ((size + 1) * 4 > slots.length * 3)
+            resize(slots.length * 2);
+        
+        insert(value + 1);
+        size++;
+        return true;
+    }
+    
+    /**
+     * Помещает ячейку {@code slot} в первую свободную ячейку массива без проверок.
+     * @param slot значение ячейки (значение плюс один).
+     */
+    private void insert(int slot) {
+        int mask = slots.length - 1;
+        int i = indexOf(slot - 1, mask);
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = slot;
+    }
+    
+    /**
+     * Перестраивает множество в массиве ячеек длины {@code capacity}.
+     * @param capacity новая длина массива ячеек (степень двойки).
+     */
+    private void resize(int capacity) {
+        int[] oldSlots = slots;
+        slots = new int[capacity];
+        for (int slot : oldSlots) {
+            if (slot != 0)
+                insert(slot);
+        }
+    }
+    
+    /**
+     * Удаляет {@code value} из множества.
+     * @param value значение.
+     * @return {@code true}, если значение удалено;<br>
+     * {@code false}, если его не было в множестве.
+     */
+    boolean remove(int value) {
+        int i = find(value);
+        if (i < 0)
+            return false;
+        
+        int mask = slots.length - 1;
+        slots[i] = 0;
+        size--;
+        
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            int slot = slots[j];
+            if (slot == 0)
+                break;
+            
+            int k = indexOf(slot - 1, mask);
+            boolean stays = (i <= j) ? (i < k && k <= j) : (i < k || k <= j);
+            if (!stays) {
+                slots[i] = slot;
+                slots[j] = 0;
+                i = j;
+            }
+        }
+        
+        if (slots.length > 8 && size * 8 < slots.length)
+            resize(slots.length / 2);
+        
+        return true;
+    }
+    
+    /**
+     * Возвращает количество элементов множества.
+     * @return количество элементов.
+     */
+    int size() {
+        return size;
+    }
+    
+    /**
+     * Возвращает массив с копией элементов множества.
+     * @return массив элементов.
+     */
+    int[] toArray() {
+        int[] result = new int[size];
+        int n = 0;
+        for (int slot : slots) {
+            if (slot != 0)
+                result[n++] = slot - 1;
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Возвращает итератор по элементам множества. Множество не должно изменяться во время обхода.
+     * @return итератор по элементам.
+     */
+    PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            
+            private int next = advance(0);
+            
+            private int advance(int from) {
+                while (from < slots.length && slots[from] == 0) {
+                    from++;
+                }
+                return from;
+            }
+            
+            @Override
+            public boolean hasNext() {
+                return next < slots.length;
+            }
+            
+            @Override
+            public int nextInt() {
+                if (next >= slots.length)
+                    throw new NoSuchElementException();
+                
+                int result = slots[next] - 1;
+                next = advance(next + 1);
+                return result;
+            }
+        
+        };
+    }
+    
+    /**
+     * Возвращает разделяемый обходчик по элементам множества. Обходчик делит массив ячеек
+     * пополам, поэтому точный размер известен только до первого деления; размер уменьшается
+     * с каждым пройденным элементом.
+     * Множество не должно изменяться во время обхода.
+     * @return обходчик по элементам.
+     */
+    Spliterator.OfInt spliterator() {
+        return new SlotSpliterator(0, slots.length, size, Spliterator.SIZED);
+    }
+    
+    /**
+     * Обходчик диапазона ячеек множества.
+     */
+    private class SlotSpliterator implements Spliterator.OfInt {
+        
+        /** Следующая ячейка. */
+        private int next;
+        
+        /** Ячейка после последней. */
+        private final int end;
+        
+        /** Точное или оценочное количество элементов диапазона. */
+        private long estimate;
+        
+        /** {@link Spliterator#SIZED}, если {@link SlotSpliterator#estimate} точное; иначе {@code 0}. */
+        private int sized;
+        
+        SlotSpliterator(int next, int end, long estimate, int sized) {
+            this.next = next;
+            this.end = end;
+            this.estimate = estimate;
+            this.sized = sized;
+        }
+        
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            while (next < end) {
+                int slot = slots[next++];
+                if (slot != 0) {
+                    if (estimate > 0)
+                        estimate--;
+                    action.accept(slot - 1);
+                    return true;
+                }
+            }
+            
+            estimate = 0;
+            return false;
+        }
+        
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            int[] a = slots;
+            for (int i = next; i < end; i++) {
+                if (a[i] != 0)
+                    action.accept(a[i] - 1);
+            }
+            next = end;
+            estimate = 0;
+        }
+        
+        @Override
+        public OfInt trySplit() {
+            int mid = (next + end) >>> 1;
+            if (mid <= next)
+                return null;
+            
+            int from = next;
+            next = mid;
+            estimate >>>= 1;
+            sized = 0;
+            return new SlotSpliterator(from, mid, estimate, 0);
+        }
+        
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+        
+        @Override
+        public int characteristics() {
+            return sized | Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    
+    }
+
+}
@@ -0,0 +1,121 @@
+package Dictionary;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Пул канонических (единственных для каждого значения) объектов. Объекты пула хранятся
+ * по слабым ссылкам и удаляются из пула, когда на них не остаётся других ссылок.<p>
+ * Пул не использует блокировок: поиск - чтение {@link ConcurrentHashMap}, добавление -
+ * {@link ConcurrentHashMap#putIfAbsent}, поэтому одновременное получение канонических объектов
+ * из многих потоков не выстраивается в очередь на одном мониторе.
+ * @param <T> тип хранимых в пуле объектов.
+ * @author yaros
+ */
+final class Interner<T> {
+    
+    /** Пул: слабые ссылки на канонические объекты, ключи совпадают со значениями. */
+    private final ConcurrentHashMap<Ref, Ref> pool = new ConcurrentHashMap<>();
+    
+    /** Очередь ссылок на собранные объекты, которые нужно удалить из пула. */
+    private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+    
+    /**
+     * Равенство объектов по значению. Нужно, потому что {@code equals} двух разных
+     * канонических объектов может возвращать {@code false} без сравнения значений.
+     */
+    private final BiPredicate<T, T> sameValue;
+    
+    /**
+     * Конструктор пула.
+     * @param sameValue равенство объектов по значению, согласованное с {@code hashCode}.
+     */
+    Interner(BiPredicate<T, T> sameValue) {
+        this.sameValue = sameValue;
+    }
+    
+    /**
+     * Слабая ссылка на объект с хэш-кодом и равенством по значению объекта.
+     */
+    private final class Ref extends WeakReference<T> {
+        
+        /** Хэш-код объекта, сохранённый на случай его сборки. */
+        private final int hash;
+        
+        /**
+         * Конструктор ссылки на объект {@code value}.
+         * @param value объект.
+         * @param queue очередь, в которую ссылка попадёт после сборки объекта; {@code null} для ссылки поиска.
+         */
+        Ref(T value, ReferenceQueue<T> queue) {
+            super(value, queue);
+            hash = value.hashCode();
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Interner.Ref))
+                return false;
+            
+            @SuppressWarnings("unchecked")
+            T other = ((Ref)obj).get();
+            T value = get();
+            return value != null && other != null && (value == other || sameValue.test(value, other));
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    
+    }
+    
+    /**
+     * Возвращает канонический объект, равный {@code value}. Если такого объекта в пуле нет,
+     * создаёт его с помощью {@code canonicalCopy} и добавляет в пул. Если два потока одновременно
+     * добавляют равные объекты, оба получают объект, добавленный первым.
+     * @param value образец.
+     * @param canonicalCopy функция, создающая канонический объект по образцу.
+     * @return канонический объект, равный {@code value}.
+     */
+    T intern(T value, UnaryOperator<T> canonicalCopy) {
+        expungeCollected();
+        
+        Ref ref = pool.get(new Ref(value, null));
+        if (ref != null) {
+            T result = ref.get();
+            if (result != null)
+                return result;
+        }
+        
+        T canonical = canonicalCopy.apply(value);
+        Ref canonicalRef = new Ref(canonical, queue);
+        while (true) {
+            Ref existing = pool.putIfAbsent(canonicalRef, canonicalRef);
+            if (existing == null)
+                return canonical;
+            
+            T result = existing.get();
+            if (result != null)
+                return result;
+            
+            pool.remove(existing, existing);
+        }
+    }
+    
+    /**
+     * Удаляет из пула ссылки на собранные объекты.
+     */
+    private void expungeCollected() {
+        Object ref;
+        while ((ref = queue.poll()) != null) {
+            pool.remove(ref, ref);
+        }
+    }
+
+}
@@ -12,6 +12,15 @@ public class Lang implements Comparable<Lang> {
     /** Название языка. */
     private String langTitle;
     
+    /** Кэшированный хэш-код языка. Пересчитывается при изменении {@link Lang#langTitle}. */
+    private int hash;
+    
+    /** Показывает, является ли объект каноническим (неизменяемым) экземпляром, см. {@link Lang#intern}. */
+    private final boolean canonical;
+    
+    /** Пул канонических экземпляров языков. */
+    private static final Interner<Lang> INTERNER = new Interner<>((a, b) -> a.langCode.equals(b.langCode) && a.langTitle.equals(b.langTitle));
+    
     /**
      * <p>Конструктор, принимающий строковые значения кода и названия языка.</p>
      * <p>Если {@code langCode} - пустая строка или null, устанавливает
@@ -21,66 +30,114 @@ public class Lang implements Comparable<Lang> {
      * @param langTitle название языка.
      */
     Lang(String langCode, String langTitle) {
+        this(langCode, langTitle, false);
+    }
+    
+    /**
+     * Конструктор, принимающий строковые значения кода и названия языка и признак канонического экземпляра.
+     * @param langCode код языка.
+     * @param langTitle название языка.
+     * @param canonical {@code true}, если создаётся канонический экземпляр.
+     */
+    private Lang(String langCode, String langTitle, boolean canonical) {
         if (langCode == null || langCode.equals("")) {
             this.langCode = "(no code)";
             this.langTitle = "Unknown language";
         } else {
-            this.langCode = new String(langCode);
+            this.langCode = langCode;
             if (langTitle == null)
                 this.langTitle = "";
             else
-                this.langTitle = new String(langTitle);
+                this.langTitle = langTitle;
         }
+        this.canonical = canonical;
+        this.hash = computeHash();
     }
     
     /**
-     * Возвращает копию поля {@link Lang#langCode}.
+     * Возвращает поле {@link Lang#langCode}.
      * @return {@code String} код языка.
      */
     public String getCode() {
-        return new String(langCode);
+        return langCode;
     }
     
     /**
-     * Возвращает копию поля {@link Lang#langTitle}.
+     * Возвращает поле {@link Lang#langTitle}.
      * @return {@code String} название языка.
      */
     public String getTitle() {
-        return new String(langTitle);
+        return langTitle;
     }
     
     /**
-     * Изменяет поле {@link Lang#langTitle} на новое название языка.
+     * Изменяет поле {@link Lang#langTitle} на новое название языка.<br>
+     * Название канонического экземпляра ({@link Lang#intern}) изменить нельзя.
      * @param langTitle новое название языка
      * @return {@code true}, если новый {@link Lang#langTitle} установлен;<br>
      * {@code false} в ином случае.
      */
     public boolean setLangTitle(String langTitle) {
-        if (langTitle == null)
+        if (langTitle == null || canonical)
             return false;
         
         this.langTitle = langTitle;
+        this.hash = computeHash();
         return true;
     }
     
+    /**
+     * Показывает, является ли язык каноническим (неизменяемым) экземпляром.
+     * @return {@code true}, если язык получен методом {@link Lang#intern};<br>
+     * {@code false} в ином случае.
+     */
+    public boolean isCanonical() {
+        return canonical;
+    }
+    
+    /**
+     * Возвращает канонический экземпляр языка с такими же кодом и названием.
+     * Канонический экземпляр неизменяем, поэтому его можно передавать без копирования;
+     * два канонических экземпляра равны тогда и только тогда, когда это один и тот же объект.
+     * @return канонический {@code Lang}.
+     */
+    public Lang intern() {
+        if (canonical)
+            return this;
+        
+        return INTERNER.intern(this, l -> new Lang(l.langCode, l.langTitle, true));
+    }
+    
     @Override
     public boolean equals(Object obj) {
-        if (obj == null)
+        if (this == obj)
+            return true;
+        if (!(obj instanceof Lang))
             return false;
         
         Lang otherLang = (Lang)obj;
-        return this.langCode.equals(otherLang.getCode()) &&
-                this.langTitle.equals(otherLang.getTitle());
+        if (canonical && otherLang.canonical)
+            return false;
+        
+        return this.hash == otherLang.hash &&
+                this.langCode.equals(otherLang.langCode) &&
+                this.langTitle.equals(otherLang.langTitle);
     }
     
     @Override
     public int hashCode() {
+        return hash;
+    }
+    
+    /**
+     * Вычисляет хэш-код языка по {@link Lang#langCode} и {@link Lang#langTitle}.
+     * @return хэш-код.
+     */
+    private int computeHash() {
         final int prime = 31;
         int result = 1;
-        result = prime * result +
-                ((langCode == null || langCode.equals("")) ? 0 : langCode.hashCode());
-        result = prime * result +
-                ((langTitle == null || langTitle.equals("")) ? 0 : langTitle.hashCode());
+        result = prime * result + (langCode.equals("") ? 0 : langCode.hashCode());
+        result = prime * result + (langTitle.equals("") ? 0 : langTitle.hashCode());
         return result;        
     }
 
@@ -112,6 +169,9 @@ public class Lang implements Comparable<Lang> {
     
     @Override
     public Lang clone() {
-        return new Lang(new String(langCode), new String(langTitle));
+        if (canonical)
+            return this;
+        
+        return new Lang(langCode, langTitle);
     }
 }
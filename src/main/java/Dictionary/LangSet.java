@@ -1,7 +1,10 @@
 package Dictionary;
 
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.SortedSet;
 import java.util.TreeSet;
 
 /** Определяет тип сортировки языков в {@link LangSet}:<br>
@@ -12,20 +15,71 @@ import java.util.TreeSet;
 enum langsSortType { BY_CODE, BY_TITLE }
 
 /**
- * Класс списка языков для словаря. Содержит поле {@link LangSet#langs}.
+ * Класс списка языков для словаря. Содержит поле {@link LangSet#state}.<p>
+ * Список языков изменяется копированием: каждое изменение заменяет {@link LangSet#state}
+ * новым неизменяемым состоянием, поэтому чтение списка из разных потоков не требует
+ * синхронизации, а {@link LangSet#clone} не копирует языки. Состояние хранит индексы
+ * языков по коду и по названию, поэтому поиск языка выполняется за постоянное время;
+ * отсортированные списки языков строятся при первом обращении и хранятся до изменения.
  * @author yaros
  */
 public class LangSet {
     
-    /** {@code HashSet} список языков {@link Lang}. */
-    private HashSet<Lang> langs = new HashSet<>();
+    /** Текущее состояние списка языков. Не изменяется после публикации. */
+    private volatile State state;
+    
+    /**
+     * Неизменяемое состояние списка языков: список канонических языков и индексы по нему.
+     */
+    private static final class State {
+        
+        /** Список канонических языков. */
+        final HashSet<Lang> langs;
+        
+        /** Индекс языков по коду. */
+        final HashMap<String, Lang> byCode;
+        
+        /** Индекс языков по названию. */
+        final HashMap<String, HashSet<Lang>> byTitle;
+        
+        /** Языки, отсортированные по коду; {@code null}, пока не построены. */
+        volatile TreeSet<Lang> sortedByCode;
+        
+        /** Языки, отсортированные по названию; {@code null}, пока не построены. */
+        volatile TreeSet<Lang> sortedByTitle;
+        
+        /**
+         * Конструктор состояния, использующий готовый список {@code langs} без копирования.
+         * @param langs список канонических языков.
+         */
+        State(HashSet<Lang> langs) {
+            this.langs = langs;
+            byCode = new HashMap<>(langs.size() * 2);
+            byTitle = new HashMap<>(langs.size() * 2);
+            for (Lang lang : langs) {
+                byCode.put(lang.getCode(), lang);
+                byTitle.computeIfAbsent(lang.getTitle(), t -> new HashSet<>(2)).add(lang);
+            }
+        }
+    
+    }
+    
+    /**
+     * Конструктор списка языков, использующий готовое состояние {@code state}.
+     * @param state состояние списка языков.
+     */
+    private LangSet(State state) {
+        this.state = state;
+    }
     
     /**
      * Конструктор списка языков для инициализации одним языком.
      * @param lang первый язык.
      */
     LangSet(Lang lang) {
-        langs.add(lang.clone());
+        HashSet<Lang> langs = new HashSet<>();
+        langs.add(lang.intern());
+        state = new State(langs);
     }
     
     /**
@@ -34,10 +88,11 @@ public class LangSet {
      * @param secondLang второй язык.
      */
     LangSet(Lang firstLang, Lang secondLang) {
-        langs.add(firstLang.clone());
-        if (firstLang.hasSameCodes(secondLang))
-            return;
-        langs.add(secondLang.clone());
+        HashSet<Lang> langs = new HashSet<>();
+        langs.add(firstLang.intern());
+        if (!firstLang.hasSameCodes(secondLang))
+            langs.add(secondLang.intern());
+        state = new State(langs);
     }
     
     /**
@@ -52,7 +107,7 @@ public class LangSet {
     }
     
     /**
-     * <p>Вложенный класс нестандартного компаратора для списка языков {@link LangSet#langs}.</p>
+     * <p>Вложенный класс нестандартного компаратора для списка языков {@link LangSet#getLangSet(langsSortType)}.</p>
      * <p>Переопределённый {@link LangComparator#compare} реализует сравнение
      * только по названию {@link Lang#langTitle} языка.</p>
      */
@@ -62,7 +117,7 @@ public class LangSet {
         public int compare(Lang firstLang, Lang secondLang) {
             return firstLang.getTitle().compareTo(secondLang.getTitle());
         }
-        
+    
     }
     
     /**
@@ -76,31 +131,75 @@ public class LangSet {
     /**
      * Возвращает список копий языков, отсортированных в соответствии с выбранным типом сортировки:<br>
      * {@code BY_CODE} - сортировать по коду;<br>
-     * {@code BY_TITLE} - сортировать по названию.
+     * {@code BY_TITLE} - сортировать по названию.<br>
+     * Языки списка канонические, поэтому копируется только сам отсортированный список.
      * @param type тип сортировки.
      * @return {@code Set} список языков.
      */
     public TreeSet<Lang> getLangSet(langsSortType type) {
-        TreeSet<Lang> result = null;
+        TreeSet<Lang> sorted = sorted(type);
+        if (sorted == null)
+            return null;
+        
+        return new TreeSet<>(sorted);
+    }
+    
+    /**
+     * Возвращает неизменяемый список языков, отсортированных по их кодам, без копирования,
+     * см. {@link LangSet#getSortedLangs(langsSortType)}.
+     * @return {@code SortedSet} список языков.
+     */
+    public SortedSet<Lang> getSortedLangs() {
+        return getSortedLangs(langsSortType.BY_CODE);
+    }
+    
+    /**
+     * Возвращает неизменяемый список языков, отсортированных в соответствии с выбранным
+     * типом сортировки, без копирования. Список соответствует состоянию на момент вызова
+     * и не изменяется при последующих изменениях списка языков.
+     * @param type тип сортировки.
+     * @return {@code SortedSet} список языков.
+     */
+    public SortedSet<Lang> getSortedLangs(langsSortType type) {
+        TreeSet<Lang> sorted = sorted(type);
+        if (sorted == null)
+            return null;
+        
+        return Collections.unmodifiableSortedSet(sorted);
+    }
+    
+    /**
+     * Возвращает отсортированный список языков текущего состояния, строя его при первом обращении.
+     * Возвращаемый список не должен изменяться.
+     * @param type тип сортировки.
+     * @return {@code TreeSet} список языков.
+     */
+    private TreeSet<Lang> sorted(langsSortType type) {
+        State current = state;
+        TreeSet<Lang> result;
         
         if (type == langsSortType.BY_CODE) {
-            result = new TreeSet<>(langs);
+            result = current.sortedByCode;
+            if (result == null) {
+                result = new TreeSet<>(current.langs);
+                current.sortedByCode = result;
+            }
         } else if (type == langsSortType.BY_TITLE) {
-            LangComparator comp = new LangComparator();
-            result = new TreeSet<>(comp);
+            result = current.sortedByTitle;
+            if (result == null) {
+                result = new TreeSet<>(new LangComparator());
+                result.addAll(current.langs);
+                current.sortedByTitle = result;
+            }
         } else {
             return null;
         }
         
-        for (Lang lang : langs) {
-            result.add(lang.clone());
-        }
-        
         return result;
     }
     
     /**
-     * Возвращает копию объекта {@link Lang} из списка языков с кодом, эквивалентным {@code code}.
+     * Возвращает канонический (неизменяемый) объект {@link Lang} из списка языков с кодом, эквивалентным {@code code}.
      * @param code код языка.
      * @return объект {@link Lang}, если язык с кодом {@code code} существует в списке;<br>
      * {@code null}, если такого языка в списке нет.
@@ -109,12 +208,7 @@ public class LangSet {
         if (!canBeCode(code))
             return null;
         
-        for (Lang lang : langs) {
-            if (lang.getCode().equals(code))
-                return lang.clone();
-        }
-        
-        return null;
+        return state.byCode.get(code);
     }
     
     /**
@@ -126,13 +220,11 @@ public class LangSet {
         if (title == null)
             return null;
         
-        HashSet<Lang> result = new HashSet<>();
-        for (Lang lang : langs) {
-            if (lang.getTitle().equals(title))
-                result.add(lang.clone());
-        }
+        HashSet<Lang> langs = state.byTitle.get(title);
+        if (langs == null)
+            return new HashSet<>();
         
-        return result;
+        return new HashSet<>(langs);
     }
     
     /**
@@ -142,7 +234,7 @@ public class LangSet {
      * {@code false} в ином случае.
      */
     public boolean contains(Lang lang) {
-        return langs.contains(lang);
+        return state.langs.contains(lang);
     }
     
     /**
@@ -182,11 +274,14 @@ public class LangSet {
      * @return {@code true}, если язык {@code lang} успешно добавлен;<br>
      * {@code false} в ином случае.
      */
-    public boolean addLang(Lang lang) {
+    public synchronized boolean addLang(Lang lang) {
         if (lang == null || hasLangCode(lang))
             return false;
         
-        return langs.add(lang.clone());
+        HashSet<Lang> newLangs = new HashSet<>(state.langs);
+        boolean result = newLangs.add(lang.intern());
+        state = new State(newLangs);
+        return result;
     }
     
     /**
@@ -195,13 +290,17 @@ public class LangSet {
      * @return {@code true}, если язык с кодом {@code code} успешно удалён;<br>
      * {@code false} в ином случае.
      */
-    public boolean removeLangByCode(String code) {
+    public synchronized boolean removeLangByCode(String code) {
         if (!canBeCode(code))
             return false;
         
         Lang toDel = getLangByCode(code);
-        if (toDel != null)
-            return langs.remove(toDel);
+        if (toDel != null) {
+            HashSet<Lang> newLangs = new HashSet<>(state.langs);
+            boolean result = newLangs.remove(toDel);
+            state = new State(newLangs);
+            return result;
+        }
         
         return false;
     }
@@ -219,19 +318,13 @@ public class LangSet {
         return removeLangByCode(lang.getCode());
     }
     
+    /**
+     * Возвращает копию списка языков. Состояние неизменяемо, поэтому копия использует
+     * его без копирования; последующие изменения копии и исходного списка независимы.
+     * @return {@code LangSet} копию списка языков.
+     */
     @Override
     public LangSet clone() {
-        LangSet result = null;
-        
-        boolean isFirstIteration = false;
-        for (Lang lang : langs) {
-            if (isFirstIteration) {
-                result = new LangSet(lang.clone());
-            } else {
-                result.addLang(lang.clone());
-            }
-        }
-        
-        return result;
+        return new LangSet(state);
     }
 }
@@ -0,0 +1,190 @@
+package Dictionary;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Таблица словаря переводов, обновляемая при изменениях словаря. В отличие от таблицы
+ * {@link Dictionary#buildDictionary}, которая является копией словаря на момент построения,
+ * таблица подключается к словарю как {@link DictionaryListener} и изменяется на месте:
+ * добавление перевода, удаление слова и удаление языка обновляют только затронутые строки
+ * за {@code O(1)} на каждый добавленный или удалённый перевод. Для этого таблица хранит
+ * обратный индекс: для каждого слова на языке перевода - слова, переводом которых оно является.<p>
+ * Чтение таблицы не захватывает блокировок и может выполняться одновременно с изменениями
+ * словаря; изменения таблицы выполняются по очереди.
+ * @author yaros
+ */
+public class LiveDictionaryTable extends DictionaryTable implements DictionaryListener {
+    
+    /** Словарь, по которому построена таблица. */
+    private final Dictionary dictionary;
+    
+    /** Исходный язык (канонический экземпляр). */
+    private final Lang langFirst;
+    
+    /** Язык перевода (канонический экземпляр). */
+    private final Lang langSec;
+    
+    /** Строки таблицы: ключи-слова и неизменяемые представления {@link LiveDictionaryTable#rowSets}. */
+    private final ConcurrentHashMap<Word, Set<Word>> rows;
+    
+    /** Изменяемые списки переводов строк таблицы. */
+    private final HashMap<Word, Set<Word>> rowSets = new HashMap<>();
+    
+    /** Обратный индекс: ключи-переводы и слова на исходном языке, в списках переводов которых они содержатся. */
+    private final HashMap<Word, Set<Word>> sources = new HashMap<>();
+    
+    /**
+     * Конструктор таблицы. Используется {@link LiveDictionaryTable#attach}.
+     * @param dictionary словарь.
+     * @param langFirst исходный язык.
+     * @param langSec язык перевода.
+     * @param rows пустой словарь строк таблицы.
+     */
+    private LiveDictionaryTable(Dictionary dictionary, Lang langFirst, Lang langSec, ConcurrentHashMap<Word, Set<Word>> rows) {
+        super(rows);
+        this.dictionary = dictionary;
+        this.langFirst = langFirst;
+        this.langSec = langSec;
+        this.rows = rows;
+    }
+    
+    /**
+     * Строит таблицу словаря {@code dictionary} со словами на языке {@code langFirst}
+     * и списками их переводов на язык {@code langSec} и подключает её к словарю.
+     * Таблица подключается до построения, поэтому {@link ConcurrentDictionary} может изменяться
+     * во время построения: уведомления об изменениях ждут его окончания и применяются
+     * к построенным строкам (повторное применение уже учтённого изменения ничего не меняет).
+     * Остальные словари не должны изменяться во время построения.
+     * @param dictionary словарь.
+     * @param langFirst исходный язык.
+     * @param langSec язык перевода.
+     * @return таблица, обновляемая при изменениях словаря;<br>
+     * {@code null}, если языка нет в словаре.
+     */
+    public static LiveDictionaryTable attach(Dictionary dictionary, Lang langFirst, Lang langSec) {
+        if (dictionary == null || langSec == null || !dictionary.getLangs().contains(langSec))
+            return null;
+        
+        Set<Word> wordsFirstLang = dictionary.getWordsByLang(langFirst);
+        if (wordsFirstLang == null)
+            return null;
+        
+        LiveDictionaryTable result = new LiveDictionaryTable(dictionary, langFirst.intern(), langSec.intern(), new ConcurrentHashMap<>());
+        dictionary.addListener(result);
+        synchronized (result) {
+            for (Word w : wordsFirstLang) {
+                Set<Word> translations = dictionary.getTranslations(w);
+                if (translations == null)
+                    continue;
+                
+                for (Word tr : translations) {
+                    if (tr.getLang() == result.langSec)
+                        result.link(w, tr);
+                }
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Отключает таблицу от словаря. После отключения таблица больше не изменяется.
+     */
+    public void detach() {
+        dictionary.removeListener(this);
+    }
+    
+    /**
+     * Добавляет {@code translationWord} к строке слова {@code word}.
+     * @param word слово на исходном языке.
+     * @param translationWord перевод.
+     */
+    private void link(Word word, Word translationWord) {
+        Word w = word.intern();
+        Word tr = translationWord.intern();
+        
+        Set<Word> row = rowSets.get(w);
+        if (row == null) {
+            row = ConcurrentHashMap.newKeySet();
+            row.add(tr);
+            rowSets.put(w, row);
+            rows.put(w, Collections.unmodifiableSet(row));
+        } else {
+            row.add(tr);
+        }
+        
+        sources.computeIfAbsent(tr, k -> new HashSet<>()).add(w);
+    }
+    
+    /**
+     * Удаляет строку слова {@code word} на исходном языке.
+     * @param word слово.
+     */
+    private void removeRow(Word word) {
+        Set<Word> row = rowSets.remove(word);
+        if (row == null)
+            return;
+        
+        rows.remove(word);
+        for (Word tr : row) {
+            Set<Word> trSources = sources.get(tr);
+            trSources.remove(word);
+            if (trSources.isEmpty())
+                sources.remove(tr);
+        }
+    }
+    
+    /**
+     * Удаляет перевод {@code translationWord} из всех строк таблицы.
+     * Строки, оставшиеся без переводов, удаляются.
+     * @param translationWord перевод.
+     */
+    private void removeTranslation(Word translationWord) {
+        Set<Word> trSources = sources.remove(translationWord);
+        if (trSources == null)
+            return;
+        
+        for (Word w : trSources) {
+            Set<Word> row = rowSets.get(w);
+            row.remove(translationWord);
+            if (row.isEmpty()) {
+                rowSets.remove(w);
+                rows.remove(w);
+            }
+        }
+    }
+    
+    @Override
+    public synchronized void langRemoved(Lang lang) {
+        if (lang.intern() != langFirst && lang.intern() != langSec)
+            return;
+        
+        rows.clear();
+        rowSets.clear();
+        sources.clear();
+    }
+    
+    @Override
+    public synchronized void wordRemoved(Word word) {
+        Lang lang = word.getLang();
+        if (lang == langFirst)
+            removeRow(word);
+        if (lang == langSec)
+            removeTranslation(word);
+    }
+    
+    @Override
+    public synchronized void translationAdded(Word word, Word translationWord) {
+        Lang lang = word.getLang();
+        Lang trLang = translationWord.getLang();
+        if (lang == langFirst && trLang == langSec)
+            link(word, translationWord);
+        if (trLang == langFirst && lang == langSec)
+            link(translationWord, word);
+    }
+
+}
@@ -122,14 +122,14 @@ public class Main {
             return;
         }
         
-        for (Word w : dict.wordSet()) {
+        dict.forEach((w, translations) -> {
             System.out.print("Слово: " + w.getWord());
             System.out.print(" | Переводы: ");
-            for (Word tr : dict.get(w)) {
+            for (Word tr : translations) {
                 System.out.print(tr.getWord() + ", ");
             }
             System.out.println();
-        }
+        });
     }
     
     private static void printLang(Lang lang) {
@@ -0,0 +1,457 @@
+package Dictionary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Хранилище слов, читающее файл словаря ({@link DictionaryFile}) через {@link FileChannel#map}.
+ * При открытии в память читаются только заголовок и таблица языков, остальные данные
+ * подгружаются операционной системой по мере обращения к ним. Файлы больше 2 ГБ отображаются
+ * частями по {@link MappedWordStore#CHUNK_SIZE} байт.<p>
+ * Хранилище доступно только для чтения: {@link MappedWordStore#add}, {@link MappedWordStore#remove}
+ * и {@link MappedWordStore#link} возвращают {@code false}, а {@link MappedWordStore#removeLang}
+ * ничего не делает (слова удалённого языка перестают быть доступны через {@link Dictionary},
+ * так как язык удаляется из его списка языков).<p>
+ * Прочитанные слова кэшируются в небольшой таблице по номеру слова
+ * ({@link MappedWordStore#WORD_CACHE_SIZE} ячеек), поэтому повторное чтение часто используемых слов
+ * не декодирует текст и не обращается к пулу канонических слов.
+ * @author yaros
+ */
+final class MappedWordStore implements WordStore {
+    
+    /** Размер отображаемой части файла. */
+    static final long CHUNK_SIZE = 1L << 30;
+    
+    /** Перекрытие соседних частей, чтобы число на границе части читалось из одной части. */
+    private static final int CHUNK_OVERLAP = 8;
+    
+    /** Количество ячеек кэша прочитанных слов (степень двойки). */
+    static final int WORD_CACHE_SIZE = 1 << 14;
+    
+    /**
+     * Кэш прочитанных слов: слово с номером {@code id} хранится в ячейке {@code id & (WORD_CACHE_SIZE - 1)}
+     * и вытесняется словом с другим номером той же ячейки. Элементы неизменяемы, поэтому кэш
+     * читается и заполняется из нескольких потоков без синхронизации.
+     */
+    private final CachedWord[] wordCache = new CachedWord[WORD_CACHE_SIZE];
+    
+    /** Отображённые части файла. */
+    private final MappedByteBuffer[] chunks;
+    
+    /** Языки файла по номерам. */
+    private final Lang[] langs;
+    
+    /** Номера языков. */
+    private final HashMap<Lang, Integer> langIds = new HashMap<>();
+    
+    /** Номер первого слова каждого языка. */
+    private final int[] firstWordIds;
+    
+    /** Количество слов каждого языка. */
+    private final int[] langWordCounts;
+    
+    /** Смещение таблицы слов. */
+    private final long wordTable;
+    
+    /** Смещение хэш-таблицы. */
+    private final long hashTable;
+    
+    /** Количество ячеек хэш-таблицы (степень двойки). */
+    private final long slotCount;
+    
+    /**
+     * Конструктор хранилища, отображающий файл {@code channel} в память и читающий таблицу языков.
+     * @param channel открытый на чтение файл словаря.
+     * @throws IOException если файл не удалось отобразить или он не является файлом словаря.
+     */
+    MappedWordStore(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < DictionaryFile.HEADER_SIZE)
+            throw new IOException("Not a dictionary file");
+        
+        int chunkCount = (int)((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        chunks = new MappedByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            long start = i * CHUNK_SIZE;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE + CHUNK_OVERLAP, size - start));
+        }
+        
+        if (getInt(0) != DictionaryFile.MAGIC)
+            throw new IOException("Not a dictionary file");
+        if (getInt(4) != DictionaryFile.VERSION)
+            throw new IOException("Unsupported dictionary file version: " + getInt(4));
+        
+        int langCount = getInt(8);
+        long langTable = getLong(16);
+        wordTable = getLong(24);
+        hashTable = getLong(32);
+        slotCount = getLong(40);
+        
+        langs = new Lang[langCount];
+        firstWordIds = new int[langCount];
+        langWordCounts = new int[langCount];
+        for (int i = 0; i < langCount; i++) {
+            long record = langTable + (long)DictionaryFile.LANG_RECORD_SIZE * i;
+            String code = getString(getLong(record), getInt(record + 8));
+            String title = getString(getLong(record + 16), getInt(record + 24));
+            langs[i] = new Lang(code, title).intern();
+            langIds.put(langs[i], i);
+            firstWordIds[i] = getInt(record + 12);
+            langWordCounts[i] = getInt(record + 28);
+        }
+    }
+    
+    /**
+     * Возвращает номер начальной ячейки хэш-таблицы для хэш-кода {@code hash}.
+     * Используется и при записи, и при чтении файла.
+     * @param hash хэш-код слова.
+     * @param mask маска количества ячеек.
+     * @return номер ячейки.
+     */
+    static int slotIndex(int hash, int mask) {
+        int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+    
+    /**
+     * Возвращает канонические языки файла в порядке их номеров.
+     * @return массив языков.
+     */
+    Lang[] langs() {
+        return langs.clone();
+    }
+    
+    private int getInt(long pos) {
+        return chunks[(int)(pos / CHUNK_SIZE)].getInt((int)(pos % CHUNK_SIZE));
+    }
+    
+    private long getLong(long pos) {
+        return chunks[(int)(pos / CHUNK_SIZE)].getLong((int)(pos % CHUNK_SIZE));
+    }
+    
+    /**
+     * Читает {@code length} байтов файла начиная с {@code pos}.
+     * @param pos смещение.
+     * @param length количество байтов.
+     * @return массив байтов.
+     */
+    private byte[] getBytes(long pos, int length) {
+        byte[] result = new byte[length];
+        int done = 0;
+        while (done < length) {
+            int offset = (int)((pos + done) % CHUNK_SIZE);
+            int n = (int)Math.min(length - done, CHUNK_SIZE - offset);
+            ByteBuffer chunk = chunks[(int)((pos + done) / CHUNK_SIZE)].duplicate();
+            chunk.position(offset);
+            chunk.get(result, done, n);
+            done += n;
+        }
+        
+        return result;
+    }
+    
+    private String getString(long pos, int length) {
+        return new String(getBytes(pos, length), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Возвращает смещение записи слова с номером {@code id} в таблице слов.
+     * @param id номер слова.
+     * @return смещение записи.
+     */
+    private long record(int id) {
+        return wordTable + (long)DictionaryFile.WORD_RECORD_SIZE * id;
+    }
+    
+    /**
+     * Элемент кэша прочитанных слов.
+     */
+    private static final class CachedWord {
+        
+        /** Номер слова. */
+        final int id;
+        
+        /** Канонический экземпляр слова. */
+        final Word word;
+        
+        CachedWord(int id, Word word) {
+            this.id = id;
+            this.word = word;
+        }
+    
+    }
+    
+    /**
+     * Возвращает канонический экземпляр слова с номером {@code id}. Слово берётся из кэша
+     * или читается из файла и помещается в кэш.
+     * @param id номер слова.
+     * @return слово.
+     */
+    private Word wordAt(int id) {
+        int slot = id & (WORD_CACHE_SIZE - 1);
+        CachedWord cached = wordCache[slot];
+        if (cached != null && cached.id == id)
+            return cached.word;
+        
+        long record = record(id);
+        String text = getString(getLong(record), getInt(record + 8));
+        Word result = new Word(text, langs[getInt(record + 12)]).intern();
+        wordCache[slot] = new CachedWord(id, result);
+        return result;
+    }
+    
+    /**
+     * Возвращает номер слова {@code word} в файле.
+     * @param word слово.
+     * @return номер слова;<br>
+     * {@code -1}, если слова нет в файле.
+     */
+    private int idOf(Word word) {
+        if (word == null)
+            return -1;
+        
+        Integer langId = langIds.get(word.getLang());
+        if (langId == null)
+            return -1;
+        
+        int hash = word.hashCode();
+        byte[] text = null;
+        int mask = (int)(slotCount - 1);
+        int i = slotIndex(hash, mask);
+        int slot;
+        while ((slot = getInt(hashTable + 4L * i)) != 0) {
+            long record = record(slot - 1);
+            if (getInt(record + 28) == hash && getInt(record + 12) == langId) {
+                if (text == null)
+                    text = word.getWord().getBytes(StandardCharsets.UTF_8);
+                if (getInt(record + 8) == text.length && sameBytes(getLong(record), text))
+                    return slot - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Показывает, совпадают ли байты файла начиная с {@code pos} с {@code bytes}.
+     * @param pos смещение.
+     * @param bytes байты для сравнения.
+     * @return {@code true}, если байты совпадают;<br>
+     * {@code false} в ином случае.
+     */
+    private boolean sameBytes(long pos, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            long p = pos + i;
+            if (chunks[(int)(p / CHUNK_SIZE)].get((int)(p % CHUNK_SIZE)) != bytes[i])
+                return false;
+        }
+        
+        return true;
+    }
+    
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+    
+    @Override
+    public boolean contains(Word word) {
+        return idOf(word) >= 0;
+    }
+    
+    @Override
+    public boolean add(Word word) {
+        return false;
+    }
+    
+    @Override
+    public boolean remove(Word word) {
+        return false;
+    }
+    
+    @Override
+    public boolean link(Word word, Word translationWord) {
+        return false;
+    }
+    
+    @Override
+    public Set<Word> translations(Word word) {
+        int id = idOf(word);
+        if (id < 0)
+            return null;
+        
+        long record = record(id);
+        return new IdRangeView(getLong(record + 16), getInt(record + 24), true);
+    }
+    
+    @Override
+    public Set<Word> words(Lang lang) {
+        Integer langId = langIds.get(lang);
+        if (langId == null)
+            return Collections.emptySet();
+        
+        return new IdRangeView(firstWordIds[langId], langWordCounts[langId], false);
+    }
+    
+    /**
+     * {@inheritDoc}<br>
+     * Переводы слов одного языка занимают в файле непрерывный диапазон, поэтому количество
+     * вычисляется по записям первого и последнего слова языка.
+     */
+    @Override
+    public long translationCount(Lang lang) {
+        Integer langId = langIds.get(lang);
+        if (langId == null || langWordCounts[langId] == 0)
+            return 0;
+        
+        long first = record(firstWordIds[langId]);
+        long last = record(firstWordIds[langId] + langWordCounts[langId] - 1);
+        return (getLong(last + 16) + 4L * getInt(last + 24) - getLong(first + 16)) / 4;
+    }
+    
+    @Override
+    public void removeLang(Lang lang) {
+    }
+    
+    /**
+     * Представление непрерывного диапазона слов: либо диапазона номеров слов,
+     * либо диапазона массива переводов в файле. Слова создаются при обходе.
+     */
+    private class IdRangeView extends AbstractSet<Word> {
+        
+        /** Первый номер слова или смещение первого перевода в файле. */
+        private final long start;
+        
+        /** Количество слов. */
+        private final int count;
+        
+        /** {@code true}, если {@link IdRangeView#start} - смещение массива переводов. */
+        private final boolean indirect;
+        
+        IdRangeView(long start, int count, boolean indirect) {
+            this.start = start;
+            this.count = count;
+            this.indirect = indirect;
+        }
+        
+        private int idAt(int i) {
+            return indirect ? getInt(start + 4L * i) : (int)(start + i);
+        }
+        
+        @Override
+        public int size() {
+            return count;
+        }
+        
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Word))
+                return false;
+            
+            int id = idOf((Word)o);
+            if (id < 0)
+                return false;
+            if (!indirect)
+                return id >= start && id < start + count;
+            
+            for (int i = 0; i < count; i++) {
+                if (idAt(i) == id)
+                    return true;
+            }
+            return false;
+        }
+        
+        @Override
+        public Iterator<Word> iterator() {
+            return new Iterator<Word>() {
+                
+                private int next = 0;
+                
+                @Override
+                public boolean hasNext() {
+                    return next < count;
+                }
+                
+                @Override
+                public Word next() {
+                    if (next >= count)
+                        throw new NoSuchElementException();
+                    
+                    return wordAt(idAt(next++));
+                }
+            
+            };
+        }
+        
+        /**
+         * Возвращает обходчик по словам диапазона, делящий диапазон пополам.
+         */
+        @Override
+        public Spliterator<Word> spliterator() {
+            return new RangeSpliterator(0, count);
+        }
+        
+        /**
+         * Обходчик части диапазона слов.
+         */
+        private class RangeSpliterator implements Spliterator<Word> {
+            
+            /** Следующая позиция в диапазоне. */
+            private int next;
+            
+            /** Позиция после последней. */
+            private final int end;
+            
+            RangeSpliterator(int next, int end) {
+                this.next = next;
+                this.end = end;
+            }
+            
+            @Override
+            public boolean tryAdvance(Consumer<? super Word> action) {
+                if (next >= end)
+                    return false;
+                
+                action.accept(wordAt(idAt(next++)));
+                return true;
+            }
+            
+            @Override
+            public Spliterator<Word> trySplit() {
+                int mid = (next + end) >>> 1;
+                if (mid <= next)
+                    return null;
+                
+                int from = next;
+                next = mid;
+                return new RangeSpliterator(from, mid);
+            }
+            
+            @Override
+            public long estimateSize() {
+                return end - next;
+            }
+            
+            @Override
+            public int characteristics() {
+                return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.DISTINCT
+                        | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+            }
+        
+        }
+    
+    }
+
+}
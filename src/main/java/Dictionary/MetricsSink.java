@@ -0,0 +1,19 @@
+package Dictionary;
+
+/**
+ * Получатель измерений операций словаря, см. {@link Dictionary#setMetricsSink}.
+ * Вызывается в потоке, выполнившем операцию, поэтому должен быть потокобезопасным
+ * для потокобезопасных словарей и выполняться быстро.
+ * @author yaros
+ */
+public interface MetricsSink {
+    
+    /**
+     * Получает измерение одной операции словаря.
+     * @param operation операция.
+     * @param nanos время выполнения в наносекундах.
+     * @param success {@code true}, если операция выполнена (вернула {@code true} или не {@code null}).
+     */
+    void record(DictionaryOperation operation, long nanos, boolean success);
+
+}
@@ -0,0 +1,124 @@
+package Dictionary;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Страница упорядоченной выборки из словаря с маркером продолжения. Маркер - текст последнего
+ * просмотренного слова: следующая страница начинается со слова, следующего за ним в порядке
+ * индекса, поэтому маркер остаётся действительным при изменениях словаря между запросами
+ * страниц, в том числе при удалении этого слова. Слова, добавленные в уже пройденную часть
+ * порядка, в следующие страницы не попадают.
+ * @param <T> тип элементов страницы.
+ * @author yaros
+ */
+public class Page<T> {
+    
+    /**
+     * Наибольшее количество слов, просматриваемых для заполнения одной строки страницы таблицы.
+     * Ограничивает время запроса страницы, если переводов на язык таблицы мало.
+     */
+    static final int SCAN_FACTOR = 16;
+    
+    /** Элементы страницы. */
+    private final List<T> items;
+    
+    /** Маркер продолжения; {@code null}, если страница последняя. */
+    private final String nextToken;
+    
+    /**
+     * Конструктор страницы.
+     * @param items элементы страницы.
+     * @param nextToken маркер продолжения; {@code null}, если страница последняя.
+     */
+    Page(List<T> items, String nextToken) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextToken = nextToken;
+    }
+    
+    /**
+     * Возвращает неизменяемый список элементов страницы.
+     * @return {@code List} элементы страницы.
+     */
+    public List<T> getItems() {
+        return items;
+    }
+    
+    /**
+     * Возвращает маркер продолжения, по которому запрашивается следующая страница.
+     * @return маркер продолжения;<br>
+     * {@code null}, если страница последняя.
+     */
+    public String getNextToken() {
+        return nextToken;
+    }
+    
+    /**
+     * Показывает, есть ли следующая страница.
+     * @return {@code true}, если есть следующая страница;<br>
+     * {@code false}, если страница последняя.
+     */
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+    
+    /**
+     * Составляет страницу из не более чем {@code size} первых слов {@code words}.
+     * @param words слова, следующие за маркером, в порядке индекса.
+     * @param size размер страницы.
+     * @return {@code Page} страница слов.
+     */
+    static Page<Word> words(Iterator<Word> words, int size) {
+        List<Word> result = new ArrayList<>(Math.min(size, 64));
+        Word last = null;
+        while (result.size() < size && words.hasNext()) {
+            last = words.next();
+            result.add(last);
+        }
+        
+        return new Page<>(result, (last != null && words.hasNext()) ? last.getWord() : null);
+    }
+    
+    /**
+     * Составляет страницу таблицы словаря из не более чем {@code size} строк: слов из {@code words},
+     * имеющих переводы на язык {@code langSec}, и неизменяемых списков этих переводов.
+     * Просматривает не более {@code size * SCAN_FACTOR} слов, поэтому страница может
+     * содержать меньше {@code size} строк и при наличии следующей страницы.
+     * @param words слова на исходном языке, следующие за маркером, в порядке индекса.
+     * @param translations возвращает список переводов слова или {@code null}, если слова нет.
+     * @param langSec язык перевода.
+     * @param size размер страницы.
+     * @return {@code Page} страница строк таблицы словаря.
+     */
+    static Page<Map.Entry<Word, Set<Word>>> rows(Iterator<Word> words, Function<Word, Set<Word>> translations,
+            Lang langSec, int size) {
+        List<Map.Entry<Word, Set<Word>>> result = new ArrayList<>(Math.min(size, 64));
+        long budget = (long)size * SCAN_FACTOR;
+        Word last = null;
+        while (result.size() < size && budget-- > 0 && words.hasNext()) {
+            last = words.next();
+            Set<Word> wAllTranslations = translations.apply(last);
+            if (wAllTranslations == null)
+                continue;
+            
+            HashSet<Word> wTranslations = new HashSet<>();
+            for (Word tr : wAllTranslations) {
+                if (tr.getLang().equals(langSec))
+                    wTranslations.add(tr);
+            }
+            
+            if (!wTranslations.isEmpty())
+                result.add(new AbstractMap.SimpleImmutableEntry<>(last, Collections.unmodifiableSet(wTranslations)));
+        }
+        
+        return new Page<>(result, (last != null && words.hasNext()) ? last.getWord() : null);
+    }
+
+}
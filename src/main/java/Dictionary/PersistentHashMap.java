@@ -0,0 +1,420 @@
+package Dictionary;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Неизменяемый словарь - префиксное дерево по битам хэш-кода (по 5 бит на уровень).
+ * Методы {@link PersistentHashMap#plus} и {@link PersistentHashMap#minus} не изменяют словарь,
+ * а возвращают новый, который копирует только узлы на пути к изменённому ключу (не больше
+ * восьми узлов), а остальные узлы разделяет с исходным. Поэтому версии снимков словаря
+ * ({@link DictionarySnapshot}) строятся за время, пропорциональное количеству изменённых
+ * ключей, а не размеру словаря.<p>
+ * Методы {@link java.util.Map}, изменяющие словарь, выбрасывают {@link UnsupportedOperationException}.
+ * Ключи и значения не могут быть {@code null}.
+ * @param <K> тип ключей.
+ * @param <V> тип значений.
+ * @author yaros
+ */
+final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+    
+    /** Количество бит хэш-кода на уровень дерева. */
+    private static final int BITS = 5;
+    
+    /** Наибольшая глубина узла дерева: узлы этой глубины хранят ключи с одинаковым хэш-кодом. */
+    private static final int MAX_DEPTH = (Integer.SIZE + BITS - 1) / BITS;
+    
+    /** Пустой словарь. */
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+    
+    /** Корень дерева; {@code null} - словарь пуст. */
+    private final Node root;
+    
+    /** Количество ключей. */
+    private final int size;
+    
+    /** Представление пар словаря. */
+    private Set<Map.Entry<K, V>> entrySet;
+    
+    /**
+     * Узел дерева. Ячейки узла - пары ({@link AbstractMap.SimpleImmutableEntry}) или дочерние узлы;
+     * в узле наибольшей глубины - только пары с одинаковым хэш-кодом, без битовой маски.
+     */
+    private static final class Node {
+        
+        /** Битовая маска занятых ячеек по 5 битам хэш-кода уровня узла. */
+        final int bitmap;
+        
+        /** Занятые ячейки в порядке битов маски. */
+        final Object[] slots;
+        
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    
+    }
+    
+    /**
+     * Конструктор словаря.
+     * @param root корень дерева.
+     * @param size количество ключей.
+     */
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+    
+    /**
+     * Возвращает пустой словарь.
+     * @param <K> тип ключей.
+     * @param <V> тип значений.
+     * @return {@code PersistentHashMap} пустой словарь.
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>)EMPTY;
+    }
+    
+    /**
+     * Возвращает ячейку, соответствующую хэш-коду {@code hash} на уровне {@code depth}.
+     * @param hash хэш-код.
+     * @param depth глубина уровня.
+     * @return бит ячейки в маске узла.
+     */
+    private static int bit(int hash, int depth) {
+        return 1 << ((hash >>> (depth * BITS)) & ((1 << BITS) - 1));
+    }
+    
+    /**
+     * Возвращает номер ячейки с битом {@code bit} в массиве ячеек узла.
+     * @param bitmap маска узла.
+     * @param bit бит ячейки.
+     * @return номер ячейки.
+     */
+    private static int index(int bitmap, int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+    
+    /**
+     * Находит пару с ключом {@code key}.
+     * @param key ключ.
+     * @return {@code Map.Entry} пару;<br>
+     * {@code null}, если ключа нет в словаре.
+     */
+    @SuppressWarnings("unchecked")
+    private Map.Entry<K, V> find(Object key) {
+        if (key == null)
+            return null;
+        
+        int hash = key.hashCode();
+        Node node = root;
+        for (int depth = 0; node != null; depth++) {
+            if (depth == MAX_DEPTH) {
+                for (Object slot : node.slots) {
+                    if (key.equals(((Map.Entry<K, V>)slot).getKey()))
+                        return (Map.Entry<K, V>)slot;
+                }
+                return null;
+            }
+            
+            int bit = bit(hash, depth);
+            if ((node.bitmap & bit) == 0)
+                return null;
+            
+            Object slot = node.slots[index(node.bitmap, bit)];
+            if (slot instanceof Node) {
+                node = (Node)slot;
+                continue;
+            }
+            
+            Map.Entry<K, V> entry = (Map.Entry<K, V>)slot;
+            return key.equals(entry.getKey()) ? entry : null;
+        }
+        
+        return null;
+    }
+    
+    @Override
+    public V get(Object key) {
+        Map.Entry<K, V> entry = find(key);
+        return (entry != null) ? entry.getValue() : null;
+    }
+    
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != null;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Возвращает словарь, в котором ключу {@code key} соответствует значение {@code value}.
+     * @param key ключ.
+     * @param value значение.
+     * @return {@code PersistentHashMap} новый словарь;<br>
+     * этот словарь, если ключу уже соответствует то же значение.
+     */
+    PersistentHashMap<K, V> plus(K key, V value) {
+        Map.Entry<K, V> entry = new AbstractMap.SimpleImmutableEntry<>(key, value);
+        if (root == null)
+            return new PersistentHashMap<>(new Node(bit(key.hashCode(), 0), new Object[] { entry }), 1);
+        
+        int[] added = new int[1];
+        Node newRoot = plus(root, entry, key.hashCode(), 0, added);
+        return (newRoot == root) ? this : new PersistentHashMap<>(newRoot, size + added[0]);
+    }
+    
+    /**
+     * Возвращает копию узла {@code node} с парой {@code entry}.
+     * @param node узел.
+     * @param entry пара.
+     * @param hash хэш-код ключа пары.
+     * @param depth глубина узла.
+     * @param added {@code added[0]} становится {@code 1}, если ключ добавлен, а не заменён.
+     * @return {@code Node} новый узел;<br>
+     * {@code node}, если ключу уже соответствует то же значение.
+     */
+    private static Node plus(Node node, Map.Entry<?, ?> entry, int hash, int depth, int[] added) {
+        Object key = entry.getKey();
+        if (depth == MAX_DEPTH) {
+            for (int i = 0; i < node.slots.length; i++) {
+                Map.Entry<?, ?> old = (Map.Entry<?, ?>)node.slots[i];
+                if (key.equals(old.getKey()))
+                    return (old.getValue() == entry.getValue()) ? node : new Node(0, replace(node.slots, i, entry));
+            }
+            added[0] = 1;
+            return new Node(0, insert(node.slots, node.slots.length, entry));
+        }
+        
+        int bit = bit(hash, depth);
+        int i = index(node.bitmap, bit);
+        if ((node.bitmap & bit) == 0) {
+            added[0] = 1;
+            return new Node(node.bitmap | bit, insert(node.slots, i, entry));
+        }
+        
+        Object slot = node.slots[i];
+        if (slot instanceof Node) {
+            Node child = plus((Node)slot, entry, hash, depth + 1, added);
+            return (child == slot) ? node : new Node(node.bitmap, replace(node.slots, i, child));
+        }
+        
+        Map.Entry<?, ?> old = (Map.Entry<?, ?>)slot;
+        if (key.equals(old.getKey()))
+            return (old.getValue() == entry.getValue()) ? node : new Node(node.bitmap, replace(node.slots, i, entry));
+        
+        added[0] = 1;
+        Node child = merge(old, old.getKey().hashCode(), entry, hash, depth + 1);
+        return new Node(node.bitmap, replace(node.slots, i, child));
+    }
+    
+    /**
+     * Создаёт узел из двух пар с разными ключами.
+     * @param first первая пара.
+     * @param firstHash хэш-код ключа первой пары.
+     * @param second вторая пара.
+     * @param secondHash хэш-код ключа второй пары.
+     * @param depth глубина узла.
+     * @return {@code Node} новый узел.
+     */
+    private static Node merge(Object first, int firstHash, Object second, int secondHash, int depth) {
+        if (depth == MAX_DEPTH)
+            return new Node(0, new Object[] { first, second });
+        
+        int firstBit = bit(firstHash, depth);
+        int secondBit = bit(secondHash, depth);
+        if (firstBit == secondBit)
+            return new Node(firstBit, new Object[] { merge(first, firstHash, second, secondHash, depth + 1) });
+        
+        return new Node(firstBit | secondBit, (Integer.compareUnsigned(firstBit, secondBit) < 0)
+                ? new Object[] { first, second } : new Object[] { second, first });
+    }
+    
+    /**
+     * Возвращает словарь без ключа {@code key}.
+     * @param key ключ.
+     * @return {@code PersistentHashMap} новый словарь;<br>
+     * этот словарь, если ключа в нём нет.
+     */
+    PersistentHashMap<K, V> minus(Object key) {
+        if (root == null || key == null)
+            return this;
+        
+        Node newRoot = minus(root, key, key.hashCode(), 0);
+        if (newRoot == root)
+            return this;
+        
+        return (newRoot == null) ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+    }
+    
+    /**
+     * Возвращает копию узла {@code node} без ключа {@code key}. Дочерний узел,
+     * в котором осталась одна пара, заменяется этой парой.
+     * @param node узел.
+     * @param key ключ.
+     * @param hash хэш-код ключа.
+     * @param depth глубина узла.
+     * @return {@code Node} новый узел;<br>
+     * {@code node}, если ключа в узле нет;<br>
+     * {@code null}, если узел стал пустым.
+     */
+    private static Node minus(Node node, Object key, int hash, int depth) {
+        if (depth == MAX_DEPTH) {
+            for (int i = 0; i < node.slots.length; i++) {
+                if (key.equals(((Map.Entry<?, ?>)node.slots[i]).getKey()))
+                    return (node.slots.length == 1) ? null : new Node(0, remove(node.slots, i));
+            }
+            return node;
+        }
+        
+        int bit = bit(hash, depth);
+        if ((node.bitmap & bit) == 0)
+            return node;
+        
+        int i = index(node.bitmap, bit);
+        Object slot = node.slots[i];
+        if (slot instanceof Node) {
+            Node child = minus((Node)slot, key, hash, depth + 1);
+            if (child == slot)
+                return node;
+            if (child == null)
+                return (node.slots.length == 1) ? null : new Node(node.bitmap & ~bit, remove(node.slots, i));
+            if (child.slots.length == 1 && !(child.slots[0] instanceof Node))
+                return new Node(node.bitmap, replace(node.slots, i, child.slots[0]));
+            return new Node(node.bitmap, replace(node.slots, i, child));
+        }
+        
+        if (!key.equals(((Map.Entry<?, ?>)slot).getKey()))
+            return node;
+        
+        return (node.slots.length == 1) ? null : new Node(node.bitmap & ~bit, remove(node.slots, i));
+    }
+    
+    /**
+     * Копирует массив {@code slots}, заменяя элемент {@code i} на {@code value}.
+     */
+    private static Object[] replace(Object[] slots, int i, Object value) {
+        Object[] result = slots.clone();
+        result[i] = value;
+        return result;
+    }
+    
+    /**
+     * Копирует массив {@code slots}, вставляя {@code value} перед элементом {@code i}.
+     */
+    private static Object[] insert(Object[] slots, int i, Object value) {
+        Object[] result = new Object[slots.length + 1];
+        System.arraycopy(slots, 0, result, 0, i);
+        result[i] = value;
+        System.arraycopy(slots, i, result, i + 1, slots.length - i);
+        return result;
+    }
+    
+    /**
+     * Копирует массив {@code slots} без элемента {@code i}.
+     */
+    private static Object[] remove(Object[] slots, int i) {
+        Object[] result = new Object[slots.length - 1];
+        System.arraycopy(slots, 0, result, 0, i);
+        System.arraycopy(slots, i + 1, result, i, slots.length - i - 1);
+        return result;
+    }
+    
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<K, V>>() {
+                
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator() {
+                    return new EntryIterator();
+                }
+                
+                @Override
+                public int size() {
+                    return size;
+                }
+            
+            };
+        }
+        
+        return entrySet;
+    }
+    
+    /**
+     * Итератор пар словаря, обходящий дерево в глубину.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        
+        /** Ячейки узлов на пути от корня к текущей паре. */
+        private final Object[][] path = new Object[MAX_DEPTH + 1][];
+        
+        /** Номера следующих ячеек узлов пути. */
+        private final int[] positions = new int[MAX_DEPTH + 1];
+        
+        /** Глубина текущего узла; {@code -1} - обход завершён. */
+        private int depth;
+        
+        /** Следующая пара; {@code null} - пар не осталось. */
+        private Map.Entry<K, V> next;
+        
+        EntryIterator() {
+            if (root == null) {
+                depth = -1;
+                return;
+            }
+            
+            path[0] = root.slots;
+            advance();
+        }
+        
+        /**
+         * Находит следующую пару.
+         */
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                if (positions[depth] == path[depth].length) {
+                    depth--;
+                    continue;
+                }
+                
+                Object slot = path[depth][positions[depth]++];
+                if (slot instanceof Node) {
+                    depth++;
+                    path[depth] = ((Node)slot).slots;
+                    positions[depth] = 0;
+                } else {
+                    next = (Map.Entry<K, V>)slot;
+                    return;
+                }
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+        
+        @Override
+        public Map.Entry<K, V> next() {
+            if (next == null)
+                throw new NoSuchElementException();
+            
+            Map.Entry<K, V> result = next;
+            advance();
+            return result;
+        }
+    
+    }
+
+}
@@ -0,0 +1,155 @@
+package Dictionary;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Поиск переводов через языки-посредники. Переводы слова ищутся обходом графа переводов
+ * в ширину, ограниченным по глубине: обход начинается со слова, проходит только через слова
+ * на языках-посредниках и останавливается на словах на языке перевода. Каждое слово
+ * посещается один раз, поэтому обход затрагивает только окрестность слова, а не весь словарь.<p>
+ * Найденные переводы упорядочиваются по длине кратчайшего пути (прямые переводы первыми),
+ * затем по убыванию количества кратчайших путей и по тексту.
+ * @author yaros
+ */
+final class PivotSearch {
+    
+    /** Переводы по длине пути, затем по количеству путей (в обратном порядке) и по тексту. */
+    private static final Comparator<Candidate> RANK = Comparator
+            .comparingInt((Candidate c) -> c.depth)
+            .thenComparing(c -> c.paths, Comparator.reverseOrder())
+            .thenComparing(c -> c.word.getWord());
+    
+    /** Функция, возвращающая список переводов слова или {@code null}, если слова нет. */
+    private final Function<Word, Set<Word>> translations;
+    
+    /** Язык перевода (канонический экземпляр). */
+    private final Lang target;
+    
+    /** Допустимые языки-посредники (канонические экземпляры); {@code null} - любые. */
+    private final Set<Lang> pivots;
+    
+    /** Наибольшая длина пути. */
+    private final int maxDepth;
+    
+    /**
+     * Найденный перевод.
+     */
+    private static final class Candidate {
+        
+        /** Слово на языке перевода. */
+        final Word word;
+        
+        /** Длина кратчайшего пути до слова. */
+        final int depth;
+        
+        /** Количество кратчайших путей до слова. */
+        final long paths;
+        
+        Candidate(Word word, int depth, long paths) {
+            this.word = word;
+            this.depth = depth;
+            this.paths = paths;
+        }
+    
+    }
+    
+    /**
+     * Конструктор поиска.
+     * @param translations возвращает список переводов слова или {@code null}, если слова нет.
+     * @param target язык перевода.
+     * @param pivots допустимые языки-посредники; {@code null} - любые языки, кроме исходного и языка перевода.
+     * @param maxDepth наибольшая длина пути; {@code 1} - только прямые переводы.
+     */
+    PivotSearch(Function<Word, Set<Word>> translations, Lang target, Collection<Lang> pivots, int maxDepth) {
+        this.translations = translations;
+        this.target = target.intern();
+        if (pivots == null) {
+            this.pivots = null;
+        } else {
+            this.pivots = new HashSet<>();
+            for (Lang lang : pivots) {
+                this.pivots.add(lang.intern());
+            }
+        }
+        this.maxDepth = maxDepth;
+    }
+    
+    /**
+     * Находит переводы слова {@code word} на язык перевода.
+     * @param word слово.
+     * @return {@code LinkedHashSet} упорядоченный список переводов;<br>
+     * пустой список, если переводов нет или слова нет в словаре.
+     */
+    LinkedHashSet<Word> search(Word word) {
+        Set<Word> first = translations.apply(word);
+        if (first == null)
+            return new LinkedHashSet<>();
+        
+        Lang source = word.getLang();
+        HashSet<Word> visited = new HashSet<>();
+        visited.add(word);
+        ArrayList<Candidate> found = new ArrayList<>();
+        
+        HashMap<Word, Long> frontier = new HashMap<>();
+        frontier.put(word, 1L);
+        for (int depth = 1; depth <= maxDepth && !frontier.isEmpty(); depth++) {
+            HashMap<Word, Long> next = new HashMap<>();
+            for (Map.Entry<Word, Long> entry : frontier.entrySet()) {
+                Set<Word> wordTranslations = (depth == 1) ? first : translations.apply(entry.getKey());
+                if (wordTranslations == null)
+                    continue;
+                
+                for (Word tr : wordTranslations) {
+                    if (!visited.contains(tr))
+                        next.merge(tr, entry.getValue(), Long::sum);
+                }
+            }
+            
+            frontier = new HashMap<>();
+            for (Map.Entry<Word, Long> entry : next.entrySet()) {
+                Word w = entry.getKey();
+                visited.add(w);
+                Lang lang = w.getLang();
+                if (lang == target)
+                    found.add(new Candidate(w, depth, entry.getValue()));
+                else if (lang != source && (pivots == null || pivots.contains(lang)))
+                    frontier.put(w, entry.getValue());
+            }
+        }
+        
+        found.sort(RANK);
+        LinkedHashSet<Word> result = new LinkedHashSet<>();
+        for (Candidate c : found) {
+            result.add(c.word);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Строит таблицу словаря со словами из {@code sourceWords} и упорядоченными списками
+     * их переводов на язык перевода. Слова без переводов в таблицу не попадают.
+     * @param sourceWords слова на исходном языке.
+     * @return {@code DictionaryTable} таблицу словаря переводов.
+     */
+    DictionaryTable build(Iterable<Word> sourceWords) {
+        HashMap<Word, Set<Word>> result = new HashMap<>();
+        for (Word w : sourceWords) {
+            LinkedHashSet<Word> wTranslations = search(w);
+            if (!wTranslations.isEmpty())
+                result.put(w, Collections.unmodifiableSet(wTranslations));
+        }
+        
+        return new DictionaryTable(result);
+    }
+
+}
@@ -0,0 +1,156 @@
+package Dictionary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Индекс слов словаря по префиксам для автодополнения. Для каждого языка хранит
+ * слова, упорядоченные по тексту ({@link String#compareTo}), поэтому поиск
+ * {@link PrefixIndex#completions} находит первое слово с префиксом за логарифмическое
+ * время и перебирает только возвращаемые слова.<p>
+ * Индекс подключается к словарю как {@link DictionaryListener} и обновляется при его
+ * изменениях. Индекс потокобезопасен и может использоваться с {@link ConcurrentDictionary}.
+ * @author yaros
+ */
+public class PrefixIndex implements DictionaryListener {
+    
+    /** Словарь, слова которого индексируются. */
+    private final Dictionary dictionary;
+    
+    /** Ключи-языки и упорядоченные по тексту канонические экземпляры слов на этих языках. */
+    private final Map<Lang, ConcurrentSkipListMap<String, Word>> index = new ConcurrentHashMap<>();
+    
+    /**
+     * Конструктор индекса. Используется {@link PrefixIndex#attach}.
+     * @param dictionary словарь.
+     */
+    private PrefixIndex(Dictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+    
+    /**
+     * Строит индекс по словам словаря {@code dictionary} и подключает его к словарю.
+     * Словарь не должен изменяться во время построения индекса.
+     * @param dictionary словарь.
+     * @return индекс, обновляемый при изменениях словаря.
+     */
+    public static PrefixIndex attach(Dictionary dictionary) {
+        PrefixIndex result = new PrefixIndex(dictionary);
+        for (Lang lang : dictionary.getLangs().getLangSet()) {
+            for (Word w : dictionary.getWordsByLang(lang)) {
+                result.wordAdded(w);
+            }
+        }
+        
+        dictionary.addListener(result);
+        return result;
+    }
+    
+    /**
+     * Отключает индекс от словаря. После отключения индекс больше не обновляется.
+     */
+    public void detach() {
+        dictionary.removeListener(this);
+    }
+    
+    /**
+     * Возвращает не более {@code limit} первых по тексту слов на языке {@code lang},
+     * начинающихся с {@code prefix}.
+     * @param lang язык.
+     * @param prefix префикс; пустая строка соответствует всем словам языка.
+     * @param limit наибольшее количество слов.
+     * @return {@code List} упорядоченный по тексту список канонических экземпляров слов;<br>
+     * пустой список, если слов нет, {@code lang} или {@code prefix} равен {@code null} или {@code limit} меньше 1.
+     */
+    public List<Word> completions(Lang lang, String prefix, int limit) {
+        if (lang == null || prefix == null || limit < 1)
+            return Collections.emptyList();
+        
+        ConcurrentSkipListMap<String, Word> langWords = index.get(lang);
+        if (langWords == null)
+            return Collections.emptyList();
+        
+        List<Word> result = new ArrayList<>(Math.min(limit, 16));
+        for (Map.Entry<String, Word> entry : langWords.tailMap(prefix).entrySet()) {
+            if (!entry.getKey().startsWith(prefix) || result.size() == limit)
+                break;
+            result.add(entry.getValue());
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Возвращает страницу слов на языке {@code lang} в порядке текста, следующих за маркером {@code token}.
+     * Время запроса страницы не зависит от её номера: поиск продолжения логарифмический.
+     * @param lang язык.
+     * @param token маркер продолжения предыдущей страницы; {@code null} - первая страница.
+     * @param size размер страницы.
+     * @return {@code Page} страница канонических экземпляров слов;<br>
+     * пустая последняя страница, если слов нет, {@code lang} равен {@code null} или {@code size} меньше 1.
+     */
+    public Page<Word> page(Lang lang, String token, int size) {
+        return Page.words(iterator(lang, token, size), size);
+    }
+    
+    /**
+     * Возвращает страницу таблицы словаря переводов с языка {@code langFirst} на язык {@code langSec}:
+     * слова, следующие за маркером {@code token} в порядке текста, и их переводы, см. {@link Page#rows}.
+     * @param langFirst исходный язык.
+     * @param langSec язык перевода.
+     * @param token маркер продолжения предыдущей страницы; {@code null} - первая страница.
+     * @param size размер страницы.
+     * @return {@code Page} страница строк таблицы словаря;<br>
+     * пустая последняя страница, если строк нет, язык равен {@code null} или {@code size} меньше 1.
+     */
+    public Page<Map.Entry<Word, Set<Word>>> tablePage(Lang langFirst, Lang langSec, String token, int size) {
+        if (langSec == null)
+            size = 0;
+        
+        return Page.rows(iterator(langFirst, token, size), dictionary::getTranslations, langSec, size);
+    }
+    
+    /**
+     * Возвращает итератор слов на языке {@code lang}, следующих за словом с текстом {@code token}.
+     * @param lang язык.
+     * @param token текст слова; {@code null} - с первого слова.
+     * @param size размер страницы; если он меньше 1, возвращается пустой итератор.
+     * @return {@code Iterator} слов в порядке текста.
+     */
+    private Iterator<Word> iterator(Lang lang, String token, int size) {
+        ConcurrentSkipListMap<String, Word> langWords = (lang == null || size < 1) ? null : index.get(lang);
+        if (langWords == null)
+            return Collections.emptyIterator();
+        
+        if (token == null)
+            return langWords.values().iterator();
+        
+        return langWords.tailMap(token, false).values().iterator();
+    }
+    
+    @Override
+    public void langRemoved(Lang lang) {
+        index.remove(lang);
+    }
+    
+    @Override
+    public void wordAdded(Word word) {
+        Word canonical = word.intern();
+        index.computeIfAbsent(canonical.getLang(), l -> new ConcurrentSkipListMap<>())
+                .put(canonical.getWord(), canonical);
+    }
+    
+    @Override
+    public void wordRemoved(Word word) {
+        ConcurrentSkipListMap<String, Word> langWords = index.get(word.getLang());
+        if (langWords != null)
+            langWords.remove(word.getWord());
+    }
+
+}
@@ -0,0 +1,311 @@
+package Dictionary;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Часть словаря в другом процессе, обслуживаемая {@link ShardServer}. Каждый вызов метода
+ * части - один запрос по соединению; вызовы из нескольких потоков выполняются по очереди.
+ * Ошибка соединения выбрасывается как {@link UncheckedIOException}. Ответ, не полученный
+ * за время ожидания ({@link RemoteShard#DEFAULT_TIMEOUT_MILLIS}), также считается ошибкой.
+ * После ошибки посреди запроса поток ответов рассогласован с запросами, поэтому соединение
+ * закрывается, а все следующие вызовы сразу выбрасывают {@link UncheckedIOException}.
+ * @author yaros
+ */
+public class RemoteShard implements DictionaryShard, Closeable {
+    
+    /** Время ожидания подключения и ответа по умолчанию, мс. */
+    public static final int DEFAULT_TIMEOUT_MILLIS = 30000;
+    
+    /** Соединение с сервером части. */
+    private final Socket socket;
+    
+    /** Поток запросов. */
+    private final DataOutputStream out;
+    
+    /** Поток ответов. */
+    private final DataInputStream in;
+    
+    /** Известные языки части по коду. */
+    private final HashMap<String, Lang> langs = new HashMap<>();
+    
+    /** Показывает, закрыто ли соединение после ошибки или вызова {@link RemoteShard#close}. */
+    private volatile boolean broken = false;
+    
+    /**
+     * Конструктор части, подключающийся к серверу {@code host}:{@code port}
+     * со временем ожидания {@link RemoteShard#DEFAULT_TIMEOUT_MILLIS}.
+     * @param host адрес сервера.
+     * @param port номер порта сервера.
+     * @throws IOException если подключиться не удалось.
+     */
+    public RemoteShard(String host, int port) throws IOException {
+        this(host, port, DEFAULT_TIMEOUT_MILLIS);
+    }
+    
+    /**
+     * Конструктор части, подключающийся к серверу {@code host}:{@code port}.
+     * @param host адрес сервера.
+     * @param port номер порта сервера.
+     * @param timeoutMillis время ожидания подключения и каждого ответа, мс; {@code 0} - без ограничения.
+     * @throws IOException если подключиться не удалось.
+     */
+    public RemoteShard(String host, int port, int timeoutMillis) throws IOException {
+        socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            socket.setTcpNoDelay(true);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    }
+    
+    @Override
+    public synchronized boolean addLang(Lang lang) {
+        if (lang == null)
+            return false;
+        
+        try {
+            ensureOpen();
+            out.writeByte(ShardServer.ADD_LANG);
+            out.writeUTF(lang.getCode());
+            out.writeUTF(lang.getTitle());
+            out.flush();
+            return in.readBoolean();
+        } catch (IOException e) {
+            throw fail(e);
+        }
+    }
+    
+    @Override
+    public synchronized boolean removeLang(Lang lang) {
+        if (lang == null)
+            return false;
+        
+        try {
+            ensureOpen();
+            out.writeByte(ShardServer.REMOVE_LANG);
+            out.writeUTF(lang.getCode());
+            out.flush();
+            return in.readBoolean();
+        } catch (IOException e) {
+            throw fail(e);
+        }
+    }
+    
+    @Override
+    public synchronized boolean addWord(Word word) {
+        return request(ShardServer.ADD_WORD, word);
+    }
+    
+    @Override
+    public synchronized boolean removeWord(Word word) {
+        return request(ShardServer.REMOVE_WORD, word);
+    }
+    
+    @Override
+    public synchronized boolean addTranslation(Word word, Word translationWord) {
+        if (translationWord == null)
+            return false;
+        
+        return request(ShardServer.ADD_TRANSLATION, word, translationWord);
+    }
+    
+    /**
+     * Выполняет запрос типа {@code type} со словами {@code words} и ответом {@code boolean}.
+     * @param type тип запроса.
+     * @param words слова запроса.
+     * @return ответ сервера;<br>
+     * {@code false}, если одно из слов равно {@code null}.
+     */
+    private boolean request(byte type, Word... words) {
+        for (Word w : words) {
+            if (w == null)
+                return false;
+        }
+        
+        try {
+            ensureOpen();
+            out.writeByte(type);
+            for (Word w : words) {
+                ShardServer.writeWord(out, w);
+            }
+            out.flush();
+            return in.readBoolean();
+        } catch (IOException e) {
+            throw fail(e);
+        }
+    }
+    
+    @Override
+    public synchronized Set<Word> buildTranslationsSet(Word word) {
+        if (word == null)
+            return null;
+        
+        ArrayList<String> texts = new ArrayList<>();
+        ArrayList<String> codes = new ArrayList<>();
+        try {
+            ensureOpen();
+            out.writeByte(ShardServer.TRANSLATIONS);
+            ShardServer.writeWord(out, word);
+            out.flush();
+            
+            int count = in.readInt();
+            if (count < 0)
+                return null;
+            
+            for (int i = 0; i < count; i++) {
+                texts.add(in.readUTF());
+                codes.add(in.readUTF());
+            }
+        } catch (IOException e) {
+            throw fail(e);
+        }
+        
+        HashSet<Word> result = new HashSet<>();
+        for (int i = 0; i < texts.size(); i++) {
+            Lang lang = langOf(codes.get(i));
+            if (lang != null)
+                result.add(new Word(texts.get(i), lang));
+        }
+        return result;
+    }
+    
+    @Override
+    public synchronized DictionaryTable buildDictionary(Lang langFirst, Lang langSec) {
+        if (langFirst == null || langSec == null)
+            return null;
+        
+        try {
+            ensureOpen();
+            out.writeByte(ShardServer.BUILD_DICTIONARY);
+            out.writeUTF(langFirst.getCode());
+            out.writeUTF(langSec.getCode());
+            out.flush();
+            
+            int size = in.readInt();
+            if (size < 0)
+                return null;
+            
+            HashMap<Word, Set<Word>> result = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                Word word = new Word(in.readUTF(), langFirst);
+                int count = in.readInt();
+                HashSet<Word> translations = new HashSet<>(count * 2);
+                for (int j = 0; j < count; j++) {
+                    translations.add(new Word(in.readUTF(), langSec));
+                }
+                result.put(word, Collections.unmodifiableSet(translations));
+            }
+            return new DictionaryTable(result);
+        } catch (IOException e) {
+            throw fail(e);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     * @return {@code LangSet} список языков;<br>
+     * {@code null}, если в части нет языков.
+     */
+    @Override
+    public synchronized LangSet getLangs() {
+        LangSet result = null;
+        try {
+            ensureOpen();
+            out.writeByte(ShardServer.GET_LANGS);
+            out.flush();
+            
+            int count = in.readInt();
+            langs.clear();
+            for (int i = 0; i < count; i++) {
+                Lang lang = new Lang(in.readUTF(), in.readUTF());
+                langs.put(lang.getCode(), lang);
+                if (result == null)
+                    result = new LangSet(lang);
+                else
+                    result.addLang(lang);
+            }
+        } catch (IOException e) {
+            throw fail(e);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Возвращает язык части с кодом {@code code}, при необходимости обновляя список известных языков.
+     * @param code код языка.
+     * @return {@code Lang} язык;<br>
+     * {@code null}, если языка нет в части.
+     */
+    private Lang langOf(String code) {
+        Lang result = langs.get(code);
+        if (result == null) {
+            getLangs();
+            result = langs.get(code);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Показывает, закрыто ли соединение.
+     * @return {@code true}, если соединение закрыто после ошибки или вызова {@link RemoteShard#close};<br>
+     * {@code false} в ином случае.
+     */
+    public boolean isBroken() {
+        return broken;
+    }
+    
+    /**
+     * Проверяет, что соединение не закрыто.
+     * @throws IOException если соединение закрыто.
+     */
+    private void ensureOpen() throws IOException {
+        if (broken)
+            throw new IOException("Shard connection is closed");
+    }
+    
+    /**
+     * Закрывает соединение после ошибки {@code e} посреди запроса.
+     * @param e ошибка.
+     * @return {@code UncheckedIOException} исключение для выбрасывания.
+     */
+    private UncheckedIOException fail(IOException e) {
+        broken = true;
+        try {
+            socket.close();
+        } catch (IOException closeError) {
+            e.addSuppressed(closeError);
+        }
+        return new UncheckedIOException(e);
+    }
+    
+    /**
+     * Закрывает соединение с сервером.
+     * @throws IOException при ошибке закрытия соединения.
+     */
+    @Override
+    public void close() throws IOException {
+        broken = true;
+        socket.close();
+    }
+
+}
@@ -0,0 +1,263 @@
+package Dictionary;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Сервер части словаря ({@link DictionaryShard}) для {@link RemoteShard}. Сервер принимает
+ * соединения только на петлевом адресе и не проверяет подлинность клиентов; каждое соединение
+ * обслуживается отдельным потоком, запросы соединения выполняются по порядку.<p>
+ * Запрос состоит из байта типа и полей, ответ - из значения, возвращённого частью.
+ * Строки записываются {@link DataOutputStream#writeUTF}, слово - текстом и кодом языка,
+ * список слов и таблица - количеством элементов ({@code -1} - {@code null}) и элементами.<p>
+ * Метод {@link ShardServer#main} запускает часть в отдельном процессе:
+ * {@code java Dictionary.ShardServer <порт> <код языка> <название языка>}.
+ * @author yaros
+ */
+public class ShardServer implements Closeable {
+    
+    /** Тип запроса: добавление языка (код, название) - {@code boolean}. */
+    static final byte ADD_LANG = 1;
+    
+    /** Тип запроса: удаление языка (код) - {@code boolean}. */
+    static final byte REMOVE_LANG = 2;
+    
+    /** Тип запроса: добавление слова (слово) - {@code boolean}. */
+    static final byte ADD_WORD = 3;
+    
+    /** Тип запроса: удаление слова (слово) - {@code boolean}. */
+    static final byte REMOVE_WORD = 4;
+    
+    /** Тип запроса: добавление перевода (слово, перевод) - {@code boolean}. */
+    static final byte ADD_TRANSLATION = 5;
+    
+    /** Тип запроса: список переводов (слово) - список слов. */
+    static final byte TRANSLATIONS = 6;
+    
+    /** Тип запроса: таблица словаря (код исходного языка, код языка перевода) - таблица. */
+    static final byte BUILD_DICTIONARY = 7;
+    
+    /** Тип запроса: список языков - количество и пары из кода и названия. */
+    static final byte GET_LANGS = 8;
+    
+    /** Обслуживаемая часть словаря. */
+    private final DictionaryShard shard;
+    
+    /** Сокет сервера. */
+    private final ServerSocket serverSocket;
+    
+    /** Поток, принимающий соединения. */
+    private final Thread acceptThread;
+    
+    /** Открытые соединения. */
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Конструктор сервера, обслуживающего часть {@code shard} на петлевом адресе.
+     * Часть должна быть потокобезопасной, если к серверу подключаются несколько клиентов.
+     * @param shard часть словаря.
+     * @param port номер порта; {@code 0} - любой свободный порт.
+     * @throws IOException если порт не удалось открыть.
+     */
+    public ShardServer(DictionaryShard shard, int port) throws IOException {
+        this.shard = shard;
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        acceptThread = new Thread(this::acceptConnections, "shard-server-" + getPort());
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+    
+    /**
+     * Возвращает номер порта сервера.
+     * @return номер порта.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+    
+    /**
+     * Принимает соединения до закрытия сервера.
+     */
+    private void acceptConnections() {
+        while (true) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                return;
+            }
+            
+            connections.add(socket);
+            Thread thread = new Thread(() -> serve(socket), "shard-connection-" + socket.getPort());
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+    
+    /**
+     * Выполняет запросы соединения {@code socket} до его закрытия.
+     * @param socket соединение.
+     */
+    private void serve(Socket socket) {
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            while (true) {
+                byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                
+                execute(type, in, out);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Соединение закрыто клиентом или сервером
+        } finally {
+            connections.remove(socket);
+        }
+    }
+    
+    /**
+     * Выполняет запрос типа {@code type} и записывает ответ.
+     * @param type тип запроса.
+     * @param in поток запросов.
+     * @param out поток ответов.
+     * @throws IOException при ошибке чтения или записи или неизвестном типе запроса.
+     */
+    private void execute(byte type, DataInputStream in, DataOutputStream out) throws IOException {
+        Function<String, Lang> langs = code -> shard.getLangs().getLangByCode(code);
+        switch (type) {
+            case ADD_LANG:
+                out.writeBoolean(shard.addLang(new Lang(in.readUTF(), in.readUTF())));
+                break;
+            case REMOVE_LANG:
+                out.writeBoolean(shard.removeLang(langs.apply(in.readUTF())));
+                break;
+            case ADD_WORD:
+                out.writeBoolean(shard.addWord(readWord(in, langs)));
+                break;
+            case REMOVE_WORD:
+                out.writeBoolean(shard.removeWord(readWord(in, langs)));
+                break;
+            case ADD_TRANSLATION: {
+                Word word = readWord(in, langs);
+                Word translationWord = readWord(in, langs);
+                out.writeBoolean(shard.addTranslation(word, translationWord));
+                break;
+            }
+            case TRANSLATIONS: {
+                Set<Word> translations = shard.buildTranslationsSet(readWord(in, langs));
+                out.writeInt((translations != null) ? translations.size() : -1);
+                if (translations != null) {
+                    for (Word w : translations) {
+                        writeWord(out, w);
+                    }
+                }
+                break;
+            }
+            case BUILD_DICTIONARY: {
+                Lang langFirst = langs.apply(in.readUTF());
+                Lang langSec = langs.apply(in.readUTF());
+                DictionaryTable table = shard.buildDictionary(langFirst, langSec);
+                out.writeInt((table != null) ? table.size() : -1);
+                if (table != null) {
+                    for (Word w : table.words()) {
+                        Set<Word> translations = table.translations(w);
+                        out.writeUTF(w.getWord());
+                        out.writeInt(translations.size());
+                        for (Word tr : translations) {
+                            out.writeUTF(tr.getWord());
+                        }
+                    }
+                }
+                break;
+            }
+            case GET_LANGS: {
+                Set<Lang> langSet = shard.getLangs().getLangSet();
+                out.writeInt(langSet.size());
+                for (Lang lang : langSet) {
+                    out.writeUTF(lang.getCode());
+                    out.writeUTF(lang.getTitle());
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown shard request " + type);
+        }
+    }
+    
+    /**
+     * Записывает слово {@code word} текстом и кодом языка.
+     * @param out поток.
+     * @param word слово.
+     * @throws IOException при ошибке записи.
+     */
+    static void writeWord(DataOutputStream out, Word word) throws IOException {
+        out.writeUTF(word.getWord());
+        out.writeUTF(word.getLang().getCode());
+    }
+    
+    /**
+     * Читает слово, записанное {@link ShardServer#writeWord}.
+     * @param in поток.
+     * @param langs возвращает язык по коду или {@code null}, если языка нет.
+     * @return {@code Word} слово;<br>
+     * {@code null}, если языка слова нет.
+     * @throws IOException при ошибке чтения.
+     */
+    static Word readWord(DataInputStream in, Function<String, Lang> langs) throws IOException {
+        String text = in.readUTF();
+        Lang lang = langs.apply(in.readUTF());
+        return (lang != null) ? new Word(text, lang) : null;
+    }
+    
+    /**
+     * Закрывает сервер и все его соединения.
+     * @throws IOException при ошибке закрытия сокета сервера.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Соединение уже закрыто
+            }
+        }
+    }
+    
+    /**
+     * Запускает сервер потокобезопасной части словаря ({@link ConcurrentDictionary}) с одним языком.
+     * Сервер работает до завершения процесса.
+     * @param args номер порта, код и название первого языка части.
+     * @throws IOException если порт не удалось открыть.
+     * @throws InterruptedException если поток прерван.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.err.println("Usage: java Dictionary.ShardServer <port> <lang code> <lang title>");
+            return;
+        }
+        
+        ShardServer server = new ShardServer(new ConcurrentDictionary(new Lang(args[1], args[2])), Integer.parseInt(args[0]));
+        System.out.println("Shard listening on " + server.getPort());
+        server.acceptThread.join();
+    }
+
+}
@@ -0,0 +1,346 @@
+package Dictionary;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Словарь, распределённый по языкам между несколькими частями ({@link DictionaryShard}).
+ * Каждый язык закреплён за одной частью, которая хранит все слова этого языка вместе с их
+ * переводами, поэтому таблица словаря ({@link ShardedDictionary#buildDictionary}) и список
+ * переводов слова строятся одной частью без обращения к другим.<p>
+ * Список языков всех частей одинаков. Перевод между словами языков разных частей хранится
+ * в обеих частях: каждая часть хранит своё слово и копию слова-перевода другой части только
+ * со связывающими их переводами. Такие копии никогда не читаются как слова своего языка.<p>
+ * Части могут находиться в том же процессе ({@link ConcurrentDictionary}, {@link SnapshotDictionary})
+ * или в других процессах ({@link RemoteShard}). Изменения через маршрутизатор выполняются
+ * по одному, а чтение выполняется без блокировок маршрутизатора одновременно с изменениями,
+ * поэтому части должны быть потокобезопасными: {@link Dictionary} без синхронизации
+ * частью быть не может. Части не должны изменяться в обход маршрутизатора.
+ * @author yaros
+ */
+public class ShardedDictionary implements DictionaryShard {
+    
+    /** Части словаря. */
+    private final List<DictionaryShard> shards;
+    
+    /** Список языков словаря. */
+    private final LangSet langSet;
+    
+    /** Номера частей, за которыми закреплены языки, по коду языка. */
+    private final ConcurrentHashMap<String, Integer> owners = new ConcurrentHashMap<>();
+    
+    /**
+     * Конструктор словаря из частей {@code shards}. Языки, уже содержащиеся в частях, закрепляются
+     * за первой из частей, содержащих язык, и добавляются во все остальные части.
+     * @param shards потокобезопасные части словаря; хотя бы одна часть должна содержать хотя бы один язык.
+     * @throws IllegalArgumentException если частей нет, часть равна {@code null} или является
+     * {@link Dictionary} без синхронизации, или ни одна часть не содержит языков.
+     */
+    public ShardedDictionary(List<? extends DictionaryShard> shards) {
+        if (shards == null || shards.isEmpty())
+            throw new IllegalArgumentException("No dictionary shards");
+        for (DictionaryShard shard : shards) {
+            if (!isThreadSafe(shard))
+                throw new IllegalArgumentException("Dictionary shard is not thread-safe: " + shard);
+        }
+        
+        this.shards = new ArrayList<>(shards);
+        
+        LangSet langs = null;
+        for (int i = 0; i < this.shards.size(); i++) {
+            LangSet shardLangs = this.shards.get(i).getLangs();
+            if (shardLangs == null)
+                continue;
+            
+            for (Lang lang : shardLangs.getLangSet()) {
+                if (owners.putIfAbsent(lang.getCode(), i) != null)
+                    continue;
+                
+                if (langs == null)
+                    langs = new LangSet(lang);
+                else
+                    langs.addLang(lang);
+                
+                for (int j = 0; j < this.shards.size(); j++) {
+                    if (j != i)
+                        this.shards.get(j).addLang(lang);
+                }
+            }
+        }
+        
+        if (langs == null)
+            throw new IllegalArgumentException("Dictionary shards have no languages");
+        langSet = langs;
+    }
+    
+    /**
+     * Показывает, может ли {@code shard} читаться одновременно с изменениями. Из словарей
+     * процесса такими являются {@link ConcurrentDictionary} и {@link SnapshotDictionary};
+     * другие реализации {@link DictionaryShard} (например, {@link RemoteShard}) отвечают
+     * за потокобезопасность сами.
+     * @param shard часть словаря.
+     * @return {@code true}, если часть потокобезопасна;<br>
+     * {@code false}, если она равна {@code null} или является {@link Dictionary} без синхронизации.
+     */
+    private static boolean isThreadSafe(DictionaryShard shard) {
+        if (shard instanceof Dictionary)
+            return shard instanceof ConcurrentDictionary || shard instanceof SnapshotDictionary;
+        
+        return shard != null;
+    }
+    
+    /**
+     * Возвращает количество частей словаря.
+     * @return количество частей.
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+    
+    /**
+     * Возвращает номер части, за которой закреплён язык {@code lang}.
+     * @param lang язык.
+     * @return номер части;<br>
+     * {@code -1}, если языка {@code lang} нет в словаре.
+     */
+    public int shardOf(Lang lang) {
+        if (lang == null || !langSet.contains(lang))
+            return -1;
+        
+        Integer result = owners.get(lang.getCode());
+        return (result != null) ? result : -1;
+    }
+    
+    /**
+     * Добавляет язык {@code lang} и закрепляет его за частью с наименьшим количеством языков.
+     * @param lang язык.
+     * @return {@code true}, если язык добавлен;<br>
+     * {@code false} в ином случае.
+     */
+    @Override
+    public synchronized boolean addLang(Lang lang) {
+        int[] counts = new int[shards.size()];
+        for (int owner : owners.values()) {
+            counts[owner]++;
+        }
+        
+        int shard = 0;
+        for (int i = 1; i < counts.length; i++) {
+            if (counts[i] < counts[shard])
+                shard = i;
+        }
+        
+        return addLang(lang, shard);
+    }
+    
+    /**
+     * Добавляет язык {@code lang} и закрепляет его за частью с номером {@code shard}.
+     * @param lang язык.
+     * @param shard номер части.
+     * @return {@code true}, если язык добавлен;<br>
+     * {@code false} в ином случае.
+     */
+    public synchronized boolean addLang(Lang lang, int shard) {
+        if (lang == null || shard < 0 || shard >= shards.size() || !langSet.addLang(lang))
+            return false;
+        
+        if (!shards.get(shard).addLang(lang)) {
+            langSet.removeLang(lang);
+            return false;
+        }
+        
+        for (int i = 0; i < shards.size(); i++) {
+            if (i != shard)
+                shards.get(i).addLang(lang);
+        }
+        owners.put(lang.getCode(), shard);
+        return true;
+    }
+    
+    /**
+     * Удаляет язык {@code lang} из всех частей вместе со словами на этом языке и их копиями.
+     * Копии слов других языков, переводы которых были только на язык {@code lang}, остаются
+     * в части языка {@code lang} до удаления их языка.
+     * @param lang язык.
+     * @return {@code true}, если язык удалён;<br>
+     * {@code false} в ином случае.
+     */
+    @Override
+    public synchronized boolean removeLang(Lang lang) {
+        int owner = shardOf(lang);
+        if (owner < 0)
+            return false;
+        
+        owners.remove(lang.getCode());
+        langSet.removeLang(lang);
+        
+        boolean result = shards.get(owner).removeLang(lang);
+        for (int i = 0; i < shards.size(); i++) {
+            if (i != owner)
+                shards.get(i).removeLang(lang);
+        }
+        return result;
+    }
+    
+    /**
+     * Добавляет слово {@code word} в часть его языка.
+     * @param word слово.
+     * @return {@code true}, если слово добавлено;<br>
+     * {@code false} в ином случае.
+     */
+    @Override
+    public synchronized boolean addWord(Word word) {
+        int owner = shardOf((word == null) ? null : word.getLang());
+        if (owner < 0)
+            return false;
+        
+        return shards.get(owner).addWord(word);
+    }
+    
+    /**
+     * Удаляет слово {@code word} из части его языка и его копии из частей языков его переводов.
+     * Копии слов-переводов, у которых не осталось переводов, удаляются из части языка {@code word}.
+     * @param word слово.
+     * @return {@code true}, если слово удалено;<br>
+     * {@code false} в ином случае.
+     */
+    @Override
+    public synchronized boolean removeWord(Word word) {
+        int owner = shardOf((word == null) ? null : word.getLang());
+        if (owner < 0)
+            return false;
+        
+        DictionaryShard shard = shards.get(owner);
+        Set<Word> translations = shard.buildTranslationsSet(word);
+        if (translations == null || !shard.removeWord(word))
+            return false;
+        
+        BitSet copies = new BitSet(shards.size());
+        for (Word w : translations) {
+            int translationOwner = shardOf(w.getLang());
+            if (translationOwner < 0 || translationOwner == owner)
+                continue;
+            
+            copies.set(translationOwner);
+            Set<Word> rest = shard.buildTranslationsSet(w);
+            if (rest != null && rest.isEmpty())
+                shard.removeWord(w);
+        }
+        
+        for (int i = copies.nextSetBit(0); i >= 0; i = copies.nextSetBit(i + 1)) {
+            shards.get(i).removeWord(word);
+        }
+        return true;
+    }
+    
+    /**
+     * Добавляет перевод {@code translationWord} к слову {@code word}. Если языки слов закреплены
+     * за разными частями, перевод добавляется в обе части: сначала в часть слова {@code word},
+     * затем в часть слова {@code translationWord}. Если вторая часть не добавила перевод или
+     * выбросила исключение, перевод удаляется из первой части, поэтому части не расходятся.
+     * Слово {@code translationWord}, добавленное во вторую часть перед исключением, остаётся в ней.
+     * @param word переводимое слово.
+     * @param translationWord перевод.
+     * @return {@code true}, если перевод добавлен;<br>
+     * {@code false} в ином случае.
+     */
+    @Override
+    public synchronized boolean addTranslation(Word word, Word translationWord) {
+        if (word == null || translationWord == null)
+            return false;
+        
+        int first = shardOf(word.getLang());
+        int second = shardOf(translationWord.getLang());
+        if (first < 0 || second < 0)
+            return false;
+        
+        DictionaryShard firstShard = shards.get(first);
+        if (!firstShard.addTranslation(word, translationWord))
+            return false;
+        if (second == first)
+            return true;
+        
+        DictionaryShard secondShard = shards.get(second);
+        try {
+            boolean added = secondShard.addWord(translationWord);
+            if (secondShard.addTranslation(translationWord, word))
+                return true;
+            
+            if (added)
+                secondShard.removeWord(translationWord);
+        } catch (RuntimeException e) {
+            try {
+                removeCopyTranslation(firstShard, word, translationWord);
+            } catch (RuntimeException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw e;
+        }
+        
+        removeCopyTranslation(firstShard, word, translationWord);
+        return false;
+    }
+    
+    /**
+     * Удаляет из части {@code shard} перевод между словом {@code word} и копией {@code copy}
+     * слова другой части. Часть не умеет удалять отдельный перевод, поэтому копия удаляется
+     * и добавляется заново с остальными переводами.
+     * @param shard часть словаря.
+     * @param word слово части.
+     * @param copy копия слова другой части.
+     */
+    private static void removeCopyTranslation(DictionaryShard shard, Word word, Word copy) {
+        Set<Word> rest = shard.buildTranslationsSet(copy);
+        if (rest == null || !shard.removeWord(copy))
+            return;
+        
+        for (Word w : rest) {
+            if (!w.equals(word))
+                shard.addTranslation(w, copy);
+        }
+    }
+    
+    /**
+     * Создаёт и возвращает список переводов слова {@code word} по части его языка.
+     * @param word слово.
+     * @return {@code Set} список переводов;<br>
+     * {@code null}, если слова {@code word} нет в словаре.
+     */
+    @Override
+    public Set<Word> buildTranslationsSet(Word word) {
+        int owner = shardOf((word == null) ? null : word.getLang());
+        if (owner < 0)
+            return null;
+        
+        return shards.get(owner).buildTranslationsSet(word);
+    }
+    
+    /**
+     * Строит {@link DictionaryTable} таблицу словаря частью исходного языка.
+     * @param langFirst исходный язык.
+     * @param langSec язык перевода.
+     * @return {@code DictionaryTable} таблицу словаря переводов;<br>
+     * {@code null}, если языка нет в словаре.
+     */
+    @Override
+    public DictionaryTable buildDictionary(Lang langFirst, Lang langSec) {
+        int owner = shardOf(langFirst);
+        if (owner < 0 || shardOf(langSec) < 0)
+            return null;
+        
+        return shards.get(owner).buildDictionary(langFirst, langSec);
+    }
+    
+    /**
+     * Возвращает копию списка языков словаря.
+     * @return {@code LangSet} список языков словаря.
+     */
+    @Override
+    public LangSet getLangs() {
+        return langSet.clone();
+    }
+
+}
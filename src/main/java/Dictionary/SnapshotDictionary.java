@@ -0,0 +1,505 @@
+package Dictionary;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Словарь с изоляцией чтения по снимкам. Изменения выполняются по одному под
+ * блокировкой словаря и по завершении публикуются как новый неизменяемый
+ * {@link DictionarySnapshot}. Чтение ({@link SnapshotDictionary#snapshot},
+ * {@link SnapshotDictionary#buildDictionary}, {@link SnapshotDictionary#biuldWordsSetByLang})
+ * не захватывает блокировок и всегда видит либо все результаты изменения, либо ни одного.<p>
+ * Данные снимков хранятся в {@link PersistentHashMap}: новая версия копирует только
+ * изменённые слова, их списки переводов и путь к ним в дереве, а остальное разделяет
+ * с предыдущей версией, поэтому стоимость изменения не зависит от размера словаря. Для
+ * массовых изменений следует использовать {@link SnapshotDictionary#edit}, который
+ * публикует одну версию на весь набор изменений, или пакет изменений {@link DictionaryBatch},
+ * который, кроме того, публикуется только целиком.<p>
+ * Получатели уведомлений ({@link SnapshotDictionary#addListener}) уведомляются после
+ * публикации изменения, поэтому из получателя всегда виден снимок с этим изменением.
+ * @author yaros
+ */
+public class SnapshotDictionary extends Dictionary {
+    
+    /** Последний опубликованный снимок словаря. */
+    private volatile DictionarySnapshot snapshot;
+    
+    /** Слова, списки переводов которых изменены после последней публикации. */
+    private final HashSet<Word> dirtyWords = new HashSet<>();
+    
+    /** Языки, списки слов которых изменены после последней публикации. */
+    private final HashSet<Lang> dirtyLangs = new HashSet<>();
+    
+    /** Показывает, изменён ли список языков после последней публикации. */
+    private boolean langsChanged = false;
+    
+    /** Глубина вложенности {@link SnapshotDictionary#edit}. Публикация откладывается, пока она больше нуля. */
+    private int editDepth = 0;
+    
+    /** Получатели уведомлений об изменениях. Уведомляются после публикации изменений. */
+    private final CopyOnWriteArrayList<DictionaryListener> snapshotListeners = new CopyOnWriteArrayList<>();
+    
+    /** Уведомления об изменениях, ещё не опубликованных. */
+    private final ArrayList<Consumer<DictionaryListener>> pendingEvents = new ArrayList<>();
+    
+    /**
+     * Получатель уведомлений словаря, откладывающий их до публикации. Подключён к словарю,
+     * пока {@link SnapshotDictionary#snapshotListeners} не пуст.
+     */
+    private final DictionaryListener deferredEvents = new DictionaryListener() {
+        
+        @Override
+        public void langAdded(Lang lang) {
+            pendingEvents.add(l -> l.langAdded(lang));
+        }
+        
+        @Override
+        public void langRemoved(Lang lang) {
+            pendingEvents.add(l -> l.langRemoved(lang));
+        }
+        
+        @Override
+        public void wordAdded(Word word) {
+            pendingEvents.add(l -> l.wordAdded(word));
+        }
+        
+        @Override
+        public void wordRemoved(Word word) {
+            pendingEvents.add(l -> l.wordRemoved(word));
+        }
+        
+        @Override
+        public void translationAdded(Word word, Word translationWord) {
+            pendingEvents.add(l -> l.translationAdded(word, translationWord));
+        }
+        
+        @Override
+        public void batchStarted() {
+            pendingEvents.add(DictionaryListener::batchStarted);
+        }
+        
+        @Override
+        public void batchFinished() {
+            pendingEvents.add(DictionaryListener::batchFinished);
+        }
+    
+    };
+    
+    /**
+     * Конструктор словаря, устанавливающий канонический экземпляр ({@link Lang#intern}) языка {@code lang}
+     * в качестве первого языка словаря.
+     * @param lang язык.
+     */
+    SnapshotDictionary(Lang lang) {
+        super(lang);
+        snapshot = new DictionarySnapshot(0, getLangs(), PersistentHashMap.empty(), PersistentHashMap.empty());
+    }
+    
+    /**
+     * Конструктор словаря, создающий новый язык с кодом {@code langCode} и названием {@code langTitle}
+     * и устанавливающий его в качестве первого языка словаря.
+     * @param langCode код языка.
+     * @param langTitle название языка.
+     */
+    SnapshotDictionary(String langCode, String langTitle) {
+        this(new Lang(langCode, langTitle));
+    }
+    
+    /**
+     * Возвращает последний опубликованный снимок словаря. Не захватывает блокировок.
+     * @return {@code DictionarySnapshot} снимок словаря.
+     */
+    public DictionarySnapshot snapshot() {
+        return snapshot;
+    }
+    
+    /**
+     * Выполняет набор изменений {@code edits} и публикует их одной версией словаря.
+     * Изменения, выполненные до исключения в {@code edits}, также публикуются.
+     * @param edits изменения словаря.
+     */
+    public synchronized void edit(Consumer<? super SnapshotDictionary> edits) {
+        editDepth++;
+        try {
+            edits.accept(this);
+        } finally {
+            editDepth--;
+            publish();
+        }
+    }
+    
+    /**
+     * Отмечает слово {@code word} и его язык как изменённые.
+     * @param word слово.
+     */
+    private void touch(Word word) {
+        dirtyWords.add(word);
+        dirtyLangs.add(word.getLang());
+    }
+    
+    /**
+     * Отмечает слово {@code word}, все его переводы и их языки как изменённые.
+     * @param word слово.
+     */
+    private void touchWithTranslations(Word word) {
+        touch(word);
+        Set<Word> translations = getTranslations(word);
+        if (translations != null) {
+            for (Word w : translations) {
+                touch(w);
+            }
+        }
+    }
+    
+    /**
+     * {@inheritDoc}<br>
+     * Действие выполняется под монитором словаря, как изменения словаря.
+     */
+    @Override
+    public synchronized void exclusive(Runnable action) {
+        action.run();
+    }
+    
+    /**
+     * Добавляет получателя уведомлений об изменениях словаря. Получатель уведомляется
+     * после публикации изменения.
+     * @param listener получатель уведомлений.
+     * @return {@code true}, если получатель добавлен;<br>
+     * {@code false}, если {@code listener} равен {@code null} или уже добавлен.
+     */
+    @Override
+    public synchronized boolean addListener(DictionaryListener listener) {
+        if (listener == null || !snapshotListeners.addIfAbsent(listener))
+            return false;
+        
+        super.addListener(deferredEvents);
+        return true;
+    }
+    
+    @Override
+    public synchronized boolean removeListener(DictionaryListener listener) {
+        if (!snapshotListeners.remove(listener))
+            return false;
+        
+        if (snapshotListeners.isEmpty())
+            super.removeListener(deferredEvents);
+        return true;
+    }
+    
+    /**
+     * Публикует новый снимок словаря с изменёнными после последней публикации словами и языками
+     * и передаёт получателям отложенные уведомления. Ничего не делает внутри
+     * {@link SnapshotDictionary#edit}; при отсутствии изменений новый снимок не создаётся.
+     */
+    private void publish() {
+        if (editDepth > 0)
+            return;
+        
+        if (!dirtyWords.isEmpty() || !dirtyLangs.isEmpty() || langsChanged)
+            publishSnapshot();
+        
+        if (!pendingEvents.isEmpty()) {
+            ArrayList<Consumer<DictionaryListener>> events = new ArrayList<>(pendingEvents);
+            pendingEvents.clear();
+            for (Consumer<DictionaryListener> event : events) {
+                for (DictionaryListener listener : snapshotListeners) {
+                    event.accept(listener);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Публикует новый снимок словаря с изменёнными после последней публикации словами и языками.
+     */
+    private void publishSnapshot() {
+        DictionarySnapshot prev = snapshot;
+        PersistentHashMap<Word, Set<Word>> newWords = prev.words;
+        HashMap<Lang, PersistentHashMap<Word, Word>> changedLangs = new HashMap<>();
+        
+        for (Word w : dirtyWords) {
+            Lang lang = w.getLang();
+            PersistentHashMap<Word, Word> langWords = changedLangs.get(lang);
+            if (langWords == null)
+                langWords = prev.wordsByLang.getOrDefault(lang, PersistentHashMap.empty());
+            
+            Set<Word> translations = getTranslations(w);
+            if (translations == null) {
+                newWords = newWords.minus(w);
+                langWords = langWords.minus(w);
+            } else {
+                Word canonical = w.intern();
+                newWords = newWords.plus(canonical, Collections.unmodifiableSet(new HashSet<>(translations)));
+                langWords = langWords.plus(canonical, canonical);
+            }
+            changedLangs.put(lang, langWords);
+        }
+        
+        LangSet langs = getLangs();
+        PersistentHashMap<Lang, PersistentHashMap<Word, Word>> newWordsByLang = prev.wordsByLang;
+        for (Map.Entry<Lang, PersistentHashMap<Word, Word>> e : changedLangs.entrySet()) {
+            newWordsByLang = e.getValue().isEmpty() ? newWordsByLang.minus(e.getKey())
+                    : newWordsByLang.plus(e.getKey(), e.getValue());
+        }
+        for (Lang lang : dirtyLangs) {
+            if (!langs.contains(lang))
+                newWordsByLang = newWordsByLang.minus(lang);
+        }
+        
+        dirtyWords.clear();
+        dirtyLangs.clear();
+        langsChanged = false;
+        
+        snapshot = new DictionarySnapshot(prev.getVersion() + 1, langs, newWords, newWordsByLang);
+    }
+    
+    @Override
+    public synchronized boolean addLang(Lang lang) {
+        boolean result = super.addLang(lang);
+        langsChanged |= result;
+        publish();
+        return result;
+    }
+    
+    @Override
+    public synchronized boolean addWord(Word word) {
+        boolean result = super.addWord(word);
+        if (result)
+            touch(word);
+        publish();
+        return result;
+    }
+    
+    @Override
+    public synchronized boolean removeWord(Word word) {
+        if (word == null)
+            return false;
+        
+        touchWithTranslations(word);
+        boolean result = super.removeWord(word);
+        publish();
+        return result;
+    }
+    
+    @Override
+    public synchronized boolean addTranslation(Word word, Word translationWord) {
+        boolean result = super.addTranslation(word, translationWord);
+        if (result) {
+            touch(word);
+            touch(translationWord);
+        }
+        publish();
+        return result;
+    }
+    
+    @Override
+    synchronized boolean importTranslation(Word word, Word translationWord) {
+        boolean result = super.importTranslation(word, translationWord);
+        if (result) {
+            touch(word);
+            touch(translationWord);
+        }
+        publish();
+        return result;
+    }
+    
+    /**
+     * {@inheritDoc}<br>
+     * Весь пакет публикуется одной версией словаря.
+     */
+    @Override
+    synchronized void importTranslations(Word[] words, Word[] translations, int count, boolean[] results) {
+        editDepth++;
+        try {
+            super.importTranslations(words, translations, count, results);
+        } finally {
+            editDepth--;
+            publish();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}<br>
+     * Применённый пакет публикуется одной версией словаря; отклонённый пакет версию не создаёт.
+     */
+    @Override
+    synchronized boolean applyBatch(DictionaryBatch batch) {
+        HashSet<Word> touched = new HashSet<>();
+        for (DictionaryBatch.Edit edit : batch.edits()) {
+            if (edit.word == null)
+                return super.applyBatch(batch);
+            
+            touched.add(edit.word);
+            if (edit.translationWord != null)
+                touched.add(edit.translationWord);
+            if (edit.kind == DictionaryBatch.Kind.REMOVE_WORD) {
+                Set<Word> translations = getTranslations(edit.word);
+                if (translations != null)
+                    touched.addAll(translations);
+            }
+        }
+        
+        editDepth++;
+        try {
+            if (!super.applyBatch(batch))
+                return false;
+            
+            for (Word w : touched) {
+                touch(w);
+            }
+            return true;
+        } finally {
+            editDepth--;
+            publish();
+        }
+    }
+    
+    @Override
+    public synchronized boolean removeLang(Lang lang) {
+        Set<Word> langWords = getWordsByLang(lang);
+        if (langWords == null)
+            return false;
+        
+        for (Word w : langWords) {
+            touchWithTranslations(w);
+        }
+        dirtyLangs.add(lang);
+        
+        boolean result = super.removeLang(lang);
+        langsChanged |= result;
+        publish();
+        return result;
+    }
+    
+    /**
+     * {@inheritDoc}<br>
+     * Снимок строится только из слов языков словаря, поэтому язык удаляется сразу вместе
+     * со словами, как {@link SnapshotDictionary#removeLang}.
+     */
+    @Override
+    public boolean removeLangLazily(Lang lang) {
+        return removeLang(lang);
+    }
+    
+    /**
+     * Возвращает поток слов на языке {@code lang} по последнему опубликованному снимку.
+     * Изменения словаря во время обработки потока ему не видны.
+     * @param lang язык.
+     * @return {@code Stream} поток слов.
+     */
+    @Override
+    public Stream<Word> words(Lang lang) {
+        return snapshot.words(lang);
+    }
+    
+    /**
+     * Возвращает поток переводов по последнему опубликованному снимку.
+     * Изменения словаря во время обработки потока ему не видны.
+     * @return {@code Stream} поток пар из слова и его перевода.
+     */
+    @Override
+    public Stream<Map.Entry<Word, Word>> edges() {
+        return snapshot.edges();
+    }
+    
+    /**
+     * Создаёт и возвращает список слов на языке {@code lang} по последнему опубликованному снимку.
+     * @param lang язык.
+     * @return {@code HashSet} список слов.
+     */
+    @Override
+    public HashSet<Word> biuldWordsSetByLang(Lang lang) {
+        MetricsSink sink = getMetricsSink();
+        if (sink == null)
+            return snapshot.biuldWordsSetByLang(lang);
+        
+        long start = System.nanoTime();
+        HashSet<Word> result = snapshot.biuldWordsSetByLang(lang);
+        sink.record(DictionaryOperation.BUILD_WORDS_SET, System.nanoTime() - start, result != null);
+        return result;
+    }
+    
+    /**
+     * Создаёт и возвращает список копий переводов слова {@code word} по последнему опубликованному снимку.
+     * @param word слово.
+     * @return {@code HashSet} список копий переводов.
+     */
+    @Override
+    public HashSet<Word> buildTranslationsSet(Word word) {
+        DictionarySnapshot current = snapshot;
+        if (!current.containsWord(word))
+            return null;
+        
+        HashSet<Word> result = new HashSet<>();
+        for (Word w : current.translations(word)) {
+            result.add(w.clone());
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Строит {@link DictionaryTable} таблицу словаря по последнему опубликованному снимку.
+     * @param langFirst исходный язык.
+     * @param langSec язык перевода.
+     * @return {@code DictionaryTable} таблицу словаря переводов.
+     */
+    @Override
+    public DictionaryTable buildDictionary(Lang langFirst, Lang langSec) {
+        MetricsSink sink = getMetricsSink();
+        if (sink == null)
+            return snapshot.buildDictionary(langFirst, langSec);
+        
+        long start = System.nanoTime();
+        DictionaryTable result = snapshot.buildDictionary(langFirst, langSec);
+        sink.record(DictionaryOperation.BUILD_DICTIONARY, System.nanoTime() - start, result != null);
+        return result;
+    }
+    
+    /**
+     * Строит {@link DictionaryTable} таблицы словаря для всех пар языков из {@code langs}
+     * по последнему опубликованному снимку.
+     * @param langs языки.
+     * @return {@code HashMap} таблицы по исходному языку и языку перевода.
+     */
+    @Override
+    public HashMap<Lang, HashMap<Lang, DictionaryTable>> buildTables(Collection<Lang> langs) {
+        return snapshot.buildTables(langs);
+    }
+    
+    /**
+     * Строит {@link DictionaryTable} таблицу словаря с переводами через языки-посредники
+     * по последнему опубликованному снимку.
+     * @param langFirst исходный язык.
+     * @param langSec язык перевода.
+     * @param pivots языки-посредники; {@code null} - любые языки.
+     * @param maxDepth наибольшее количество переводов в цепочке.
+     * @return {@code DictionaryTable} таблицу словаря переводов.
+     */
+    @Override
+    public DictionaryTable buildPivotDictionary(Lang langFirst, Lang langSec, Collection<Lang> pivots, int maxDepth) {
+        return snapshot.buildPivotDictionary(langFirst, langSec, pivots, maxDepth);
+    }
+    
+    /**
+     * Находит переводы слова через языки-посредники по последнему опубликованному снимку.
+     * @param word слово.
+     * @param langSec язык перевода.
+     * @param maxDepth наибольшее количество переводов в цепочке.
+     * @return {@code LinkedHashSet} упорядоченный список переводов.
+     */
+    @Override
+    public LinkedHashSet<Word> translate(Word word, Lang langSec, int maxDepth) {
+        return snapshot.translate(word, langSec, maxDepth);
+    }
+
+}
@@ -9,9 +9,25 @@ public class Word {
     /** Текст слова. */
     private String word;
     
-    /** Язык слова. */
+    /** Язык слова (канонический экземпляр, см. {@link Lang#intern}). */
     private final Lang lang;
     
+    /** Кэшированный хэш-код слова. Пересчитывается при изменении {@link Word#word}. */
+    private int hash;
+    
+    /** Показывает, является ли объект каноническим (неизменяемым) экземпляром, см. {@link Word#intern}. */
+    private final boolean canonical;
+    
+    /**
+     * Канонический экземпляр, полученный {@link Word#intern} для неканонического слова;
+     * сбрасывается при изменении текста. Повторный {@link Word#intern} того же объекта
+     * (например, при добавлении слова в хранилище и связывании его с переводом) не обращается к пулу.
+     */
+    private volatile Word interned;
+    
+    /** Пул канонических экземпляров слов. */
+    private static final Interner<Word> INTERNER = new Interner<>((a, b) -> a.lang == b.lang && a.word.equals(b.word));
+    
     /**
      * Показывает, может ли строка {@code word} быть словом.
      * @param word проверяемая на возможность быть словом строка.
@@ -29,42 +45,58 @@ public class Word {
      * @param lang язык.
      */
     public Word(String word, Lang lang) {
+        this(word, lang, false);
+    }
+    
+    /**
+     * Конструктор, принимающий строковое значение слова, язык слова и признак канонического экземпляра.
+     * @param word текст слова.
+     * @param lang язык.
+     * @param canonical {@code true}, если создаётся канонический экземпляр.
+     */
+    private Word(String word, Lang lang, boolean canonical) {
         if (canBeWord(word))
-            this.word = new String(word);
+            this.word = word;
         else
             this.word = "no word";
-        this.lang = lang.clone();
+        this.lang = lang.intern();
+        this.canonical = canonical;
+        this.hash = computeHash();
     }
     
     /**
-     * Возвращает копию поля {@link Word#word}.
+     * Возвращает поле {@link Word#word}.
      * @return {@code String} текст слова.
      */
     public String getWord() {
-        return new String(word);
+        return word;
     }
     
     /**
      * Изменяет {@link Word#word} на {@code word}, если
-     * {@code word} может быть словом ({@link Word#canBeWord}).
+     * {@code word} может быть словом ({@link Word#canBeWord}).<br>
+     * Текст канонического экземпляра ({@link Word#intern}) изменить нельзя.
      * @param word новый текст слова.
      * @return {@code true}, если слово было изменено;<br>
      * {@code false} в ином случае.
      */
     public boolean setWord(String word) {
-        if (!canBeWord(word))
+        if (!canBeWord(word) || canonical)
             return false;
         
         this.word = word;
+        this.hash = computeHash();
+        interned = null;
         return true;
     }
     
     /**
-     * Возвращает копию поля {@link Word#lang}.
+     * Возвращает поле {@link Word#lang}. Язык слова является каноническим
+     * (неизменяемым) экземпляром, поэтому не копируется.
      * @return {@code Lang} язык слова.
      */
     public Lang getLang() {
-        return lang.clone();
+        return lang;
     }
     
     /**
@@ -74,31 +106,75 @@ public class Word {
      * {@code false} в ином случае.
      */
     private boolean hasSameLang(Word word) {
-        return lang.equals(word.getLang());
+        return lang == word.lang;
+    }
+    
+    /**
+     * Показывает, является ли слово каноническим (неизменяемым) экземпляром.
+     * @return {@code true}, если слово получено методом {@link Word#intern};<br>
+     * {@code false} в ином случае.
+     */
+    public boolean isCanonical() {
+        return canonical;
+    }
+    
+    /**
+     * Возвращает канонический экземпляр слова с таким же текстом на таком же языке.
+     * Канонический экземпляр неизменяем, поэтому его можно передавать без копирования;
+     * два канонических экземпляра равны тогда и только тогда, когда это один и тот же объект.
+     * @return канонический {@code Word}.
+     */
+    public Word intern() {
+        if (canonical)
+            return this;
+        
+        Word result = interned;
+        if (result == null || !result.word.equals(word)) {
+            result = INTERNER.intern(this, w -> new Word(w.word, w.lang, true));
+            interned = result;
+        }
+        
+        return result;
     }
 
     @Override
     public boolean equals(Object obj) {
-        if (obj == null)
+        if (this == obj)
+            return true;
+        if (!(obj instanceof Word))
             return false;
         
         Word otherWord = (Word)obj;
-        return this.word.equals(otherWord.getWord()) &&
-                this.lang.equals(otherWord.getLang());
+        if (canonical && otherWord.canonical)
+            return false;
+        
+        return this.hash == otherWord.hash &&
+                this.lang == otherWord.lang &&
+                this.word.equals(otherWord.word);
     }
     
     @Override
     public int hashCode() {
+        return hash;
+    }
+    
+    /**
+     * Вычисляет хэш-код слова по {@link Word#word} и {@link Word#lang}.
+     * @return хэш-код.
+     */
+    private int computeHash() {
         final int prime = 31;
         int result = 1;
-        result = prime * result +
-                ((word.equals("") || word == null) ? 0 : word.hashCode());
-        result = prime * result + ((lang == null) ? 0 : lang.hashCode());
+        result = prime * result + word.hashCode();
+        result = prime * result + lang.hashCode();
         return result;
     }
     
     @Override
     public Word clone() {
-        return new Word(new String(word), lang.clone());
+        if (canonical)
+            return this;
+        
+        return new Word(word, lang);
     }
 }
@@ -0,0 +1,86 @@
+package Dictionary;
+
+import java.util.Set;
+
+/**
+ * Хранилище слов {@link Dictionary} и переводов между ними. Хранилище не проверяет языки
+ * слов по списку языков словаря - это делает {@link Dictionary}. Все слова хранилища
+ * являются каноническими экземплярами {@link Word}.<p>
+ * Списки, возвращаемые {@link WordStore#translations} и {@link WordStore#words}, не копируются,
+ * не должны изменяться и действительны до следующего изменения хранилища (для потокобезопасных
+ * хранилищ - слабо согласованы с одновременными изменениями).
+ * @author yaros
+ */
+interface WordStore {
+    
+    /**
+     * Показывает, доступно ли хранилище только для чтения. Изменения такого хранилища
+     * возвращают {@code false}.
+     * @return {@code true}, если хранилище доступно только для чтения;<br>
+     * {@code false} в ином случае.
+     */
+    boolean isReadOnly();
+    
+    /**
+     * Показывает, содержится ли слово {@code word} в хранилище.
+     * @param word слово.
+     * @return {@code true}, если слово содержится в хранилище;<br>
+     * {@code false} в ином случае.
+     */
+    boolean contains(Word word);
+    
+    /**
+     * Добавляет канонический экземпляр слова {@code word} без переводов.
+     * @param word добавляемое слово.
+     * @return {@code true}, если слово добавлено;<br>
+     * {@code false}, если слово уже содержится в хранилище.
+     */
+    boolean add(Word word);
+    
+    /**
+     * Удаляет слово {@code word} вместе со всеми переводами в обе стороны.
+     * @param word удаляемое слово.
+     * @return {@code true}, если слово удалено;<br>
+     * {@code false}, если слова нет в хранилище.
+     */
+    boolean remove(Word word);
+    
+    /**
+     * Добавляет перевод между словами {@code word} и {@code translationWord} в обе стороны.
+     * @param word переводимое слово.
+     * @param translationWord перевод.
+     * @return {@code true}, если перевод добавлен;<br>
+     * {@code false}, если одного из слов нет в хранилище, слова совпадают или перевод уже существует.
+     */
+    boolean link(Word word, Word translationWord);
+    
+    /**
+     * Возвращает список переводов слова {@code word}.
+     * @param word слово.
+     * @return {@code Set} список переводов;<br>
+     * {@code null}, если слова нет в хранилище.
+     */
+    Set<Word> translations(Word word);
+    
+    /**
+     * Возвращает список слов на языке {@code lang}.
+     * @param lang язык.
+     * @return {@code Set} список слов (пустой, если слов на языке нет).
+     */
+    Set<Word> words(Lang lang);
+    
+    /**
+     * Возвращает количество переводов слов на языке {@code lang}: сумму размеров их списков переводов.
+     * Перевод между двумя словами языка {@code lang} учитывается дважды.
+     * @param lang язык.
+     * @return количество переводов.
+     */
+    long translationCount(Lang lang);
+    
+    /**
+     * Удаляет все слова на языке {@code lang} вместе с их переводами.
+     * @param lang язык.
+     */
+    void removeLang(Lang lang);
+
+}
@@ -0,0 +1,114 @@
+package Dictionary;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CollationIndexTest {
+    
+    private final Lang ru = new Lang("ru", "Русский");
+    private final Lang de = new Lang("de", "Deutsch");
+    
+    private static final String RU_LETTERS = "аеёжзЕЁя-";
+    private static final String DE_LETTERS = "aäoöuüßsAÄ";
+    
+    private static String randomText(Random random, String letters) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1 + random.nextInt(4); i > 0; i--) {
+            sb.append(letters.charAt(random.nextInt(letters.length())));
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Возвращает слова языка, отсортированные {@link Collator} локали, а при равенстве - по тексту.
+     */
+    private static List<Word> bruteForce(Dictionary d, Lang lang, Locale locale, String from, String to, int limit) {
+        Collator collator = Collator.getInstance(locale);
+        List<Word> sorted = new ArrayList<>();
+        for (Word w : d.getWordsByLang(lang)) {
+            if ((from == null || collator.compare(w.getWord(), from) >= 0)
+                    && (to == null || collator.compare(w.getWord(), to) < 0))
+                sorted.add(w);
+        }
+        sorted.sort(Comparator.comparing((Word w) -> w.getWord(), collator).thenComparing(Word::getWord));
+        return sorted.subList(0, Math.min(limit, sorted.size()));
+    }
+    
+    @Test public void testOrderMatchesCollator() {
+        Dictionary d = new Dictionary(ru);
+        d.addLang(de);
+        CollationIndex index = CollationIndex.attach(d);
+        Random random = new Random(19);
+        Locale ruLocale = Locale.forLanguageTag("ru");
+        Locale deLocale = Locale.forLanguageTag("de");
+        
+        for (int i = 0; i < 2000; i++) {
+            Lang lang = random.nextBoolean() ? ru : de;
+            String letters = (lang == ru) ? RU_LETTERS : DE_LETTERS;
+            Word word = new Word(randomText(random, letters), lang);
+            if (random.nextInt(4) == 0)
+                d.removeWord(word);
+            else
+                d.addWord(word);
+            
+            if (i % 100 == 0) {
+                assertEquals(bruteForce(d, ru, ruLocale, null, null, Integer.MAX_VALUE), index.words(ru));
+                assertEquals(bruteForce(d, de, deLocale, null, null, Integer.MAX_VALUE), index.words(de));
+            }
+            
+            Locale locale = (lang == ru) ? ruLocale : deLocale;
+            String from = random.nextBoolean() ? randomText(random, letters) : null;
+            String to = random.nextBoolean() ? randomText(random, letters) : null;
+            int limit = 1 + random.nextInt(30);
+            assertEquals(bruteForce(d, lang, locale, from, to, limit), index.range(lang, from, to, limit));
+        }
+        
+        assertTrue(index.range(ru, null, null, 0).isEmpty());
+        assertTrue(index.words(null).isEmpty());
+    }
+    
+    @Test public void testSortedTableMatchesDictionaryTable() {
+        Dictionary d = new Dictionary(ru);
+        d.addLang(de);
+        Random random = new Random(190);
+        for (int i = 0; i < 500; i++) {
+            Word word = new Word(randomText(random, RU_LETTERS), ru);
+            d.addWord(word);
+            if (random.nextBoolean())
+                d.addTranslation(word, new Word(randomText(random, DE_LETTERS), de));
+        }
+        CollationIndex index = CollationIndex.attach(d);
+        
+        DictionaryTable sorted = index.sortedTable(ru, de);
+        assertEquals(d.buildDictionary(ru, de).hashMap(), sorted.hashMap());
+        
+        List<Word> expectedOrder = new ArrayList<>();
+        for (Word w : index.words(ru)) {
+            if (sorted.containsWord(w))
+                expectedOrder.add(w);
+        }
+        assertEquals(expectedOrder, new ArrayList<>(sorted.words()));
+        assertNull(index.sortedTable(ru, new Lang("fr", "Français")));
+    }
+    
+    @Test public void testCustomLocalesAndLangRemoval() {
+        Dictionary d = new Dictionary(ru);
+        d.addLang(de);
+        CollationIndex index = CollationIndex.attach(d, lang -> Locale.forLanguageTag("sv"));
+        d.addWord(new Word("ö", de));
+        d.addWord(new Word("z", de));
+        
+        // В шведском алфавите ö следует за z
+        assertEquals("z", index.words(de).get(0).getWord());
+        
+        d.removeLang(de);
+        assertTrue(index.words(de).isEmpty());
+    }
+
+}
@@ -0,0 +1,63 @@
+package Dictionary;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CompactWordStoreTest {
+    
+    private final Lang ru = new Lang("ru", "Русский");
+    private final Lang en = new Lang("en", "English");
+    private final Lang de = new Lang("de", "Deutsch");
+    
+    /**
+     * Проверяет, что словари содержат одинаковые языки, слова и переводы.
+     */
+    private static void assertSameContent(Dictionary expected, Dictionary actual) {
+        assertEquals(expected.getLangs().getLangSet(), actual.getLangs().getLangSet());
+        for (Lang lang : expected.getLangs().getLangSet()) {
+            Set<Word> words = new HashSet<>(expected.getWordsByLang(lang));
+            assertEquals(words, new HashSet<>(actual.getWordsByLang(lang)));
+            for (Word w : words) {
+                assertEquals(expected.buildTranslationsSet(w), actual.buildTranslationsSet(w));
+            }
+        }
+    }
+    
+    @Test public void testRandomOperationsMatchHashStore() {
+        Lang[] langs = { ru, en, de };
+        Dictionary expected = new Dictionary(ru);
+        Dictionary actual = Dictionary.compact(ru);
+        Random random = new Random(6);
+        for (int i = 0; i < 50000; i++) {
+            Lang lang = langs[random.nextInt(langs.length)];
+            Word word = new Word("w" + random.nextInt(100), lang);
+            Word other = new Word("w" + random.nextInt(100), langs[random.nextInt(langs.length)]);
+            int op = random.nextInt(1000);
+            if (op < 2)
+                assertEquals(expected.removeLang(lang), actual.removeLang(lang));
+            else if (op < 40)
+                assertEquals(expected.addLang(lang), actual.addLang(lang));
+            else if (op < 120)
+                assertEquals(expected.removeWord(word), actual.removeWord(word));
+            else if (op < 450)
+                assertEquals(expected.addWord(word), actual.addWord(word));
+            else
+                assertEquals(expected.addTranslation(word, other), actual.addTranslation(word, other));
+            
+            assertEquals(expected.buildTranslationsSet(word), actual.buildTranslationsSet(word));
+            if (i % 5000 == 0)
+                assertSameContent(expected, actual);
+        }
+        assertTrue(expected.edges().count() > 0);
+        assertSameContent(expected, actual);
+        for (Lang first : expected.getLangs().getLangSet()) {
+            for (Lang second : expected.getLangs().getLangSet()) {
+                assertEquals(expected.buildDictionary(first, second).hashMap(), actual.buildDictionary(first, second).hashMap());
+            }
+        }
+    }
+
+}
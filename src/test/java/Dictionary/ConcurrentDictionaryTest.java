@@ -0,0 +1,117 @@
+package Dictionary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ConcurrentDictionaryTest {
+    
+    private final Lang ru = new Lang("ru", "Русский");
+    private final Lang en = new Lang("en", "English");
+    
+    @Test public void testReAddAfterLazyRemovalKeepsNewWords() throws Exception {
+        ConcurrentDictionary d = new ConcurrentDictionary(ru);
+        for (int i = 0; i < 2000; i++) {
+            d.addWord(new Word("слово" + i, ru));
+        }
+        
+        for (int round = 0; round < 50; round++) {
+            assertTrue(d.addLang(en));
+            for (int i = 0; i < 200; i++) {
+                d.addTranslation(new Word("слово" + i, ru), new Word("old" + round + "-" + i, en));
+            }
+            assertTrue(d.removeLangLazily(en));
+            assertTrue(d.addLang(en));
+            for (int i = 0; i < 200; i++) {
+                assertTrue(d.addTranslation(new Word("слово" + i, ru), new Word("new" + i, en)));
+            }
+            Thread.sleep(1);
+            
+            for (int i = 0; i < 200; i++) {
+                Set<Word> translations = d.buildTranslationsSet(new Word("слово" + i, ru));
+                assertEquals("round " + round, 1, translations.size());
+                assertTrue(translations.contains(new Word("new" + i, en)));
+                assertTrue(d.buildTranslationsSet(new Word("new" + i, en)).contains(new Word("слово" + i, ru)));
+            }
+            assertEquals(200, d.getWordsByLang(en).size());
+            assertTrue(d.removeLang(en));
+        }
+    }
+    
+    @Test(timeout = 60000) public void testConcurrentEditsKeepTranslationsSymmetric() throws Exception {
+        ConcurrentDictionary d = new ConcurrentDictionary(ru);
+        d.addLang(en);
+        int words = 300;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 20000; i++) {
+                    Word first = new Word("слово" + random.nextInt(words), ru);
+                    Word second = new Word("word" + random.nextInt(words), en);
+                    switch (random.nextInt(5)) {
+                        case 0:
+                            d.removeWord(random.nextBoolean() ? first : second);
+                            break;
+                        case 1:
+                            d.addWord(random.nextBoolean() ? first : second);
+                            break;
+                        case 2:
+                            d.addTranslation(second, first);
+                            break;
+                        default:
+                            d.addTranslation(first, second);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        pool.shutdown();
+        
+        int edges = 0;
+        for (Lang lang : new Lang[] { ru, en }) {
+            for (Word w : d.getWordsByLang(lang)) {
+                for (Word tr : d.buildTranslationsSet(w)) {
+                    Set<Word> back = d.buildTranslationsSet(tr);
+                    assertNotNull(tr.toString(), back);
+                    assertTrue(w + " - " + tr, back.contains(w));
+                    edges++;
+                }
+            }
+        }
+        assertTrue(edges > 0);
+    }
+    
+    @Test(timeout = 60000) public void testConcurrentInternReturnsOneInstance() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Word[]>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                Word[] result = new Word[5000];
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = new Word("intern" + i, en).intern();
+                }
+                return result;
+            }));
+        }
+        Word[] first = futures.get(0).get();
+        for (Future<Word[]> f : futures) {
+            Word[] other = f.get();
+            for (int i = 0; i < first.length; i++) {
+                assertSame(first[i], other[i]);
+            }
+        }
+        pool.shutdown();
+    }
+
+}
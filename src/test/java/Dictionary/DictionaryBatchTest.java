@@ -0,0 +1,73 @@
+package Dictionary;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DictionaryBatchTest {
+    
+    private final Lang ru = new Lang("ru", "Русский");
+    private final Lang en = new Lang("en", "English");
+    
+    private List<Dictionary> dictionaries() {
+        List<Function<Lang, Dictionary>> factories = Arrays.asList(Dictionary::new, Dictionary::compact,
+                ConcurrentDictionary::new, SnapshotDictionary::new);
+        return Arrays.asList(factories.stream().map(f -> {
+            Dictionary d = f.apply(ru);
+            d.addLang(en);
+            return d;
+        }).toArray(Dictionary[]::new));
+    }
+    
+    @Test public void testAddWordThenLinkInOneBatch() {
+        for (Dictionary d : dictionaries()) {
+            Word kot = new Word("кот", ru);
+            Word cat = new Word("cat", en);
+            assertTrue(d.batch().addWord(kot).addTranslation(kot, new Word("tomcat", en)).apply());
+            
+            kot = new Word("котик", ru);
+            d.addWord(cat);
+            assertTrue(d.getClass().getSimpleName(), d.batch().addWord(kot).addTranslation(kot, cat).apply());
+            assertTrue(d.buildTranslationsSet(kot).contains(cat));
+            assertTrue(d.buildTranslationsSet(cat).contains(kot));
+        }
+    }
+    
+    @Test public void testDuplicateLinkInOneBatchFails() {
+        for (Dictionary d : dictionaries()) {
+            Word kot = new Word("кот", ru);
+            Word cat = new Word("cat", en);
+            assertFalse(d.batch().addWord(kot).addTranslation(kot, cat).addTranslation(cat, kot).apply());
+            assertNull(d.buildTranslationsSet(kot));
+            assertNull(d.buildTranslationsSet(cat));
+        }
+    }
+    
+    @Test public void testFailedBatchLeavesDictionaryUnchanged() {
+        for (Dictionary d : dictionaries()) {
+            Word kot = new Word("кот", ru);
+            d.addWord(kot);
+            assertFalse(d.batch().addTranslation(kot, new Word("cat", en)).addWord(kot).apply());
+            assertTrue(d.buildTranslationsSet(kot).isEmpty());
+            assertNull(d.buildTranslationsSet(new Word("cat", en)));
+        }
+    }
+    
+    @Test public void testLazilyRemovedLangIsRejected() {
+        Dictionary d = new Dictionary(ru);
+        d.addLang(en);
+        Word kot = new Word("кот", ru);
+        Word cat = new Word("cat", en);
+        d.addWord(kot);
+        d.addTranslation(kot, cat);
+        assertTrue(d.removeLangLazily(en));
+        
+        assertFalse(d.batch().removeWord(cat).apply());
+        assertFalse(d.batch().addTranslation(kot, new Word("dog", en)).apply());
+        assertFalse(d.batch().addWord(new Word("dog", en)).apply());
+        assertTrue(d.buildTranslationsSet(kot).isEmpty());
+    }
+
+}
@@ -0,0 +1,138 @@
+package Dictionary;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DictionaryFileTest {
+    
+    private final Lang ru = new Lang("ru", "Русский");
+    private final Lang en = new Lang("en", "English");
+    private final Lang de = new Lang("de", "Deutsch");
+    
+    private Path file;
+    
+    @Before public void setUp() throws Exception {
+        file = Files.createTempFile("dictionary-test", ".sdic");
+    }
+    
+    @After public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+    
+    private Dictionary randomDictionary() {
+        Lang[] langs = { ru, en, de };
+        Dictionary d = new Dictionary(ru);
+        d.addLang(en);
+        d.addLang(de);
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            Word word = new Word("слово" + random.nextInt(1000), langs[random.nextInt(langs.length)]);
+            d.addWord(word);
+            d.addTranslation(word, new Word("word" + random.nextInt(1000), langs[random.nextInt(langs.length)]));
+        }
+        return d;
+    }
+    
+    private static void assertSameContent(Dictionary expected, Dictionary actual) {
+        assertEquals(expected.getLangs().getLangSet(), actual.getLangs().getLangSet());
+        for (Lang first : expected.getLangs().getLangSet()) {
+            Set<Word> words = new HashSet<>(expected.getWordsByLang(first));
+            assertEquals(words, new HashSet<>(actual.getWordsByLang(first)));
+            for (Word w : words) {
+                assertEquals(expected.buildTranslationsSet(w), actual.buildTranslationsSet(w));
+            }
+            for (Lang second : expected.getLangs().getLangSet()) {
+                assertEquals(expected.buildDictionary(first, second).hashMap(), actual.buildDictionary(first, second).hashMap());
+            }
+        }
+        assertEquals(expected.edges().count(), actual.edges().count());
+    }
+    
+    @Test public void testSaveOpenLoadRoundTrip() throws Exception {
+        Dictionary d = randomDictionary();
+        d.save(file);
+        
+        Dictionary mapped = Dictionary.open(file);
+        assertSameContent(d, mapped);
+        assertNull(mapped.buildTranslationsSet(new Word("нет такого", ru)));
+        assertFalse(mapped.addWord(new Word("новое", ru)));
+        
+        Dictionary loaded = Dictionary.load(file);
+        assertSameContent(d, loaded);
+        assertTrue(loaded.addWord(new Word("новое", ru)));
+    }
+    
+    @Test public void testMappedWordsAreCanonicalAndReused() throws Exception {
+        randomDictionary().save(file);
+        Dictionary mapped = Dictionary.open(file);
+        
+        Word first = mapped.getWordsByLang(en).iterator().next();
+        assertTrue(first.isCanonical());
+        assertSame(first, mapped.getWordsByLang(en).iterator().next());
+        assertSame(first, new Word(first.getWord(), en).intern());
+    }
+    
+    /**
+     * Запускает потоки, изменяющие словарь, пока {@code running} не станет {@code false}.
+     */
+    static List<Thread> startWriters(Dictionary d, Lang first, Lang second, AtomicBoolean running) {
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Random random = new Random(t);
+            Thread writer = new Thread(() -> {
+                while (running.get()) {
+                    Word w = new Word("слово" + random.nextInt(500), first);
+                    Word tr = new Word("word" + random.nextInt(500), second);
+                    if (random.nextInt(3) == 0) {
+                        d.removeWord(random.nextBoolean() ? w : tr);
+                    } else {
+                        d.addWord(w);
+                        d.addWord(tr);
+                        d.addTranslation(w, tr);
+                    }
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        return writers;
+    }
+    
+    @Test(timeout = 60000) public void testSaveWhileEditing() throws Exception {
+        for (Dictionary d : new Dictionary[] { new ConcurrentDictionary(ru), new SnapshotDictionary(ru) }) {
+            d.addLang(en);
+            AtomicBoolean running = new AtomicBoolean(true);
+            List<Thread> writers = startWriters(d, ru, en, running);
+            try {
+                for (int i = 0; i < 30; i++) {
+                    d.save(file);
+                    Dictionary loaded = Dictionary.load(file);
+                    for (Word w : loaded.getWordsByLang(ru)) {
+                        for (Word tr : loaded.buildTranslationsSet(w)) {
+                            assertTrue(w + " - " + tr, loaded.buildTranslationsSet(tr).contains(w));
+                        }
+                    }
+                }
+            } finally {
+                running.set(false);
+                for (Thread writer : writers) {
+                    writer.join();
+                }
+            }
+            
+            d.save(file);
+            assertSameContent(d, Dictionary.load(file));
+        }
+    }
+
+}
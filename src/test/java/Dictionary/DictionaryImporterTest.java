@@ -0,0 +1,52 @@
+package Dictionary;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DictionaryImporterTest {
+    
+    private final Lang ru = new Lang("ru", "Русский");
+    private final Lang en = new Lang("en", "English");
+    
+    @Test public void testImportAddsWordsAndCountsResults() throws Exception {
+        Dictionary d = new Dictionary(ru);
+        d.addLang(en);
+        ArrayList<DictionaryImporter.LineError> errors = new ArrayList<>();
+        DictionaryImporter importer = new DictionaryImporter(d);
+        importer.setBatchSize(2);
+        importer.setErrorHandler(errors::add);
+        
+        DictionaryImporter.Result result = importer.importFrom(new StringReader(
+                "# comment\n" +
+                "ru\tкот\ten\tcat\n" +
+                "ru\tкот\ten\tcat\n" +
+                "ru\tкот\ten\ttomcat\n" +
+                "en\tcat\tru\tкошка\n" +
+                "de\tKatze\ten\tcat\n" +
+                "ru\tкот\ten\n"));
+        
+        assertEquals(7, result.getLines());
+        assertEquals(3, result.getAdded());
+        assertEquals(1, result.getSkipped());
+        assertEquals(2, result.getErrors());
+        assertEquals(6, errors.get(0).getLineNumber());
+        assertEquals(2, d.buildTranslationsSet(new Word("кот", ru)).size());
+        assertEquals(2, d.buildTranslationsSet(new Word("cat", en)).size());
+        assertTrue(d.buildTranslationsSet(new Word("кошка", ru)).contains(new Word("cat", en)));
+    }
+    
+    @Test public void testImportIsMeasured() throws Exception {
+        Dictionary d = Dictionary.compact(ru);
+        d.addLang(en);
+        DictionaryMetrics metrics = DictionaryMetrics.attach(d);
+        
+        new DictionaryImporter(d).importFrom(new StringReader("ru\tкот\ten\tcat\nru\tкот\ten\tcat\nru\tпёс\ten\tdog\n"));
+        
+        assertEquals(3, metrics.getCount(DictionaryOperation.IMPORT_TRANSLATION));
+        assertEquals(1, metrics.getFailures(DictionaryOperation.IMPORT_TRANSLATION));
+        assertEquals(0, metrics.getCount(DictionaryOperation.ADD_TRANSLATION));
+    }
+
+}
@@ -0,0 +1,142 @@
+package Dictionary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DictionaryJournalTest {
+    
+    private final Lang ru = new Lang("ru", "Русский");
+    private final Lang en = new Lang("en", "English");
+    
+    private Path dir;
+    
+    @Before public void setUp() throws Exception {
+        dir = Files.createTempDirectory("journal-test");
+    }
+    
+    @After public void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+    
+    private Path journalFile() throws Exception {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "journal-*.log")) {
+            return files.iterator().next();
+        }
+    }
+    
+    @Test public void testWordLongerThan64KbIsReplayed() throws Exception {
+        char[] chars = new char[40000];
+        Arrays.fill(chars, 'ж');
+        Word longWord = new Word(new String(chars), ru);
+        
+        Dictionary d = new Dictionary(ru);
+        d.addLang(en);
+        DictionaryJournal journal = DictionaryJournal.open(dir, d, DictionaryJournal.FsyncPolicy.NEVER);
+        assertTrue(d.addWord(longWord));
+        assertTrue(d.addTranslation(longWord, new Word("long", en)));
+        journal.close();
+        
+        Dictionary recovered = DictionaryJournal.recover(dir);
+        assertTrue(recovered.buildTranslationsSet(longWord).contains(new Word("long", en)));
+    }
+    
+    @Test public void testTruncatedRecordIsDropped() throws Exception {
+        Dictionary d = new Dictionary(ru);
+        DictionaryJournal journal = DictionaryJournal.open(dir, d, DictionaryJournal.FsyncPolicy.ALWAYS);
+        assertTrue(d.addLang(en));
+        for (int i = 0; i < 10; i++) {
+            d.addWord(new Word("слово" + i, ru));
+            d.addTranslation(new Word("слово" + i, ru), new Word("word" + i, en));
+        }
+        long complete = Files.size(journalFile());
+        d.addWord(new Word("последнее", ru));
+        journal.close();
+        
+        Path file = journalFile();
+        assertTrue(Files.size(file) > complete);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 3);
+        }
+        
+        Dictionary recovered = DictionaryJournal.recover(dir);
+        assertEquals(10, recovered.getWordsByLang(ru).size());
+        assertEquals(10, recovered.getWordsByLang(en).size());
+        assertTrue(recovered.buildTranslationsSet(new Word("word9", en)).contains(new Word("слово9", ru)));
+        assertNull(recovered.buildTranslationsSet(new Word("последнее", ru)));
+        
+        // Журнал продолжается после восстановления
+        DictionaryJournal reopened = DictionaryJournal.open(dir, recovered, DictionaryJournal.FsyncPolicy.ALWAYS);
+        recovered.addWord(new Word("последнее", ru));
+        reopened.close();
+        assertNotNull(DictionaryJournal.recover(dir).buildTranslationsSet(new Word("последнее", ru)));
+    }
+    
+    @Test public void testRecordWithWriteUtfFieldsIsReplayed() throws Exception {
+        Dictionary d = new Dictionary(ru);
+        DictionaryJournal.open(dir, d, DictionaryJournal.FsyncPolicy.ALWAYS).close();
+        
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(data);
+        out.writeByte(DictionaryJournal.ADD_WORD);
+        out.writeUTF("кот");
+        out.writeUTF("ru");
+        CRC32 crc = new CRC32();
+        crc.update(data.toByteArray());
+        
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        DataOutputStream recordOut = new DataOutputStream(record);
+        recordOut.writeInt(data.size());
+        recordOut.writeInt((int)crc.getValue());
+        recordOut.write(data.toByteArray());
+        Files.write(journalFile(), record.toByteArray(), StandardOpenOption.APPEND);
+        
+        assertNotNull(DictionaryJournal.recover(dir).buildTranslationsSet(new Word("кот", ru)));
+    }
+    
+    @Test(timeout = 60000) public void testCompactWhileEditing() throws Exception {
+        for (Dictionary d : new Dictionary[] { new ConcurrentDictionary(ru), new SnapshotDictionary(ru) }) {
+            d.addLang(en);
+            AtomicBoolean running = new AtomicBoolean(true);
+            List<Thread> writers = DictionaryFileTest.startWriters(d, ru, en, running);
+            DictionaryJournal journal = DictionaryJournal.open(dir, d, DictionaryJournal.FsyncPolicy.NEVER);
+            try {
+                for (int i = 0; i < 20; i++) {
+                    journal.compact();
+                }
+            } finally {
+                running.set(false);
+                for (Thread writer : writers) {
+                    writer.join();
+                }
+            }
+            journal.close();
+            
+            Dictionary recovered = DictionaryJournal.recover(dir);
+            for (Lang lang : new Lang[] { ru, en }) {
+                assertEquals(new HashSet<>(d.getWordsByLang(lang)), new HashSet<>(recovered.getWordsByLang(lang)));
+                for (Word w : d.getWordsByLang(lang)) {
+                    assertEquals(w.toString(), d.buildTranslationsSet(w), recovered.buildTranslationsSet(w));
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package Dictionary;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DictionaryMetricsTest {
+    
+    private final Lang ru = new Lang("ru", "Русский");
+    private final Lang en = new Lang("en", "English");
+    
+    /**
+     * Возвращает точный процентиль отсортированных значений тем же правилом ранга,
+     * что и гистограмма: наименьшее значение, не меньше которого доля {@code quantile} значений.
+     */
+    private static long exactPercentile(long[] sorted, double quantile) {
+        int rank = Math.max(1, (int)Math.ceil(quantile * sorted.length));
+        return sorted[rank - 1];
+    }
+    
+    @Test public void testPercentileWithinBucketBounds() {
+        double[] quantiles = { 0, 0.01, 0.25, 0.5, 0.9, 0.99, 0.999, 1 };
+        Random random = new Random(17);
+        for (int round = 0; round < 50; round++) {
+            DictionaryMetrics metrics = new DictionaryMetrics(new Dictionary(ru));
+            long[] nanos = new long[1 + random.nextInt(2000)];
+            for (int i = 0; i < nanos.length; i++) {
+                int bits = random.nextInt(40);
+                nanos[i] = (bits == 0) ? 0 : (1L << (bits - 1)) + (random.nextLong() & ((1L << (bits - 1)) - 1));
+                metrics.record(DictionaryOperation.ADD_WORD, nanos[i], true);
+            }
+            Arrays.sort(nanos);
+            
+            assertEquals(nanos.length, metrics.getCount(DictionaryOperation.ADD_WORD));
+            assertEquals(nanos[nanos.length - 1], metrics.getMaxNanos(DictionaryOperation.ADD_WORD));
+            for (double q : quantiles) {
+                long exact = exactPercentile(nanos, q);
+                long approx = metrics.getPercentileNanos(DictionaryOperation.ADD_WORD, q);
+                String message = "q=" + q + " exact=" + exact + " approx=" + approx;
+                assertTrue(message, approx >= exact);
+                assertTrue(message, approx <= nanos[nanos.length - 1]);
+                if (exact == 0)
+                    assertEquals(message, 0, approx);
+                else
+                    assertTrue(message, approx < 2 * exact);
+            }
+        }
+    }
+    
+    @Test public void testPercentileBucketEdges() {
+        DictionaryMetrics metrics = new DictionaryMetrics(new Dictionary(ru));
+        assertEquals(0, metrics.getPercentileNanos(DictionaryOperation.ADD_LANG, 0.5));
+        
+        metrics.record(DictionaryOperation.ADD_LANG, 1023, true);
+        metrics.record(DictionaryOperation.ADD_LANG, 1024, false);
+        assertEquals(1023, metrics.getPercentileNanos(DictionaryOperation.ADD_LANG, 0));
+        assertEquals(1023, metrics.getPercentileNanos(DictionaryOperation.ADD_LANG, 0.5));
+        assertEquals(1024, metrics.getPercentileNanos(DictionaryOperation.ADD_LANG, 1));
+        assertEquals(1, metrics.getFailures(DictionaryOperation.ADD_LANG));
+        
+        metrics.record(DictionaryOperation.ADD_LANG, 2047, true);
+        assertEquals(2047, metrics.getPercentileNanos(DictionaryOperation.ADD_LANG, 1));
+        assertEquals(2047, metrics.getPercentileNanos(DictionaryOperation.ADD_LANG, 0.6));
+        
+        metrics.record(DictionaryOperation.REMOVE_LANG, -5, true);
+        metrics.record(DictionaryOperation.REMOVE_LANG, Long.MAX_VALUE, true);
+        assertEquals(0, metrics.getPercentileNanos(DictionaryOperation.REMOVE_LANG, 0.5));
+        assertEquals(Long.MAX_VALUE, metrics.getPercentileNanos(DictionaryOperation.REMOVE_LANG, 1));
+        
+        metrics.reset();
+        assertEquals(0, metrics.getCount(DictionaryOperation.ADD_LANG));
+        assertEquals(0, metrics.getPercentileNanos(DictionaryOperation.ADD_LANG, 1));
+        assertEquals(0, metrics.getMaxNanos(DictionaryOperation.REMOVE_LANG));
+    }
+    
+    @Test public void testDetach() {
+        Dictionary d = new Dictionary(ru);
+        DictionaryMetrics metrics = DictionaryMetrics.attach(d);
+        assertSame(metrics, d.getMetricsSink());
+        
+        d.addLang(en);
+        d.addWord(new Word("мир", ru));
+        d.addWord(new Word("мир", ru));
+        assertEquals(1, metrics.getCount(DictionaryOperation.ADD_LANG));
+        assertEquals(2, metrics.getCount(DictionaryOperation.ADD_WORD));
+        assertEquals(1, metrics.getFailures(DictionaryOperation.ADD_WORD));
+        
+        assertTrue(metrics.detach());
+        assertNull(d.getMetricsSink());
+        assertFalse(metrics.detach());
+        d.addWord(new Word("world", en));
+        assertEquals(2, metrics.getCount(DictionaryOperation.ADD_WORD));
+        
+        DictionaryMetrics first = DictionaryMetrics.attach(d);
+        DictionaryMetrics second = DictionaryMetrics.attach(d);
+        assertFalse(first.detach());
+        assertSame(second, d.getMetricsSink());
+        d.addWord(new Word("война", ru));
+        assertEquals(0, first.getCount(DictionaryOperation.ADD_WORD));
+        assertEquals(1, second.getCount(DictionaryOperation.ADD_WORD));
+        assertTrue(second.detach());
+        assertNull(DictionaryMetrics.attach(null));
+    }
+}
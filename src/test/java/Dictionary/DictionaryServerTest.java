@@ -0,0 +1,64 @@
+package Dictionary;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DictionaryServerTest {
+    
+    private final Lang ru = new Lang("ru", "Русский");
+    private final Lang en = new Lang("en", "English");
+    
+    private DictionaryServer server;
+    
+    @Before public void setUp() throws Exception {
+        Dictionary d = new Dictionary(ru);
+        d.addLang(en);
+        d.addWord(new Word("кот", ru));
+        d.addTranslation(new Word("кот", ru), new Word("cat", en));
+        server = new DictionaryServer(d, 0);
+    }
+    
+    @After public void tearDown() {
+        server.close();
+    }
+    
+    private HttpURLConnection get(String pathAndQuery) throws Exception {
+        return (HttpURLConnection)new URL("http://127.0.0.1:" + server.getPort() + pathAndQuery).openConnection();
+    }
+    
+    @Test(timeout = 10000) public void testLookup() throws Exception {
+        HttpURLConnection connection = get("/lookup?word=%D0%BA%D0%BE%D1%82&lang=ru");
+        assertEquals(200, connection.getResponseCode());
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            assertEquals("cat\ten", in.readLine());
+            assertNull(in.readLine());
+        }
+        assertEquals(404, get("/lookup?word=dog&lang=en").getResponseCode());
+    }
+    
+    @Test(timeout = 10000) public void testMalformedEscapeIsBadRequest() throws Exception {
+        assertEquals(400, get("/lookup?word=%zz&lang=ru").getResponseCode());
+        assertEquals(400, get("/dictionary?from=ru&to=%E").getResponseCode());
+        assertEquals(200, get("/dictionary?from=ru&to=en").getResponseCode());
+    }
+    
+    @Test public void testFallbackExecutorIsBounded() {
+        ExecutorService executor = DictionaryServer.newExecutor();
+        try {
+            if (executor instanceof ThreadPoolExecutor)
+                assertEquals(DictionaryServer.FALLBACK_THREADS, ((ThreadPoolExecutor)executor).getMaximumPoolSize());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
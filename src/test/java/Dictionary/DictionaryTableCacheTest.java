@@ -0,0 +1,152 @@
+package Dictionary;
+
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DictionaryTableCacheTest {
+    
+    private final Lang ru = new Lang("ru", "Русский");
+    private final Lang en = new Lang("en", "English");
+    private final Lang de = new Lang("de", "Deutsch");
+    
+    private Dictionary d;
+    private DictionaryTableCache cache;
+    
+    @Before public void setUp() {
+        d = new Dictionary(ru);
+        d.addLang(en);
+        d.addLang(de);
+        for (int i = 0; i < 20; i++) {
+            d.addWord(new Word("слово" + i, ru));
+            d.addTranslation(new Word("слово" + i, ru), new Word("word" + i, en));
+            d.addTranslation(new Word("word" + i, en), new Word("Wort" + i, de));
+        }
+        cache = DictionaryTableCache.attach(d, 100);
+    }
+    
+    /**
+     * Заполняет кэш таблицами всех пар языков, выполняет изменение {@code edit} и проверяет,
+     * что кэш возвращает таблицы, равные заново построенным, а таблицы пар языков,
+     * бывших в словаре до изменения и не затронутых им ({@code affected}), берутся из кэша.
+     */
+    private void checkEdit(Consumer<Dictionary> edit, BiPredicate<Lang, Lang> affected) {
+        Set<Lang> cached = d.getLangs().getLangSet();
+        for (Lang a : cached) {
+            for (Lang b : cached) {
+                assertNotNull(cache.get(a, b));
+            }
+        }
+        
+        edit.accept(d);
+        long hits = cache.getStats().getHits();
+        int untouched = 0;
+        for (Lang a : d.getLangs().getLangSet()) {
+            for (Lang b : d.getLangs().getLangSet()) {
+                assertEquals(d.buildDictionary(a, b).hashMap(), cache.get(a, b).hashMap());
+                if (cached.contains(a) && cached.contains(b) && !affected.test(a, b))
+                    untouched++;
+            }
+        }
+        assertEquals(untouched, cache.getStats().getHits() - hits);
+    }
+    
+    /** Изменение затрагивает таблицы обеих пар языков {@code x} и {@code y}. */
+    private static BiPredicate<Lang, Lang> pair(Lang x, Lang y) {
+        return (a, b) -> (a.equals(x) && b.equals(y)) || (a.equals(y) && b.equals(x));
+    }
+    
+    /** Изменение затрагивает все таблицы с языком {@code x}. */
+    private static BiPredicate<Lang, Lang> lang(Lang x) {
+        return (a, b) -> a.equals(x) || b.equals(x);
+    }
+    
+    /** Изменение не затрагивает таблиц. */
+    private static BiPredicate<Lang, Lang> none() {
+        return (a, b) -> false;
+    }
+    
+    @Test public void testEditsInvalidateOnlyAffectedTables() {
+        checkEdit(dict -> assertTrue(dict.addTranslation(new Word("слово1", ru), new Word("another", en))), pair(ru, en));
+        checkEdit(dict -> assertTrue(dict.addWord(new Word("новое", ru))), none());
+        checkEdit(dict -> assertTrue(dict.removeWord(new Word("Wort2", de))), lang(de));
+        checkEdit(dict -> assertTrue(dict.removeLang(de)), lang(de));
+        checkEdit(dict -> assertTrue(dict.addLang(de)), none());
+        checkEdit(dict -> assertTrue(dict.addTranslation(new Word("слово3", ru), new Word("Wort3", de))), pair(ru, de));
+        checkEdit(dict -> assertTrue(dict.removeLangLazily(en)), lang(en));
+    }
+    
+    @Test public void testBatchInvalidatesOnceAtTheEnd() {
+        checkEdit(dict -> assertTrue(dict.batch()
+                .addTranslation(new Word("слово4", ru), new Word("Wort4", de))
+                .addTranslation(new Word("слово5", ru), new Word("Wort5", de))
+                .apply()), pair(ru, de));
+        checkEdit(dict -> assertTrue(dict.batch()
+                .removeWord(new Word("word6", en))
+                .addWord(new Word("ещё", ru))
+                .apply()), lang(en));
+        checkEdit(dict -> assertFalse(dict.batch()
+                .addWord(new Word("ещё одно", ru))
+                .addTranslation(new Word("нет такого", ru), new Word("none", en))
+                .apply()), none());
+    }
+    
+    @Test public void testTableBuiltDuringEditIsNotCached() {
+        Word kot = new Word("кот", ru);
+        Word cat = new Word("cat", en);
+        Dictionary editing = new Dictionary(ru) {
+            
+            private boolean edited = false;
+            
+            @Override
+            public DictionaryTable buildDictionary(Lang langFirst, Lang langSec) {
+                DictionaryTable result = super.buildDictionary(langFirst, langSec);
+                if (!edited) {
+                    edited = true;
+                    addWord(kot);
+                    addTranslation(kot, cat);
+                }
+                return result;
+            }
+        
+        };
+        editing.addLang(en);
+        DictionaryTableCache editingCache = DictionaryTableCache.attach(editing, 10);
+        
+        assertFalse(editingCache.get(ru, en).containsWord(kot));
+        assertEquals(0, editingCache.getStats().getSize());
+        assertTrue(editingCache.get(ru, en).containsWord(kot));
+        assertEquals(1, editingCache.getStats().getSize());
+    }
+    
+    @Test public void testLeastRecentlyUsedTableIsEvicted() {
+        DictionaryTableCache small = DictionaryTableCache.attach(d, 2);
+        DictionaryTable ruEn = small.get(ru, en);
+        small.get(en, ru);
+        assertSame(ruEn, small.get(ru, en));
+        small.get(de, ru);
+        
+        DictionaryTableCache.Stats stats = small.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(3, stats.getMisses());
+        assertEquals(1, stats.getEvictions());
+        assertEquals(2, stats.getSize());
+        assertEquals(0.25, stats.getHitRate(), 1e-9);
+        
+        assertSame(ruEn, small.get(ru, en));
+        assertNotSame(ruEn, small.get(en, ru));
+        assertEquals(2, small.getStats().getHits());
+        assertNull(small.get(ru, new Lang("fr", "Français")));
+    }
+    
+    @Test public void testDetachClearsCache() {
+        cache.get(ru, en);
+        cache.detach();
+        assertEquals(0, cache.getStats().getSize());
+        assertEquals(1, cache.getStats().getMisses());
+    }
+
+}
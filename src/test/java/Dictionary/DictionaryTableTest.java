@@ -0,0 +1,93 @@
+package Dictionary;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DictionaryTableTest {
+    
+    private final Lang ru = new Lang("ru", "Русский");
+    private final Lang en = new Lang("en", "English");
+    private final Lang de = new Lang("de", "Deutsch");
+    private final Lang fr = new Lang("fr", "Français");
+    private final Lang[] langs = { ru, en, de, fr };
+    
+    private Word randomWord(Random random) {
+        return new Word("w" + random.nextInt(300), langs[random.nextInt(langs.length)]);
+    }
+    
+    /**
+     * Заполняет словарь случайными словами и переводами, в том числе переводами
+     * на тот же язык и словами без переводов.
+     */
+    private void fill(Dictionary d, Random random) {
+        for (Lang lang : langs) {
+            d.addLang(lang);
+        }
+        for (int i = 0; i < 3000; i++) {
+            Word word = randomWord(random);
+            d.addWord(word);
+            if (random.nextInt(4) != 0)
+                d.addTranslation(word, randomWord(random));
+        }
+    }
+    
+    /**
+     * Проверяет, что таблицы всех пар совпадают с таблицами, построенными по одной.
+     */
+    private void assertAllPairs(HashMap<Lang, HashMap<Lang, DictionaryTable>> all,
+            Function<Lang, Function<Lang, DictionaryTable>> single) {
+        assertEquals(langs.length, all.size());
+        for (Lang langFirst : langs) {
+            Map<Lang, DictionaryTable> tables = all.get(langFirst);
+            assertNotNull(langFirst.toString(), tables);
+            assertEquals(langs.length, tables.size());
+            for (Lang langSec : langs) {
+                String pair = langFirst + " -> " + langSec;
+                assertEquals(pair, single.apply(langFirst).apply(langSec).hashMap(), tables.get(langSec).hashMap());
+            }
+        }
+    }
+    
+    @Test public void testBuildAllTablesMatchesBuildDictionary() {
+        List<Function<Lang, Dictionary>> factories = Arrays.asList(Dictionary::new, Dictionary::compact,
+                ConcurrentDictionary::new, SnapshotDictionary::new);
+        for (Function<Lang, Dictionary> factory : factories) {
+            Dictionary d = factory.apply(ru);
+            fill(d, new Random(15));
+            assertAllPairs(d.buildAllTables(), a -> b -> d.buildDictionary(a, b));
+        }
+    }
+    
+    @Test public void testSnapshotBuildTablesMatchesBuildDictionary() {
+        SnapshotDictionary d = new SnapshotDictionary(ru);
+        fill(d, new Random(15));
+        DictionarySnapshot snapshot = d.snapshot();
+        d.addWord(new Word("новое", ru));
+        d.addWord(new Word("new", en));
+        assertTrue(d.addTranslation(new Word("новое", ru), new Word("new", en)));
+        
+        assertAllPairs(snapshot.buildTables(Arrays.asList(langs)), a -> b -> snapshot.buildDictionary(a, b));
+        assertFalse(snapshot.buildTables(Arrays.asList(langs)).get(ru).get(en).containsWord(new Word("новое", ru)));
+    }
+    
+    @Test public void testBuildTablesSkipsMissingLangs() {
+        Dictionary d = new Dictionary(ru);
+        d.addLang(en);
+        d.addWord(new Word("мир", ru));
+        d.addWord(new Word("world", en));
+        assertTrue(d.addTranslation(new Word("мир", ru), new Word("world", en)));
+        
+        HashMap<Lang, HashMap<Lang, DictionaryTable>> tables = d.buildTables(Arrays.asList(ru, en, de));
+        assertEquals(2, tables.size());
+        assertNull(tables.get(de));
+        assertNull(tables.get(ru).get(de));
+        assertTrue(tables.get(ru).get(en).containsWord(new Word("мир", ru)));
+        assertNull(d.buildTables(null));
+    }
+}
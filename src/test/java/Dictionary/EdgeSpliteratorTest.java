@@ -0,0 +1,73 @@
+package Dictionary;
+
+import java.util.Map;
+import java.util.Spliterator;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class EdgeSpliteratorTest {
+    
+    private final Lang ru = new Lang("ru", "Русский");
+    private final Lang en = new Lang("en", "English");
+    
+    private Dictionary fill(Dictionary d) {
+        d.addLang(en);
+        for (int i = 0; i < 100; i++) {
+            d.addWord(new Word("слово" + i, ru));
+            d.addTranslation(new Word("слово" + i, ru), new Word("word" + i, en));
+            d.addTranslation(new Word("слово" + i, ru), new Word("word" + (i + 1), en));
+        }
+        return d;
+    }
+    
+    private void checkSizeDecreases(Spliterator<Map.Entry<Word, Word>> edges) {
+        assertTrue((edges.characteristics() & Spliterator.SIZED) != 0);
+        assertEquals(400, edges.getExactSizeIfKnown());
+        for (int i = 1; i <= 150; i++) {
+            assertTrue(edges.tryAdvance(e -> { }));
+            assertEquals(400 - i, edges.getExactSizeIfKnown());
+        }
+        
+        long[] rest = new long[1];
+        edges.forEachRemaining(e -> rest[0]++);
+        assertEquals(250, rest[0]);
+        assertEquals(0, edges.estimateSize());
+        assertFalse(edges.tryAdvance(e -> { }));
+    }
+    
+    @Test public void testSizedEdgesCountDown() {
+        checkSizeDecreases(fill(new Dictionary(ru)).edges().spliterator());
+        checkSizeDecreases(fill(Dictionary.compact(ru)).edges().spliterator());
+        checkSizeDecreases(fill(new SnapshotDictionary(ru)).edges().spliterator());
+    }
+    
+    @Test public void testSizeCountedAfterFirstAdvance() {
+        Spliterator<Map.Entry<Word, Word>> edges = fill(new Dictionary(ru)).edges().spliterator();
+        assertTrue(edges.tryAdvance(e -> { }));
+        assertTrue(edges.tryAdvance(e -> { }));
+        assertEquals(398, edges.getExactSizeIfKnown());
+        assertEquals(400, fill(new Dictionary(ru)).edges().count());
+    }
+    
+    @Test public void testCompactWordsCountDown() {
+        Dictionary d = Dictionary.compact(ru);
+        for (int i = 0; i < 10; i++) {
+            d.addWord(new Word("слово" + i, ru));
+        }
+        
+        Spliterator<Word> words = d.words(ru).spliterator();
+        assertTrue((words.characteristics() & Spliterator.SIZED) != 0);
+        assertEquals(10, words.getExactSizeIfKnown());
+        assertTrue(words.tryAdvance(w -> { }));
+        assertTrue(words.tryAdvance(w -> { }));
+        assertEquals(8, words.estimateSize());
+        assertEquals(8, words.getExactSizeIfKnown());
+        
+        long[] rest = new long[1];
+        words.forEachRemaining(w -> rest[0]++);
+        assertEquals(8, rest[0]);
+        assertEquals(0, words.estimateSize());
+        assertEquals(10, d.words(ru).count());
+    }
+
+}
@@ -0,0 +1,130 @@
+package Dictionary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class FuzzyIndexTest {
+    
+    private final Lang ru = new Lang("ru", "Русский");
+    private final Lang en = new Lang("en", "English");
+    
+    private static final String LETTERS = "абвг";
+    
+    private static String randomText(Random random, int maxLength) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1 + random.nextInt(maxLength); i > 0; i--) {
+            sb.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Вычисляет расстояние Левенштейна полной таблицей.
+     */
+    private static int levenshtein(String a, String b) {
+        int[][] dp = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0 || j == 0)
+                    dp[i][j] = i + j;
+                else
+                    dp[i][j] = Math.min(Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1),
+                            dp[i - 1][j - 1] + ((a.charAt(i - 1) == b.charAt(j - 1)) ? 0 : 1));
+            }
+        }
+        return dp[a.length()][b.length()];
+    }
+    
+    /**
+     * Возвращает тексты и расстояния совпадений перебором всех слов языка.
+     */
+    private static List<String> bruteForce(Dictionary d, Lang lang, String text, int maxDistance, int limit) {
+        List<FuzzyIndex.Match> matches = new ArrayList<>();
+        for (Word w : d.getWordsByLang(lang)) {
+            int distance = levenshtein(w.getWord(), text);
+            if (distance <= maxDistance)
+                matches.add(new FuzzyIndex.Match(w, distance));
+        }
+        Collections.sort(matches);
+        return describe(matches.subList(0, Math.min(limit, matches.size())));
+    }
+    
+    private static List<String> describe(List<FuzzyIndex.Match> matches) {
+        List<String> result = new ArrayList<>();
+        for (FuzzyIndex.Match m : matches) {
+            result.add(m.getWord().getWord() + ":" + m.getDistance());
+        }
+        return result;
+    }
+    
+    @Test public void testBandedDistanceMatchesFullTable() {
+        Random random = new Random(11);
+        for (int i = 0; i < 20000; i++) {
+            String a = randomText(random, 9);
+            String b = randomText(random, 9);
+            int max = random.nextInt(4);
+            assertEquals(a + " " + b, Math.min(levenshtein(a, b), max + 1), FuzzyIndex.distance(a, b, max));
+        }
+        assertEquals(0, FuzzyIndex.distance("", "", 0));
+        assertEquals(2, FuzzyIndex.distance("", "абв", 1));
+    }
+    
+    @Test public void testSimilarMatchesBruteForce() {
+        Dictionary d = new Dictionary(ru);
+        d.addLang(en);
+        Random random = new Random(111);
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            String text = randomText(random, 10);
+            texts.add(text);
+            d.addWord(new Word(text, ru));
+        }
+        FuzzyIndex index = FuzzyIndex.attach(d);
+        
+        for (int i = 0; i < 2000; i++) {
+            Word word = new Word(randomText(random, 10), ru);
+            if (random.nextInt(3) == 0)
+                d.removeWord(new Word(texts.get(random.nextInt(texts.size())), ru));
+            else
+                d.addWord(word);
+            
+            // Запрос - слово словаря с одной-двумя правками или случайная строка
+            StringBuilder query = new StringBuilder(texts.get(random.nextInt(texts.size())));
+            for (int e = random.nextInt(3); e > 0 && query.length() > 1; e--) {
+                int pos = random.nextInt(query.length());
+                if (random.nextBoolean())
+                    query.setCharAt(pos, LETTERS.charAt(random.nextInt(LETTERS.length())));
+                else
+                    query.deleteCharAt(pos);
+            }
+            String text = (random.nextInt(5) == 0) ? randomText(random, 10) : query.toString();
+            int maxDistance = random.nextInt(3);
+            int limit = 1 + random.nextInt(10);
+            assertEquals(text + " k=" + maxDistance, bruteForce(d, ru, text, maxDistance, limit),
+                    describe(index.similar(ru, text, maxDistance, limit)));
+        }
+    }
+    
+    @Test public void testSimilarFollowsLanguages() {
+        Dictionary d = new Dictionary(ru);
+        d.addLang(en);
+        FuzzyIndex index = FuzzyIndex.attach(d);
+        d.addWord(new Word("translation", en));
+        
+        List<FuzzyIndex.Match> matches = index.similar(en, "transaltion", 2, 10);
+        assertEquals(1, matches.size());
+        assertEquals(2, matches.get(0).getDistance());
+        assertTrue(matches.get(0).getWord().isCanonical());
+        assertTrue(index.similar(en, "transaltion", 1, 10).isEmpty());
+        assertTrue(index.similar(ru, "translation", 2, 10).isEmpty());
+        assertTrue(index.similar(en, "translation", -1, 10).isEmpty());
+        
+        d.removeLang(en);
+        assertTrue(index.similar(en, "translation", 0, 10).isEmpty());
+    }
+
+}
@@ -0,0 +1,126 @@
+package Dictionary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+@SuppressWarnings("auxiliaryclass")
+public class LangSetTest {
+    
+    private static final String[] CODES = { "ru", "en", "de", "fr", "es", "it", "pl", "uk", "zh", "ja" };
+    
+    private static Lang lang(int i) {
+        return new Lang(CODES[i], "Язык " + (char)('я' - i));
+    }
+    
+    /**
+     * Проверяет, что все представления списка языков совпадают с моделью - языками по кодам.
+     */
+    private static void assertMatches(TreeMap<String, Lang> model, LangSet langs) {
+        List<Lang> byCode = new ArrayList<>(model.values());
+        List<Lang> byTitle = new ArrayList<>(byCode);
+        Collections.sort(byTitle, (a, b) -> a.getTitle().compareTo(b.getTitle()));
+        
+        assertEquals(byCode, new ArrayList<>(langs.getLangSet()));
+        assertEquals(byCode, new ArrayList<>(langs.getSortedLangs()));
+        assertEquals(byCode, new ArrayList<>(langs.getSortedLangs(langsSortType.BY_CODE)));
+        assertEquals(byTitle, new ArrayList<>(langs.getLangSet(langsSortType.BY_TITLE)));
+        assertEquals(byTitle, new ArrayList<>(langs.getSortedLangs(langsSortType.BY_TITLE)));
+        for (int i = 0; i < CODES.length; i++) {
+            Lang expected = model.get(CODES[i]);
+            Lang actual = langs.getLangByCode(CODES[i]);
+            assertEquals(CODES[i], expected, actual);
+            assertEquals(CODES[i], expected != null, langs.contains(lang(i)));
+            assertEquals(CODES[i], expected != null, langs.contains(lang(i).intern()));
+            HashSet<Lang> titled = langs.getLangsByTitle(lang(i).getTitle());
+            assertEquals(CODES[i], (expected == null) ? Collections.emptySet() : Collections.singleton(expected), titled);
+        }
+    }
+    
+    @Test public void testViewsFollowEditsAndClones() {
+        Random random = new Random(18);
+        TreeMap<String, Lang> model = new TreeMap<>();
+        model.put(CODES[0], lang(0));
+        LangSet langs = new LangSet(lang(0));
+        List<TreeMap<String, Lang>> cloneModels = new ArrayList<>();
+        List<LangSet> clones = new ArrayList<>();
+        List<SortedSet<Lang>> views = new ArrayList<>();
+        List<List<Lang>> viewContents = new ArrayList<>();
+        
+        for (int step = 0; step < 3000; step++) {
+            int i = random.nextInt(CODES.length);
+            int op = random.nextInt(10);
+            if (op < 4) {
+                assertEquals(!model.containsKey(CODES[i]), langs.addLang(lang(i)));
+                model.putIfAbsent(CODES[i], lang(i));
+            } else if (op < 6) {
+                assertEquals(model.remove(CODES[i]) != null, langs.removeLang(lang(i)));
+            } else if (op < 7) {
+                assertEquals(model.remove(CODES[i]) != null, langs.removeLangByCode(CODES[i]));
+            } else if (op < 8) {
+                if (model.containsKey(CODES[i]))
+                    assertFalse(langs.addLang(new Lang(CODES[i], "Другое название")));
+            } else if (op < 9) {
+                cloneModels.add(new TreeMap<>(model));
+                clones.add(langs.clone());
+            } else {
+                SortedSet<Lang> view = langs.getSortedLangs(random.nextBoolean() ? langsSortType.BY_CODE : langsSortType.BY_TITLE);
+                views.add(view);
+                viewContents.add(new ArrayList<>(view));
+            }
+            assertMatches(model, langs);
+            
+            if (!clones.isEmpty()) {
+                int c = random.nextInt(clones.size());
+                int j = random.nextInt(CODES.length);
+                if (random.nextBoolean()) {
+                    assertEquals(!cloneModels.get(c).containsKey(CODES[j]), clones.get(c).addLang(lang(j)));
+                    cloneModels.get(c).putIfAbsent(CODES[j], lang(j));
+                } else {
+                    assertEquals(cloneModels.get(c).remove(CODES[j]) != null, clones.get(c).removeLang(lang(j)));
+                }
+            }
+        }
+        
+        for (int c = 0; c < clones.size(); c++) {
+            assertMatches(cloneModels.get(c), clones.get(c));
+        }
+        for (int v = 0; v < views.size(); v++) {
+            assertEquals(viewContents.get(v), new ArrayList<>(views.get(v)));
+        }
+        assertMatches(model, langs);
+    }
+    
+    @Test public void testCopiesAndViewsAreDetached() {
+        LangSet langs = new LangSet(lang(0), lang(1));
+        TreeSet<Lang> copy = langs.getLangSet();
+        copy.clear();
+        assertEquals(2, langs.getLangSet().size());
+        
+        SortedSet<Lang> view = langs.getSortedLangs();
+        try {
+            view.clear();
+            fail();
+        } catch (UnsupportedOperationException e) {
+            assertEquals(2, view.size());
+        }
+        
+        HashSet<Lang> titled = langs.getLangsByTitle(lang(0).getTitle());
+        titled.clear();
+        assertTrue(langs.getLangsByTitle(lang(0).getTitle()).contains(lang(0)));
+        
+        assertEquals(1, new LangSet(lang(2), new Lang(CODES[2], "Другое название")).getLangSet().size());
+        assertNull(langs.getLangByCode(""));
+        assertNull(langs.getLangByCode(null));
+        assertNull(langs.getLangsByTitle(null));
+        assertFalse(langs.removeLangByCode(""));
+        assertFalse(langs.addLang(null));
+    }
+}
@@ -0,0 +1,123 @@
+package Dictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LiveDictionaryTableTest {
+    
+    private final Lang ru = new Lang("ru", "Русский");
+    private final Lang en = new Lang("en", "English");
+    private final Lang de = new Lang("de", "Deutsch");
+    private final Lang[] langs = { ru, en, de };
+    
+    private Word randomWord(Random random) {
+        return new Word("w" + random.nextInt(40), langs[random.nextInt(langs.length)]);
+    }
+    
+    /**
+     * Проверяет, что таблица совпадает с заново построенной таблицей словаря
+     * или пуста, если одного из языков в словаре нет.
+     */
+    private static void assertMatches(Dictionary d, LiveDictionaryTable live, Lang langFirst, Lang langSec) {
+        DictionaryTable built = d.buildDictionary(langFirst, langSec);
+        if (built == null)
+            assertTrue(live.isEmpty());
+        else
+            assertEquals(built.hashMap(), live.hashMap());
+    }
+    
+    @Test public void testRandomEditsKeepTableCurrent() {
+        List<Function<Lang, Dictionary>> factories = Arrays.asList(Dictionary::new, Dictionary::compact,
+                ConcurrentDictionary::new, SnapshotDictionary::new);
+        for (Function<Lang, Dictionary> factory : factories) {
+            Dictionary d = factory.apply(ru);
+            d.addLang(en);
+            d.addLang(de);
+            LiveDictionaryTable ruEn = LiveDictionaryTable.attach(d, ru, en);
+            LiveDictionaryTable enRu = LiveDictionaryTable.attach(d, en, ru);
+            LiveDictionaryTable deDe = LiveDictionaryTable.attach(d, de, de);
+            
+            Random random = new Random(14);
+            for (int i = 0; i < 5000; i++) {
+                Word word = randomWord(random);
+                int op = random.nextInt(1000);
+                if (op < 5) {
+                    Lang lang = langs[1 + random.nextInt(langs.length - 1)];
+                    if (random.nextBoolean())
+                        d.removeLang(lang);
+                    else
+                        d.removeLangLazily(lang);
+                } else if (op < 50) {
+                    d.addLang(langs[random.nextInt(langs.length)]);
+                } else if (op < 200) {
+                    d.removeWord(word);
+                } else if (op < 450) {
+                    d.addWord(word);
+                } else if (op < 900) {
+                    d.addTranslation(word, randomWord(random));
+                } else {
+                    DictionaryBatch batch = d.batch();
+                    for (int j = random.nextInt(5); j >= 0; j--) {
+                        Word w = randomWord(random);
+                        if (random.nextInt(3) == 0)
+                            batch.removeWord(w);
+                        else
+                            batch.addWord(w).addTranslation(w, randomWord(random));
+                    }
+                    batch.apply();
+                }
+                
+                assertMatches(d, ruEn, ru, en);
+                assertMatches(d, enRu, en, ru);
+                assertMatches(d, deDe, de, de);
+            }
+            assertFalse(d.getClass().getSimpleName(), ruEn.isEmpty());
+            
+            ruEn.detach();
+            d.addTranslation(new Word("новое", ru), new Word("new", en));
+            assertFalse(ruEn.containsWord(new Word("новое", ru)));
+        }
+    }
+    
+    @Test(timeout = 60000) public void testAttachWhileEditing() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            ConcurrentDictionary d = new ConcurrentDictionary(ru);
+            d.addLang(en);
+            for (int i = 0; i < 2000; i++) {
+                Word w = new Word("слово" + i, ru);
+                d.addWord(w);
+                d.addTranslation(w, new Word("word" + i, en));
+            }
+            
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Random random = new Random(round * 10 + t);
+                Thread writer = new Thread(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        Word w = new Word("слово" + random.nextInt(3000), ru);
+                        if (random.nextInt(3) == 0) {
+                            d.removeWord(w);
+                        } else {
+                            d.addWord(w);
+                            d.addTranslation(w, new Word("word" + random.nextInt(3000), en));
+                        }
+                    }
+                });
+                writers.add(writer);
+                writer.start();
+            }
+            
+            LiveDictionaryTable live = LiveDictionaryTable.attach(d, ru, en);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            assertMatches(d, live, ru, en);
+        }
+    }
+
+}
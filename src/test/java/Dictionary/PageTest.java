@@ -0,0 +1,141 @@
+package Dictionary;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class PageTest {
+    
+    private final Lang ru = new Lang("ru", "Русский");
+    private final Lang en = new Lang("en", "English");
+    
+    private Dictionary dictionary(int seed) {
+        Dictionary d = new Dictionary(ru);
+        d.addLang(en);
+        Random random = new Random(seed);
+        for (int i = 0; i < 500; i++) {
+            Word word = new Word("слово" + random.nextInt(100000), ru);
+            d.addWord(word);
+            // Переводы есть у малой доли слов, чтобы страницы таблицы упирались в SCAN_FACTOR
+            if (random.nextInt(40) == 0)
+                d.addTranslation(word, new Word("word" + i, en));
+        }
+        return d;
+    }
+    
+    /** Возвращает слова языка в порядке текста. */
+    private static List<Word> sortedWords(Dictionary d, Lang lang) {
+        TreeMap<String, Word> sorted = new TreeMap<>();
+        for (Word w : d.getWordsByLang(lang)) {
+            sorted.put(w.getWord(), w);
+        }
+        return new ArrayList<>(sorted.values());
+    }
+    
+    @Test public void testWordPagesCoverAllWords() {
+        Dictionary d = dictionary(20);
+        PrefixIndex prefixIndex = PrefixIndex.attach(d);
+        CollationIndex collationIndex = CollationIndex.attach(d);
+        
+        List<Word> prefixWords = new ArrayList<>();
+        List<Word> collationWords = new ArrayList<>();
+        String prefixToken = null;
+        String collationToken = null;
+        int pages = 0;
+        do {
+            Page<Word> prefixPage = prefixIndex.page(ru, prefixToken, 37);
+            Page<Word> collationPage = collationIndex.page(ru, collationToken, 37);
+            assertTrue(prefixPage.getItems().size() <= 37);
+            prefixWords.addAll(prefixPage.getItems());
+            collationWords.addAll(collationPage.getItems());
+            prefixToken = prefixPage.getNextToken();
+            collationToken = collationPage.getNextToken();
+            assertEquals(prefixPage.hasNext(), prefixToken != null);
+            pages++;
+        } while (prefixToken != null || collationToken != null);
+        
+        assertEquals(sortedWords(d, ru), prefixWords);
+        assertEquals(collationIndex.words(ru), collationWords);
+        assertEquals((500 + 36) / 37, pages, 1);
+        assertFalse(prefixIndex.page(ru, null, 0).hasNext());
+        assertTrue(prefixIndex.page(null, null, 10).getItems().isEmpty());
+    }
+    
+    /** Возвращает не более {@code limit} первых слов {@code words}, оставшихся в словаре. */
+    private static List<Word> remaining(Dictionary d, List<Word> words, int limit) {
+        List<Word> result = new ArrayList<>();
+        for (Word w : words) {
+            if (result.size() < limit && d.buildTranslationsSet(w) != null)
+                result.add(w);
+        }
+        return result;
+    }
+    
+    @Test public void testTokenWordRemovedBetweenPages() {
+        Dictionary d = dictionary(21);
+        PrefixIndex prefixIndex = PrefixIndex.attach(d);
+        CollationIndex collationIndex = CollationIndex.attach(d);
+        List<Word> prefixOrder = sortedWords(d, ru);
+        List<Word> collationOrder = collationIndex.words(ru);
+        
+        Page<Word> prefixFirst = prefixIndex.page(ru, null, 100);
+        Page<Word> collationFirst = collationIndex.page(ru, null, 100);
+        Word last = prefixFirst.getItems().get(99);
+        assertEquals(last.getWord(), prefixFirst.getNextToken());
+        
+        // Удаляются маркеры обоих индексов и следующие за ними слова; добавляется слово в пройденную часть
+        Word collationLast = collationFirst.getItems().get(99);
+        d.removeWord(last);
+        d.removeWord(prefixOrder.get(100));
+        d.removeWord(collationLast);
+        d.removeWord(collationOrder.get(100));
+        assertTrue(d.addWord(new Word(prefixOrder.get(0).getWord() + "а", ru)));
+        
+        Page<Word> prefixSecond = prefixIndex.page(ru, prefixFirst.getNextToken(), 100);
+        assertEquals(remaining(d, prefixOrder.subList(100, prefixOrder.size()), 100), prefixSecond.getItems());
+        Page<Word> collationSecond = collationIndex.page(ru, collationFirst.getNextToken(), 100);
+        assertEquals(remaining(d, collationOrder.subList(100, collationOrder.size()), 100), collationSecond.getItems());
+    }
+    
+    @Test public void testTablePagesCoverAllRows() {
+        Dictionary d = dictionary(22);
+        PrefixIndex prefixIndex = PrefixIndex.attach(d);
+        CollationIndex collationIndex = CollationIndex.attach(d);
+        
+        LinkedHashMap<Word, Set<Word>> prefixRows = new LinkedHashMap<>();
+        LinkedHashMap<Word, Set<Word>> collationRows = new LinkedHashMap<>();
+        String prefixToken = null;
+        String collationToken = null;
+        do {
+            Page<Map.Entry<Word, Set<Word>>> prefixPage = prefixIndex.tablePage(ru, en, prefixToken, 2);
+            Page<Map.Entry<Word, Set<Word>>> collationPage = collationIndex.tablePage(ru, en, collationToken, 2);
+            assertTrue(prefixPage.getItems().size() <= 2);
+            for (Map.Entry<Word, Set<Word>> row : prefixPage.getItems()) {
+                assertNull(prefixRows.put(row.getKey(), row.getValue()));
+            }
+            for (Map.Entry<Word, Set<Word>> row : collationPage.getItems()) {
+                assertNull(collationRows.put(row.getKey(), row.getValue()));
+            }
+            prefixToken = prefixPage.getNextToken();
+            collationToken = collationPage.getNextToken();
+        } while (prefixToken != null || collationToken != null);
+        
+        DictionaryTable expected = d.buildDictionary(ru, en);
+        assertEquals(expected.hashMap(), prefixRows);
+        assertEquals(expected.hashMap(), collationRows);
+        assertEquals(new ArrayList<>(collationIndex.sortedTable(ru, en).words()), new ArrayList<>(collationRows.keySet()));
+        
+        List<Word> prefixOrder = new ArrayList<>(prefixRows.keySet());
+        for (int i = 1; i < prefixOrder.size(); i++) {
+            assertTrue(prefixOrder.get(i - 1).getWord().compareTo(prefixOrder.get(i).getWord()) < 0);
+        }
+        assertTrue(prefixIndex.tablePage(ru, null, null, 10).getItems().isEmpty());
+    }
+
+}
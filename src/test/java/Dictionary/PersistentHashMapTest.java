@@ -0,0 +1,128 @@
+package Dictionary;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class PersistentHashMapTest {
+    
+    /** Ключ с заданным хэш-кодом, чтобы проверять ключи с одинаковым хэш-кодом. */
+    private static final class Key {
+        
+        private final int id;
+        private final int hash;
+        
+        Key(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && ((Key)obj).id == id;
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    
+    }
+    
+    private static void assertSameContent(Map<Key, Integer> expected, PersistentHashMap<Key, Integer> actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, actual);
+        assertEquals(expected.size(), actual.entrySet().size());
+        int count = 0;
+        for (Map.Entry<Key, Integer> e : actual.entrySet()) {
+            assertEquals(expected.get(e.getKey()), e.getValue());
+            count++;
+        }
+        assertEquals(expected.size(), count);
+    }
+    
+    @Test public void testRandomOperationsMatchHashMap() {
+        Random random = new Random(5);
+        HashMap<Key, Integer> expected = new HashMap<>();
+        PersistentHashMap<Key, Integer> actual = PersistentHashMap.empty();
+        for (int i = 0; i < 200000; i++) {
+            int id = random.nextInt(5000);
+            // Треть ключей - с одним из четырёх хэш-кодов, остальные - со случайными
+            Key key = new Key(id, (id % 3 == 0) ? id % 4 : id * 0x9E3779B9);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                actual = actual.minus(key);
+            } else {
+                Integer value = random.nextInt(10);
+                expected.put(key, value);
+                actual = actual.plus(key, value);
+            }
+            assertEquals(expected.get(key), actual.get(key));
+            if (i % 20000 == 0)
+                assertSameContent(expected, actual);
+        }
+        assertSameContent(expected, actual);
+        
+        for (Key key : new ArrayList<>(expected.keySet())) {
+            actual = actual.minus(key);
+        }
+        assertTrue(actual.isEmpty());
+        assertFalse(actual.entrySet().iterator().hasNext());
+    }
+    
+    @Test public void testOldVersionsAreUnchanged() {
+        List<PersistentHashMap<Key, Integer>> versions = new ArrayList<>();
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < 1000; i++) {
+            versions.add(map);
+            map = map.plus(new Key(i, i & 0xFF), i);
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            map = map.minus(new Key(i, i & 0xFF));
+        }
+        
+        assertEquals(500, map.size());
+        for (int v = 0; v < versions.size(); v++) {
+            PersistentHashMap<Key, Integer> version = versions.get(v);
+            assertEquals(v, version.size());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals((i < v) ? Integer.valueOf(i) : null, version.get(new Key(i, i & 0xFF)));
+            }
+        }
+        assertSame(map, map.plus(new Key(1, 1), 1));
+        assertSame(map, map.minus(new Key(0, 0)));
+    }
+    
+    @Test public void testSnapshotVersionsShareUnchangedWords() {
+        Lang ru = new Lang("ru", "Русский");
+        Lang en = new Lang("en", "English");
+        SnapshotDictionary d = new SnapshotDictionary(ru);
+        d.addLang(en);
+        d.edit(dict -> {
+            for (int i = 0; i < 1000; i++) {
+                dict.addWord(new Word("слово" + i, ru));
+                dict.addTranslation(new Word("слово" + i, ru), new Word("word" + i, en));
+            }
+        });
+        DictionarySnapshot before = d.snapshot();
+        
+        assertTrue(d.removeWord(new Word("слово0", ru)));
+        assertTrue(d.addTranslation(new Word("слово1", ru), new Word("another", en)));
+        DictionarySnapshot after = d.snapshot();
+        
+        assertEquals(1000, before.wordsByLang(ru).size());
+        assertTrue(before.translations(new Word("word0", en)).contains(new Word("слово0", ru)));
+        assertEquals(1, before.translations(new Word("слово1", ru)).size());
+        assertEquals(999, after.wordsByLang(ru).size());
+        assertFalse(after.containsWord(new Word("слово0", ru)));
+        assertTrue(after.translations(new Word("word0", en)).isEmpty());
+        assertEquals(2, after.translations(new Word("слово1", ru)).size());
+        assertEquals(1001, after.wordsByLang(en).size());
+        assertSame(before.translations(new Word("слово2", ru)), after.translations(new Word("слово2", ru)));
+    }
+
+}
@@ -0,0 +1,137 @@
+package Dictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class PivotSearchTest {
+    
+    private final Lang ru = new Lang("ru", "Русский");
+    private final Lang en = new Lang("en", "English");
+    private final Lang fr = new Lang("fr", "Français");
+    private final Lang de = new Lang("de", "Deutsch");
+    
+    private static List<String> texts(Collection<Word> words) {
+        List<String> result = new ArrayList<>();
+        for (Word w : words) {
+            result.add(w.getWord());
+        }
+        return result;
+    }
+    
+    @Test public void testDirectTranslationsFirstThenByDepthAndPaths() {
+        Dictionary d = new Dictionary(ru);
+        d.addLang(en);
+        d.addLang(fr);
+        d.addLang(de);
+        Word kot = new Word("кот", ru);
+        d.addWord(kot);
+        d.addTranslation(kot, new Word("Katze", de));
+        d.addTranslation(kot, new Word("cat", en));
+        d.addTranslation(kot, new Word("tomcat", en));
+        d.addTranslation(new Word("cat", en), new Word("Katze", de));
+        d.addTranslation(new Word("cat", en), new Word("Kater", de));
+        d.addTranslation(new Word("tomcat", en), new Word("Kater", de));
+        d.addTranslation(new Word("tomcat", en), new Word("Abendkater", de));
+        d.addTranslation(new Word("cat", en), new Word("chat", fr));
+        d.addTranslation(new Word("chat", fr), new Word("Büsi", de));
+        // Путь через другое слово исходного языка не используется
+        d.addTranslation(new Word("cat", en), new Word("кошка", ru));
+        d.addTranslation(new Word("кошка", ru), new Word("Mieze", de));
+        
+        assertEquals(Arrays.asList("Katze"), texts(d.translate(kot, de, 1)));
+        assertEquals(Arrays.asList("Katze", "Kater", "Abendkater"), texts(d.translate(kot, de, 2)));
+        assertEquals(Arrays.asList("Katze", "Kater", "Abendkater", "Büsi"), texts(d.translate(kot, de, 3)));
+        assertEquals(Arrays.asList("Katze", "Kater", "Abendkater"), texts(
+                d.buildPivotDictionary(ru, de, Collections.singleton(en), 3).translations(kot)));
+        assertEquals(Arrays.asList("Katze"), texts(
+                d.buildPivotDictionary(ru, de, Collections.singleton(fr), 3).translations(kot)));
+        assertNull(d.translate(new Word("нет", ru), de, 2));
+        assertTrue(d.translate(new Word("кошка", ru), en, 1).contains(new Word("cat", en)));
+        assertNull(d.buildPivotDictionary(ru, de, 0));
+    }
+    
+    /**
+     * Находит переводы перебором всех простых путей длины не больше {@code maxDepth}
+     * и упорядочивает их по длине кратчайшего пути, количеству кратчайших путей и тексту.
+     */
+    private static List<String> bruteForce(Dictionary d, Word word, Lang target, int maxDepth) {
+        Map<Word, int[]> best = new HashMap<>();
+        Set<Word> path = new HashSet<>();
+        path.add(word);
+        walk(d, word, word.getLang(), target, 1, maxDepth, path, best);
+        
+        List<Map.Entry<Word, int[]>> found = new ArrayList<>(best.entrySet());
+        found.sort((a, b) -> {
+            if (a.getValue()[0] != b.getValue()[0])
+                return Integer.compare(a.getValue()[0], b.getValue()[0]);
+            if (a.getValue()[1] != b.getValue()[1])
+                return Integer.compare(b.getValue()[1], a.getValue()[1]);
+            return a.getKey().getWord().compareTo(b.getKey().getWord());
+        });
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<Word, int[]> e : found) {
+            result.add(e.getKey().getWord());
+        }
+        return result;
+    }
+    
+    private static void walk(Dictionary d, Word from, Lang source, Lang target, int depth, int maxDepth,
+            Set<Word> path, Map<Word, int[]> best) {
+        if (depth > maxDepth)
+            return;
+        
+        for (Word tr : d.buildTranslationsSet(from)) {
+            if (path.contains(tr))
+                continue;
+            
+            if (tr.getLang().equals(target)) {
+                int[] b = best.get(tr);
+                if (b == null || depth < b[0])
+                    best.put(tr, new int[] { depth, 1 });
+                else if (depth == b[0])
+                    b[1]++;
+            } else if (!tr.getLang().equals(source)) {
+                path.add(tr);
+                walk(d, tr, source, target, depth + 1, maxDepth, path, best);
+                path.remove(tr);
+            }
+        }
+    }
+    
+    @Test public void testRankingMatchesBruteForce() {
+        Lang[] langs = { ru, en, fr, de };
+        Dictionary d = new Dictionary(ru);
+        d.addLang(en);
+        d.addLang(fr);
+        d.addLang(de);
+        Random random = new Random(12);
+        for (int i = 0; i < 600; i++) {
+            Word word = new Word("w" + random.nextInt(30), langs[random.nextInt(langs.length)]);
+            Lang other = langs[random.nextInt(langs.length)];
+            if (other.equals(word.getLang()))
+                continue;
+            d.addWord(word);
+            d.addTranslation(word, new Word("w" + random.nextInt(30), other));
+        }
+        
+        for (int maxDepth = 1; maxDepth <= 4; maxDepth++) {
+            DictionaryTable table = d.buildPivotDictionary(ru, de, maxDepth);
+            for (Word w : d.getWordsByLang(ru)) {
+                List<String> expected = bruteForce(d, w, de, maxDepth);
+                assertEquals(expected, texts(d.translate(w, de, maxDepth)));
+                assertEquals(expected, texts(table.containsWord(w) ? table.translations(w) : Collections.emptySet()));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package Dictionary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class PrefixIndexTest {
+    
+    private final Lang ru = new Lang("ru", "Русский");
+    private final Lang en = new Lang("en", "English");
+    
+    private static final String LETTERS = "абвгд";
+    
+    private static String randomText(Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1 + random.nextInt(5); i > 0; i--) {
+            sb.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Возвращает первые {@code limit} слов языка с префиксом {@code prefix} перебором всех слов словаря.
+     */
+    private static List<Word> bruteForce(Dictionary d, Lang lang, String prefix, int limit) {
+        TreeMap<String, Word> sorted = new TreeMap<>();
+        for (Word w : d.getWordsByLang(lang)) {
+            if (w.getWord().startsWith(prefix))
+                sorted.put(w.getWord(), w);
+        }
+        
+        List<Word> result = new ArrayList<>();
+        for (Word w : sorted.values()) {
+            if (result.size() == limit)
+                break;
+            result.add(w);
+        }
+        return result;
+    }
+    
+    @Test public void testCompletionsMatchBruteForce() {
+        Dictionary d = new Dictionary(ru);
+        d.addLang(en);
+        Random random = new Random(10);
+        for (int i = 0; i < 300; i++) {
+            d.addWord(new Word(randomText(random), ru));
+        }
+        PrefixIndex index = PrefixIndex.attach(d);
+        
+        for (int i = 0; i < 3000; i++) {
+            Word word = new Word(randomText(random), ru);
+            if (random.nextInt(3) == 0)
+                d.removeWord(word);
+            else
+                d.addWord(word);
+            
+            String prefix = randomText(random);
+            prefix = prefix.substring(0, random.nextInt(Math.min(prefix.length(), 3) + 1));
+            int limit = 1 + random.nextInt(20);
+            assertEquals(bruteForce(d, ru, prefix, limit), index.completions(ru, prefix, limit));
+        }
+        
+        List<Word> all = index.completions(ru, "", Integer.MAX_VALUE);
+        assertEquals(d.getWordsByLang(ru).size(), all.size());
+        assertTrue(all.get(0).isCanonical());
+    }
+    
+    @Test public void testCompletionsFollowLanguages() {
+        Dictionary d = new Dictionary(ru);
+        d.addLang(en);
+        d.addWord(new Word("cat", en));
+        PrefixIndex index = PrefixIndex.attach(d);
+        d.addWord(new Word("car", en));
+        d.addWord(new Word("кот", ru));
+        
+        assertEquals(2, index.completions(en, "ca", 10).size());
+        assertEquals("car", index.completions(en, "ca", 1).get(0).getWord());
+        assertTrue(index.completions(en, "d", 10).isEmpty());
+        assertTrue(index.completions(en, "ca", 0).isEmpty());
+        assertTrue(index.completions(null, "ca", 10).isEmpty());
+        
+        d.removeLang(en);
+        assertTrue(index.completions(en, "", 10).isEmpty());
+        assertEquals(1, index.completions(ru, "", 10).size());
+        
+        index.detach();
+        d.addWord(new Word("котёнок", ru));
+        assertEquals(1, index.completions(ru, "кот", 10).size());
+    }
+
+}
@@ -0,0 +1,127 @@
+package Dictionary;
+
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ShardedDictionaryTest {
+    
+    private final Lang ru = new Lang("ru", "Русский");
+    private final Lang en = new Lang("en", "English");
+    private final Lang de = new Lang("de", "Deutsch");
+    
+    private Dictionary ruShard;
+    private Dictionary enShard;
+    private ShardServer server;
+    private RemoteShard deShard;
+    private ShardedDictionary router;
+    
+    @Before public void setUp() throws Exception {
+        ruShard = new ConcurrentDictionary(ru);
+        enShard = new SnapshotDictionary(en);
+        server = new ShardServer(new ConcurrentDictionary(de), 0);
+        deShard = new RemoteShard("127.0.0.1", server.getPort(), 5000);
+        router = new ShardedDictionary(Arrays.asList(ruShard, enShard, deShard));
+    }
+    
+    @After public void tearDown() throws Exception {
+        deShard.close();
+        server.close();
+    }
+    
+    @Test public void testCrossShardTranslationsAreStoredOnBothShards() {
+        assertEquals(0, router.shardOf(ru));
+        assertEquals(1, router.shardOf(en));
+        assertEquals(2, router.shardOf(de));
+        
+        Word cat = new Word("кот", ru);
+        assertTrue(router.addWord(cat));
+        assertTrue(router.addTranslation(cat, new Word("cat", en)));
+        assertTrue(router.addTranslation(cat, new Word("Katze", de)));
+        assertFalse(router.addTranslation(cat, new Word("cat", en)));
+        
+        Set<Word> translations = router.buildTranslationsSet(cat);
+        assertEquals(2, translations.size());
+        assertTrue(translations.contains(new Word("Katze", de)));
+        assertTrue(enShard.buildTranslationsSet(new Word("cat", en)).contains(cat));
+        assertTrue(router.buildTranslationsSet(new Word("Katze", de)).contains(cat));
+        assertTrue(router.buildDictionary(de, ru).translations(new Word("Katze", de)).contains(cat));
+        
+        assertTrue(router.removeWord(cat));
+        assertNull(router.buildTranslationsSet(cat));
+        assertTrue(router.buildTranslationsSet(new Word("cat", en)).isEmpty());
+        assertTrue(router.buildTranslationsSet(new Word("Katze", de)).isEmpty());
+        assertNull(ruShard.buildTranslationsSet(new Word("cat", en)));
+    }
+    
+    @Test public void testShardsMustBeThreadSafe() {
+        try {
+            new ShardedDictionary(Arrays.asList(new ConcurrentDictionary(ru), new Dictionary(en)));
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Dictionary без синхронизации
+        }
+        try {
+            new ShardedDictionary(Arrays.asList(new ConcurrentDictionary(ru), null));
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Нет части
+        }
+    }
+    
+    @Test public void testFailedSecondShardRollsBackFirstShard() throws Exception {
+        Word cat = new Word("кот", ru);
+        Word dog = new Word("пёс", ru);
+        Word katze = new Word("Katze", de);
+        router.addWord(cat);
+        router.addWord(dog);
+        assertTrue(router.addTranslation(cat, new Word("cat", en)));
+        assertTrue(router.addTranslation(dog, katze));
+        
+        server.close();
+        try {
+            router.addTranslation(cat, katze);
+            fail("expected UncheckedIOException");
+        } catch (UncheckedIOException e) {
+            // Часть de недоступна
+        }
+        
+        assertEquals(1, ruShard.buildTranslationsSet(cat).size());
+        assertFalse(ruShard.buildTranslationsSet(cat).contains(katze));
+        assertTrue(ruShard.buildTranslationsSet(katze).contains(dog));
+        assertEquals(1, ruShard.buildTranslationsSet(katze).size());
+        
+        assertTrue(deShard.isBroken());
+        long start = System.nanoTime();
+        try {
+            router.addTranslation(cat, katze);
+            fail("expected UncheckedIOException");
+        } catch (UncheckedIOException e) {
+            assertTrue(System.nanoTime() - start < 1000000000L);
+        }
+        assertFalse(ruShard.buildTranslationsSet(cat).contains(katze));
+    }
+    
+    @Test(timeout = 10000) public void testUnansweredRequestTimesOut() throws Exception {
+        try (ServerSocket silent = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+                RemoteShard shard = new RemoteShard("127.0.0.1", silent.getLocalPort(), 200)) {
+            Socket accepted = silent.accept();
+            try {
+                shard.addWord(new Word("кот", ru));
+                fail("expected UncheckedIOException");
+            } catch (UncheckedIOException e) {
+                assertTrue(shard.isBroken());
+            } finally {
+                accepted.close();
+            }
+        }
+    }
+
+}